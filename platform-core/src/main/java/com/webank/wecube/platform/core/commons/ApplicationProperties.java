@@ -1,5 +1,8 @@
 package com.webank.wecube.platform.core.commons;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "wecube.core")
@@ -113,6 +116,7 @@ public class ApplicationProperties {
         private Integer staticResourceServerPort;
         private String staticResourceServerPath;
         private String baseMountPath;
+        private int deployParallelism = 4;
 
         public String getPluginDeployPath() {
             return pluginDeployPath;
@@ -226,6 +230,14 @@ public class ApplicationProperties {
             this.baseMountPath = baseMountPath;
         }
 
+        public int getDeployParallelism() {
+            return deployParallelism;
+        }
+
+        public void setDeployParallelism(int deployParallelism) {
+            this.deployParallelism = deployParallelism;
+        }
+
     }
 
     @ConfigurationProperties(prefix = "wecube.core.s3")
@@ -264,6 +276,8 @@ public class ApplicationProperties {
     public class ResourceProperties {
         private Integer dockerPullImageTimeout = 300;
         private String passwordEncryptionSeed;
+        private int dataQueryPoolMaxSize = 5;
+        private int dataQueryPoolIdleSeconds = 600;
 
         public Integer getDockerPullImageTimeout() {
             return dockerPullImageTimeout;
@@ -281,6 +295,22 @@ public class ApplicationProperties {
             this.passwordEncryptionSeed = passwordEncryptionSeed;
         }
 
+        public int getDataQueryPoolMaxSize() {
+            return dataQueryPoolMaxSize;
+        }
+
+        public void setDataQueryPoolMaxSize(int dataQueryPoolMaxSize) {
+            this.dataQueryPoolMaxSize = dataQueryPoolMaxSize;
+        }
+
+        public int getDataQueryPoolIdleSeconds() {
+            return dataQueryPoolIdleSeconds;
+        }
+
+        public void setDataQueryPoolIdleSeconds(int dataQueryPoolIdleSeconds) {
+            this.dataQueryPoolIdleSeconds = dataQueryPoolIdleSeconds;
+        }
+
     }
 
     @ConfigurationProperties(prefix = "wecube.core.docker-remote")
@@ -314,6 +344,422 @@ public class ApplicationProperties {
         }
     }
 
+    @ConfigurationProperties(prefix = "wecube.core.dme")
+    public class DmeProperties {
+        private boolean batchQueryEnabled = false;
+        private int batchQuerySize = 100;
+        private boolean parallelQueryEnabled = false;
+        private int parallelQueryPoolSize = 8;
+        private int expressionCacheSize = 1024;
+        private boolean dataCacheEnabled = false;
+        private int dataCacheMaxProcInstances = 256;
+        private int dataCacheExpireMinutes = 30;
+        private boolean httpPoolEnabled = false;
+        private int httpMaxTotalConnections = 100;
+        private int httpMaxConnectionsPerRoute = 50;
+        private int httpMaxConcurrentRequestsPerPackage = 20;
+        private int httpConnectTimeout = 5000;
+        private int httpSocketTimeout = 60000;
+        private int httpConnectionRequestTimeout = 10000;
+        private int httpKeepAliveMillis = 60000;
+        private int httpCloseIdleConnectionSecs = 30;
+
+        public boolean isBatchQueryEnabled() {
+            return batchQueryEnabled;
+        }
+
+        public void setBatchQueryEnabled(boolean batchQueryEnabled) {
+            this.batchQueryEnabled = batchQueryEnabled;
+        }
+
+        public int getBatchQuerySize() {
+            return batchQuerySize;
+        }
+
+        public void setBatchQuerySize(int batchQuerySize) {
+            this.batchQuerySize = batchQuerySize;
+        }
+
+        public boolean isParallelQueryEnabled() {
+            return parallelQueryEnabled;
+        }
+
+        public void setParallelQueryEnabled(boolean parallelQueryEnabled) {
+            this.parallelQueryEnabled = parallelQueryEnabled;
+        }
+
+        public int getParallelQueryPoolSize() {
+            return parallelQueryPoolSize;
+        }
+
+        public void setParallelQueryPoolSize(int parallelQueryPoolSize) {
+            this.parallelQueryPoolSize = parallelQueryPoolSize;
+        }
+
+        public int getExpressionCacheSize() {
+            return expressionCacheSize;
+        }
+
+        public void setExpressionCacheSize(int expressionCacheSize) {
+            this.expressionCacheSize = expressionCacheSize;
+        }
+
+        public boolean isDataCacheEnabled() {
+            return dataCacheEnabled;
+        }
+
+        public void setDataCacheEnabled(boolean dataCacheEnabled) {
+            this.dataCacheEnabled = dataCacheEnabled;
+        }
+
+        public int getDataCacheMaxProcInstances() {
+            return dataCacheMaxProcInstances;
+        }
+
+        public void setDataCacheMaxProcInstances(int dataCacheMaxProcInstances) {
+            this.dataCacheMaxProcInstances = dataCacheMaxProcInstances;
+        }
+
+        public int getDataCacheExpireMinutes() {
+            return dataCacheExpireMinutes;
+        }
+
+        public void setDataCacheExpireMinutes(int dataCacheExpireMinutes) {
+            this.dataCacheExpireMinutes = dataCacheExpireMinutes;
+        }
+
+        public boolean isHttpPoolEnabled() {
+            return httpPoolEnabled;
+        }
+
+        public void setHttpPoolEnabled(boolean httpPoolEnabled) {
+            this.httpPoolEnabled = httpPoolEnabled;
+        }
+
+        public int getHttpMaxTotalConnections() {
+            return httpMaxTotalConnections;
+        }
+
+        public void setHttpMaxTotalConnections(int httpMaxTotalConnections) {
+            this.httpMaxTotalConnections = httpMaxTotalConnections;
+        }
+
+        public int getHttpMaxConnectionsPerRoute() {
+            return httpMaxConnectionsPerRoute;
+        }
+
+        public void setHttpMaxConnectionsPerRoute(int httpMaxConnectionsPerRoute) {
+            this.httpMaxConnectionsPerRoute = httpMaxConnectionsPerRoute;
+        }
+
+        public int getHttpMaxConcurrentRequestsPerPackage() {
+            return httpMaxConcurrentRequestsPerPackage;
+        }
+
+        public void setHttpMaxConcurrentRequestsPerPackage(int httpMaxConcurrentRequestsPerPackage) {
+            this.httpMaxConcurrentRequestsPerPackage = httpMaxConcurrentRequestsPerPackage;
+        }
+
+        public int getHttpConnectTimeout() {
+            return httpConnectTimeout;
+        }
+
+        public void setHttpConnectTimeout(int httpConnectTimeout) {
+            this.httpConnectTimeout = httpConnectTimeout;
+        }
+
+        public int getHttpSocketTimeout() {
+            return httpSocketTimeout;
+        }
+
+        public void setHttpSocketTimeout(int httpSocketTimeout) {
+            this.httpSocketTimeout = httpSocketTimeout;
+        }
+
+        public int getHttpConnectionRequestTimeout() {
+            return httpConnectionRequestTimeout;
+        }
+
+        public void setHttpConnectionRequestTimeout(int httpConnectionRequestTimeout) {
+            this.httpConnectionRequestTimeout = httpConnectionRequestTimeout;
+        }
+
+        public int getHttpKeepAliveMillis() {
+            return httpKeepAliveMillis;
+        }
+
+        public void setHttpKeepAliveMillis(int httpKeepAliveMillis) {
+            this.httpKeepAliveMillis = httpKeepAliveMillis;
+        }
+
+        public int getHttpCloseIdleConnectionSecs() {
+            return httpCloseIdleConnectionSecs;
+        }
+
+        public void setHttpCloseIdleConnectionSecs(int httpCloseIdleConnectionSecs) {
+            this.httpCloseIdleConnectionSecs = httpCloseIdleConnectionSecs;
+        }
+    }
+
+    @ConfigurationProperties(prefix = "wecube.core.plugin-invocation")
+    public class PluginInvocationProperties {
+        private String instanceSelectionStrategy = "round-robin";
+        private boolean directInstanceInvocationEnabled = false;
+        private int instanceCacheExpireSeconds = 60;
+        private int instanceFailureThreshold = 3;
+        private int instanceEjectionSeconds = 30;
+        private Map<String, Integer> instanceWeights = new HashMap<>();
+        private int invocationCorePoolSize = 16;
+        private int invocationMaxPoolSize = 64;
+        private int invocationQueueCapacity = 1000;
+        private int invocationMaxConcurrencyPerPackage = 32;
+        private String invocationRejectionPolicy = "caller-runs";
+        private int batchExecutionChunkSize = 1;
+        private int batchExecutionMaxConcurrencyPerPackage = 4;
+        private boolean batchExecutionAuditEnabled = false;
+        private int batchExecutionLeaseSeconds = 120;
+
+        public String getInstanceSelectionStrategy() {
+            return instanceSelectionStrategy;
+        }
+
+        public void setInstanceSelectionStrategy(String instanceSelectionStrategy) {
+            this.instanceSelectionStrategy = instanceSelectionStrategy;
+        }
+
+        public boolean isDirectInstanceInvocationEnabled() {
+            return directInstanceInvocationEnabled;
+        }
+
+        public void setDirectInstanceInvocationEnabled(boolean directInstanceInvocationEnabled) {
+            this.directInstanceInvocationEnabled = directInstanceInvocationEnabled;
+        }
+
+        public int getInstanceCacheExpireSeconds() {
+            return instanceCacheExpireSeconds;
+        }
+
+        public void setInstanceCacheExpireSeconds(int instanceCacheExpireSeconds) {
+            this.instanceCacheExpireSeconds = instanceCacheExpireSeconds;
+        }
+
+        public int getInstanceFailureThreshold() {
+            return instanceFailureThreshold;
+        }
+
+        public void setInstanceFailureThreshold(int instanceFailureThreshold) {
+            this.instanceFailureThreshold = instanceFailureThreshold;
+        }
+
+        public int getInstanceEjectionSeconds() {
+            return instanceEjectionSeconds;
+        }
+
+        public void setInstanceEjectionSeconds(int instanceEjectionSeconds) {
+            this.instanceEjectionSeconds = instanceEjectionSeconds;
+        }
+
+        public Map<String, Integer> getInstanceWeights() {
+            return instanceWeights;
+        }
+
+        public void setInstanceWeights(Map<String, Integer> instanceWeights) {
+            this.instanceWeights = instanceWeights;
+        }
+
+        public int getInvocationCorePoolSize() {
+            return invocationCorePoolSize;
+        }
+
+        public void setInvocationCorePoolSize(int invocationCorePoolSize) {
+            this.invocationCorePoolSize = invocationCorePoolSize;
+        }
+
+        public int getInvocationMaxPoolSize() {
+            return invocationMaxPoolSize;
+        }
+
+        public void setInvocationMaxPoolSize(int invocationMaxPoolSize) {
+            this.invocationMaxPoolSize = invocationMaxPoolSize;
+        }
+
+        public int getInvocationQueueCapacity() {
+            return invocationQueueCapacity;
+        }
+
+        public void setInvocationQueueCapacity(int invocationQueueCapacity) {
+            this.invocationQueueCapacity = invocationQueueCapacity;
+        }
+
+        public int getInvocationMaxConcurrencyPerPackage() {
+            return invocationMaxConcurrencyPerPackage;
+        }
+
+        public void setInvocationMaxConcurrencyPerPackage(int invocationMaxConcurrencyPerPackage) {
+            this.invocationMaxConcurrencyPerPackage = invocationMaxConcurrencyPerPackage;
+        }
+
+        public String getInvocationRejectionPolicy() {
+            return invocationRejectionPolicy;
+        }
+
+        public void setInvocationRejectionPolicy(String invocationRejectionPolicy) {
+            this.invocationRejectionPolicy = invocationRejectionPolicy;
+        }
+
+        public int getBatchExecutionChunkSize() {
+            return batchExecutionChunkSize;
+        }
+
+        public void setBatchExecutionChunkSize(int batchExecutionChunkSize) {
+            this.batchExecutionChunkSize = batchExecutionChunkSize;
+        }
+
+        public int getBatchExecutionMaxConcurrencyPerPackage() {
+            return batchExecutionMaxConcurrencyPerPackage;
+        }
+
+        public void setBatchExecutionMaxConcurrencyPerPackage(int batchExecutionMaxConcurrencyPerPackage) {
+            this.batchExecutionMaxConcurrencyPerPackage = batchExecutionMaxConcurrencyPerPackage;
+        }
+
+        public boolean isBatchExecutionAuditEnabled() {
+            return batchExecutionAuditEnabled;
+        }
+
+        public void setBatchExecutionAuditEnabled(boolean batchExecutionAuditEnabled) {
+            this.batchExecutionAuditEnabled = batchExecutionAuditEnabled;
+        }
+
+        public int getBatchExecutionLeaseSeconds() {
+            return batchExecutionLeaseSeconds;
+        }
+
+        public void setBatchExecutionLeaseSeconds(int batchExecutionLeaseSeconds) {
+            this.batchExecutionLeaseSeconds = batchExecutionLeaseSeconds;
+        }
+    }
+
+    @ConfigurationProperties(prefix = "wecube.core.ssh")
+    public class SshProperties {
+        private int maxSessionsPerConnection = 8;
+        private int connectTimeoutMillis = 10000;
+        private int idleSeconds = 300;
+        private int keepAliveSeconds = 60;
+        private int commandTimeoutSeconds = 300;
+
+        public int getMaxSessionsPerConnection() {
+            return maxSessionsPerConnection;
+        }
+
+        public void setMaxSessionsPerConnection(int maxSessionsPerConnection) {
+            this.maxSessionsPerConnection = maxSessionsPerConnection;
+        }
+
+        public int getConnectTimeoutMillis() {
+            return connectTimeoutMillis;
+        }
+
+        public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+            this.connectTimeoutMillis = connectTimeoutMillis;
+        }
+
+        public int getIdleSeconds() {
+            return idleSeconds;
+        }
+
+        public void setIdleSeconds(int idleSeconds) {
+            this.idleSeconds = idleSeconds;
+        }
+
+        public int getKeepAliveSeconds() {
+            return keepAliveSeconds;
+        }
+
+        public void setKeepAliveSeconds(int keepAliveSeconds) {
+            this.keepAliveSeconds = keepAliveSeconds;
+        }
+
+        public int getCommandTimeoutSeconds() {
+            return commandTimeoutSeconds;
+        }
+
+        public void setCommandTimeoutSeconds(int commandTimeoutSeconds) {
+            this.commandTimeoutSeconds = commandTimeoutSeconds;
+        }
+    }
+
+    @ConfigurationProperties(prefix = "wecube.core.authorization")
+    public class AuthorizationProperties {
+        private int cacheTtlSeconds = 30;
+        private int cacheMaxSize = 1000;
+
+        public int getCacheTtlSeconds() {
+            return cacheTtlSeconds;
+        }
+
+        public void setCacheTtlSeconds(int cacheTtlSeconds) {
+            this.cacheTtlSeconds = cacheTtlSeconds;
+        }
+
+        public int getCacheMaxSize() {
+            return cacheMaxSize;
+        }
+
+        public void setCacheMaxSize(int cacheMaxSize) {
+            this.cacheMaxSize = cacheMaxSize;
+        }
+    }
+
+    @ConfigurationProperties(prefix = "wecube.core.status-stream")
+    public class StatusStreamProperties {
+        private long coalesceWindowMillis = 500;
+        private long emitterTimeoutSeconds = 1800;
+        private int maxSubscribers = 1000;
+        private int senderThreads = 4;
+        private int maxPendingEventsPerSubscriber = 100;
+
+        public long getCoalesceWindowMillis() {
+            return coalesceWindowMillis;
+        }
+
+        public void setCoalesceWindowMillis(long coalesceWindowMillis) {
+            this.coalesceWindowMillis = coalesceWindowMillis;
+        }
+
+        public long getEmitterTimeoutSeconds() {
+            return emitterTimeoutSeconds;
+        }
+
+        public void setEmitterTimeoutSeconds(long emitterTimeoutSeconds) {
+            this.emitterTimeoutSeconds = emitterTimeoutSeconds;
+        }
+
+        public int getMaxSubscribers() {
+            return maxSubscribers;
+        }
+
+        public void setMaxSubscribers(int maxSubscribers) {
+            this.maxSubscribers = maxSubscribers;
+        }
+
+        public int getSenderThreads() {
+            return senderThreads;
+        }
+
+        public void setSenderThreads(int senderThreads) {
+            this.senderThreads = senderThreads;
+        }
+
+        public int getMaxPendingEventsPerSubscriber() {
+            return maxPendingEventsPerSubscriber;
+        }
+
+        public void setMaxPendingEventsPerSubscriber(int maxPendingEventsPerSubscriber) {
+            this.maxPendingEventsPerSubscriber = maxPendingEventsPerSubscriber;
+        }
+    }
+
     public String getDbInitStrategy() {
         return dbInitStrategy;
     }
@@ -20,6 +20,11 @@ import com.webank.wecube.platform.core.commons.ApplicationProperties.ResourcePro
 import com.webank.wecube.platform.core.commons.ApplicationProperties.S3Properties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.AppConfigProperties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.DockerRemoteProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.DmeProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.SshProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.AuthorizationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.StatusStreamProperties;
 import com.webank.wecube.platform.workflow.EnablePlatformWorkflowApplication;
 
 @Configuration
@@ -30,7 +35,12 @@ import com.webank.wecube.platform.workflow.EnablePlatformWorkflowApplication;
         S3Properties.class,
         ResourceProperties.class,
         DockerRemoteProperties.class,
-        AppConfigProperties.class
+        AppConfigProperties.class,
+        DmeProperties.class,
+        PluginInvocationProperties.class,
+        SshProperties.class,
+        AuthorizationProperties.class,
+        StatusStreamProperties.class
 })
 @ComponentScan({ "com.webank.wecube.platform.core.service" })
 @EntityScan(basePackages = { "com.webank.wecube.platform.core" })
@@ -54,6 +54,11 @@ public class ApplicationInformationController {
         return CommonResponseDto.okayWithData(version);
     }
 
+    @GetMapping("/appinfo/metrics")
+    public CommonResponseDto getRuntimeMetrics() {
+        return CommonResponseDto.okayWithData(applicationInformationService.getRuntimeMetrics());
+    }
+
     @GetMapping("/appinfo/loggers/query")
     public CommonResponseDto queryLoggers() {
         LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
@@ -25,4 +25,17 @@ public class BatchExecutionController {
         return okayWithData(batchExecutionService.handleBatchExecutionJob(batchExecutionRequest));
     }
 
+    @PostMapping("/batch-execution/async-run")
+    @ResponseBody
+    public CommonResponseDto submitBatchExecution(@RequestBody BatchExecutionRequestDto batchExecutionRequest) {
+        return okayWithData(batchExecutionService.submitBatchExecutionJob(batchExecutionRequest));
+    }
+
+    @GetMapping("/batch-execution/{batch-execution-job-id}/progress")
+    @ResponseBody
+    public CommonResponseDto getBatchExecutionProgress(
+            @PathVariable("batch-execution-job-id") String batchExecutionJobId) {
+        return okayWithData(batchExecutionService.getBatchExecutionProgress(batchExecutionJobId));
+    }
+
 }
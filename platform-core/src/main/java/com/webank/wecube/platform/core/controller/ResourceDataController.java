@@ -2,16 +2,22 @@ package com.webank.wecube.platform.core.controller;
 
 import static com.webank.wecube.platform.core.dto.CommonResponseDto.okayWithData;
 
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.webank.wecube.platform.core.dto.CommonResponseDto;
 import com.webank.wecube.platform.core.dto.SqlQueryRequest;
+import com.webank.wecube.platform.core.service.resource.ResourceDataExportWriter;
 import com.webank.wecube.platform.core.service.resource.ResourceDataQueryService;
 
 @RestController()
@@ -26,6 +32,17 @@ public class ResourceDataController {
         return okayWithData(resourceDataQueryService.queryDB(packageId, sqlQueryRequest));
     }
 
+    @PostMapping("/mysql/export")
+    public void exportDB(@PathVariable("package_id") String packageId,
+            @RequestParam(value = "format", defaultValue = ResourceDataExportWriter.FORMAT_CSV) String format,
+            @RequestBody SqlQueryRequest sqlQueryRequest, HttpServletResponse response) throws IOException {
+        response.setContentType(ResourceDataExportWriter.getContentType(format));
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", String.format("attachment;filename=%s-export.%s", packageId,
+                format.toLowerCase()));
+        resourceDataQueryService.exportDB(packageId, sqlQueryRequest, format, response.getOutputStream());
+    }
+
     @GetMapping("/s3/files")
     public CommonResponseDto queryS3Files(@PathVariable("package_id") String packageId){
         return okayWithData(resourceDataQueryService.queryS3Files(packageId));
@@ -3,6 +3,8 @@ package com.webank.wecube.platform.core.controller.plugin;
 import static com.webank.wecube.platform.core.dto.CommonResponseDto.okay;
 import static com.webank.wecube.platform.core.dto.CommonResponseDto.okayWithData;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,11 +12,13 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.dto.CommonResponseDto;
+import com.webank.wecube.platform.core.dto.PluginInstanceHostDto;
 import com.webank.wecube.platform.core.service.plugin.PluginInstanceService;
 
 @RestController
@@ -49,6 +53,29 @@ public class PluginInstanceController {
         return okay();
     }
 
+    @PostMapping("/packages/{package-id}/instances/launch")
+    public CommonResponseDto launchPluginInstances(@PathVariable(value = "package-id") String packageId,
+            @RequestBody List<PluginInstanceHostDto> hosts) {
+        try {
+            return okayWithData(pluginInstanceService.launchPluginInstances(packageId, hosts));
+        } catch (WecubeCoreException e) {
+            throw e;
+        } catch (Exception e) {
+            String msg = String.format("Launch plugin instance failed. Error is %s" , e.getMessage());
+            throw new WecubeCoreException("3271",msg, e.getMessage());
+        }
+    }
+
+    /**
+     * The launch progress is kept on the node running the launch, so with
+     * several platform nodes, it must be polled with sticky routing to the
+     * node the launch was started on.
+     */
+    @GetMapping("/packages/instances/launches/{launch-id}")
+    public CommonResponseDto getPluginInstanceLaunchProgress(@PathVariable(value = "launch-id") String launchId) {
+        return okayWithData(pluginInstanceService.getPluginInstanceLaunchProgress(launchId));
+    }
+
     @DeleteMapping("/packages/instances/{instance-id}/remove")
     public CommonResponseDto removePluginInstance(@PathVariable(value = "instance-id") String instanceId) {
         try {
@@ -1,6 +1,7 @@
 package com.webank.wecube.platform.core.controller.workflow;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
@@ -25,13 +26,16 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.webank.wecube.platform.auth.client.encryption.StringUtilsEx;
 import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder.AuthenticatedUser;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.dto.CommonResponseDto;
+import com.webank.wecube.platform.core.dto.workflow.GraphNodeDto;
 import com.webank.wecube.platform.core.dto.workflow.InterfaceParameterDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcDefInfoDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcDefInfoExportImportDto;
@@ -48,6 +52,7 @@ import com.webank.wecube.platform.core.service.workflow.WorkflowProcDefService;
 @RequestMapping("/v1")
 public class WorkflowProcessDefinitionController {
     private static final Logger log = LoggerFactory.getLogger(WorkflowProcessDefinitionController.class);
+    private static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
 
     @Autowired
     private WorkflowProcDefService procDefService;
@@ -141,6 +146,35 @@ public class WorkflowProcessDefinitionController {
         return CommonResponseDto.okayWithData(result);
     }
 
+    @GetMapping(value = "/process/definitions/{proc-def-id}/preview/entities/{entity-data-id}/stream", produces = MEDIA_TYPE_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamProcessDataPreview(@PathVariable("proc-def-id") String procDefId,
+            @PathVariable("entity-data-id") String dataId) {
+        ProcDefOutlineDto outline = workflowDataService.getProcessDataPreviewOutline(procDefId, dataId);
+        AuthenticatedUser currentUser = AuthenticationContextHolder.getCurrentUser();
+
+        StreamingResponseBody body = out -> {
+            AuthenticationContextHolder.clearCurrentUser();
+            AuthenticationContextHolder.setAuthenticatedUser(currentUser);
+            try {
+                workflowDataService.streamProcessDataPreview(outline, dataId, graphNodes -> {
+                    try {
+                        for (GraphNodeDto graphNode : graphNodes) {
+                            out.write(objectMapper.writeValueAsBytes(graphNode));
+                            out.write('\n');
+                        }
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                AuthenticationContextHolder.clearCurrentUser();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(MEDIA_TYPE_NDJSON)).body(body);
+    }
+
     @GetMapping("/process/{proc-id}/roles")
     public CommonResponseDto retrieveProcRoleBinding(@PathVariable("proc-id") String procId) {
         return CommonResponseDto.okayWithData(processRoleService.retrieveRoleIdByProcId(procId));
@@ -11,9 +11,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.webank.wecube.platform.core.dto.CommonResponseDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcInstInfoDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstInfoPageDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstQueryRequestDto;
 import com.webank.wecube.platform.core.dto.workflow.ProceedProcInstRequestDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcessDataPreviewDto;
 import com.webank.wecube.platform.core.dto.workflow.StartProcInstRequestDto;
@@ -44,6 +47,32 @@ public class WorkflowProcessInstanceController {
         return CommonResponseDto.okayWithData(result);
     }
 
+    @PostMapping("/process/instances/query")
+    public CommonResponseDto queryProcessInstances(@RequestBody ProcInstQueryRequestDto queryDto) {
+        ProcInstInfoPageDto result = procInstService.queryProcessInstances(queryDto);
+        return CommonResponseDto.okayWithData(result);
+    }
+
+    /**
+     * Streams the status transitions written on this platform node only. With
+     * several nodes, clients should still reload process instances
+     * periodically, as transitions of instances run by other nodes are not
+     * streamed.
+     */
+    @GetMapping(path = "/process/instances/status-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeProcessInstancesStatus() {
+        return procInstService.subscribeProcessInstancesStatus();
+    }
+
+    /**
+     * Streams the status transitions of the process instance written on this
+     * platform node only, see {@link #subscribeProcessInstancesStatus()}.
+     */
+    @GetMapping(path = "/process/instances/{id}/status-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeProcessInstanceStatus(@PathVariable(name = "id") Integer procInstId) {
+        return procInstService.subscribeProcessInstanceStatus(procInstId);
+    }
+
     @GetMapping("/process/instances/{id}")
     public CommonResponseDto getProcessInstance(@PathVariable(name = "id") Integer procInstId) {
         ProcInstInfoDto result = procInstService.getProcessInstanceById(procInstId);
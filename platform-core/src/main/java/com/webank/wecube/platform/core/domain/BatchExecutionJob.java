@@ -28,6 +28,12 @@ public class BatchExecutionJob {
     @Column
     private Timestamp completeTimestamp;
 
+    @Column
+    private String ownerNode;
+
+    @Column
+    private Timestamp leaseExpireTimestamp;
+
     @PrePersist
     public void initId() throws ParseException {
         this.id = DomainIdBuilder.buildDomainId(this);
@@ -57,6 +63,22 @@ public class BatchExecutionJob {
         this.completeTimestamp = completeTimestamp;
     }
 
+    public String getOwnerNode() {
+        return ownerNode;
+    }
+
+    public void setOwnerNode(String ownerNode) {
+        this.ownerNode = ownerNode;
+    }
+
+    public Timestamp getLeaseExpireTimestamp() {
+        return leaseExpireTimestamp;
+    }
+
+    public void setLeaseExpireTimestamp(Timestamp leaseExpireTimestamp) {
+        this.leaseExpireTimestamp = leaseExpireTimestamp;
+    }
+
     public List<ExecutionJob> getJobs() {
         return jobs;
     }
@@ -92,6 +114,10 @@ public class BatchExecutionJob {
 		builder.append(creator);
 		builder.append(", completeTimestamp=");
 		builder.append(completeTimestamp);
+		builder.append(", ownerNode=");
+		builder.append(ownerNode);
+		builder.append(", leaseExpireTimestamp=");
+		builder.append(leaseExpireTimestamp);
 		builder.append("]");
 		return builder.toString();
 	}
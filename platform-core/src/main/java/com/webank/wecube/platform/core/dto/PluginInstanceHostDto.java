@@ -0,0 +1,35 @@
+package com.webank.wecube.platform.core.dto;
+
+public class PluginInstanceHostDto {
+    private String hostIp;
+    private Integer port;
+
+    public PluginInstanceHostDto() {
+    }
+
+    public PluginInstanceHostDto(String hostIp, Integer port) {
+        this.hostIp = hostIp;
+        this.port = port;
+    }
+
+    public String getHostIp() {
+        return hostIp;
+    }
+
+    public void setHostIp(String hostIp) {
+        this.hostIp = hostIp;
+    }
+
+    public Integer getPort() {
+        return port;
+    }
+
+    public void setPort(Integer port) {
+        this.port = port;
+    }
+
+    @Override
+    public String toString() {
+        return hostIp + ":" + port;
+    }
+}
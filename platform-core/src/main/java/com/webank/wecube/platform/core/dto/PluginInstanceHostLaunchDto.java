@@ -0,0 +1,84 @@
+package com.webank.wecube.platform.core.dto;
+
+public class PluginInstanceHostLaunchDto {
+    public static final String STAGE_PENDING = "PENDING";
+    public static final String STAGE_TRANSFERRING = "TRANSFERRING";
+    public static final String STAGE_LOADING = "LOADING";
+    public static final String STAGE_CREATING = "CREATING";
+    public static final String STAGE_REGISTERING = "REGISTERING";
+    public static final String STAGE_RUNNING = "RUNNING";
+    public static final String STAGE_FAILED = "FAILED";
+
+    private String hostIp;
+    private Integer port;
+    private String stage = STAGE_PENDING;
+    private String pluginInstanceId;
+    private String errorMessage;
+    private boolean rolledBack;
+
+    public PluginInstanceHostLaunchDto() {
+    }
+
+    public PluginInstanceHostLaunchDto(String hostIp, Integer port) {
+        this.hostIp = hostIp;
+        this.port = port;
+    }
+
+    public boolean isFinished() {
+        return STAGE_RUNNING.equals(stage) || STAGE_FAILED.equals(stage);
+    }
+
+    public String getHostIp() {
+        return hostIp;
+    }
+
+    public void setHostIp(String hostIp) {
+        this.hostIp = hostIp;
+    }
+
+    public Integer getPort() {
+        return port;
+    }
+
+    public void setPort(Integer port) {
+        this.port = port;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    public String getPluginInstanceId() {
+        return pluginInstanceId;
+    }
+
+    public void setPluginInstanceId(String pluginInstanceId) {
+        this.pluginInstanceId = pluginInstanceId;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public boolean isRolledBack() {
+        return rolledBack;
+    }
+
+    public void setRolledBack(boolean rolledBack) {
+        this.rolledBack = rolledBack;
+    }
+
+    @Override
+    public String toString() {
+        return "[hostIp=" + hostIp + ", port=" + port + ", stage=" + stage + ", pluginInstanceId="
+                + pluginInstanceId + ", errorMessage=" + errorMessage + ", rolledBack=" + rolledBack + "]";
+    }
+}
@@ -0,0 +1,77 @@
+package com.webank.wecube.platform.core.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PluginInstanceLaunchProgressDto {
+    private String launchId;
+    private String packageId;
+    private int totalHosts;
+    private int completedHosts;
+    private int failedHosts;
+    private boolean completed;
+    private List<PluginInstanceHostLaunchDto> hosts = new ArrayList<>();
+
+    public String getLaunchId() {
+        return launchId;
+    }
+
+    public void setLaunchId(String launchId) {
+        this.launchId = launchId;
+    }
+
+    public String getPackageId() {
+        return packageId;
+    }
+
+    public void setPackageId(String packageId) {
+        this.packageId = packageId;
+    }
+
+    public int getTotalHosts() {
+        return totalHosts;
+    }
+
+    public void setTotalHosts(int totalHosts) {
+        this.totalHosts = totalHosts;
+    }
+
+    public int getCompletedHosts() {
+        return completedHosts;
+    }
+
+    public void setCompletedHosts(int completedHosts) {
+        this.completedHosts = completedHosts;
+    }
+
+    public int getFailedHosts() {
+        return failedHosts;
+    }
+
+    public void setFailedHosts(int failedHosts) {
+        this.failedHosts = failedHosts;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public List<PluginInstanceHostLaunchDto> getHosts() {
+        return hosts;
+    }
+
+    public void setHosts(List<PluginInstanceHostLaunchDto> hosts) {
+        this.hosts = hosts;
+    }
+
+    @Override
+    public String toString() {
+        return "[launchId=" + launchId + ", packageId=" + packageId + ", totalHosts=" + totalHosts
+                + ", completedHosts=" + completedHosts + ", failedHosts=" + failedHosts + ", completed=" + completed
+                + ", hosts=" + hosts + "]";
+    }
+}
@@ -4,6 +4,11 @@ import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 
 public class SqlQueryRequest extends ResourceQueryRequest{
     private String sqlQuery;
+    /**
+     * Skips the count query. The total rows of page info then only tell
+     * whether there are more rows after current page.
+     */
+    private boolean skipTotalCount;
     
     public SqlQueryRequest() {
     }
@@ -18,6 +23,14 @@ public class SqlQueryRequest extends ResourceQueryRequest{
     public void setSqlQuery(String sqlQuery) {
         this.sqlQuery = sqlQuery;
     }
+
+    public boolean isSkipTotalCount() {
+        return skipTotalCount;
+    }
+
+    public void setSkipTotalCount(boolean skipTotalCount) {
+        this.skipTotalCount = skipTotalCount;
+    }
     
     @Override
     public String toString() {
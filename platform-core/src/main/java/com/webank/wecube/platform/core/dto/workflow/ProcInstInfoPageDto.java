@@ -0,0 +1,55 @@
+package com.webank.wecube.platform.core.dto.workflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProcInstInfoPageDto {
+    private List<ProcInstInfoDto> contents = new ArrayList<>();
+    private Integer lastId;
+    private boolean hasMore;
+    private Integer totalRows;
+    private Boolean totalRowsExact;
+
+    public List<ProcInstInfoDto> getContents() {
+        return contents;
+    }
+
+    public void setContents(List<ProcInstInfoDto> contents) {
+        this.contents = contents;
+    }
+
+    public Integer getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(Integer lastId) {
+        this.lastId = lastId;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public Integer getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(Integer totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public Boolean getTotalRowsExact() {
+        return totalRowsExact;
+    }
+
+    public void setTotalRowsExact(Boolean totalRowsExact) {
+        this.totalRowsExact = totalRowsExact;
+    }
+}
@@ -1,8 +1,33 @@
-package com.webank.wecube.platform.core.jpa;
-import org.springframework.data.repository.CrudRepository;
-
-import com.webank.wecube.platform.core.domain.BatchExecutionJob;
-
-public interface BatchExecutionJobRepository extends  CrudRepository<BatchExecutionJob, String> {
-
-}
\ No newline at end of file
+package com.webank.wecube.platform.core.jpa;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import com.webank.wecube.platform.core.domain.BatchExecutionJob;
+
+public interface BatchExecutionJobRepository extends  CrudRepository<BatchExecutionJob, String> {
+    @Query("select b from BatchExecutionJob b where b.completeTimestamp is null and (b.leaseExpireTimestamp is null or b.leaseExpireTimestamp < :now) order by b.createTimestamp")
+    List<BatchExecutionJob> findExpiredBatchExecutionJobs(@Param("now") Timestamp now, Pageable pageable);
+
+    @Modifying
+    @Query("update BatchExecutionJob b set b.ownerNode = :ownerNode, b.leaseExpireTimestamp = :leaseExpireTimestamp where b.id = :id and b.completeTimestamp is null and b.leaseExpireTimestamp = :lastLeaseExpireTimestamp")
+    int claimBatchExecutionJob(@Param("id") String id,
+            @Param("lastLeaseExpireTimestamp") Timestamp lastLeaseExpireTimestamp,
+            @Param("ownerNode") String ownerNode, @Param("leaseExpireTimestamp") Timestamp leaseExpireTimestamp);
+
+    @Modifying
+    @Query("update BatchExecutionJob b set b.ownerNode = :ownerNode, b.leaseExpireTimestamp = :leaseExpireTimestamp where b.id = :id and b.completeTimestamp is null and b.leaseExpireTimestamp is null")
+    int claimUnleasedBatchExecutionJob(@Param("id") String id, @Param("ownerNode") String ownerNode,
+            @Param("leaseExpireTimestamp") Timestamp leaseExpireTimestamp);
+
+    @Modifying
+    @Query("update BatchExecutionJob b set b.leaseExpireTimestamp = :leaseExpireTimestamp where b.id in :ids and b.ownerNode = :ownerNode")
+    int renewLeases(@Param("ids") Collection<String> ids, @Param("ownerNode") String ownerNode,
+            @Param("leaseExpireTimestamp") Timestamp leaseExpireTimestamp);
+}
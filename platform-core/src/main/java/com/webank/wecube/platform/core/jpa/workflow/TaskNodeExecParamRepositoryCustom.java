@@ -0,0 +1,14 @@
+package com.webank.wecube.platform.core.jpa.workflow;
+
+import java.util.List;
+
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
+
+public interface TaskNodeExecParamRepositoryCustom {
+
+    /**
+     * Inserts all given parameters with JDBC batches and populates their
+     * generated ids.
+     */
+    List<TaskNodeExecParamEntity> batchInsert(List<TaskNodeExecParamEntity> paramEntities);
+}
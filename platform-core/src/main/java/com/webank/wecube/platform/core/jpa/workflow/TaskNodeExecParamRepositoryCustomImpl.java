@@ -0,0 +1,96 @@
+package com.webank.wecube.platform.core.jpa.workflow;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
+
+public class TaskNodeExecParamRepositoryCustomImpl implements TaskNodeExecParamRepositoryCustom {
+    private static final Logger log = LoggerFactory.getLogger(TaskNodeExecParamRepositoryCustomImpl.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "insert into core_ru_task_node_exec_param "
+            + "(created_by, created_time, updated_by, updated_time, obj_id, param_data_type, param_data_value, "
+            + "param_name, param_type, req_id, entity_data_id, entity_type_id, is_sensitive) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<TaskNodeExecParamEntity> batchInsert(List<TaskNodeExecParamEntity> paramEntities) {
+        if (paramEntities == null || paramEntities.isEmpty()) {
+            return paramEntities;
+        }
+
+        for (int fromIndex = 0; fromIndex < paramEntities.size(); fromIndex += BATCH_SIZE) {
+            int toIndex = Math.min(fromIndex + BATCH_SIZE, paramEntities.size());
+            List<TaskNodeExecParamEntity> batch = paramEntities.subList(fromIndex, toIndex);
+            jdbcTemplate.execute((ConnectionCallback<Void>) conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    for (TaskNodeExecParamEntity paramEntity : batch) {
+                        setValues(ps, paramEntity);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    populateGeneratedIds(ps, batch);
+                }
+                return null;
+            });
+        }
+
+        return paramEntities;
+    }
+
+    private void setValues(PreparedStatement ps, TaskNodeExecParamEntity paramEntity) throws SQLException {
+        ps.setString(1, paramEntity.getCreatedBy());
+        ps.setTimestamp(2, toTimestamp(paramEntity.getCreatedTime()));
+        ps.setString(3, paramEntity.getUpdatedBy());
+        ps.setTimestamp(4, toTimestamp(paramEntity.getUpdatedTime()));
+        ps.setString(5, paramEntity.getObjectId());
+        ps.setString(6, paramEntity.getParamDataType());
+        ps.setString(7, paramEntity.getParamDataValue());
+        ps.setString(8, paramEntity.getParamName());
+        ps.setString(9, paramEntity.getParamType());
+        ps.setString(10, paramEntity.getRequestId());
+        ps.setString(11, paramEntity.getEntityDataId());
+        ps.setString(12, paramEntity.getEntityTypeId());
+        if (paramEntity.getSensitive() == null) {
+            ps.setNull(13, Types.BIT);
+        } else {
+            ps.setBoolean(13, paramEntity.getSensitive());
+        }
+    }
+
+    private void populateGeneratedIds(PreparedStatement ps, List<TaskNodeExecParamEntity> batch)
+            throws SQLException {
+        int index = 0;
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            while (rs.next() && index < batch.size()) {
+                batch.get(index).setId(rs.getInt(1));
+                index++;
+            }
+        }
+
+        if (index < batch.size()) {
+            log.debug("only {} of {} generated ids returned by batch insert", index, batch.size());
+        }
+    }
+
+    private Timestamp toTimestamp(Date date) {
+        return date == null ? null : new Timestamp(date.getTime());
+    }
+}
@@ -1,6 +1,8 @@
 package com.webank.wecube.platform.core.service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +23,9 @@ public class ApplicationInformationService {
 	@Autowired
 	private AuthServerRestClient authServerRestClient;
 
+	@Autowired(required = false)
+	private List<RuntimeMetricsProvider> runtimeMetricsProviders;
+
 	public void healthCheck() {
 		log.debug("health checking...");
 		List<String> hosts = pluginInstanceService.getAvailableContainerHosts();
@@ -28,4 +33,16 @@ public class ApplicationInformationService {
 		
 		authServerRestClient.healthCheck();
 	}
+
+	public Map<String, Object> getRuntimeMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		if (runtimeMetricsProviders == null) {
+			return metrics;
+		}
+
+		for (RuntimeMetricsProvider provider : runtimeMetricsProviders) {
+			metrics.put(provider.getMetricsName(), provider.getMetrics());
+		}
+		return metrics;
+	}
 }
@@ -0,0 +1,253 @@
+package com.webank.wecube.platform.core.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder.AuthenticatedUser;
+import com.webank.wecube.platform.core.domain.BatchExecutionJob;
+import com.webank.wecube.platform.core.domain.ExecutionJob;
+import com.webank.wecube.platform.core.service.workflow.PluginInvocationScheduler;
+import com.webank.wecube.platform.workflow.commons.LocalIdGenerator;
+
+/**
+ * Runs the execution jobs of asynchronous batch executions in background.
+ * Jobs are dispatched in chunks once the batch execution job is committed,
+ * and run on a batch lane of the target plugin package, which has its own
+ * concurrency limit apart from the workflow plugin invocations. Chunks never
+ * run on the dispatcher: when the batch lane or the pool is full, the
+ * dispatcher backs off and submits the remaining chunks later. Each batch
+ * execution is leased to the node running it, which renews the lease until
+ * the batch execution completes. Only the batch executions whose leases have
+ * expired, as their nodes stopped, are failed by the other nodes.
+ */
+@Service
+public class BatchExecutionJobScheduler {
+    private static final Logger log = LoggerFactory.getLogger(BatchExecutionJobScheduler.class);
+
+    private static final String BATCH_LANE_PREFIX = "batch:";
+
+    private static final int DEFAULT_MAX_CONCURRENCY_PER_PACKAGE = 4;
+
+    private static final int DEFAULT_LEASE_SECONDS = 120;
+
+    private static final int RECOVERY_BATCH_SIZE = 100;
+
+    private static final long DISPATCH_BACKOFF_MILLIS = 500L;
+
+    @Autowired
+    private BatchExecutionService batchExecutionService;
+
+    @Autowired
+    private PluginInvocationScheduler pluginInvocationScheduler;
+
+    @Autowired(required = false)
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    private final String nodeId = LocalIdGenerator.generateId("node");
+
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "batch-execution-dispatcher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ScheduledExecutorService leaseKeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "batch-execution-lease-keeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ConcurrentMap<String, AtomicInteger> remainingChunks = new ConcurrentHashMap<>();
+
+    private final Set<String> ownedBatchExeJobIds = ConcurrentHashMap.newKeySet();
+
+    public void schedule(BatchExecutionJob batchExeJob, String pluginPackageName) {
+        String batchExeJobId = batchExeJob.getId();
+        List<List<Integer>> exeJobIdChunks = new ArrayList<>();
+        for (List<ExecutionJob> exeJobs : batchExecutionService.partitionExecutionJobs(batchExeJob.getJobs())) {
+            List<Integer> exeJobIds = new ArrayList<>();
+            for (ExecutionJob exeJob : exeJobs) {
+                exeJobIds.add(exeJob.getId());
+            }
+            exeJobIdChunks.add(exeJobIds);
+        }
+        AuthenticatedUser currentUser = AuthenticationContextHolder.getCurrentUser();
+
+        Runnable dispatchTask = () -> dispatch(batchExeJobId, exeJobIdChunks, pluginPackageName, currentUser);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            startDispatch(batchExeJobId, dispatchTask);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                startDispatch(batchExeJobId, dispatchTask);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseKeeper.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Timestamp newLeaseExpireTimestamp() {
+        return new Timestamp(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(getLeaseSeconds()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLeaseKeeper() {
+        long interval = Math.max(getLeaseSeconds() / 3, 1);
+        leaseKeeper.scheduleWithFixedDelay(this::keepLeases, 0, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Renews the leases of the batch executions running on this node, and
+     * fails the batch executions whose leases have expired.
+     */
+    void keepLeases() {
+        try {
+            if (!ownedBatchExeJobIds.isEmpty()) {
+                batchExecutionService.renewBatchExecutionJobLeases(new ArrayList<>(ownedBatchExeJobIds), nodeId,
+                        newLeaseExpireTimestamp());
+            }
+
+            int count = batchExecutionService.failExpiredBatchExecutionJobs(nodeId, newLeaseExpireTimestamp(),
+                    RECOVERY_BATCH_SIZE);
+            if (count > 0) {
+                log.warn("{} batch execution jobs with expired leases were failed", count);
+            }
+        } catch (Exception e) {
+            log.error("errors while keeping leases of batch execution jobs", e);
+        }
+    }
+
+    private void startDispatch(String batchExeJobId, Runnable dispatchTask) {
+        ownedBatchExeJobIds.add(batchExeJobId);
+        dispatcher.execute(dispatchTask);
+    }
+
+    private void dispatch(String batchExeJobId, List<List<Integer>> exeJobIdChunks, String pluginPackageName,
+            AuthenticatedUser user) {
+        if (exeJobIdChunks.isEmpty()) {
+            completeBatchExecutionJob(batchExeJobId);
+            return;
+        }
+
+        log.info("dispatch {} chunks of execution jobs of batch execution job {}", exeJobIdChunks.size(),
+                batchExeJobId);
+        remainingChunks.put(batchExeJobId, new AtomicInteger(exeJobIdChunks.size()));
+        submitChunks(batchExeJobId, new ArrayDeque<>(exeJobIdChunks), BATCH_LANE_PREFIX + pluginPackageName, user);
+    }
+
+    /**
+     * Submits the pending chunks to the batch lane until the lane or the pool
+     * is full, then submits the rest again after a while.
+     */
+    private void submitChunks(String batchExeJobId, Deque<List<Integer>> pendingChunks, String laneName,
+            AuthenticatedUser user) {
+        int maxConcurrency = getMaxConcurrencyPerPackage();
+        AuthenticationContextHolder.clearCurrentUser();
+        AuthenticationContextHolder.setAuthenticatedUser(user);
+        try {
+            while (!pendingChunks.isEmpty()) {
+                List<Integer> exeJobIds = pendingChunks.peek();
+                if (!pluginInvocationScheduler.trySubmit(laneName, maxConcurrency,
+                        () -> runExecutionJobs(batchExeJobId, exeJobIds))) {
+                    log.debug("{} is full, dispatch {} chunks of batch execution job {} later", laneName,
+                            pendingChunks.size(), batchExeJobId);
+                    dispatcher.schedule(() -> submitChunks(batchExeJobId, pendingChunks, laneName, user),
+                            DISPATCH_BACKOFF_MILLIS, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                pendingChunks.poll();
+            }
+        } finally {
+            AuthenticationContextHolder.clearCurrentUser();
+        }
+    }
+
+    private void runExecutionJobs(String batchExeJobId, List<Integer> exeJobIds) {
+        try {
+            batchExecutionService.runExecutionJobs(exeJobIds);
+        } catch (Exception e) {
+            log.error("errors to run execution jobs {} of batch execution job {}", exeJobIds, batchExeJobId, e);
+            failExecutionJobs(exeJobIds, e.getMessage());
+        } finally {
+            completeChunk(batchExeJobId);
+        }
+    }
+
+    private int getLeaseSeconds() {
+        if (pluginInvocationProperties == null) {
+            return DEFAULT_LEASE_SECONDS;
+        }
+        return Math.max(pluginInvocationProperties.getBatchExecutionLeaseSeconds(), 1);
+    }
+
+    private int getMaxConcurrencyPerPackage() {
+        if (pluginInvocationProperties == null) {
+            return DEFAULT_MAX_CONCURRENCY_PER_PACKAGE;
+        }
+        return pluginInvocationProperties.getBatchExecutionMaxConcurrencyPerPackage();
+    }
+
+    private void failExecutionJobs(List<Integer> exeJobIds, String errorMessage) {
+        for (Integer exeJobId : exeJobIds) {
+            try {
+                batchExecutionService.failExecutionJob(exeJobId, errorMessage);
+            } catch (Exception e) {
+                log.error("errors to update failed execution job {}", exeJobId, e);
+            }
+        }
+    }
+
+    private void completeChunk(String batchExeJobId) {
+        AtomicInteger remaining = remainingChunks.get(batchExeJobId);
+        if (remaining == null || remaining.decrementAndGet() > 0) {
+            return;
+        }
+
+        remainingChunks.remove(batchExeJobId);
+        completeBatchExecutionJob(batchExeJobId);
+    }
+
+    private void completeBatchExecutionJob(String batchExeJobId) {
+        try {
+            batchExecutionService.completeBatchExecutionJob(batchExeJobId);
+        } catch (Exception e) {
+            log.error("errors while post processing batch execution job {}", batchExeJobId, e);
+        } finally {
+            ownedBatchExeJobIds.remove(batchExeJobId);
+        }
+    }
+}
@@ -14,22 +14,25 @@ import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.domain.BatchExecutionJob;
 import com.webank.wecube.platform.core.domain.ExecutionJob;
@@ -38,10 +41,12 @@ import com.webank.wecube.platform.core.domain.SystemVariable;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterface;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterfaceParameter;
 import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
+import com.webank.wecube.platform.core.dto.BatchExecutionProgressDto;
 import com.webank.wecube.platform.core.dto.BatchExecutionRequestDto;
 import com.webank.wecube.platform.core.dto.ExecutionJobResponseDto;
 import com.webank.wecube.platform.core.dto.InputParameterDefinition;
 import com.webank.wecube.platform.core.jpa.BatchExecutionJobRepository;
+import com.webank.wecube.platform.core.jpa.ExecutionJobRepository;
 import com.webank.wecube.platform.core.jpa.PluginConfigInterfaceRepository;
 import com.webank.wecube.platform.core.service.dme.EntityOperationRootCondition;
 import com.webank.wecube.platform.core.service.dme.StandardEntityOperationService;
@@ -56,6 +61,8 @@ import com.webank.wecube.platform.core.utils.JsonUtils;
 public class BatchExecutionService {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
+    private static final int LEASE_RENEWAL_BATCH_SIZE = 500;
+
     @Autowired
     private PluginServiceStub pluginServiceStub;
 
@@ -67,8 +74,14 @@ public class BatchExecutionService {
     @Autowired
     private BatchExecutionJobRepository batchExecutionJobRepository;
     @Autowired
+    private ExecutionJobRepository executionJobRepository;
+    @Autowired
     private PluginConfigInterfaceRepository pluginConfigInterfaceRepository;
     @Autowired
+    private BatchExecutionJobScheduler batchExecutionJobScheduler;
+    @Autowired(required = false)
+    private PluginInvocationProperties pluginInvocationProperties;
+    @Autowired
     protected StandardEntityOperationService standardEntityOperationService;
 
     private ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
@@ -79,34 +92,13 @@ public class BatchExecutionService {
         BatchExecutionJob batchExeJob = saveToDb(batchExecutionRequest);
 
         Map<String, ExecutionJobResponseDto> exeResults = new HashMap<>();
-        for (ExecutionJob exeJob : batchExeJob.getJobs()) {
-            ResultData<?> exeResult = null;
-            try {
-                exeResult = performExecutionJob(exeJob);
-                if (exeResult == null) {
-                    if (exeJob.getPrepareException() != null) {
-                        exeResult = buildResultDataWithError(exeJob.getPrepareException().getMessage());
-                        Object resultObject = exeResult.getOutputs().get(0);
-                        ExecutionJobResponseDto respDataObj = new ExecutionJobResponseDto(RESULT_CODE_ERROR,
-                                resultObject);
-                        exeResults.put(exeJob.getBusinessKey(), respDataObj);
-                    }
-                } else {
-                    Object resultObject = exeResult.getOutputs().get(0);
-                    String errorCode = exeJob.getErrorCode() == null ? RESULT_CODE_ERROR : exeJob.getErrorCode();
-                    ExecutionJobResponseDto respDataObj = new ExecutionJobResponseDto(errorCode, resultObject);
-                    exeResults.put(exeJob.getBusinessKey(), respDataObj);
+        for (List<ExecutionJob> exeJobs : partitionExecutionJobs(batchExeJob.getJobs())) {
+            List<ExecutionJobResponseDto> respDataObjs = executeJobs(exeJobs);
+            for (int i = 0; i < exeJobs.size(); i++) {
+                if (respDataObjs.get(i) != null) {
+                    exeResults.put(exeJobs.get(i).getBusinessKey(), respDataObjs.get(i));
                 }
-            } catch (Exception e) {
-                log.error("errors to run execution job,{} {} {}, errorMsg:{} ", exeJob.getPackageName(),
-                        exeJob.getEntityName(), exeJob.getRootEntityId(), e.getMessage());
-                exeResult = buildResultDataWithError(e.getMessage());
-                Object resultObject = exeResult.getOutputs().get(0);
-                ExecutionJobResponseDto respDataObj = new ExecutionJobResponseDto(RESULT_CODE_ERROR, resultObject);
-                log.info("biz key:{}, respDataObj:{}", exeJob.getBusinessKey(), respDataObj);
-                exeResults.put(exeJob.getBusinessKey(), respDataObj);
             }
-
         }
 
         try {
@@ -117,6 +109,258 @@ public class BatchExecutionService {
         return exeResults;
     }
 
+    /**
+     * Saves the batch execution job and runs its execution jobs in
+     * background, returns the batch execution job id to poll the progress
+     * with.
+     */
+    public String submitBatchExecutionJob(BatchExecutionRequestDto batchExecutionRequest) {
+        verifyParameters(batchExecutionRequest.getInputParameterDefinitions());
+        BatchExecutionJob batchExeJob = saveToDb(batchExecutionRequest);
+
+        String pluginConfigInterfaceId = batchExecutionRequest.getPluginConfigInterface().getId();
+        String pluginPackageName = pluginConfigInterfaceRepository.findById(pluginConfigInterfaceId)
+                .map(intf -> intf.getPluginConfig().getPluginPackage().getName()).orElse(pluginConfigInterfaceId);
+        batchExecutionJobScheduler.schedule(batchExeJob, pluginPackageName);
+        return batchExeJob.getId();
+    }
+
+    public void runExecutionJobs(List<Integer> exeJobIds) {
+        List<ExecutionJob> exeJobs = new ArrayList<>();
+        executionJobRepository.findAllById(exeJobIds).forEach(exeJobs::add);
+        if (exeJobs.size() < exeJobIds.size()) {
+            log.warn("{} of execution jobs {} do not exist", exeJobIds.size() - exeJobs.size(), exeJobIds);
+        }
+        if (exeJobs.isEmpty()) {
+            return;
+        }
+
+        List<ExecutionJobResponseDto> respDataObjs = executeJobs(exeJobs);
+        for (int i = 0; i < exeJobs.size(); i++) {
+            ExecutionJob exeJob = exeJobs.get(i);
+            if (exeJob.getErrorCode() == null && respDataObjs.get(i) != null) {
+                exeJob.setErrorCode(respDataObjs.get(i).getErrorCode());
+            }
+        }
+        executionJobRepository.saveAll(exeJobs);
+    }
+
+    /**
+     * Splits execution jobs into chunks to be sent to plugin in one request
+     * each. Jobs with the same root entity are put into different chunks, as
+     * outputs are mapped back to jobs by the callback parameter.
+     */
+    public List<List<ExecutionJob>> partitionExecutionJobs(List<ExecutionJob> exeJobs) {
+        int chunkSize = getExecutionJobChunkSize();
+        List<List<ExecutionJob>> chunks = new ArrayList<>();
+        List<ExecutionJob> chunk = new ArrayList<>();
+        Set<String> rootEntityIds = new HashSet<>();
+        for (ExecutionJob exeJob : exeJobs) {
+            if (chunk.size() >= chunkSize || !rootEntityIds.add(exeJob.getRootEntityId())) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                rootEntityIds.clear();
+                rootEntityIds.add(exeJob.getRootEntityId());
+            }
+            chunk.add(exeJob);
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private int getExecutionJobChunkSize() {
+        if (pluginInvocationProperties == null) {
+            return 1;
+        }
+        return Math.max(pluginInvocationProperties.getBatchExecutionChunkSize(), 1);
+    }
+
+    public void failExecutionJob(Integer exeJobId, String errorMessage) {
+        executionJobRepository.findById(exeJobId).ifPresent(exeJob -> {
+            exeJob.setErrorWithMessage(errorMessage);
+            executionJobRepository.save(exeJob);
+        });
+    }
+
+    public void completeBatchExecutionJob(String batchExeJobId) {
+        batchExecutionJobRepository.findById(batchExeJobId).ifPresent(this::postProcessBatchExecutionJob);
+    }
+
+    public void renewBatchExecutionJobLeases(List<String> batchExeJobIds, String ownerNode,
+            Timestamp leaseExpireTimestamp) {
+        for (List<String> ids : Lists.partition(batchExeJobIds, LEASE_RENEWAL_BATCH_SIZE)) {
+            batchExecutionJobRepository.renewLeases(ids, ownerNode, leaseExpireTimestamp);
+        }
+    }
+
+    /**
+     * Fails the unfinished execution jobs of the batch executions not
+     * completed yet whose leases have expired, which were interrupted as the
+     * nodes running them stopped, and completes these batch executions. Each
+     * batch execution is claimed by given node first, so that only one node
+     * fails it.
+     */
+    public int failExpiredBatchExecutionJobs(String ownerNode, Timestamp leaseExpireTimestamp, int limit) {
+        List<BatchExecutionJob> batchExeJobs = batchExecutionJobRepository.findExpiredBatchExecutionJobs(
+                new Timestamp(System.currentTimeMillis()), PageRequest.of(0, limit));
+        int count = 0;
+        for (BatchExecutionJob batchExeJob : batchExeJobs) {
+            if (!claimBatchExecutionJob(batchExeJob, ownerNode, leaseExpireTimestamp)) {
+                continue;
+            }
+
+            List<ExecutionJob> interruptedJobs = new ArrayList<>();
+            for (ExecutionJob exeJob : batchExeJob.getJobs()) {
+                if (exeJob.getErrorCode() == null) {
+                    exeJob.setErrorWithMessage("Batch execution was interrupted by a restart.");
+                    interruptedJobs.add(exeJob);
+                }
+            }
+            executionJobRepository.saveAll(interruptedJobs);
+            postProcessBatchExecutionJob(batchExeJob);
+            log.warn("batch execution job {} was interrupted, {} execution jobs failed", batchExeJob.getId(),
+                    interruptedJobs.size());
+            count++;
+        }
+        return count;
+    }
+
+    private boolean claimBatchExecutionJob(BatchExecutionJob batchExeJob, String ownerNode,
+            Timestamp leaseExpireTimestamp) {
+        int claimed;
+        if (batchExeJob.getLeaseExpireTimestamp() == null) {
+            claimed = batchExecutionJobRepository.claimUnleasedBatchExecutionJob(batchExeJob.getId(), ownerNode,
+                    leaseExpireTimestamp);
+        } else {
+            claimed = batchExecutionJobRepository.claimBatchExecutionJob(batchExeJob.getId(),
+                    batchExeJob.getLeaseExpireTimestamp(), ownerNode, leaseExpireTimestamp);
+        }
+        if (claimed == 0) {
+            return false;
+        }
+
+        batchExeJob.setOwnerNode(ownerNode);
+        batchExeJob.setLeaseExpireTimestamp(leaseExpireTimestamp);
+        return true;
+    }
+
+    @Transactional(readOnly = true)
+    public BatchExecutionProgressDto getBatchExecutionProgress(String batchExeJobId) {
+        Optional<BatchExecutionJob> batchExeJobOpt = batchExecutionJobRepository.findById(batchExeJobId);
+        if (!batchExeJobOpt.isPresent()) {
+            throw new WecubeCoreException("3314",
+                    String.format("Batch execution job %s does not exist.", batchExeJobId), batchExeJobId);
+        }
+
+        BatchExecutionJob batchExeJob = batchExeJobOpt.get();
+        BatchExecutionProgressDto progress = new BatchExecutionProgressDto();
+        progress.setBatchExecutionJobId(batchExeJob.getId());
+        progress.setTotalJobs(batchExeJob.getJobs().size());
+        progress.setCompleted(batchExeJob.getCompleteTimestamp() != null);
+
+        int completedJobs = 0;
+        for (ExecutionJob exeJob : batchExeJob.getJobs()) {
+            if (exeJob.getErrorCode() == null) {
+                continue;
+            }
+            completedJobs++;
+            progress.getResults().put(exeJob.getBusinessKey(), buildExecutionJobResponse(exeJob));
+        }
+        progress.setCompletedJobs(completedJobs);
+        return progress;
+    }
+
+    private List<ExecutionJobResponseDto> executeJobs(List<ExecutionJob> exeJobs) {
+        if (exeJobs.size() == 1) {
+            return Lists.newArrayList(executeJob(exeJobs.get(0)));
+        }
+
+        try {
+            return performExecutionJobs(exeJobs);
+        } catch (Exception e) {
+            log.error("errors to run {} execution jobs of interface {}", exeJobs.size(),
+                    exeJobs.get(0).getPluginConfigInterfaceId(), e);
+            List<ExecutionJobResponseDto> respDataObjs = new ArrayList<>();
+            for (ExecutionJob exeJob : exeJobs) {
+                respDataObjs.add(buildErrorResponse(exeJob, e.getMessage()));
+            }
+            return respDataObjs;
+        }
+    }
+
+    private ExecutionJobResponseDto executeJob(ExecutionJob exeJob) {
+        try {
+            ResultData<?> exeResult = performExecutionJob(exeJob);
+            if (exeResult == null) {
+                if (exeJob.getPrepareException() == null) {
+                    return null;
+                }
+                exeResult = buildResultDataWithError(exeJob.getPrepareException().getMessage());
+                return new ExecutionJobResponseDto(RESULT_CODE_ERROR, exeResult.getOutputs().get(0));
+            }
+
+            Object resultObject = exeResult.getOutputs().get(0);
+            String errorCode = exeJob.getErrorCode() == null ? RESULT_CODE_ERROR : exeJob.getErrorCode();
+            return new ExecutionJobResponseDto(errorCode, resultObject);
+        } catch (Exception e) {
+            log.error("errors to run execution job,{} {} {}, errorMsg:{} ", exeJob.getPackageName(),
+                    exeJob.getEntityName(), exeJob.getRootEntityId(), e.getMessage());
+            if (exeJob.getErrorCode() == null) {
+                exeJob.setErrorWithMessage(e.getMessage());
+            }
+            ResultData<?> exeResult = buildResultDataWithError(e.getMessage());
+            ExecutionJobResponseDto respDataObj = new ExecutionJobResponseDto(RESULT_CODE_ERROR,
+                    exeResult.getOutputs().get(0));
+            log.info("biz key:{}, respDataObj:{}", exeJob.getBusinessKey(), respDataObj);
+            return respDataObj;
+        }
+    }
+
+    private ExecutionJobResponseDto buildErrorResponse(ExecutionJob exeJob, String errorMessage) {
+        if (exeJob.getErrorCode() == null) {
+            exeJob.setErrorWithMessage(errorMessage);
+        }
+        ResultData<PluginResponseStationaryOutput> exeResult = buildResultDataWithError(errorMessage);
+        return new ExecutionJobResponseDto(RESULT_CODE_ERROR, exeResult.getOutputs().get(0));
+    }
+
+    private ExecutionJobResponseDto buildExecutionJobResponse(ExecutionJob exeJob) {
+        Object output = readPluginOutput(exeJob);
+        if (output != null) {
+            return new ExecutionJobResponseDto(exeJob.getErrorCode(), output);
+        }
+
+        PluginResponseStationaryOutput stationaryOutput = new PluginResponseStationaryOutput();
+        stationaryOutput.setErrorCode(exeJob.getErrorCode());
+        stationaryOutput.setErrorMessage(exeJob.getErrorMessage());
+        stationaryOutput.setCallbackParameter(exeJob.getRootEntityId());
+        return new ExecutionJobResponseDto(exeJob.getErrorCode(), stationaryOutput);
+    }
+
+    /**
+     * Reads the plugin output kept in the return json of given execution job.
+     * Jobs failed without a plugin output keep the job itself as return json
+     * instead, which has no outputs.
+     */
+    private Object readPluginOutput(ExecutionJob exeJob) {
+        if (StringUtils.isBlank(exeJob.getReturnJson())) {
+            return null;
+        }
+
+        try {
+            JsonNode outputs = objectMapper.readTree(exeJob.getReturnJson()).get("outputs");
+            if (outputs == null || !outputs.isArray() || outputs.size() == 0) {
+                return null;
+            }
+            return objectMapper.treeToValue(outputs.get(0), Object.class);
+        } catch (IOException e) {
+            log.warn("cannot read result of execution job {}", exeJob.getId(), e);
+            return null;
+        }
+    }
+
     private void verifyParameters(List<InputParameterDefinition> inputParameterDefinitions) {
         inputParameterDefinitions.forEach(inputParameterDefinition -> {
             PluginConfigInterfaceParameter inputParameter = inputParameterDefinition.getInputParameter();
@@ -148,6 +392,8 @@ public class BatchExecutionService {
             exeJobs.add(exeJob);
         });
         batchExeJob.setJobs(exeJobs);
+        batchExeJob.setOwnerNode(batchExecutionJobScheduler.getNodeId());
+        batchExeJob.setLeaseExpireTimestamp(batchExecutionJobScheduler.newLeaseExpireTimestamp());
         return batchExecutionJobRepository.save(batchExeJob);
     }
 
@@ -182,7 +428,7 @@ public class BatchExecutionService {
         return executionJobParameters;
     }
 
-    public ResultData<?> performExecutionJob(ExecutionJob exeJob) throws IOException {
+    public ResultData<?> performExecutionJob(ExecutionJob exeJob) {
         if (exeJob == null) {
             throw new WecubeCoreException("3002", "execution job as input argument cannot be null.");
         }
@@ -213,19 +459,7 @@ public class BatchExecutionService {
                     exeJob.getPrepareException().getMessage());
         }
 
-        Map<String, Object> pluginInputParamMap = new HashMap<String, Object>();
-
-        for (ExecutionJobParameter parameter : exeJob.getParameters()) {
-            if (DATA_TYPE_STRING.equals(parameter.getDataType())
-                    || MAPPING_TYPE_SYSTEM_VARIABLE.equals(parameter.getMappingEntityExpression())) {
-                pluginInputParamMap.put(parameter.getName(), parameter.getValue());
-            }
-            if (DATA_TYPE_NUMBER.equals(parameter.getDataType())) {
-                pluginInputParamMap.put(parameter.getName(), Integer.valueOf(parameter.getValue()));
-            }
-        }
-
-        pluginInputParamMap.put(CALLBACK_PARAMETER_KEY, exeJob.getRootEntityId());
+        Map<String, Object> pluginInputParamMap = buildPluginInputParamMap(exeJob);
 
         PluginInstance pluginInstance = pluginInstanceService
                 .getRunningPluginInstance(pluginConfigInterface.getPluginConfig().getPluginPackage().getName());
@@ -240,14 +474,7 @@ public class BatchExecutionService {
             exeJob.setErrorWithMessage(e.getMessage());
             return buildResultDataWithError(e.getMessage());
         }
-        log.info("returnJsonString= " + responseData.toString());
-        String returnJsonString = JsonUtils.toJsonString(responseData);
-        log.info("returnJsonString= " + returnJsonString);
-        ResultData<PluginResponseStationaryOutput> stationaryResultData = objectMapper.readValue(returnJsonString,
-                new TypeReference<ResultData<PluginResponseStationaryOutput>>() {
-                });
-
-        if (stationaryResultData.getOutputs().size() == 0) {
+        if (responseData == null || responseData.getOutputs() == null || responseData.getOutputs().isEmpty()) {
             String errorMessage = String.format("Call interface[%s][%s:%s%s] with parameters[%s] has no response",
                     exeJob.getPluginConfigInterfaceId(), pluginInstance.getHost(), pluginInstance.getPort(),
                     pluginConfigInterface.getPath(), pluginInputParamMap);
@@ -255,11 +482,165 @@ public class BatchExecutionService {
             exeJob.setErrorWithMessage(errorMessage);
             return buildResultDataWithError(errorMessage);
         }
-        PluginResponseStationaryOutput stationaryOutput = stationaryResultData.getOutputs().get(0);
-        exeJob.setReturnJson(returnJsonString);
+        auditPluginResponse(exeJob.getPluginConfigInterfaceId(), responseData);
+        Object output = responseData.getOutputs().get(0);
+        PluginResponseStationaryOutput stationaryOutput = decodeStationaryOutput(output);
+        storeReturnJson(exeJob, output);
+        applyStationaryOutput(exeJob, stationaryOutput);
+        return responseData;
+    }
+
+    /**
+     * Performs the execution jobs of the same plugin interface with one
+     * multi-input plugin request, and maps outputs back to the jobs by the
+     * callback parameter.
+     */
+    private List<ExecutionJobResponseDto> performExecutionJobs(List<ExecutionJob> exeJobs) {
+        if (log.isInfoEnabled()) {
+            log.info("perform {} batch execution jobs of interface {}", exeJobs.size(),
+                    exeJobs.get(0).getPluginConfigInterfaceId());
+        }
+
+        List<ExecutionJobResponseDto> respDataObjs = new ArrayList<>();
+        for (int i = 0; i < exeJobs.size(); i++) {
+            respDataObjs.add(null);
+        }
+
+        String pluginConfigInterfaceId = exeJobs.get(0).getPluginConfigInterfaceId();
+        Optional<PluginConfigInterface> pluginConfigInterfaceOptional = pluginConfigInterfaceRepository
+                .findById(pluginConfigInterfaceId);
+        if (!pluginConfigInterfaceOptional.isPresent()) {
+            String errorMessage = String.format("Can not found plugin config interface[%s]", pluginConfigInterfaceId);
+            log.error(errorMessage);
+            for (int i = 0; i < exeJobs.size(); i++) {
+                respDataObjs.set(i, buildErrorResponse(exeJobs.get(i), errorMessage));
+            }
+            return respDataObjs;
+        }
+
+        PluginConfigInterface pluginConfigInterface = pluginConfigInterfaceOptional.get();
+
+        Map<String, Integer> jobIndexes = new HashMap<>();
+        List<Map<String, Object>> pluginInputParamMaps = new ArrayList<>();
+        for (int i = 0; i < exeJobs.size(); i++) {
+            ExecutionJob exeJob = exeJobs.get(i);
+            try {
+                tryPrepareInputParamValues(exeJob, pluginConfigInterface);
+                if (exeJob.getPrepareException() != null) {
+                    log.error("Errors to calculate input parameters", exeJob.getPrepareException());
+                    respDataObjs.set(i, buildErrorResponse(exeJob, "Failed to prepare input parameter due to error:"
+                            + exeJob.getPrepareException().getMessage()));
+                    continue;
+                }
+                pluginInputParamMaps.add(buildPluginInputParamMap(exeJob));
+                jobIndexes.put(exeJob.getRootEntityId(), i);
+            } catch (Exception e) {
+                log.error("errors to prepare execution job,{} {} {}, errorMsg:{} ", exeJob.getPackageName(),
+                        exeJob.getEntityName(), exeJob.getRootEntityId(), e.getMessage());
+                respDataObjs.set(i, buildErrorResponse(exeJob, e.getMessage()));
+            }
+        }
+
+        if (pluginInputParamMaps.isEmpty()) {
+            return respDataObjs;
+        }
+
+        PluginInstance pluginInstance = pluginInstanceService
+                .getRunningPluginInstance(pluginConfigInterface.getPluginConfig().getPluginPackage().getName());
+        ResultData<Object> responseData;
+        try {
+            responseData = pluginServiceStub.callPluginInterface(
+                    String.format("%s:%s", pluginInstance.getHost(), pluginInstance.getPort()),
+                    pluginConfigInterface.getPath(), pluginInputParamMaps,
+                    "RequestId-" + Long.toString(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.error("errors while call plugin interface", e);
+            for (Integer i : jobIndexes.values()) {
+                respDataObjs.set(i, buildErrorResponse(exeJobs.get(i), e.getMessage()));
+            }
+            return respDataObjs;
+        }
+
+        auditPluginResponse(pluginConfigInterfaceId, responseData);
+        List<Object> outputs = responseData == null || responseData.getOutputs() == null ? new ArrayList<>()
+                : responseData.getOutputs();
+        for (Object output : outputs) {
+            PluginResponseStationaryOutput stationaryOutput = decodeStationaryOutput(output);
+            Integer i = stationaryOutput == null ? null : jobIndexes.remove(stationaryOutput.getCallbackParameter());
+            if (i == null) {
+                log.warn("cannot map output {} of interface {} to execution job", output, pluginConfigInterfaceId);
+                continue;
+            }
+
+            ExecutionJob exeJob = exeJobs.get(i);
+            storeReturnJson(exeJob, output);
+            applyStationaryOutput(exeJob, stationaryOutput);
+            respDataObjs.set(i, new ExecutionJobResponseDto(exeJob.getErrorCode(), output));
+        }
+
+        for (Integer i : jobIndexes.values()) {
+            ExecutionJob exeJob = exeJobs.get(i);
+            String errorMessage = String.format("Call interface[%s][%s:%s%s] with parameters[%s] has no response",
+                    pluginConfigInterfaceId, pluginInstance.getHost(), pluginInstance.getPort(),
+                    pluginConfigInterface.getPath(), buildPluginInputParamMap(exeJob));
+            log.error(errorMessage);
+            respDataObjs.set(i, buildErrorResponse(exeJob, errorMessage));
+        }
+        return respDataObjs;
+    }
+
+    private Map<String, Object> buildPluginInputParamMap(ExecutionJob exeJob) {
+        Map<String, Object> pluginInputParamMap = new HashMap<String, Object>();
+
+        for (ExecutionJobParameter parameter : exeJob.getParameters()) {
+            if (DATA_TYPE_STRING.equals(parameter.getDataType())
+                    || MAPPING_TYPE_SYSTEM_VARIABLE.equals(parameter.getMappingEntityExpression())) {
+                pluginInputParamMap.put(parameter.getName(), parameter.getValue());
+            }
+            if (DATA_TYPE_NUMBER.equals(parameter.getDataType())) {
+                pluginInputParamMap.put(parameter.getName(), Integer.valueOf(parameter.getValue()));
+            }
+        }
+
+        pluginInputParamMap.put(CALLBACK_PARAMETER_KEY, exeJob.getRootEntityId());
+        return pluginInputParamMap;
+    }
+
+    /**
+     * Converts the output deserialized by the rest template to the typed
+     * output directly, without writing it to JSON again.
+     */
+    private PluginResponseStationaryOutput decodeStationaryOutput(Object output) {
+        if (output == null) {
+            return new PluginResponseStationaryOutput();
+        }
+        return objectMapper.convertValue(output, PluginResponseStationaryOutput.class);
+    }
+
+    /**
+     * Keeps the output of job, which the results of asynchronous batch
+     * executions are read from.
+     */
+    private void storeReturnJson(ExecutionJob exeJob, Object output) {
+        exeJob.setReturnJson(JsonUtils.toJsonString(new ResultData<Object>(Lists.newArrayList(output))));
+    }
+
+    /**
+     * Logs the whole plugin response as audit copy only when auditing is
+     * enabled.
+     */
+    private void auditPluginResponse(String pluginConfigInterfaceId, ResultData<Object> responseData) {
+        if (pluginInvocationProperties != null && pluginInvocationProperties.isBatchExecutionAuditEnabled()) {
+            log.info("plugin response of interface {}: {}", pluginConfigInterfaceId,
+                    JsonUtils.toJsonString(responseData));
+        } else if (log.isDebugEnabled()) {
+            log.debug("plugin response of interface {}: {}", pluginConfigInterfaceId, responseData);
+        }
+    }
+
+    private void applyStationaryOutput(ExecutionJob exeJob, PluginResponseStationaryOutput stationaryOutput) {
         exeJob.setErrorCode(stationaryOutput.getErrorCode() == null ? RESULT_CODE_ERROR : RESULT_CODE_OK);
         exeJob.setErrorMessage(stationaryOutput.getErrorMessage());
-        return responseData;
     }
 
     private ResultData<PluginResponseStationaryOutput> buildResultDataWithError(String errorMessage) {
@@ -5,21 +5,35 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.webank.wecube.platform.core.commons.ApplicationProperties.SshProperties;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
-import com.webank.wecube.platform.core.service.cmder.ssh2.RemoteCommand;
-import com.webank.wecube.platform.core.service.cmder.ssh2.RemoteCommandExecutorConfig;
-import com.webank.wecube.platform.core.service.cmder.ssh2.impl.PooledRemoteCommandExecutor;
-import com.webank.wecube.platform.core.service.cmder.ssh2.impl.SimpleRemoteCommand;
+import com.webank.wecube.platform.core.service.cmder.ssh2.SshConnectionPool;
+import com.webank.wecube.platform.core.service.cmder.ssh2.SshCredential;
+
+import ch.ethz.ssh2.ChannelCondition;
+import ch.ethz.ssh2.Connection;
+import ch.ethz.ssh2.Session;
+import ch.ethz.ssh2.StreamGobbler;
 
 @Service
 public class CommandService {
     private static final Logger log = LoggerFactory.getLogger(CommandService.class);
 
+    private static final int DEF_COMMAND_TIMEOUT_SECONDS = 300;
+
+    @Autowired
+    private SshConnectionPool sshConnectionPool;
+
+    @Autowired(required = false)
+    private SshProperties sshProperties;
+
     public void runAtLocal(String command) throws Exception {
         String returnString = "";
         Process pro = null;
@@ -46,19 +60,8 @@ public class CommandService {
 
     public String runAtRemote(String host, String user, String password, Integer port, String command)
             throws Exception {
-        RemoteCommandExecutorConfig config = new RemoteCommandExecutorConfig();
-        config.setRemoteHost(host);
-        config.setUser(user);
-        config.setPsword(password);
-        config.setPort(port);
-
-        RemoteCommand cmd = new SimpleRemoteCommand(command);
-        PooledRemoteCommandExecutor executor = new PooledRemoteCommandExecutor();
-        executor.init(config);
-
-        String result = executor.execute(cmd);
-
-        executor.destroy();
+        SshCredential credential = SshCredential.withPassword(host, port, user, password);
+        String result = sshConnectionPool.execute(credential, conn -> execCommand(conn, command));
 
         log.info("result is: " + result);
         return result;
@@ -66,25 +69,49 @@ public class CommandService {
 
     public String runAtRemoteHasReturn(String host, String user, String password, Integer port, String command)
             throws Exception {
-        RemoteCommandExecutorConfig config = new RemoteCommandExecutorConfig();
-        config.setRemoteHost(host);
-        config.setUser(user);
-        config.setPsword(password);
-        config.setPort(port);
-
-        RemoteCommand cmd = new SimpleRemoteCommand(command);
-        PooledRemoteCommandExecutor executor = new PooledRemoteCommandExecutor();
-        executor.init(config);
-
-        String result = executor.execute(cmd);
-
-        executor.destroy();
-
-        log.info("result is: " + result);
-        if (result == "" || result.isEmpty()) {
+        String result = runAtRemote(host, user, password, port, command);
+        if (result == null || result.isEmpty()) {
             throw new WecubeCoreException("3221","return is empty, please check !");
         } else {
             return result;
         }
     }
+
+    private String execCommand(Connection conn, String command) throws IOException {
+        Session session = conn.openSession();
+        try {
+            String shellCmd = "sh -l -c '" + command + "'";
+            session.execCommand(shellCmd);
+
+            StringBuilder result = new StringBuilder();
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(new StreamGobbler(session.getStdout())))) {
+                String line = null;
+                while ((line = br.readLine()) != null) {
+                    result.append(line);
+                }
+            }
+
+            int conditions = session.waitForCondition(ChannelCondition.EXIT_STATUS, getCommandTimeoutMillis());
+            if ((conditions & ChannelCondition.TIMEOUT) != 0) {
+                log.error("timeout while waiting for exit status of command: {}", command);
+                return null;
+            }
+            if (session.getExitStatus() != null && session.getExitStatus() != 0) {
+                log.error("exec failed with code {}, command: {}", session.getExitStatus(), command);
+                return null;
+            }
+            return result.toString();
+        } catch (IOException e) {
+            log.error("errors while exec command", e);
+            return null;
+        } finally {
+            session.close();
+        }
+    }
+
+    private long getCommandTimeoutMillis() {
+        int timeoutSeconds = sshProperties == null ? DEF_COMMAND_TIMEOUT_SECONDS
+                : sshProperties.getCommandTimeoutSeconds();
+        return TimeUnit.SECONDS.toMillis(timeoutSeconds);
+    }
 }
@@ -0,0 +1,14 @@
+package com.webank.wecube.platform.core.service;
+
+import java.util.Map;
+
+/**
+ * Component exposing runtime metrics, such as cache or pool statistics, via
+ * the application information endpoint.
+ */
+public interface RuntimeMetricsProvider {
+
+    String getMetricsName();
+
+    Map<String, Object> getMetrics();
+}
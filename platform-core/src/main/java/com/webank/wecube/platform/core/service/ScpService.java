@@ -5,36 +5,30 @@ import java.io.IOException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.service.cmder.ssh2.SshAuthenticationException;
+import com.webank.wecube.platform.core.service.cmder.ssh2.SshConnectionPool;
+import com.webank.wecube.platform.core.service.cmder.ssh2.SshCredential;
 
-import ch.ethz.ssh2.Connection;
 import ch.ethz.ssh2.SCPClient;
 
 @Service
 public class ScpService {
     private static final Logger log = LoggerFactory.getLogger(ScpService.class);
 
+    @Autowired
+    private SshConnectionPool sshConnectionPool;
+
     public boolean isAuthedWithPassword(String ip, Integer port, String user, String password) {
-        Connection connection = new Connection(ip, port);
-        try {
-            return connection.authenticateWithPassword(user, password);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return false;
+        return isAuthed(SshCredential.withPassword(ip, port, user, password));
     }
 
 
     public boolean isAuthedWithPublicKey(String ip, Integer port, String user, File privateKey, String password) {
-        Connection connection = new Connection(ip, port);
-        try {
-            return connection.authenticateWithPublicKey(user, privateKey, password);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return false;
+        return isAuthed(SshCredential.withPublicKey(ip, port, user, privateKey.getPath(), password));
     }
 
     public boolean isAuth(String ip, Integer port, String user, String password, String privateKey, boolean usePassword) {
@@ -46,63 +40,63 @@ public class ScpService {
     }
 
     public void getFile(String ip, Integer port, String user, String password, String privateKey, boolean usePassword, String remoteFile, String path) {
-        Connection connection = new Connection(ip, port);
         try {
-            connection.connect();
-            boolean isAuthed = isAuth(ip, port, user, password, privateKey, usePassword);
-            if (isAuthed) {
-                System.out.println("Authentication is successful!");
-                SCPClient scpClient = connection.createSCPClient();
+            sshConnectionPool.execute(buildCredential(ip, port, user, password, privateKey, usePassword), conn -> {
+                SCPClient scpClient = conn.createSCPClient();
                 scpClient.get(remoteFile, path);
-            } else {
-                System.out.println("Authentication failed!");
-            }
+                return null;
+            });
         } catch (IOException e) {
-            e.printStackTrace();
-        } finally {
-            connection.close();
+            log.error("Failed to get file {} from {}:{}", remoteFile, ip, port, e);
         }
     }
 
     public void putFile(String ip, Integer port, String user, String password, String privateKey, boolean usePassword, String localFile, String remoteTargetDirectory) {
         log.info("Start to connect {}:{}", ip, port);
-        Connection connection = new Connection(ip, port);
         try {
-            connection.connect();
-            boolean isAuthed = isAuth(ip, port, user, password, privateKey, usePassword);
-            if (isAuthed) {
-                SCPClient scpClient = connection.createSCPClient();
+            sshConnectionPool.execute(buildCredential(ip, port, user, password, privateKey, usePassword), conn -> {
+                SCPClient scpClient = conn.createSCPClient();
                 scpClient.put(localFile, remoteTargetDirectory);
-            } else {
-                System.out.println("Authentication failed!");
-            }
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        } finally {
-            connection.close();
+                return null;
+            });
+        } catch (IOException e) {
+            log.error("Failed to put file {} to {}:{}", localFile, ip, port, e);
         }
     }
 
     public void put(String ip, Integer port, String user, String password, String localFile, String remoteTargetDirectory) {
-        Connection conn = new Connection(ip, port);
         try {
-            conn.connect();
-            boolean isconn = conn.authenticateWithPassword(user, password);
-            if (isconn) {
+            sshConnectionPool.execute(SshCredential.withPassword(ip, port, user, password), conn -> {
                 log.info("Connection is OK");
                 SCPClient scpClient = conn.createSCPClient();
                 log.info("scp local file [{}] to remote target directory [{}]", localFile, remoteTargetDirectory);
                 scpClient.put(localFile, remoteTargetDirectory, "7777");
-            } else {
-                log.info("User or password incorrect");
-                throw new WecubeCoreException("3222","User or password incorrect");
-            }
+                return null;
+            });
+        } catch (SshAuthenticationException e) {
+            log.info("User or password incorrect");
+            throw new WecubeCoreException("3222","User or password incorrect");
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to scp file {} to {}:{}", localFile, ip, port, e);
             throw new WecubeCoreException("3223",String.format("Run 'scp' command meet error: %s" , e.getMessage()));
-        } finally {
-            conn.close();
         }
     }
-}
 
+    private SshCredential buildCredential(String ip, Integer port, String user, String password, String privateKey,
+            boolean usePassword) {
+        if (usePassword) {
+            return SshCredential.withPassword(ip, port, user, password);
+        } else {
+            return SshCredential.withPublicKey(ip, port, user, privateKey, password);
+        }
+    }
+
+    private boolean isAuthed(SshCredential credential) {
+        try {
+            return sshConnectionPool.execute(credential, conn -> true);
+        } catch (IOException e) {
+            log.info("Failed to authenticate {}", credential, e);
+            return false;
+        }
+    }
+}
@@ -1,5 +0,0 @@
-package com.webank.wecube.platform.core.service.cmder.ssh2;
-
-public interface RemoteCommand{
-	String getCommand();
-}
@@ -0,0 +1,11 @@
+package com.webank.wecube.platform.core.service.cmder.ssh2;
+
+import java.io.IOException;
+
+public class SshAuthenticationException extends IOException {
+    private static final long serialVersionUID = 2563011813215426784L;
+
+    public SshAuthenticationException(String message) {
+        super(message);
+    }
+}
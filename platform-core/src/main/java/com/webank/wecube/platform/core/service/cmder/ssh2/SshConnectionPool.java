@@ -0,0 +1,270 @@
+package com.webank.wecube.platform.core.service.cmder.ssh2;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.SshProperties;
+import com.webank.wecube.platform.core.service.RuntimeMetricsProvider;
+
+import ch.ethz.ssh2.Connection;
+import ch.ethz.ssh2.Session;
+
+/**
+ * Keeps one authenticated SSH connection per host, port and credential, and
+ * multiplexes the command and scp sessions over it. Idle connections are
+ * probed periodically, which also keeps them alive, and closed after being
+ * idle for a while.
+ */
+@Component
+public class SshConnectionPool implements RuntimeMetricsProvider {
+    private static final Logger log = LoggerFactory.getLogger(SshConnectionPool.class);
+
+    @Autowired(required = false)
+    private SshProperties sshProperties;
+
+    private final SshProperties defaultSshProperties = new ApplicationProperties().new SshProperties();
+
+    private final ConcurrentMap<SshCredential, PooledSshConnection> connections = new ConcurrentHashMap<>();
+
+    private final AtomicLong openedConnections = new AtomicLong();
+
+    private final AtomicLong borrowedConnections = new AtomicLong();
+
+    private ScheduledExecutorService maintainer;
+
+    @PostConstruct
+    public void init() {
+        int keepAliveSeconds = Math.max(getProperties().getKeepAliveSeconds(), 1);
+        this.maintainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ssh-connection-maintainer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.maintainer.scheduleWithFixedDelay(this::maintain, keepAliveSeconds, keepAliveSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (maintainer != null) {
+            maintainer.shutdownNow();
+        }
+        for (PooledSshConnection pooled : connections.values()) {
+            pooled.evict();
+        }
+        connections.clear();
+    }
+
+    /**
+     * Runs the callback with a pooled connection, the callback should close
+     * the sessions it opens.
+     */
+    public <T> T execute(SshCredential credential, SshConnectionCallback<T> callback) throws IOException {
+        PooledSshConnection pooled = borrow(credential);
+        try {
+            return callback.doWithConnection(pooled.getConnection());
+        } finally {
+            pooled.giveBack();
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "ssh-connection-pool";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        int activeSessions = 0;
+        for (PooledSshConnection pooled : connections.values()) {
+            activeSessions += pooled.getBorrowers();
+        }
+        metrics.put("connections", connections.size());
+        metrics.put("activeSessions", activeSessions);
+        metrics.put("openedConnections", openedConnections.get());
+        metrics.put("borrowedConnections", borrowedConnections.get());
+        return metrics;
+    }
+
+    protected Connection openConnection(SshCredential credential) throws IOException {
+        int connectTimeoutMillis = getProperties().getConnectTimeoutMillis();
+        Connection connection = new Connection(credential.getHost(), credential.getPort());
+        try {
+            connection.connect(null, connectTimeoutMillis, connectTimeoutMillis);
+            boolean isAuthenticated;
+            if (credential.isUsePublicKey()) {
+                isAuthenticated = connection.authenticateWithPublicKey(credential.getUser(),
+                        credential.getPrivateKeyFile(), credential.getPassword());
+            } else {
+                isAuthenticated = connection.authenticateWithPassword(credential.getUser(), credential.getPassword());
+            }
+            if (!isAuthenticated) {
+                throw new SshAuthenticationException("authentication failed for " + credential);
+            }
+            return connection;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    void maintain() {
+        long idleMillis = TimeUnit.SECONDS.toMillis(getProperties().getIdleSeconds());
+        long now = System.currentTimeMillis();
+        for (Map.Entry<SshCredential, PooledSshConnection> entry : connections.entrySet()) {
+            PooledSshConnection pooled = entry.getValue();
+            try {
+                if (pooled.evictIfIdle(now, idleMillis)) {
+                    connections.remove(entry.getKey(), pooled);
+                    log.info("closed idle ssh connection {}", entry.getKey());
+                } else {
+                    pooled.checkHealth();
+                }
+            } catch (Exception e) {
+                log.warn("errors while maintaining ssh connection {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    private PooledSshConnection borrow(SshCredential credential) throws IOException {
+        while (true) {
+            PooledSshConnection pooled = connections.computeIfAbsent(credential, PooledSshConnection::new);
+            if (!pooled.tryBorrow()) {
+                connections.remove(credential, pooled);
+                continue;
+            }
+
+            try {
+                pooled.acquireSession();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pooled.returnBorrow();
+                throw new IOException("interrupted while waiting for ssh session of " + credential);
+            }
+            borrowedConnections.incrementAndGet();
+            return pooled;
+        }
+    }
+
+    private SshProperties getProperties() {
+        return sshProperties == null ? defaultSshProperties : sshProperties;
+    }
+
+    @FunctionalInterface
+    public interface SshConnectionCallback<T> {
+        T doWithConnection(Connection connection) throws IOException;
+    }
+
+    private class PooledSshConnection {
+        private final SshCredential credential;
+        private final Semaphore sessions;
+        private Connection connection;
+        private volatile boolean broken;
+        private boolean evicted;
+        private int borrowers;
+        private long lastUsedTime = System.currentTimeMillis();
+
+        PooledSshConnection(SshCredential credential) {
+            this.credential = credential;
+            this.sessions = new Semaphore(Math.max(getProperties().getMaxSessionsPerConnection(), 1), true);
+        }
+
+        synchronized boolean tryBorrow() {
+            if (evicted) {
+                return false;
+            }
+            borrowers++;
+            return true;
+        }
+
+        synchronized void returnBorrow() {
+            borrowers--;
+            lastUsedTime = System.currentTimeMillis();
+        }
+
+        synchronized int getBorrowers() {
+            return borrowers;
+        }
+
+        void acquireSession() throws InterruptedException {
+            sessions.acquire();
+        }
+
+        void giveBack() {
+            sessions.release();
+            returnBorrow();
+        }
+
+        synchronized Connection getConnection() throws IOException {
+            if (connection != null && !broken) {
+                return connection;
+            }
+
+            closeConnection();
+            Connection newConnection = openConnection(credential);
+            newConnection.addConnectionMonitor(cause -> {
+                log.info("ssh connection {} lost", credential);
+                broken = true;
+            });
+            openedConnections.incrementAndGet();
+            this.connection = newConnection;
+            this.broken = false;
+            return newConnection;
+        }
+
+        synchronized boolean evictIfIdle(long now, long idleMillis) {
+            if (borrowers > 0 || now - lastUsedTime < idleMillis) {
+                return false;
+            }
+            evict();
+            return true;
+        }
+
+        synchronized void evict() {
+            evicted = true;
+            closeConnection();
+        }
+
+        synchronized void checkHealth() {
+            if (borrowers > 0 || connection == null) {
+                return;
+            }
+            if (broken) {
+                closeConnection();
+                return;
+            }
+
+            try {
+                Session session = connection.openSession();
+                session.close();
+            } catch (IOException e) {
+                log.info("ssh connection {} is unhealthy, close it", credential);
+                closeConnection();
+            }
+        }
+
+        private void closeConnection() {
+            if (connection != null) {
+                connection.close();
+                connection = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.webank.wecube.platform.core.service.cmder.ssh2;
+
+import java.io.File;
+import java.util.Objects;
+
+/**
+ * Target and credential of a pooled SSH connection, connections are shared by
+ * the credentials equal to each other.
+ */
+public class SshCredential {
+    private final String host;
+    private final int port;
+    private final String user;
+    private final String password;
+    private final String privateKey;
+
+    private SshCredential(String host, int port, String user, String password, String privateKey) {
+        this.host = host;
+        this.port = port;
+        this.user = user;
+        this.password = password;
+        this.privateKey = privateKey;
+    }
+
+    public static SshCredential withPassword(String host, int port, String user, String password) {
+        return new SshCredential(host, port, user, password, null);
+    }
+
+    /**
+     * @param password passphrase of the private key file, if any
+     */
+    public static SshCredential withPublicKey(String host, int port, String user, String privateKey,
+            String password) {
+        return new SshCredential(host, port, user, password, privateKey);
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public boolean isUsePublicKey() {
+        return privateKey != null;
+    }
+
+    public File getPrivateKeyFile() {
+        return privateKey == null ? null : new File(privateKey);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SshCredential)) {
+            return false;
+        }
+        SshCredential other = (SshCredential) o;
+        return port == other.port && Objects.equals(host, other.host) && Objects.equals(user, other.user)
+                && Objects.equals(password, other.password) && Objects.equals(privateKey, other.privateKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(host, port, user, password, privateKey);
+    }
+
+    @Override
+    public String toString() {
+        return user + "@" + host + ":" + port;
+    }
+}
@@ -18,6 +18,7 @@ import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.dto.DmeFilterDto;
 import com.webank.wecube.platform.core.dto.DmeLinkFilterDto;
 import com.webank.wecube.platform.core.dto.Filter;
+import com.webank.wecube.platform.core.service.dme.DmeHttpTransport;
 import com.webank.wecube.platform.core.service.dme.EntityDataDelegate;
 import com.webank.wecube.platform.core.service.dme.EntityDataRouteFactory;
 import com.webank.wecube.platform.core.service.dme.EntityOperationContext;
@@ -48,6 +49,9 @@ public class RootlessExpressionServiceImpl implements RootlessExpressionService
     @Autowired
     private EntityDataRouteFactory entityDataRouteFactory;
 
+    @Autowired(required = false)
+    private DmeHttpTransport dmeHttpTransport;
+
     public List<Object> fetchDataWithFilter(DmeFilterDto dmeFilterDto) {
         if (log.isInfoEnabled()) {
             log.info("start to fetch data with filter:{}", dmeFilterDto);
@@ -109,7 +113,11 @@ public class RootlessExpressionServiceImpl implements RootlessExpressionService
         ctx.setEntityQueryExprNodeInfos(exprNodeInfos);
         ctx.setOriginalEntityLinkExpression("");
         ctx.setOriginalEntityData(null);
-        ctx.setStandardEntityOperationRestClient(new StandardEntityOperationRestClient(userJwtSsoTokenRestTemplate));
+        RestTemplate restTemplate = userJwtSsoTokenRestTemplate;
+        if (dmeHttpTransport != null) {
+            restTemplate = dmeHttpTransport.resolveRestTemplate(userJwtSsoTokenRestTemplate);
+        }
+        ctx.setStandardEntityOperationRestClient(new StandardEntityOperationRestClient(restTemplate));
         ctx.setHeadEntityQueryLinkNode(entityQueryExecutor.buildEntityQueryLinkNode(exprNodeInfos));
         ctx.setEntityDataRouteFactory(entityDataRouteFactory);
 
@@ -0,0 +1,78 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Rest client serving repeated queries of one process instance from
+ * {@link EntityDataQueryCache} and invalidating the entity type on update.
+ */
+public class CachingEntityOperationRestClient extends StandardEntityOperationRestClient {
+	private static final Logger log = LoggerFactory.getLogger(CachingEntityOperationRestClient.class);
+
+	private final EntityDataQueryCache entityDataQueryCache;
+	private final String procInstId;
+	private static final ObjectMapper keyMapper = new ObjectMapper();
+
+	public CachingEntityOperationRestClient(RestTemplate restTemplate, EntityDataQueryCache entityDataQueryCache,
+			String procInstId) {
+		super(restTemplate);
+		this.entityDataQueryCache = entityDataQueryCache;
+		this.procInstId = procInstId;
+	}
+
+	@Override
+	public StandardEntityOperationResponseDto query(EntityRouteDescription entityDef,
+			EntityQuerySpecification querySpec) {
+		String querySpecKey = procInstId == null ? null : buildQuerySpecKey(querySpec);
+		if (querySpecKey == null) {
+			return super.query(entityDef, querySpec);
+		}
+
+		StandardEntityOperationResponseDto cachedResult = entityDataQueryCache.get(procInstId, entityDef,
+				querySpecKey);
+		if (cachedResult != null) {
+			if (log.isDebugEnabled()) {
+				log.debug("cached query result found for {} {} {}", procInstId, entityDef.getEntityName(),
+						querySpecKey);
+			}
+			return cachedResult;
+		}
+
+		long entityVersion = entityDataQueryCache.getEntityVersion(entityDef);
+		StandardEntityOperationResponseDto result = super.query(entityDef, querySpec);
+		if (result != null && StandardEntityOperationResponseDto.STATUS_OK.equalsIgnoreCase(result.getStatus())) {
+			entityDataQueryCache.put(procInstId, entityDef, querySpecKey, result, entityVersion);
+		}
+		return result;
+	}
+
+	@Override
+	public StandardEntityOperationResponseDto update(EntityRouteDescription entityDef,
+			List<EntityDataRecord> recordsToUpdate) {
+		try {
+			return super.update(entityDef, recordsToUpdate);
+		} finally {
+			entityDataQueryCache.invalidateEntity(entityDef);
+		}
+	}
+
+	public String getProcInstId() {
+		return procInstId;
+	}
+
+	private String buildQuerySpecKey(EntityQuerySpecification querySpec) {
+		try {
+			return keyMapper.writeValueAsString(querySpec);
+		} catch (JsonProcessingException e) {
+			log.info("cannot build cache key for query {}", querySpec, e);
+			return null;
+		}
+	}
+}
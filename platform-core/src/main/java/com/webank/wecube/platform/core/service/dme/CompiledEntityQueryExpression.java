@@ -0,0 +1,57 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable parsed form of an entity query expression. Callers always get
+ * copies of the node infos so that the cached form can be shared.
+ */
+public final class CompiledEntityQueryExpression {
+    private final String expression;
+    private final List<EntityQueryExprNodeInfo> exprNodeInfos;
+
+    public CompiledEntityQueryExpression(String expression, List<EntityQueryExprNodeInfo> exprNodeInfos) {
+        this.expression = expression;
+        List<EntityQueryExprNodeInfo> nodeInfos = new ArrayList<>();
+        for (EntityQueryExprNodeInfo nodeInfo : exprNodeInfos) {
+            nodeInfos.add(nodeInfo.copy());
+        }
+        this.exprNodeInfos = Collections.unmodifiableList(nodeInfos);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public int getNodeSize() {
+        return exprNodeInfos.size();
+    }
+
+    public List<EntityQueryExprNodeInfo> getExprNodeInfos() {
+        List<EntityQueryExprNodeInfo> nodeInfos = new ArrayList<>();
+        for (EntityQueryExprNodeInfo nodeInfo : exprNodeInfos) {
+            nodeInfos.add(nodeInfo.copy());
+        }
+        return nodeInfos;
+    }
+
+    public String getQueryAttrName() {
+        if (exprNodeInfos.isEmpty()) {
+            return null;
+        }
+        return exprNodeInfos.get(exprNodeInfos.size() - 1).getQueryAttrName();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("[expression=");
+        builder.append(expression);
+        builder.append(", exprNodeInfos=");
+        builder.append(exprNodeInfos);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,327 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import com.webank.wecube.platform.auth.client.context.JwtSsoClientContext;
+import com.webank.wecube.platform.auth.client.http.JwtSsoRestTemplate;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.DmeProperties;
+import com.webank.wecube.platform.core.http.UserJwtSsoTokenRestTemplate;
+import com.webank.wecube.platform.core.service.RuntimeMetricsProvider;
+
+/**
+ * Dedicated pooled keep-alive HTTP transport for entity data requests. Each
+ * kind of authenticating rest template gets a counterpart sharing the same
+ * connection pool, and the concurrent requests of each plugin package are
+ * limited so that a slow plugin cannot hold all connections of the pool.
+ */
+@Component
+public class DmeHttpTransport implements RuntimeMetricsProvider {
+    private static final Logger log = LoggerFactory.getLogger(DmeHttpTransport.class);
+
+    @Autowired(required = false)
+    private DmeProperties dmeProperties;
+
+    @Autowired(required = false)
+    private JwtSsoClientContext jwtSsoClientContext;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private RestTemplate jwtSsoRestTemplate;
+    private RestTemplate userJwtSsoTokenRestTemplate;
+
+    private final ConcurrentMap<String, PackageRequestLimit> packageRequestLimits = new ConcurrentHashMap<>();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(dmeProperties.getHttpMaxTotalConnections());
+        connectionManager.setDefaultMaxPerRoute(dmeProperties.getHttpMaxConnectionsPerRoute());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(dmeProperties.getHttpConnectionRequestTimeout())
+                .setConnectTimeout(dmeProperties.getHttpConnectTimeout())
+                .setSocketTimeout(dmeProperties.getHttpSocketTimeout()).build();
+
+        httpClient = HttpClients.custom().setDefaultRequestConfig(requestConfig)
+                .setConnectionManager(connectionManager).setKeepAliveStrategy(buildKeepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(dmeProperties.getHttpCloseIdleConnectionSecs(), TimeUnit.SECONDS).build();
+
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(
+                httpClient);
+
+        if (jwtSsoClientContext != null) {
+            jwtSsoRestTemplate = buildRestTemplate(new JwtSsoRestTemplate(jwtSsoClientContext), requestFactory);
+        }
+        userJwtSsoTokenRestTemplate = buildRestTemplate(new UserJwtSsoTokenRestTemplate(), requestFactory);
+
+        log.info("DME http transport initialized with max total connections {} and max connections per route {}",
+                dmeProperties.getHttpMaxTotalConnections(), dmeProperties.getHttpMaxConnectionsPerRoute());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (httpClient == null) {
+            return;
+        }
+
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.warn("errors while closing DME http client", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return dmeProperties != null && dmeProperties.isHttpPoolEnabled();
+    }
+
+    /**
+     * Returns the pooled counterpart of given rest template, authenticating
+     * requests the same way, or the given rest template itself if there is
+     * no such counterpart.
+     */
+    public RestTemplate resolveRestTemplate(RestTemplate restTemplate) {
+        if (!isEnabled()) {
+            return restTemplate;
+        }
+
+        if (restTemplate instanceof JwtSsoRestTemplate && jwtSsoRestTemplate != null) {
+            return jwtSsoRestTemplate;
+        }
+
+        if (restTemplate instanceof UserJwtSsoTokenRestTemplate) {
+            return userJwtSsoTokenRestTemplate;
+        }
+
+        return restTemplate;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "dme-http-pool";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", isEnabled());
+        if (connectionManager != null) {
+            PoolStats totalStats = connectionManager.getTotalStats();
+            metrics.put("leased", totalStats.getLeased());
+            metrics.put("available", totalStats.getAvailable());
+            metrics.put("pending", totalStats.getPending());
+            metrics.put("max", totalStats.getMax());
+
+            Map<String, Object> routeMetrics = new LinkedHashMap<>();
+            for (HttpRoute route : connectionManager.getRoutes()) {
+                routeMetrics.put(route.getTargetHost().toHostString(), toMetrics(connectionManager.getStats(route)));
+            }
+            metrics.put("routes", routeMetrics);
+        }
+
+        Map<String, Object> packageMetrics = new LinkedHashMap<>();
+        for (Map.Entry<String, PackageRequestLimit> entry : packageRequestLimits.entrySet()) {
+            packageMetrics.put(entry.getKey(), entry.getValue().getMetrics());
+        }
+        metrics.put("packages", packageMetrics);
+        metrics.put("rejectedCount", rejectedCount.get());
+        return metrics;
+    }
+
+    /**
+     * Acquires a request permit of given package, waiting at most as long as
+     * for a pooled connection.
+     */
+    void acquire(String packageName) {
+        PackageRequestLimit limit = getPackageRequestLimit(packageName);
+        boolean acquired;
+        try {
+            acquired = limit.permits.tryAcquire(dmeProperties.getHttpConnectionRequestTimeout(),
+                    TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejectedCount.incrementAndGet();
+            limit.rejectedCount.incrementAndGet();
+            String msg = String.format("Too many concurrent data requests to %s.", packageName);
+            throw new EntityOperationException("3313", msg, packageName);
+        }
+    }
+
+    void release(String packageName) {
+        getPackageRequestLimit(packageName).permits.release();
+    }
+
+    private PackageRequestLimit getPackageRequestLimit(String packageName) {
+        return packageRequestLimits.computeIfAbsent(packageName,
+                k -> new PackageRequestLimit(dmeProperties.getHttpMaxConcurrentRequestsPerPackage()));
+    }
+
+    private RestTemplate buildRestTemplate(RestTemplate restTemplate, ClientHttpRequestFactory requestFactory) {
+        restTemplate.setRequestFactory(requestFactory);
+        restTemplate.getInterceptors().add(new PackageRequestLimitInterceptor());
+        return restTemplate;
+    }
+
+    private ConnectionKeepAliveStrategy buildKeepAliveStrategy() {
+        return (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : dmeProperties.getHttpKeepAliveMillis();
+        };
+    }
+
+    private static Map<String, Object> toMetrics(PoolStats stats) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("leased", stats.getLeased());
+        metrics.put("available", stats.getAvailable());
+        metrics.put("pending", stats.getPending());
+        metrics.put("max", stats.getMax());
+        return metrics;
+    }
+
+    /**
+     * Package name is the first path segment of entity data request uri, such
+     * as /{package-name}/entities/{entity-name}/query.
+     */
+    private static String extractPackageName(HttpRequest request) {
+        String path = request.getURI().getPath();
+        if (path == null) {
+            return "";
+        }
+
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    private static class PackageRequestLimit {
+        private final int maxRequests;
+        private final Semaphore permits;
+        private final AtomicLong rejectedCount = new AtomicLong();
+
+        PackageRequestLimit(int maxRequests) {
+            this.maxRequests = maxRequests;
+            this.permits = new Semaphore(maxRequests);
+        }
+
+        Map<String, Object> getMetrics() {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("inFlight", maxRequests - permits.availablePermits());
+            metrics.put("max", maxRequests);
+            metrics.put("rejectedCount", rejectedCount.get());
+            return metrics;
+        }
+    }
+
+    private class PackageRequestLimitInterceptor implements ClientHttpRequestInterceptor {
+
+        @Override
+        public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+                throws IOException {
+            String packageName = extractPackageName(request);
+            acquire(packageName);
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException | RuntimeException e) {
+                release(packageName);
+                throw e;
+            }
+            return new PermitReleasingResponse(response, packageName);
+        }
+    }
+
+    /**
+     * Holds the request permit until the response has been consumed and
+     * closed by the rest template.
+     */
+    private class PermitReleasingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse response;
+        private final String packageName;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PermitReleasingResponse(ClientHttpResponse response, String packageName) {
+            this.response = response;
+            this.packageName = packageName;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return response.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return response.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    release(packageName);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.DmeProperties;
+import com.webank.wecube.platform.core.service.RuntimeMetricsProvider;
+
+/**
+ * Entity data query results cached per process instance, keyed by package,
+ * entity and query specification. Any update to an entity type drops the
+ * cached results of that entity type from all process instances.
+ */
+@Service
+public class EntityDataQueryCache implements RuntimeMetricsProvider {
+    private static final Logger log = LoggerFactory.getLogger(EntityDataQueryCache.class);
+
+    private static final int DEFAULT_MAX_PROC_INSTANCES = 256;
+    private static final long DEFAULT_EXPIRE_MINUTES = 30L;
+
+    @Autowired(required = false)
+    private DmeProperties dmeProperties;
+
+    private volatile Cache<String, ProcInstEntityDataScope> scopes = buildScopes(DEFAULT_MAX_PROC_INSTANCES,
+            DEFAULT_EXPIRE_MINUTES);
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> entityVersions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (dmeProperties == null) {
+            return;
+        }
+
+        int maxProcInstances = dmeProperties.getDataCacheMaxProcInstances() > 0
+                ? dmeProperties.getDataCacheMaxProcInstances()
+                : DEFAULT_MAX_PROC_INSTANCES;
+        long expireMinutes = dmeProperties.getDataCacheExpireMinutes() > 0 ? dmeProperties.getDataCacheExpireMinutes()
+                : DEFAULT_EXPIRE_MINUTES;
+        this.scopes = buildScopes(maxProcInstances, expireMinutes);
+    }
+
+    public boolean isEnabled() {
+        return dmeProperties != null && dmeProperties.isDataCacheEnabled();
+    }
+
+    /**
+     * Returns a copy of the cached response, or null if absent.
+     */
+    public StandardEntityOperationResponseDto get(String procInstId, EntityRouteDescription entityDef,
+            String querySpecKey) {
+        ProcInstEntityDataScope scope = scopes.getIfPresent(procInstId);
+        StandardEntityOperationResponseDto responseDto = null;
+        if (scope != null) {
+            responseDto = scope.get(buildEntityKey(entityDef), querySpecKey);
+        }
+
+        if (responseDto == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        hitCount.incrementAndGet();
+        return copyOf(responseDto);
+    }
+
+    /**
+     * Version of given entity type, which increases on each invalidation. A
+     * query result is only cached if no update happened while querying.
+     */
+    public long getEntityVersion(EntityRouteDescription entityDef) {
+        return getEntityVersionCounter(buildEntityKey(entityDef)).get();
+    }
+
+    public void put(String procInstId, EntityRouteDescription entityDef, String querySpecKey,
+            StandardEntityOperationResponseDto responseDto, long entityVersion) {
+        String entityKey = buildEntityKey(entityDef);
+        if (getEntityVersionCounter(entityKey).get() != entityVersion) {
+            return;
+        }
+
+        ProcInstEntityDataScope scope;
+        try {
+            scope = scopes.get(procInstId, ProcInstEntityDataScope::new);
+        } catch (ExecutionException e) {
+            log.warn("failed to create entity data scope for {}", procInstId, e);
+            return;
+        }
+
+        scope.put(entityKey, querySpecKey, copyOf(responseDto));
+        if (getEntityVersionCounter(entityKey).get() != entityVersion) {
+            scope.invalidate(entityKey);
+        }
+    }
+
+    public void invalidateEntity(EntityRouteDescription entityDef) {
+        String entityKey = buildEntityKey(entityDef);
+        if (log.isDebugEnabled()) {
+            log.debug("invalidate cached entity data of {}", entityKey);
+        }
+
+        getEntityVersionCounter(entityKey).incrementAndGet();
+        for (ProcInstEntityDataScope scope : scopes.asMap().values()) {
+            scope.invalidate(entityKey);
+        }
+        invalidationCount.incrementAndGet();
+    }
+
+    public void evict(String procInstId) {
+        if (procInstId == null) {
+            return;
+        }
+        scopes.invalidate(procInstId);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "dme-data-cache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", isEnabled());
+        metrics.put("procInstances", scopes.size());
+        metrics.put("hitCount", hitCount.get());
+        metrics.put("missCount", missCount.get());
+        metrics.put("invalidationCount", invalidationCount.get());
+        return metrics;
+    }
+
+    private AtomicLong getEntityVersionCounter(String entityKey) {
+        return entityVersions.computeIfAbsent(entityKey, k -> new AtomicLong());
+    }
+
+    private String buildEntityKey(EntityRouteDescription entityDef) {
+        return entityDef.getPackageName() + ":" + entityDef.getEntityName();
+    }
+
+    private static Cache<String, ProcInstEntityDataScope> buildScopes(int maxProcInstances, long expireMinutes) {
+        return CacheBuilder.newBuilder().maximumSize(maxProcInstances)
+                .expireAfterAccess(expireMinutes, TimeUnit.MINUTES).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static StandardEntityOperationResponseDto copyOf(StandardEntityOperationResponseDto responseDto) {
+        Object data = responseDto.getData();
+        Object copiedData = data;
+        if (data instanceof List) {
+            List<Object> dataList = new ArrayList<>();
+            for (Object m : (List<Object>) data) {
+                dataList.add(m instanceof Map ? new LinkedHashMap<>((Map<String, Object>) m) : m);
+            }
+            copiedData = dataList;
+        } else if (data instanceof Map) {
+            copiedData = new LinkedHashMap<>((Map<String, Object>) data);
+        }
+
+        StandardEntityOperationResponseDto copy = new StandardEntityOperationResponseDto();
+        copy.setStatus(responseDto.getStatus());
+        copy.setMessage(responseDto.getMessage());
+        copy.setData(copiedData);
+        return copy;
+    }
+
+    private static class ProcInstEntityDataScope {
+        private final ConcurrentMap<String, ConcurrentMap<String, StandardEntityOperationResponseDto>> entityResults = new ConcurrentHashMap<>();
+
+        StandardEntityOperationResponseDto get(String entityKey, String querySpecKey) {
+            Map<String, StandardEntityOperationResponseDto> results = entityResults.get(entityKey);
+            return results == null ? null : results.get(querySpecKey);
+        }
+
+        void put(String entityKey, String querySpecKey, StandardEntityOperationResponseDto responseDto) {
+            entityResults.computeIfAbsent(entityKey, k -> new ConcurrentHashMap<>()).put(querySpecKey, responseDto);
+        }
+
+        void invalidate(String entityKey) {
+            entityResults.remove(entityKey);
+        }
+    }
+}
@@ -1,26 +1,62 @@
 package com.webank.wecube.platform.core.service.dme;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.webank.wecube.platform.core.commons.ApplicationProperties;
 
+/**
+ * Route descriptions are resolved once per entity and reused until the
+ * gateway url changes.
+ */
 @Service
 public class EntityDataRouteFactory {
-    
+
     @Autowired
     private ApplicationProperties applicationProperties;
 
+    private volatile ResolvedRoutes resolvedRoutes;
+
     public EntityRouteDescription deduceEntityDescription(String packageName, String entityName){
+        return getResolvedRoutes().get(packageName, entityName);
+    }
+
+    private ResolvedRoutes getResolvedRoutes() {
         String gatewayUrl = applicationProperties.getGatewayUrl();
-        String [] parts = gatewayUrl.split(":");
-        EntityRouteDescription entityDef = new EntityRouteDescription();
-        entityDef.setEntityName(packageName);
-        entityDef.setHttpPort(parts[1]);
-        entityDef.setHttpHost(parts[0]);
-        entityDef.setHttpScheme("http");
-        entityDef.setPackageName(entityName);
-        
-        return entityDef;
+        ResolvedRoutes routes = resolvedRoutes;
+        if (routes == null || !routes.gatewayUrl.equals(gatewayUrl)) {
+            routes = new ResolvedRoutes(gatewayUrl);
+            resolvedRoutes = routes;
+        }
+        return routes;
+    }
+
+    private static class ResolvedRoutes {
+        private final String gatewayUrl;
+        private final String httpHost;
+        private final String httpPort;
+        private final ConcurrentMap<String, EntityRouteDescription> routes = new ConcurrentHashMap<>();
+
+        ResolvedRoutes(String gatewayUrl) {
+            String[] parts = gatewayUrl.split(":");
+            this.gatewayUrl = gatewayUrl;
+            this.httpHost = parts[0];
+            this.httpPort = parts[1];
+        }
+
+        EntityRouteDescription get(String packageName, String entityName) {
+            return routes.computeIfAbsent(packageName + ":" + entityName, k -> {
+                EntityRouteDescription entityDef = new EntityRouteDescription();
+                entityDef.setEntityName(packageName);
+                entityDef.setHttpPort(httpPort);
+                entityDef.setHttpHost(httpHost);
+                entityDef.setHttpScheme("http");
+                entityDef.setPackageName(entityName);
+                return entityDef;
+            });
+        }
     }
 }
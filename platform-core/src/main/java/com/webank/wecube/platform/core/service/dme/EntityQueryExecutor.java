@@ -1,13 +1,18 @@
 package com.webank.wecube.platform.core.service.dme;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface EntityQueryExecutor {
     void executeUpdate(EntityOperationContext ctx, Object valueToUpdate);
     List<Object> executeQueryLeafAttributes(EntityOperationContext ctx);
+    Map<String, List<Object>> executeQueryLeafAttributes(EntityOperationContext ctx,
+            Map<String, List<EntityQueryExprNodeInfo>> exprNodeInfosByExpr);
     List<EntityDataDelegate> executeQueryLeafEntity(EntityOperationContext ctx);
     void performQuery(EntityOperationContext ctx, EntityQueryLinkNode linkNode);
     List<TreeNode> generatePreviewTree(EntityOperationContext ctx);
+    void generatePreviewTree(EntityOperationContext ctx, Consumer<List<TreeNode>> levelConsumer);
     EntityTreeNodesOverview generateEntityLinkOverview(EntityOperationContext ctx);
     EntityQueryLinkNode buildEntityQueryLinkNode(List<EntityQueryExprNodeInfo> exprNodeInfos);
 }
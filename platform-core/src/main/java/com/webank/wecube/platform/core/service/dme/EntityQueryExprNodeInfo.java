@@ -121,6 +121,27 @@ public class EntityQueryExprNodeInfo {
         return !this.additionalFilters.isEmpty();
     }
 
+    public EntityQueryExprNodeInfo copy() {
+        EntityQueryExprNodeInfo nodeInfo = new EntityQueryExprNodeInfo();
+        nodeInfo.setEntityQueryNodeExpr(entityQueryNodeExpr);
+        nodeInfo.setEntityInfoExpr(entityInfoExpr);
+        nodeInfo.setEntityFilterExpr(entityFilterExpr);
+        nodeInfo.setEntityLinkType(entityLinkType);
+        nodeInfo.setQueryAttrName(queryAttrName);
+        nodeInfo.setRefByAttrName(refByAttrName);
+        nodeInfo.setPackageName(packageName);
+        nodeInfo.setEntityName(entityName);
+        nodeInfo.setHeadEntity(isHeadEntity);
+        if (additionalFilters != null) {
+            for (EntityQueryFilter f : additionalFilters) {
+                if (f != null) {
+                    nodeInfo.addAdditionalFilters(f.copy());
+                }
+            }
+        }
+        return nodeInfo;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -1,33 +1,102 @@
 package com.webank.wecube.platform.core.service.dme;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.annotation.PostConstruct;
+
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.DmeProperties;
+import com.webank.wecube.platform.core.service.RuntimeMetricsProvider;
 /**
  * 
  * @author gavin
  *
  */
 @Service("entityQueryExpressionParser")
-public class EntityQueryExpressionParser {
+public class EntityQueryExpressionParser implements RuntimeMetricsProvider {
     public static final String PKG_DELIMITER = ":";
     public static final String REG_ENTITY_ID = "@@\\w+@@";
+    private static final int DEFAULT_EXPRESSION_CACHE_SIZE = 1024;
+    private static final Pattern LINK_OP_PATTERN = Pattern
+            .compile(String.format("[%s%s]", EntityLinkType.REF_TO.symbol(), EntityLinkType.REF_BY.symbol()));
+    private static final Pattern FILTERS_PATTERN = Pattern.compile("\\{([^}\t\r\n])*?\\}");
+    private static final Pattern SINGLE_FILTER_PATTERN = Pattern.compile("^\\{([^}\t\r\n])*?\\}$");
+    private static final Pattern FILTER_SPLIT_PATTERN = Pattern.compile("\\s+");
     private Pattern entityIdPattern = Pattern.compile(REG_ENTITY_ID);
 
+    @Autowired(required = false)
+    private DmeProperties dmeProperties;
+
+    private volatile Cache<String, CompiledEntityQueryExpression> compiledExpressions = buildExpressionCache(
+            DEFAULT_EXPRESSION_CACHE_SIZE);
+
+    @PostConstruct
+    public void init() {
+        if (dmeProperties != null && dmeProperties.getExpressionCacheSize() >= 0) {
+            compiledExpressions = buildExpressionCache(dmeProperties.getExpressionCacheSize());
+        }
+    }
+
     public List<EntityQueryExprNodeInfo> parse(String expr) {
-    	
-    	if(StringUtils.isBlank(expr)) {
-    		throw new IllegalArgumentException("Expression to parse cannot be blank.");
-    	}
+        return compile(expr).getExprNodeInfos();
+    }
 
-        String exprOpReg = String.format("[%s%s]", EntityLinkType.REF_TO.symbol(), EntityLinkType.REF_BY.symbol());
+    /**
+     * Returns the compiled form of the expression, parsing it only if it is not
+     * in the expression cache yet.
+     */
+    public CompiledEntityQueryExpression compile(String expr) {
+        if (StringUtils.isBlank(expr)) {
+            throw new IllegalArgumentException("Expression to parse cannot be blank.");
+        }
+
+        CompiledEntityQueryExpression compiledExpr = compiledExpressions.getIfPresent(expr);
+        if (compiledExpr == null) {
+            compiledExpr = new CompiledEntityQueryExpression(expr, doParse(expr));
+            compiledExpressions.put(expr, compiledExpr);
+        }
+
+        return compiledExpr;
+    }
+
+    public CacheStats getExpressionCacheStats() {
+        return compiledExpressions.stats();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "dme-expression-cache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        CacheStats stats = compiledExpressions.stats();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", compiledExpressions.size());
+        metrics.put("hitCount", stats.hitCount());
+        metrics.put("missCount", stats.missCount());
+        metrics.put("hitRate", stats.hitRate());
+        metrics.put("evictionCount", stats.evictionCount());
+        return metrics;
+    }
+
+    private Cache<String, CompiledEntityQueryExpression> buildExpressionCache(int maxSize) {
+        return CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+    }
 
-        Pattern p = Pattern.compile(exprOpReg);
-        Matcher m = p.matcher(expr);
+    protected List<EntityQueryExprNodeInfo> doParse(String expr) {
+        Matcher m = LINK_OP_PATTERN.matcher(expr);
         int start = 0;
 
         List<EntityQueryExprNodeInfo> queryNodeInfos = new ArrayList<>();
@@ -138,8 +207,7 @@ public class EntityQueryExpressionParser {
     }
     
     protected void parseAdditionalFilters(EntityQueryExprNodeInfo nodeInfo, String filtersExpr){
-        Pattern filterPattern = Pattern.compile("\\{([^}\t\r\n])*?\\}");
-        Matcher filterMatcher = filterPattern.matcher(filtersExpr);
+        Matcher filterMatcher = FILTERS_PATTERN.matcher(filtersExpr);
         
         while (filterMatcher.find()) {
             String filerStr = filterMatcher.group();
@@ -149,7 +217,7 @@ public class EntityQueryExpressionParser {
     }
     
     public EntityQueryFilter buildEntityQueryFilter(String filterExpr) {
-        if (!Pattern.matches("^\\{([^}\t\r\n])*?\\}$", filterExpr)) {
+        if (!SINGLE_FILTER_PATTERN.matcher(filterExpr).matches()) {
             return null;
         }
 
@@ -162,9 +230,7 @@ public class EntityQueryExpressionParser {
             expr = expr.substring(0, expr.length() - 1);
         }
 
-        String splitReg = "\\s+";
-        Pattern p = Pattern.compile(splitReg);
-        Matcher m = p.matcher(expr);
+        Matcher m = FILTER_SPLIT_PATTERN.matcher(expr);
 
         String attrName = null;
         int opStart = -1;
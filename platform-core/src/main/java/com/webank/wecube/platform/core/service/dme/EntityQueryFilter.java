@@ -1,5 +1,8 @@
 package com.webank.wecube.platform.core.service.dme;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 /**
@@ -47,6 +50,18 @@ public class EntityQueryFilter {
         this.attrName = attrName;
     }
 
+    public EntityQueryFilter copy() {
+        EntityQueryFilter f = new EntityQueryFilter();
+        f.setAttrName(attrName);
+        f.setOp(op);
+        if (condition instanceof List) {
+            f.setCondition(new ArrayList<>((List<?>) condition));
+        } else {
+            f.setCondition(condition);
+        }
+        return f;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
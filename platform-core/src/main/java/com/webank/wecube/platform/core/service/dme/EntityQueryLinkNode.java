@@ -95,6 +95,10 @@ public class EntityQueryLinkNode {
         return this;
     }
 
+    public void clearEntityDataDelegates() {
+        this.entityDataDelegates.clear();
+    }
+
     public boolean isHead() {
         return isHead;
     }
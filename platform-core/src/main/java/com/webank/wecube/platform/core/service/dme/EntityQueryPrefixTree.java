@@ -0,0 +1,166 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the query paths of several entity query expressions so that the
+ * link nodes shared by their prefixes only need to be queried once. Nodes
+ * are keyed by the entity and filters they query, regardless of the queried
+ * attribute, while a reference-to hop is also keyed by the referencing
+ * attribute of its parent.
+ */
+public class EntityQueryPrefixTree {
+    private final Map<String, PrefixNode> roots = new LinkedHashMap<>();
+    private final Map<String, ExpressionTarget> targets = new LinkedHashMap<>();
+
+    public void addExpression(String expression, List<EntityQueryExprNodeInfo> exprNodeInfos) {
+        if (exprNodeInfos == null || exprNodeInfos.isEmpty() || targets.containsKey(expression)) {
+            return;
+        }
+
+        EntityQueryExprNodeInfo headNodeInfo = exprNodeInfos.get(0);
+        PrefixNode node = roots.computeIfAbsent(buildNodeKey(null, headNodeInfo),
+                k -> new PrefixNode(null, null, headNodeInfo));
+
+        for (int i = 1; i < exprNodeInfos.size(); i++) {
+            EntityQueryExprNodeInfo nodeInfo = exprNodeInfos.get(i);
+            String refAttrName = null;
+            if (nodeInfo.getEntityLinkType() == EntityLinkType.REF_TO) {
+                refAttrName = exprNodeInfos.get(i - 1).getQueryAttrName();
+            }
+
+            PrefixNode parent = node;
+            String attrName = refAttrName;
+            node = parent.children.computeIfAbsent(buildNodeKey(refAttrName, nodeInfo),
+                    k -> new PrefixNode(parent, attrName, nodeInfo));
+        }
+
+        targets.put(expression, new ExpressionTarget(node, exprNodeInfos.get(exprNodeInfos.size() - 1)
+                .getQueryAttrName()));
+    }
+
+    public Collection<PrefixNode> getRoots() {
+        return roots.values();
+    }
+
+    public Map<String, List<Object>> extractAttrValues() {
+        Map<String, List<Object>> attrValuesByExpr = new LinkedHashMap<>();
+        for (Map.Entry<String, ExpressionTarget> entry : targets.entrySet()) {
+            attrValuesByExpr.put(entry.getKey(), entry.getValue().extractAttrValues());
+        }
+        return attrValuesByExpr;
+    }
+
+    private String buildNodeKey(String refAttrName, EntityQueryExprNodeInfo nodeInfo) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(nodeInfo.getEntityLinkType()).append("|");
+        builder.append(refAttrName == null ? "" : refAttrName).append("|");
+        builder.append(nodeInfo.getRefByAttrName() == null ? "" : nodeInfo.getRefByAttrName()).append("|");
+        builder.append(nodeInfo.getPackageName()).append(":").append(nodeInfo.getEntityName()).append("|");
+        builder.append(nodeInfo.getEntityFilterExpr() == null ? "" : nodeInfo.getEntityFilterExpr());
+        return builder.toString();
+    }
+
+    public static class PrefixNode {
+        private final PrefixNode parent;
+        private final String refAttrName;
+        private final EntityQueryExprNodeInfo exprNodeInfo;
+        private final Map<String, PrefixNode> children = new LinkedHashMap<>();
+        private EntityQueryLinkNode linkNode;
+
+        PrefixNode(PrefixNode parent, String refAttrName, EntityQueryExprNodeInfo exprNodeInfo) {
+            this.parent = parent;
+            this.refAttrName = refAttrName;
+            this.exprNodeInfo = exprNodeInfo.copy();
+            this.exprNodeInfo.setQueryAttrName(null);
+        }
+
+        public PrefixNode getParent() {
+            return parent;
+        }
+
+        public EntityQueryExprNodeInfo getExprNodeInfo() {
+            return exprNodeInfo;
+        }
+
+        public Collection<PrefixNode> getChildren() {
+            return children.values();
+        }
+
+        public EntityQueryLinkNode getLinkNode() {
+            return linkNode;
+        }
+
+        /**
+         * Builds the link node to query, linked to a view of the parent link
+         * node whose entities carry the referencing attribute of this node.
+         */
+        public EntityQueryLinkNode buildLinkNode(int index) {
+            EntityQueryLinkNode node = new EntityQueryLinkNode();
+            node.setIndex(index);
+            node.setExprNodeInfo(exprNodeInfo);
+            if (parent == null) {
+                node.setHead(true);
+            } else {
+                node.setHead(false);
+                node.setPreviousNode(buildParentView());
+            }
+
+            this.linkNode = node;
+            return node;
+        }
+
+        private EntityQueryLinkNode buildParentView() {
+            EntityQueryLinkNode parentLinkNode = parent.getLinkNode();
+            EntityQueryExprNodeInfo viewNodeInfo = parentLinkNode.getExprNodeInfo().copy();
+            viewNodeInfo.setQueryAttrName(refAttrName);
+
+            EntityQueryLinkNode view = new EntityQueryLinkNode();
+            view.setIndex(parentLinkNode.getIndex());
+            view.setHead(parentLinkNode.isHead());
+            view.setExprNodeInfo(viewNodeInfo);
+
+            for (EntityDataDelegate delegate : parentLinkNode.getEntityDataDelegates()) {
+                EntityDataDelegate viewDelegate = new EntityDataDelegate();
+                viewDelegate.setId(delegate.getId());
+                viewDelegate.setDisplayName(delegate.getDisplayName());
+                viewDelegate.setPackageName(delegate.getPackageName());
+                viewDelegate.setEntityName(delegate.getEntityName());
+                viewDelegate.setEntityData(delegate.getEntityData());
+                if (refAttrName != null) {
+                    viewDelegate.setQueryAttrName(refAttrName);
+                    viewDelegate.setQueryAttrValue(delegate.getAttributeValue(refAttrName));
+                }
+                view.addEntityDataDelegates(viewDelegate);
+            }
+
+            return view;
+        }
+    }
+
+    private static class ExpressionTarget {
+        private final PrefixNode node;
+        private final String queryAttrName;
+
+        ExpressionTarget(PrefixNode node, String queryAttrName) {
+            this.node = node;
+            this.queryAttrName = queryAttrName;
+        }
+
+        List<Object> extractAttrValues() {
+            List<Object> attrValues = new ArrayList<>();
+            if (queryAttrName == null || node.getLinkNode() == null) {
+                return attrValues;
+            }
+
+            for (EntityDataDelegate delegate : node.getLinkNode().getEntityDataDelegates()) {
+                attrValues.add(delegate.getAttributeValue(queryAttrName));
+            }
+            return attrValues;
+        }
+    }
+}
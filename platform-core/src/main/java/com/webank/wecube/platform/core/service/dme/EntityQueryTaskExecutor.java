@@ -0,0 +1,152 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.DmeProperties;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder.AuthenticatedUser;
+
+/**
+ * Runs independent entity queries concurrently with one bounded thread pool
+ * per plugin package.
+ */
+@Service
+public class EntityQueryTaskExecutor {
+    private static final Logger log = LoggerFactory.getLogger(EntityQueryTaskExecutor.class);
+    private static final int DEFAULT_POOL_SIZE = 8;
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    @Autowired
+    private DmeProperties dmeProperties;
+
+    private final Map<String, ThreadPoolExecutor> pluginExecutors = new ConcurrentHashMap<>();
+
+    /**
+     * Executes the tasks on the executor of given plugin package and returns
+     * the results in the same order as the tasks. The first failure is
+     * re-thrown as it is and the remaining tasks are cancelled.
+     */
+    public <T> List<T> invokeAll(String packageName, List<Callable<T>> tasks) {
+        ThreadPoolExecutor executor = getPluginExecutor(packageName);
+        AuthenticatedUser currentUser = AuthenticationContextHolder.getCurrentUser();
+
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(new AuthenticatedCallable<T>(currentUser, task)));
+        }
+
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw new EntityOperationException("3312",
+                    String.format("Interrupted while fetching data from %s.", packageName), packageName);
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            log.error("errors while fetching data from {}", packageName, cause);
+            throw new EntityOperationException("3312",
+                    String.format("Errors met while fetching data from %s.", packageName), packageName);
+        }
+
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor executor : pluginExecutors.values()) {
+            executor.shutdownNow();
+        }
+        pluginExecutors.clear();
+    }
+
+    private ThreadPoolExecutor getPluginExecutor(String packageName) {
+        return pluginExecutors.computeIfAbsent(packageName, this::createPluginExecutor);
+    }
+
+    private ThreadPoolExecutor createPluginExecutor(String packageName) {
+        int poolSize = getPoolSize();
+        if (log.isInfoEnabled()) {
+            log.info("create entity query executor for {} with pool size {}", packageName, poolSize);
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new EntityQueryThreadFactory(packageName));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private int getPoolSize() {
+        if (dmeProperties == null || dmeProperties.getParallelQueryPoolSize() <= 0) {
+            return DEFAULT_POOL_SIZE;
+        }
+        return dmeProperties.getParallelQueryPoolSize();
+    }
+
+    private <T> void cancelAll(List<Future<T>> futures) {
+        for (Future<T> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private static class AuthenticatedCallable<T> implements Callable<T> {
+        private final AuthenticatedUser user;
+        private final Callable<T> delegate;
+
+        AuthenticatedCallable(AuthenticatedUser user, Callable<T> delegate) {
+            this.user = user;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public T call() throws Exception {
+            AuthenticationContextHolder.clearCurrentUser();
+            AuthenticationContextHolder.setAuthenticatedUser(user);
+            try {
+                return delegate.call();
+            } finally {
+                AuthenticationContextHolder.clearCurrentUser();
+            }
+        }
+    }
+
+    private static class EntityQueryThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        EntityQueryThreadFactory(String packageName) {
+            this.namePrefix = "dme-query-" + packageName + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, namePrefix + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -19,7 +19,7 @@ public class StandardEntityOperationRestClient {
 	private String queryUriTemplate = "/{package-name}/entities/{entity-name}/query";
 	private String updateUriTemplate = "/{package-name}/entities/{entity-name}/update";
 	private RestTemplate restTemplate;
-	private ObjectMapper objectMapper = new ObjectMapper();
+	private static final ObjectMapper objectMapper = new ObjectMapper();
 
 	public StandardEntityOperationRestClient() {
 	}
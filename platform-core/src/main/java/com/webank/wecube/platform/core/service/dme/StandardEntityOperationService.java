@@ -2,8 +2,12 @@ package com.webank.wecube.platform.core.service.dme;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +32,14 @@ public class StandardEntityOperationService {
     
     @Autowired
     private EntityDataRouteFactory entityDataRouteFactory;
+
+    @Autowired(required = false)
+    private EntityDataQueryCache entityDataQueryCache;
+
+    @Autowired(required = false)
+    private DmeHttpTransport dmeHttpTransport;
+
+    private final ConcurrentMap<RestTemplate, StandardEntityOperationRestClient> entityOperationRestClients = new ConcurrentHashMap<>();
     
     public List<Map<String,Object>> queryAttributeValuesOfLeafNode(EntityOperationRootCondition condition){
         return queryAttributeValuesOfLeafNode(condition, jwtSsoRestTemplate);
@@ -68,6 +80,51 @@ public class StandardEntityOperationService {
         return standardEntityQueryExcutor.executeQueryLeafAttributes(ctx);
     }
 
+    /**
+     * Queries attribute values sharing cached entity data with other queries
+     * of the same process instance if data cache is enabled.
+     */
+    public List<Object> queryAttributeValues(EntityOperationRootCondition condition, String procInstId) {
+        if (log.isDebugEnabled()) {
+            log.debug("query entity with condition {} for process instance {}", condition, procInstId);
+        }
+
+        EntityOperationContext ctx = buildEntityOperationContext(condition, jwtSsoRestTemplate, procInstId);
+        ctx.setEntityOperationType(EntityOperationType.QUERY);
+        return standardEntityQueryExcutor.executeQueryLeafAttributes(ctx);
+    }
+
+    /**
+     * Queries attribute values of several expressions sharing the same root
+     * entity, returning the values by expression. Link nodes shared by the
+     * expression prefixes are only queried once.
+     */
+    public Map<String, List<Object>> queryAttributeValues(List<String> entityLinkExprs, String entityIdentity,
+            String procInstId) {
+        if (log.isDebugEnabled()) {
+            log.debug("query entity {} with expressions {}", entityIdentity, entityLinkExprs);
+        }
+
+        Map<String, List<EntityQueryExprNodeInfo>> exprNodeInfosByExpr = new LinkedHashMap<>();
+        for (String entityLinkExpr : entityLinkExprs) {
+            exprNodeInfosByExpr.put(entityLinkExpr, entityQueryExpressionParser.parse(entityLinkExpr));
+        }
+
+        EntityOperationContext ctx = new EntityOperationContext();
+        ctx.setOriginalEntityData(entityIdentity);
+        ctx.setStandardEntityOperationRestClient(buildEntityOperationRestClient(jwtSsoRestTemplate, procInstId));
+        ctx.setEntityDataRouteFactory(entityDataRouteFactory);
+        ctx.setEntityOperationType(EntityOperationType.QUERY);
+
+        return standardEntityQueryExcutor.executeQueryLeafAttributes(ctx, exprNodeInfosByExpr);
+    }
+
+    public void evictEntityDataCache(String procInstId) {
+        if (entityDataQueryCache != null) {
+            entityDataQueryCache.evict(procInstId);
+        }
+    }
+
     public void update(EntityOperationRootCondition condition, Object attrValueToUpdate) {
         if (log.isInfoEnabled()) {
             log.info("update entity with condition {} and data {}", condition, attrValueToUpdate);
@@ -106,20 +163,54 @@ public class StandardEntityOperationService {
         return standardEntityQueryExcutor.generatePreviewTree(ctx);
     }
 
+    /**
+     * Streams the preview tree level by level instead of building the whole
+     * tree in memory, see {@link EntityQueryExecutor#generatePreviewTree(EntityOperationContext, Consumer)}.
+     */
+    public void generatePreviewTree(EntityOperationRootCondition condition, RestTemplate restTemplate,
+            Consumer<List<TreeNode>> levelConsumer) {
+        if (log.isInfoEnabled()) {
+            log.info("generate preview tree level by level with condition {}", condition);
+        }
+
+        EntityOperationContext ctx = buildEntityOperationContext(condition, restTemplate);
+        ctx.setEntityOperationType(EntityOperationType.QUERY);
+        standardEntityQueryExcutor.generatePreviewTree(ctx, levelConsumer);
+    }
+
     protected EntityOperationContext buildEntityOperationContext(EntityOperationRootCondition condition, RestTemplate restTemplate) {
+        return buildEntityOperationContext(condition, restTemplate, null);
+    }
+
+    protected EntityOperationContext buildEntityOperationContext(EntityOperationRootCondition condition,
+            RestTemplate restTemplate, String procInstId) {
         List<EntityQueryExprNodeInfo> exprNodeInfos = entityQueryExpressionParser.parse(condition.getEntityLinkExpr());
 
         EntityOperationContext ctx = new EntityOperationContext();
         ctx.setEntityQueryExprNodeInfos(exprNodeInfos);
         ctx.setOriginalEntityLinkExpression(condition.getEntityLinkExpr());
         ctx.setOriginalEntityData(condition.getEntityIdentity());
-        ctx.setStandardEntityOperationRestClient(new StandardEntityOperationRestClient(restTemplate));
+        ctx.setStandardEntityOperationRestClient(buildEntityOperationRestClient(restTemplate, procInstId));
         ctx.setHeadEntityQueryLinkNode(standardEntityQueryExcutor.buildEntityQueryLinkNode(exprNodeInfos));
         ctx.setEntityDataRouteFactory(entityDataRouteFactory);
 
         return ctx;
     }
 
+    private StandardEntityOperationRestClient buildEntityOperationRestClient(RestTemplate restTemplate,
+            String procInstId) {
+        RestTemplate transportRestTemplate = restTemplate;
+        if (dmeHttpTransport != null) {
+            transportRestTemplate = dmeHttpTransport.resolveRestTemplate(restTemplate);
+        }
+
+        if (entityDataQueryCache == null || !entityDataQueryCache.isEnabled()) {
+            return entityOperationRestClients.computeIfAbsent(transportRestTemplate,
+                    StandardEntityOperationRestClient::new);
+        }
+
+        return new CachingEntityOperationRestClient(transportRestTemplate, entityDataQueryCache, procInstId);
+    }
 
     public RestTemplate getRestTemplate() {
         return jwtSsoRestTemplate;
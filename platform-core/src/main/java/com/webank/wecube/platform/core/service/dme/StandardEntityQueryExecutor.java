@@ -1,14 +1,25 @@
 package com.webank.wecube.platform.core.service.dme;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.webank.wecube.platform.core.commons.ApplicationProperties.DmeProperties;
+
 /**
  * 
  * @author gavinli
@@ -17,6 +28,13 @@ import org.springframework.stereotype.Service;
 @Service("standardEntityQueryExecutor")
 public class StandardEntityQueryExecutor implements EntityQueryExecutor {
     private static final Logger log = LoggerFactory.getLogger(StandardEntityQueryExecutor.class);
+    private static final int DEFAULT_BATCH_QUERY_SIZE = 100;
+
+    @Autowired
+    private DmeProperties dmeProperties;
+
+    @Autowired
+    private EntityQueryTaskExecutor entityQueryTaskExecutor;
 
     @Override
     public EntityTreeNodesOverview generateEntityLinkOverview(EntityOperationContext ctx) {
@@ -34,67 +52,69 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
         return generateHierarchicalEntityTreeNodes(ctx);
     }
 
-    private void pupolateTreeNodeWithLinkNode(List<TreeNode> result, EntityQueryLinkNode linkNode) {
-        for (EntityDataDelegate delegate : linkNode.getEntityDataDelegates()) {
-
-            TreeNode currTreeNode = findTreeNode(result, delegate.getPackageName(), delegate.getEntityName(),
-                    delegate.getId());
-            if (currTreeNode == null) {
-                currTreeNode = new TreeNode();
-                currTreeNode.setRootId(delegate.getId());
-                currTreeNode.setDisplayName(delegate.getDisplayName());
-                currTreeNode.setEntityName(delegate.getEntityName());
-                currTreeNode.setPackageName(delegate.getPackageName());
+    /**
+     * Generates the preview tree level by level. Tree nodes of each link node
+     * are handed to the consumer as soon as the link node has been queried,
+     * each of them with a parent stub but no children, and the entities of
+     * the former level are released afterwards.
+     */
+    @Override
+    public void generatePreviewTree(EntityOperationContext ctx, Consumer<List<TreeNode>> levelConsumer) {
+        EntityQueryLinkNode linkNode = ctx.getHeadEntityQueryLinkNode();
+        while (linkNode != null) {
+            linkNode.executeQuery(this, ctx);
+            levelConsumer.accept(buildLevelTreeNodes(linkNode));
 
-                result.add(currTreeNode);
+            EntityQueryLinkNode previousLinkNode = linkNode.getPreviousNode();
+            if (previousLinkNode != null) {
+                for (EntityDataDelegate delegate : linkNode.getEntityDataDelegates()) {
+                    delegate.setPreviousEntity(null);
+                }
+                previousLinkNode.clearEntityDataDelegates();
             }
 
-            EntityDataDelegate prevDelegate = delegate.getPreviousEntity();
-            if (prevDelegate != null) {
-                TreeNode prevTreeNode = findTreeNode(result, prevDelegate.getPackageName(),
-                        prevDelegate.getEntityName(), prevDelegate.getId());
-                if (prevTreeNode == null) {
-                    prevTreeNode = new TreeNode();
-                    prevTreeNode.setRootId(prevDelegate.getId());
-                    prevTreeNode.setDisplayName(prevDelegate.getDisplayName());
-                    prevTreeNode.setEntityName(prevDelegate.getEntityName());
-                    prevTreeNode.setPackageName(prevDelegate.getPackageName());
-
-                    result.add(prevTreeNode);
-                }
+            linkNode = linkNode.getSucceedingNode();
+        }
+    }
 
-                currTreeNode.setParent(prevTreeNode);
-                prevTreeNode.addChildren(currTreeNode);
+    private List<TreeNode> buildLevelTreeNodes(EntityQueryLinkNode linkNode) {
+        Map<List<Object>, TreeNode> levelTreeNodes = new LinkedHashMap<>();
+        for (EntityDataDelegate delegate : linkNode.getEntityDataDelegates()) {
+            EntityDataDelegate prevDelegate = delegate.getPreviousEntity();
+            List<Object> key = Arrays.asList(delegate.getPackageName(), delegate.getEntityName(), delegate.getId(),
+                    prevDelegate == null ? null : prevDelegate.getPackageName(),
+                    prevDelegate == null ? null : prevDelegate.getEntityName(),
+                    prevDelegate == null ? null : prevDelegate.getId());
+            if (levelTreeNodes.containsKey(key)) {
+                continue;
             }
 
-            for (EntityDataDelegate succeedingDelegate : delegate.getSucceedingEntities()) {
-                TreeNode succeedingTreeNode = findTreeNode(result, succeedingDelegate.getPackageName(),
-                        succeedingDelegate.getEntityName(), succeedingDelegate.getId());
-                if (succeedingTreeNode == null) {
-                    succeedingTreeNode = new TreeNode();
-                    succeedingTreeNode.setRootId(succeedingDelegate.getId());
-                    succeedingTreeNode.setDisplayName(succeedingDelegate.getDisplayName());
-                    succeedingTreeNode.setEntityName(succeedingDelegate.getEntityName());
-                    succeedingTreeNode.setPackageName(succeedingDelegate.getPackageName());
-
-                    result.add(succeedingTreeNode);
-                }
-
-                succeedingTreeNode.setParent(currTreeNode);
-                currTreeNode.addChildren(succeedingTreeNode);
+            TreeNode treeNode = new TreeNode(delegate.getPackageName(), delegate.getEntityName(), delegate.getId(),
+                    delegate.getDisplayName());
+            if (prevDelegate != null) {
+                treeNode.setParent(new TreeNode(prevDelegate.getPackageName(), prevDelegate.getEntityName(),
+                        prevDelegate.getId(), prevDelegate.getDisplayName()));
             }
+            levelTreeNodes.put(key, treeNode);
         }
+        return new ArrayList<>(levelTreeNodes.values());
     }
 
-    private TreeNode findTreeNode(List<TreeNode> nodes, String packageName, String entityName, String id) {
-        for (TreeNode n : nodes) {
-            if (n.getPackageName().equals(packageName) && n.getEntityName().equals(entityName)
-                    && n.getRootId().equals(id)) {
-                return n;
+    private void pupolateTreeNodeWithLinkNode(TreeNodeIndex treeNodeIndex, EntityQueryLinkNode linkNode) {
+        for (EntityDataDelegate delegate : linkNode.getEntityDataDelegates()) {
+            TreeNode currTreeNode = treeNodeIndex.getOrCreateTreeNode(delegate);
+
+            EntityDataDelegate prevDelegate = delegate.getPreviousEntity();
+            if (prevDelegate != null) {
+                TreeNode prevTreeNode = treeNodeIndex.getOrCreateTreeNode(prevDelegate);
+                treeNodeIndex.link(prevTreeNode, currTreeNode);
             }
-        }
 
-        return null;
+            for (EntityDataDelegate succeedingDelegate : delegate.getSucceedingEntities()) {
+                TreeNode succeedingTreeNode = treeNodeIndex.getOrCreateTreeNode(succeedingDelegate);
+                treeNodeIndex.link(currTreeNode, succeedingTreeNode);
+            }
+        }
     }
 
     public void executeUpdate(EntityOperationContext ctx, Object valueToUpdate) {
@@ -142,6 +162,39 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
         return extractAttrValues(ctx);
     }
 
+    /**
+     * Queries several expressions of the same root entity at once, querying
+     * the link nodes shared by their prefixes only once.
+     */
+    @Override
+    public Map<String, List<Object>> executeQueryLeafAttributes(EntityOperationContext ctx,
+            Map<String, List<EntityQueryExprNodeInfo>> exprNodeInfosByExpr) {
+        EntityQueryPrefixTree prefixTree = new EntityQueryPrefixTree();
+        for (Map.Entry<String, List<EntityQueryExprNodeInfo>> entry : exprNodeInfosByExpr.entrySet()) {
+            prefixTree.addExpression(entry.getKey(), entry.getValue());
+        }
+
+        for (EntityQueryPrefixTree.PrefixNode root : prefixTree.getRoots()) {
+            doExecuteQuery(ctx, root, 0);
+        }
+
+        Map<String, List<Object>> attrValuesByExpr = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Object>> entry : prefixTree.extractAttrValues().entrySet()) {
+            attrValuesByExpr.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+        return attrValuesByExpr;
+    }
+
+    private void doExecuteQuery(EntityOperationContext ctx, EntityQueryPrefixTree.PrefixNode prefixNode,
+            int index) {
+        EntityQueryLinkNode linkNode = prefixNode.buildLinkNode(index);
+        linkNode.executeQuery(this, ctx);
+
+        for (EntityQueryPrefixTree.PrefixNode child : prefixNode.getChildren()) {
+            doExecuteQuery(ctx, child, index + 1);
+        }
+    }
+
     public List<EntityDataDelegate> executeQueryLeafEntity(EntityOperationContext ctx) {
         doExecuteQuery(ctx);
         return extractLeafEntityData(ctx);
@@ -225,12 +278,22 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
         List<EntityDataDelegate> prevEntityDataDelegates = previousLinkNode.getEntityDataDelegates();
 
         if (prevEntityDataDelegates != null) {
+            if (isBatchQueryEnabled()) {
+                doPerformBatchRefByEntityLinkNodeQuery(ctx, linkNode, entityDef, prevEntityDataDelegates);
+                return;
+            }
+
+            List<EntityDataDelegate> queryPrevEntityDataDelegates = new ArrayList<>();
+            List<EntityQuerySpecification> querySpecs = new ArrayList<>();
             for (EntityDataDelegate prevEntityDataDelegate : prevEntityDataDelegates) {
                 EntityQuerySpecification querySpec = buildRefByEntityQuerySpecification(ctx, linkNode, entityDef,
                         exprNodeInfo, previousLinkNode, prevEntityDataDelegate);
 
-                performRestOperation(ctx, linkNode, entityDef, prevEntityDataDelegate, querySpec);
+                queryPrevEntityDataDelegates.add(prevEntityDataDelegate);
+                querySpecs.add(querySpec);
             }
+
+            performRestOperations(ctx, linkNode, entityDef, queryPrevEntityDataDelegates, querySpecs);
         }
     }
 
@@ -275,29 +338,41 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
         EntityQueryLinkNode previousLinkNode = linkNode.getPreviousNode();
         List<EntityDataDelegate> prevEntityDataDelegates = previousLinkNode.getEntityDataDelegates();
         if (prevEntityDataDelegates != null) {
+            if (isBatchQueryEnabled()) {
+                doPerformBatchRefToEntityLinkNodeQuery(ctx, linkNode, entityDef, prevEntityDataDelegates);
+                return;
+            }
+
+            List<EntityDataDelegate> queryPrevEntityDataDelegates = new ArrayList<>();
+            List<EntityQuerySpecification> querySpecs = new ArrayList<>();
             for (EntityDataDelegate prevEntityDataDelegate : prevEntityDataDelegates) {
                 if (prevEntityDataDelegate == null) {
                     continue;
                 }
 
-                performRefToEntityDataDelegate(ctx, linkNode, entityDef, prevEntityDataDelegate, previousLinkNode);
+                collectRefToEntityQuerySpecifications(ctx, linkNode, entityDef, prevEntityDataDelegate,
+                        previousLinkNode, queryPrevEntityDataDelegates, querySpecs);
             }
+
+            performRestOperations(ctx, linkNode, entityDef, queryPrevEntityDataDelegates, querySpecs);
         }
     }
 
-    private void performRefToEntityDataDelegate(EntityOperationContext ctx, EntityQueryLinkNode linkNode,
+    private void collectRefToEntityQuerySpecifications(EntityOperationContext ctx, EntityQueryLinkNode linkNode,
             EntityRouteDescription entityDef, EntityDataDelegate prevEntityDataDelegate,
-            EntityQueryLinkNode previousLinkNode) {
-        List<EntityQuerySpecification> querySpecs = buildRefToEntityQuerySpecifications(ctx, linkNode, entityDef,
-                linkNode.getExprNodeInfo(), previousLinkNode, prevEntityDataDelegate);
+            EntityQueryLinkNode previousLinkNode, List<EntityDataDelegate> queryPrevEntityDataDelegates,
+            List<EntityQuerySpecification> querySpecs) {
+        List<EntityQuerySpecification> refToQuerySpecs = buildRefToEntityQuerySpecifications(ctx, linkNode,
+                entityDef, linkNode.getExprNodeInfo(), previousLinkNode, prevEntityDataDelegate);
 
-        if (log.isInfoEnabled() && (querySpecs.size() > 1)) {
+        if (log.isInfoEnabled() && (refToQuerySpecs.size() > 1)) {
             log.info("performing multi-ref-to querying for {} {}", linkNode.getExprNodeInfo().getPackageName(),
                     linkNode.getExprNodeInfo().getEntityName());
         }
 
-        for (EntityQuerySpecification querySpec : querySpecs) {
-            performRestOperation(ctx, linkNode, entityDef, prevEntityDataDelegate, querySpec);
+        for (EntityQuerySpecification querySpec : refToQuerySpecs) {
+            queryPrevEntityDataDelegates.add(prevEntityDataDelegate);
+            querySpecs.add(querySpec);
         }
 
     }
@@ -389,17 +464,223 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
     private void performRestOperation(EntityOperationContext ctx, EntityQueryLinkNode linkNode,
             EntityRouteDescription entityDef, EntityDataDelegate prevEntityDataDelegate,
             EntityQuerySpecification querySpec) {
+        StandardEntityOperationResponseDto responseDto = queryEntityData(ctx, entityDef, querySpec);
+        performEntityDataExtraction(ctx, linkNode, prevEntityDataDelegate, responseDto.getData());
+    }
+
+    /**
+     * Performs the queries of one link node, concurrently if parallel query is
+     * enabled. Query results are always extracted in the order of the query
+     * specifications so that the entity data delegates keep their order.
+     */
+    private void performRestOperations(EntityOperationContext ctx, EntityQueryLinkNode linkNode,
+            EntityRouteDescription entityDef, List<EntityDataDelegate> prevEntityDataDelegates,
+            List<EntityQuerySpecification> querySpecs) {
+        if (!isParallelQueryEnabled() || querySpecs.size() <= 1) {
+            for (int i = 0; i < querySpecs.size(); i++) {
+                performRestOperation(ctx, linkNode, entityDef, prevEntityDataDelegates.get(i), querySpecs.get(i));
+            }
+            return;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("performing {} queries concurrently for {} {}", querySpecs.size(), entityDef.getPackageName(),
+                    entityDef.getEntityName());
+        }
+
+        List<Callable<StandardEntityOperationResponseDto>> tasks = new ArrayList<>();
+        for (EntityQuerySpecification querySpec : querySpecs) {
+            tasks.add(() -> queryEntityData(ctx, entityDef, querySpec));
+        }
+
+        List<StandardEntityOperationResponseDto> responseDtos = entityQueryTaskExecutor
+                .invokeAll(entityDef.getPackageName(), tasks);
+        for (int i = 0; i < responseDtos.size(); i++) {
+            performEntityDataExtraction(ctx, linkNode, prevEntityDataDelegates.get(i), responseDtos.get(i).getData());
+        }
+    }
+
+    private StandardEntityOperationResponseDto queryEntityData(EntityOperationContext ctx,
+            EntityRouteDescription entityDef, EntityQuerySpecification querySpec) {
         StandardEntityOperationRestClient restClient = ctx.getStandardEntityOperationRestClient();
         StandardEntityOperationResponseDto responseDto = restClient.query(entityDef, querySpec);
 
-        if (StandardEntityOperationResponseDto.STATUS_OK.equalsIgnoreCase(responseDto.getStatus())) {
-            performEntityDataExtraction(ctx, linkNode, prevEntityDataDelegate, responseDto.getData());
-        } else {
+        if (!StandardEntityOperationResponseDto.STATUS_OK.equalsIgnoreCase(responseDto.getStatus())) {
             log.error("Error status met {} with message {}", responseDto.getStatus(), responseDto.getMessage());
             String msg = String.format("Errors met while fetching data from %s due to status %s.",
                     entityDef.getPackageName(), responseDto.getStatus());
             throw new EntityOperationException("3309", msg, entityDef.getPackageName(), responseDto.getStatus());
         }
+
+        return responseDto;
+    }
+
+    /**
+     * Batched variant of the RefBy query: queries the children of all parents
+     * of the previous link node with "refByAttr in (...)" and joins the records
+     * back to their parents by the reference attribute.
+     */
+    private void doPerformBatchRefByEntityLinkNodeQuery(EntityOperationContext ctx, EntityQueryLinkNode linkNode,
+            EntityRouteDescription entityDef, List<EntityDataDelegate> prevEntityDataDelegates) {
+        EntityQueryExprNodeInfo exprNodeInfo = linkNode.getExprNodeInfo();
+        String refByAttrName = exprNodeInfo.getRefByAttrName();
+
+        Set<String> prevIds = new LinkedHashSet<>();
+        for (EntityDataDelegate prevEntityDataDelegate : prevEntityDataDelegates) {
+            if (prevEntityDataDelegate == null || prevEntityDataDelegate.getId() == null) {
+                continue;
+            }
+            prevIds.add(prevEntityDataDelegate.getId());
+        }
+
+        Map<String, List<Map<String, Object>>> recordsByRefId = new HashMap<>();
+        for (List<String> chunkIds : partition(new ArrayList<>(prevIds), getBatchQuerySize())) {
+            EntityQuerySpecification querySpec = buildBatchEntityQuerySpecification(exprNodeInfo, refByAttrName,
+                    chunkIds);
+            StandardEntityOperationResponseDto responseDto = queryEntityData(ctx, entityDef, querySpec);
+
+            Set<String> chunkIdSet = new HashSet<>(chunkIds);
+            for (Map<String, Object> recordMap : extractEntityDataFromResponse(responseDto.getData())) {
+                for (String refId : extractReferenceIds(recordMap.get(refByAttrName))) {
+                    if (!chunkIdSet.contains(refId)) {
+                        continue;
+                    }
+                    List<Map<String, Object>> records = recordsByRefId.get(refId);
+                    if (records == null) {
+                        records = new ArrayList<>();
+                        recordsByRefId.put(refId, records);
+                    }
+                    records.add(recordMap);
+                }
+            }
+        }
+
+        for (EntityDataDelegate prevEntityDataDelegate : prevEntityDataDelegates) {
+            if (prevEntityDataDelegate == null) {
+                continue;
+            }
+            List<Map<String, Object>> records = recordsByRefId.get(prevEntityDataDelegate.getId());
+            if (records == null) {
+                continue;
+            }
+            for (Map<String, Object> recordMap : records) {
+                linkNode.addEntityDataDelegates(buildEntityDataDelegate(prevEntityDataDelegate, recordMap, linkNode));
+            }
+        }
+    }
+
+    /**
+     * Batched variant of the RefTo query: queries all entities referred by the
+     * previous link node with "id in (...)" and joins them back to the
+     * referring entities in the order of their reference values.
+     */
+    private void doPerformBatchRefToEntityLinkNodeQuery(EntityOperationContext ctx, EntityQueryLinkNode linkNode,
+            EntityRouteDescription entityDef, List<EntityDataDelegate> prevEntityDataDelegates) {
+        EntityQueryExprNodeInfo exprNodeInfo = linkNode.getExprNodeInfo();
+
+        Set<String> refIds = new LinkedHashSet<>();
+        for (EntityDataDelegate prevEntityDataDelegate : prevEntityDataDelegates) {
+            if (prevEntityDataDelegate == null) {
+                continue;
+            }
+            refIds.addAll(extractReferenceIds(prevEntityDataDelegate.getQueryAttrValue()));
+        }
+
+        Map<String, Map<String, Object>> recordsById = new HashMap<>();
+        for (List<String> chunkIds : partition(new ArrayList<>(refIds), getBatchQuerySize())) {
+            EntityQuerySpecification querySpec = buildBatchEntityQuerySpecification(exprNodeInfo,
+                    EntityDataDelegate.UNIQUE_IDENTIFIER, chunkIds);
+            StandardEntityOperationResponseDto responseDto = queryEntityData(ctx, entityDef, querySpec);
+
+            for (Map<String, Object> recordMap : extractEntityDataFromResponse(responseDto.getData())) {
+                String id = (String) recordMap.get(EntityDataDelegate.UNIQUE_IDENTIFIER);
+                if (id != null && !recordsById.containsKey(id)) {
+                    recordsById.put(id, recordMap);
+                }
+            }
+        }
+
+        for (EntityDataDelegate prevEntityDataDelegate : prevEntityDataDelegates) {
+            if (prevEntityDataDelegate == null) {
+                continue;
+            }
+            for (String refId : extractReferenceIds(prevEntityDataDelegate.getQueryAttrValue())) {
+                Map<String, Object> recordMap = recordsById.get(refId);
+                if (recordMap == null) {
+                    continue;
+                }
+                linkNode.addEntityDataDelegates(buildEntityDataDelegate(prevEntityDataDelegate, recordMap, linkNode));
+            }
+        }
+    }
+
+    private EntityQuerySpecification buildBatchEntityQuerySpecification(EntityQueryExprNodeInfo exprNodeInfo,
+            String attrName, List<String> conditionIds) {
+        EntityQuerySpecification querySpec = new EntityQuerySpecification();
+        if (exprNodeInfo.getAdditionalFilters() != null) {
+            for (EntityQueryFilter f : exprNodeInfo.getAdditionalFilters()) {
+                EntityQueryFilter queryFilter = new EntityQueryFilter();
+                queryFilter.setAttrName(f.getAttrName());
+                queryFilter.setOp(f.getOp());
+                queryFilter.setCondition(f.getCondition());
+                querySpec.addAdditionalFilters(queryFilter);
+            }
+        }
+
+        EntityQueryFilter inFilter = new EntityQueryFilter();
+        inFilter.setAttrName(attrName);
+        inFilter.setOp(EntityQueryFilter.OP_IN);
+        inFilter.setCondition(new ArrayList<>(conditionIds));
+        querySpec.addAdditionalFilters(inFilter);
+
+        return querySpec;
+    }
+
+    private List<String> extractReferenceIds(Object refAttrValue) {
+        List<String> refIds = new ArrayList<>();
+        if (refAttrValue == null) {
+            return refIds;
+        }
+
+        String refAttrValueStr = String.valueOf(refAttrValue);
+        if (refAttrValueStr.trim().length() <= 0) {
+            return refIds;
+        }
+
+        refAttrValueStr = stripHeadAndTailChar(refAttrValueStr, "[");
+        refAttrValueStr = stripHeadAndTailChar(refAttrValueStr, "]");
+
+        for (String part : refAttrValueStr.split(",")) {
+            String refId = part.trim();
+            if (refId.length() > 0) {
+                refIds.add(refId);
+            }
+        }
+
+        return refIds;
+    }
+
+    private List<List<String>> partition(List<String> ids, int size) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += size) {
+            chunks.add(ids.subList(i, Math.min(i + size, ids.size())));
+        }
+        return chunks;
+    }
+
+    private boolean isBatchQueryEnabled() {
+        return dmeProperties != null && dmeProperties.isBatchQueryEnabled();
+    }
+
+    private boolean isParallelQueryEnabled() {
+        return entityQueryTaskExecutor != null && dmeProperties != null && dmeProperties.isParallelQueryEnabled();
+    }
+
+    private int getBatchQuerySize() {
+        if (dmeProperties == null || dmeProperties.getBatchQuerySize() <= 0) {
+            return DEFAULT_BATCH_QUERY_SIZE;
+        }
+        return dmeProperties.getBatchQuerySize();
     }
 
     protected void performEntityDataExtraction(EntityOperationContext ctx, EntityQueryLinkNode linkNode,
@@ -484,17 +765,17 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
     }
 
     protected List<TreeNode> generateHierarchicalEntityTreeNodes(EntityOperationContext ctx) {
-        List<TreeNode> result = new ArrayList<>();
+        TreeNodeIndex treeNodeIndex = new TreeNodeIndex();
 
         EntityQueryLinkNode headEntityQueryLinkNode = ctx.getHeadEntityQueryLinkNode();
         EntityQueryLinkNode linkNode = headEntityQueryLinkNode;
 
         while (linkNode != null) {
-            pupolateTreeNodeWithLinkNode(result, linkNode);
+            pupolateTreeNodeWithLinkNode(treeNodeIndex, linkNode);
             linkNode = linkNode.getSucceedingNode();
         }
 
-        return result;
+        return treeNodeIndex.getTreeNodes();
     }
 
     protected EntityTreeNodesOverview buildEntityTreeNodesOverview(List<TreeNode> hierarchicalEntityNodes,
@@ -549,4 +830,40 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
         return data;
     }
 
+    /**
+     * Tree nodes indexed by package, entity and id in the order they are
+     * created, together with the parent-child links already made, so that
+     * building a tree takes linear time in the number of entities.
+     */
+    private static class TreeNodeIndex {
+        private final Map<List<Object>, TreeNode> treeNodes = new LinkedHashMap<>();
+        private final Set<List<Object>> links = new HashSet<>();
+
+        TreeNode getOrCreateTreeNode(EntityDataDelegate delegate) {
+            List<Object> key = Arrays.asList(delegate.getPackageName(), delegate.getEntityName(), delegate.getId());
+            TreeNode treeNode = treeNodes.get(key);
+            if (treeNode == null) {
+                treeNode = new TreeNode();
+                treeNode.setRootId(delegate.getId());
+                treeNode.setDisplayName(delegate.getDisplayName());
+                treeNode.setEntityName(delegate.getEntityName());
+                treeNode.setPackageName(delegate.getPackageName());
+
+                treeNodes.put(key, treeNode);
+            }
+            return treeNode;
+        }
+
+        void link(TreeNode parent, TreeNode child) {
+            child.setParent(parent);
+            if (links.add(Arrays.asList(parent, child))) {
+                parent.getChildren().add(child);
+            }
+        }
+
+        List<TreeNode> getTreeNodes() {
+            return new ArrayList<>(treeNodes.values());
+        }
+    }
+
 }
@@ -0,0 +1,31 @@
+package com.webank.wecube.platform.core.service.plugin;
+
+import java.util.List;
+
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry.PluginInstanceStats;
+
+/**
+ * Selects the instance with the least in-flight requests, preferring the
+ * instance which served less requests on ties.
+ */
+public class LeastOutstandingPluginInstanceSelectionStrategy implements PluginInstanceSelectionStrategy {
+    public static final String NAME = "least-outstanding";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public PluginInstanceStats select(String pluginName, List<PluginInstanceStats> candidates) {
+        PluginInstanceStats selected = null;
+        for (PluginInstanceStats candidate : candidates) {
+            if (selected == null || candidate.getInFlight() < selected.getInFlight()
+                    || (candidate.getInFlight() == selected.getInFlight()
+                            && candidate.getRequestCount() < selected.getRequestCount())) {
+                selected = candidate;
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,294 @@
+package com.webank.wecube.platform.core.service.plugin;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
+import com.webank.wecube.platform.core.service.RuntimeMetricsProvider;
+
+/**
+ * In-memory registry of running plugin instances, refreshed when instances
+ * are launched or removed. It selects the instance to invoke with the
+ * configured strategy, tracks in-flight requests of each instance and
+ * temporarily ejects instances failing consecutively.
+ */
+@Service
+public class PluginInstanceRegistry implements RuntimeMetricsProvider {
+    private static final Logger log = LoggerFactory.getLogger(PluginInstanceRegistry.class);
+
+    private static final int DEFAULT_CACHE_EXPIRE_SECONDS = 60;
+
+    @Autowired
+    private PluginInstanceService pluginInstanceService;
+
+    @Autowired(required = false)
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    private final Map<String, PluginInstanceSelectionStrategy> strategies = new LinkedHashMap<>();
+    private volatile PluginInstanceSelectionStrategy strategy;
+
+    private volatile Cache<String, List<PluginInstanceStats>> runningInstances = buildRunningInstances(
+            DEFAULT_CACHE_EXPIRE_SECONDS);
+    private final ConcurrentMap<String, PluginInstanceStats> instanceStats = new ConcurrentHashMap<>();
+
+    public PluginInstanceRegistry() {
+        registerStrategy(new RoundRobinPluginInstanceSelectionStrategy());
+        registerStrategy(new LeastOutstandingPluginInstanceSelectionStrategy());
+        registerStrategy(new WeightedPluginInstanceSelectionStrategy());
+        this.strategy = strategies.get(RoundRobinPluginInstanceSelectionStrategy.NAME);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (pluginInvocationProperties == null) {
+            return;
+        }
+
+        PluginInstanceSelectionStrategy configuredStrategy = strategies
+                .get(pluginInvocationProperties.getInstanceSelectionStrategy());
+        if (configuredStrategy == null) {
+            log.warn("unknown plugin instance selection strategy {}, use {} instead",
+                    pluginInvocationProperties.getInstanceSelectionStrategy(), strategy.getName());
+        } else {
+            this.strategy = configuredStrategy;
+        }
+
+        if (pluginInvocationProperties.getInstanceCacheExpireSeconds() > 0) {
+            this.runningInstances = buildRunningInstances(pluginInvocationProperties.getInstanceCacheExpireSeconds());
+        }
+    }
+
+    public void registerStrategy(PluginInstanceSelectionStrategy selectionStrategy) {
+        strategies.put(selectionStrategy.getName(), selectionStrategy);
+    }
+
+    /**
+     * Selects a running instance of given plugin and counts a request in
+     * flight on it, which should be released once the request completes.
+     */
+    public PluginInstance acquire(String pluginName) {
+        List<PluginInstanceStats> candidates = getRunningInstanceStats(pluginName);
+
+        long now = System.currentTimeMillis();
+        List<PluginInstanceStats> availableCandidates = new ArrayList<>();
+        for (PluginInstanceStats candidate : candidates) {
+            if (!candidate.isEjected(now)) {
+                availableCandidates.add(candidate);
+            }
+        }
+
+        if (availableCandidates.isEmpty()) {
+            log.warn("all instances of plugin {} are ejected, try all of them", pluginName);
+            availableCandidates = candidates;
+        }
+
+        PluginInstanceStats selected = strategy.select(pluginName, availableCandidates);
+        selected.inFlight.incrementAndGet();
+        selected.requestCount.incrementAndGet();
+        return selected.getInstance();
+    }
+
+    /**
+     * Returns whether given plugin has running instances, without counting a
+     * request on any of them.
+     */
+    public boolean hasRunningInstances(String pluginName) {
+        return !getRunningInstanceStats(pluginName).isEmpty();
+    }
+
+    /**
+     * Releases a request acquired on given instance which has not been sent,
+     * so neither a success nor a failure is recorded.
+     */
+    public void release(PluginInstance instance) {
+        PluginInstanceStats stats = lookupStats(instance);
+        if (stats != null) {
+            stats.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Releases a request acquired on given instance. Instances failing more
+     * than the threshold consecutively are ejected for a while.
+     */
+    public void release(PluginInstance instance, boolean success) {
+        PluginInstanceStats stats = lookupStats(instance);
+        if (stats == null) {
+            return;
+        }
+
+        stats.inFlight.decrementAndGet();
+        if (success) {
+            stats.consecutiveFailures.set(0);
+            return;
+        }
+
+        stats.failureCount.incrementAndGet();
+        if (stats.consecutiveFailures.incrementAndGet() >= getFailureThreshold()) {
+            stats.consecutiveFailures.set(0);
+            stats.ejectedUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(getEjectionSeconds());
+            log.warn("eject plugin instance {} {}:{} for {} seconds due to consecutive failures", instance.getId(),
+                    instance.getHost(), instance.getPort(), getEjectionSeconds());
+        }
+    }
+
+    public void invalidate(String pluginName) {
+        if (pluginName == null) {
+            return;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("invalidate running instances of plugin {}", pluginName);
+        }
+        runningInstances.invalidate(pluginName);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "plugin-instance-registry";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("strategy", strategy.getName());
+
+        long now = System.currentTimeMillis();
+        Map<String, Object> instanceMetrics = new LinkedHashMap<>();
+        for (PluginInstanceStats stats : instanceStats.values()) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("plugin", stats.getPluginName());
+            m.put("address", stats.getInstance().getHost() + ":" + stats.getInstance().getPort());
+            m.put("inFlight", stats.getInFlight());
+            m.put("requestCount", stats.getRequestCount());
+            m.put("failureCount", stats.failureCount.get());
+            m.put("ejected", stats.isEjected(now));
+            instanceMetrics.put(stats.getInstance().getId(), m);
+        }
+        metrics.put("instances", instanceMetrics);
+        return metrics;
+    }
+
+    private PluginInstanceStats lookupStats(PluginInstance instance) {
+        if (instance == null) {
+            return null;
+        }
+        return instanceStats.get(instance.getId());
+    }
+
+    private List<PluginInstanceStats> getRunningInstanceStats(String pluginName) {
+        try {
+            return runningInstances.get(pluginName, () -> loadRunningInstanceStats(pluginName));
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new WecubeCoreException("3069", String.format("No instance for plugin [%s] is available.",
+                    pluginName), e);
+        }
+    }
+
+    private List<PluginInstanceStats> loadRunningInstanceStats(String pluginName) {
+        List<PluginInstance> instances = pluginInstanceService.getRunningPluginInstances(pluginName);
+
+        List<PluginInstanceStats> statsList = new ArrayList<>();
+        Set<String> instanceIds = new HashSet<>();
+        for (PluginInstance instance : instances) {
+            PluginInstanceStats stats = instanceStats.computeIfAbsent(instance.getId(),
+                    k -> new PluginInstanceStats(pluginName));
+            stats.instance = instance;
+            stats.weight = lookupWeight(instance);
+            statsList.add(stats);
+            instanceIds.add(instance.getId());
+        }
+
+        instanceStats.values().removeIf(s -> pluginName.equals(s.getPluginName())
+                && !instanceIds.contains(s.getInstance().getId()));
+        return statsList;
+    }
+
+    private int lookupWeight(PluginInstance instance) {
+        if (pluginInvocationProperties == null) {
+            return 1;
+        }
+
+        Integer weight = pluginInvocationProperties.getInstanceWeights()
+                .get(instance.getHost() + ":" + instance.getPort());
+        return weight == null ? 1 : weight;
+    }
+
+    private int getFailureThreshold() {
+        return pluginInvocationProperties == null ? 3 : pluginInvocationProperties.getInstanceFailureThreshold();
+    }
+
+    private int getEjectionSeconds() {
+        return pluginInvocationProperties == null ? 30 : pluginInvocationProperties.getInstanceEjectionSeconds();
+    }
+
+    private static Cache<String, List<PluginInstanceStats>> buildRunningInstances(int expireSeconds) {
+        return CacheBuilder.newBuilder().expireAfterWrite(expireSeconds, TimeUnit.SECONDS).build();
+    }
+
+    public static class PluginInstanceStats {
+        private final String pluginName;
+        private volatile PluginInstance instance;
+        private volatile int weight = 1;
+        private volatile long ejectedUntil;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong requestCount = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        int currentWeight;
+
+        PluginInstanceStats(String pluginName) {
+            this.pluginName = pluginName;
+        }
+
+        public String getPluginName() {
+            return pluginName;
+        }
+
+        public PluginInstance getInstance() {
+            return instance;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        public long getRequestCount() {
+            return requestCount.get();
+        }
+
+        boolean isEjected(long now) {
+            return ejectedUntil > now;
+        }
+    }
+}
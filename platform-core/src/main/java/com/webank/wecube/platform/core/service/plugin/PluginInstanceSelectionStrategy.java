@@ -0,0 +1,18 @@
+package com.webank.wecube.platform.core.service.plugin;
+
+import java.util.List;
+
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry.PluginInstanceStats;
+
+/**
+ * Strategy to select one of the running plugin instances to invoke.
+ */
+public interface PluginInstanceSelectionStrategy {
+
+    String getName();
+
+    /**
+     * Selects one of the given non-empty candidates of given plugin.
+     */
+    PluginInstanceStats select(String pluginName, List<PluginInstanceStats> candidates);
+}
@@ -17,12 +17,23 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -34,9 +45,13 @@ import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginProperties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.ResourceProperties;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder.AuthenticatedUser;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.domain.ResourceItem;
 import com.webank.wecube.platform.core.domain.ResourceServer;
@@ -47,6 +62,9 @@ import com.webank.wecube.platform.core.domain.plugin.PluginPackageRuntimeResourc
 import com.webank.wecube.platform.core.domain.plugin.PluginPackageRuntimeResourcesMysql;
 import com.webank.wecube.platform.core.domain.plugin.PluginPackageRuntimeResourcesS3;
 import com.webank.wecube.platform.core.dto.CreateInstanceDto;
+import com.webank.wecube.platform.core.dto.PluginInstanceHostDto;
+import com.webank.wecube.platform.core.dto.PluginInstanceHostLaunchDto;
+import com.webank.wecube.platform.core.dto.PluginInstanceLaunchProgressDto;
 import com.webank.wecube.platform.core.dto.QueryRequest;
 import com.webank.wecube.platform.core.dto.ResourceItemDto;
 import com.webank.wecube.platform.core.dto.ResourceServerDto;
@@ -59,6 +77,7 @@ import com.webank.wecube.platform.core.jpa.ResourceServerRepository;
 import com.webank.wecube.platform.core.service.CommandService;
 import com.webank.wecube.platform.core.service.ScpService;
 import com.webank.wecube.platform.core.service.SystemVariableService;
+import com.webank.wecube.platform.core.service.resource.PluginMysqlDataSourceCache;
 import com.webank.wecube.platform.core.service.resource.ResourceItemType;
 import com.webank.wecube.platform.core.service.resource.ResourceManagementService;
 import com.webank.wecube.platform.core.service.resource.ResourceServerType;
@@ -107,12 +126,40 @@ public class PluginInstanceService {
     private ResourceManagementService resourceManagementService;
     @Autowired
     private ResourceItemRepository resourceItemRepository;
+    @Autowired
+    private PluginInstanceRegistry pluginInstanceRegistry;
+
+    @Autowired
+    private PluginMysqlDataSourceCache pluginMysqlDataSourceCache;
 
     private static final int PLUGIN_DEFAULT_START_PORT = 20000;
     private static final int PLUGIN_DEFAULT_END_PORT = 30000;
 
     private VersionComparator versionComparator = new VersionComparator();
 
+    private ExecutorService pluginDeployExecutor;
+
+    private final Cache<String, PluginInstanceLaunch> pluginInstanceLaunches = CacheBuilder.newBuilder()
+            .expireAfterAccess(1, TimeUnit.HOURS).build();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.pluginDeployExecutor = Executors.newFixedThreadPool(Math.max(pluginProperties.getDeployParallelism(), 1),
+                r -> {
+                    Thread t = new Thread(r, "plugin-deployer-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pluginDeployExecutor != null) {
+            pluginDeployExecutor.shutdownNow();
+        }
+    }
+
     public List<String> getAvailableContainerHosts() {
         QueryRequest queryRequest = QueryRequest.defaultQueryObject("type", ResourceServerType.DOCKER);
         List<String> hostList = new ArrayList<String>();
@@ -273,6 +320,7 @@ public class PluginInstanceService {
             }
             mysqlInstance.setUpdatedTime(new Date());
             pluginMysqlInstanceRepository.save(mysqlInstance);
+            pluginMysqlDataSourceCache.invalidatePackage(pluginPackage.getName());
             ResourceServer resourceServer = mysqlInstance.getResourceItem().getResourceServer();
             return new DatabaseInfo(resourceServer.getHost(), resourceServer.getPort(), mysqlInstance.getSchemaName(),
                     mysqlInstance.getUsername(), mysqlInstance.getPassword(), mysqlInstance.getResourceItemId());
@@ -515,33 +563,200 @@ public class PluginInstanceService {
 
     public void launchPluginInstance(String packageId, String hostIp, Integer port)
             throws Exception, WecubeCoreException {
+        PluginPackage pluginPackage = getPluginPackageToLaunch(packageId);
+        validateLauchPluginInstanceParameters(pluginPackage, hostIp, port);
+
+        PluginInstanceLaunchContext launchContext = prepareLaunchContext(pluginPackage);
+        PluginInstance instance = newPluginInstance(launchContext);
+
+        CreateInstanceDto createContainerParameters = buildCreateContainerParameters(launchContext, hostIp, port);
+
+        try {
+            ResourceItemDto dockerResourceDto = createPluginDockerInstance(pluginPackage, hostIp,
+                    createContainerParameters);
+            instance.setDockerInstanceResourceId(dockerResourceDto.getId());
+        } catch (Exception e) {
+            logger.error("Creating docker container instance meet error: ", e.getMessage());
+            throw new WecubeCoreException("3079","Creating docker container instance meet error: " + e.getMessage(), e);
+        }
+
+        saveRunningPluginInstance(instance, launchContext, hostIp, port);
+        registerPluginInstanceRoute(pluginPackage, hostIp, port);
+    }
+
+    /**
+     * Launches instances of the plugin package on several container hosts in
+     * background. The database and S3 bucket are shared by the instances and
+     * prepared once, then each host transfers, loads and runs the image
+     * independently, so a host could load the image while others are still
+     * transferring it. Each host may be specified once only, as the
+     * launches on a host share the image file and the container name. Hosts failed to launch are rolled back without
+     * affecting the others.
+     */
+    public PluginInstanceLaunchProgressDto launchPluginInstances(String packageId, List<PluginInstanceHostDto> hosts)
+            throws Exception {
+        if (hosts == null || hosts.isEmpty()) {
+            throw new WecubeCoreException("3318",
+                    "At least one container host should be specified to launch plugin instances.");
+        }
+        Set<String> hostIps = new HashSet<>();
+        for (PluginInstanceHostDto host : hosts) {
+            if (!hostIps.add(host.getHostIp())) {
+                throw new WecubeCoreException("3321",
+                        String.format("Container host %s is specified more than once.", host.getHostIp()),
+                        host.getHostIp());
+            }
+        }
+        PluginPackage pluginPackage = getPluginPackageToLaunch(packageId);
+        for (PluginInstanceHostDto host : hosts) {
+            validateLauchPluginInstanceParameters(pluginPackage, host.getHostIp(), host.getPort());
+        }
+
+        PluginInstanceLaunchContext launchContext = prepareLaunchContext(pluginPackage);
+        PluginInstanceLaunch launch = new PluginInstanceLaunch(UUID.randomUUID().toString(), packageId, hosts);
+        pluginInstanceLaunches.put(launch.getLaunchId(), launch);
+        AuthenticatedUser currentUser = AuthenticationContextHolder.getCurrentUser();
+
+        logger.info("Launch plugin instances of {} on hosts {}, launch id: {}", packageId, hosts,
+                launch.getLaunchId());
+        CompletableFuture<String> imageFile = CompletableFuture.supplyAsync(() -> downloadPluginImage(pluginPackage),
+                pluginDeployExecutor);
+        CompletableFuture<?>[] hostLaunches = new CompletableFuture<?>[hosts.size()];
+        for (int i = 0; i < hosts.size(); i++) {
+            int hostIndex = i;
+            hostLaunches[i] = imageFile
+                    .thenAcceptAsync(imageFilePath -> launchPluginInstanceOnHost(launchContext, launch, hostIndex,
+                            imageFilePath, currentUser), pluginDeployExecutor)
+                    .exceptionally(e -> {
+                        Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+                        logger.error("Failed to launch plugin instance on {}", hosts.get(hostIndex), cause);
+                        launch.fail(hostIndex, cause.getMessage(), false);
+                        return null;
+                    });
+        }
+        CompletableFuture.allOf(hostLaunches).whenComplete((r, e) -> {
+            imageFile.thenAccept(imageFilePath -> new File(imageFilePath).delete());
+            launch.complete();
+            logger.info("Plugin instance launch {} completed: {}", launch.getLaunchId(), launch.toDto());
+        });
+
+        return launch.toDto();
+    }
+
+    /**
+     * Returns the progress of a launch started by this node. The progress is
+     * kept in memory of the node running the launch only, so with several
+     * platform nodes, the progress must be polled from the node the launch
+     * was started on, such as by routing the requests of a session to the
+     * same node.
+     */
+    public PluginInstanceLaunchProgressDto getPluginInstanceLaunchProgress(String launchId) {
+        PluginInstanceLaunch launch = pluginInstanceLaunches.getIfPresent(launchId);
+        if (launch == null) {
+            throw new WecubeCoreException("3317",
+                    String.format("Plugin instance launch %s does not exist on this platform node.", launchId),
+                    launchId);
+        }
+        return launch.toDto();
+    }
+
+    private void launchPluginInstanceOnHost(PluginInstanceLaunchContext launchContext, PluginInstanceLaunch launch,
+            int hostIndex, String imageFilePath, AuthenticatedUser user) {
+        PluginPackage pluginPackage = launchContext.getPluginPackage();
+        PluginInstanceHostDto host = launch.getHost(hostIndex);
+        String hostIp = host.getHostIp();
+        Integer port = host.getPort();
+
+        AuthenticationContextHolder.clearCurrentUser();
+        AuthenticationContextHolder.setAuthenticatedUser(user);
+        ResourceItemDto dockerResourceDto = null;
+        PluginInstance instance = null;
+        try {
+            ResourceServer hostInfo = getDockerResourceServer(hostIp);
+            launch.updateStage(hostIndex, PluginInstanceHostLaunchDto.STAGE_TRANSFERRING);
+            transferPluginImage(hostInfo, imageFilePath);
+
+            launch.updateStage(hostIndex, PluginInstanceHostLaunchDto.STAGE_LOADING);
+            loadPluginImage(hostInfo);
+
+            launch.updateStage(hostIndex, PluginInstanceHostLaunchDto.STAGE_CREATING);
+            dockerResourceDto = createPluginDockerContainer(pluginPackage, hostInfo,
+                    buildCreateContainerParameters(launchContext, hostIp, port));
+
+            launch.updateStage(hostIndex, PluginInstanceHostLaunchDto.STAGE_REGISTERING);
+            PluginInstance newInstance = newPluginInstance(launchContext);
+            newInstance.setDockerInstanceResourceId(dockerResourceDto.getId());
+            instance = saveRunningPluginInstance(newInstance, launchContext, hostIp, port);
+            registerPluginInstanceRoute(pluginPackage, hostIp, port);
+
+            launch.succeed(hostIndex, instance.getId());
+        } catch (Exception e) {
+            logger.error("Failed to launch plugin instance of {} on {}:{}", pluginPackage.getId(), hostIp, port, e);
+            launch.fail(hostIndex, e.getMessage(), rollbackPluginInstanceLaunch(dockerResourceDto, instance));
+        } finally {
+            AuthenticationContextHolder.clearCurrentUser();
+        }
+    }
+
+    private boolean rollbackPluginInstanceLaunch(ResourceItemDto dockerResourceDto, PluginInstance instance) {
+        if (dockerResourceDto == null) {
+            return false;
+        }
+
+        try {
+            if (instance != null) {
+                pluginInstanceRepository.deleteById(instance.getId());
+                pluginInstanceRegistry.invalidate(instance.getPluginPackage().getName());
+            }
+            ResourceItemDto removeDockerInstanceDto = new ResourceItemDto();
+            removeDockerInstanceDto.setName(dockerResourceDto.getName());
+            removeDockerInstanceDto.setId(dockerResourceDto.getId());
+            resourceManagementService.deleteItems(Lists.newArrayList(removeDockerInstanceDto));
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to roll back docker container {}", dockerResourceDto.getName(), e);
+            return false;
+        }
+    }
+
+    private PluginPackage getPluginPackageToLaunch(String packageId) {
         Optional<PluginPackage> pluginPackageResult = pluginPackageRepository.findById(packageId);
         if (!pluginPackageResult.isPresent())
             throw new WecubeCoreException("3077","Plugin package id does not exist, id = " + packageId);
+        return pluginPackageResult.get();
+    }
 
-        PluginPackage pluginPackage = pluginPackageResult.get();
-        validateLauchPluginInstanceParameters(pluginPackage, hostIp, port);
-
+    private PluginInstanceLaunchContext prepareLaunchContext(PluginPackage pluginPackage) {
         Set<PluginPackageRuntimeResourcesDocker> dockerInfoSet = pluginPackage.getPluginPackageRuntimeResourcesDocker();
         Set<PluginPackageRuntimeResourcesMysql> mysqlInfoSet = pluginPackage.getPluginPackageRuntimeResourcesMysql();
         Set<PluginPackageRuntimeResourcesS3> s3InfoSet = pluginPackage.getPluginPackageRuntimeResourcesS3();
 
-        PluginInstance instance = new PluginInstance();
-        instance.setPluginPackage(pluginPackage);
-
         DatabaseInfo dbInfo = handleCreateDatabase(mysqlInfoSet, pluginPackage);
-        if (dbInfo != null)
-            instance.setPluginMysqlInstanceResourceId(dbInfo.getResourceItemId());
-
         String s3BucketResourceId = handleCreateS3Bucket(s3InfoSet, pluginPackage);
-        if (s3BucketResourceId != null)
-            instance.setS3BucketResourceId(s3BucketResourceId);
 
         // 3. create docker instance
         if (dockerInfoSet.size() != 1) {
             throw new WecubeCoreException("3078","Only support plugin running in one container so far");
         }
         PluginPackageRuntimeResourcesDocker dockerInfo = dockerInfoSet.iterator().next();
+        return new PluginInstanceLaunchContext(pluginPackage, dockerInfo, dbInfo, s3BucketResourceId);
+    }
+
+    private PluginInstance newPluginInstance(PluginInstanceLaunchContext launchContext) {
+        PluginInstance instance = new PluginInstance();
+        instance.setPluginPackage(launchContext.getPluginPackage());
+        if (launchContext.getDbInfo() != null)
+            instance.setPluginMysqlInstanceResourceId(launchContext.getDbInfo().getResourceItemId());
+        if (launchContext.getS3BucketResourceId() != null)
+            instance.setS3BucketResourceId(launchContext.getS3BucketResourceId());
+        return instance;
+    }
+
+    private CreateInstanceDto buildCreateContainerParameters(PluginInstanceLaunchContext launchContext,
+            String hostIp, Integer port) {
+        PluginPackage pluginPackage = launchContext.getPluginPackage();
+        PluginPackageRuntimeResourcesDocker dockerInfo = launchContext.getDockerInfo();
+        DatabaseInfo dbInfo = launchContext.getDbInfo();
 
         String portBindingString = replaceAllocatePort(dockerInfo.getPortBindings(), port);
         String envVariablesString = replaceHostIp(dockerInfo.getEnvVariables(), hostIp);
@@ -551,7 +766,7 @@ public class PluginInstanceService {
                 dockerInfo.getContainerName(), portBindingString, volumeBindingString);
 
         envVariablesString = envVariablesString.replace(",", "\\,");
-        if (mysqlInfoSet.size() != 0) {
+        if (dbInfo != null) {
             envVariablesString = envVariablesString.replace("{{DB_HOST}}", dbInfo.getHost())
                     .replace("{{DB_PORT}}", dbInfo.getPort()).replace("{{DB_SCHEMA}}", dbInfo.getSchema())
                     .replace("{{DB_USER}}", dbInfo.getUser()).replace("{{DB_PWD}}", EncryptionUtils.decryptWithAes(
@@ -562,25 +777,25 @@ public class PluginInstanceService {
         logger.info("after replace envVariablesString=" + envVariablesString);
 
         createContainerParameters.setEnvVariableParameters(envVariablesString.isEmpty() ? "" : envVariablesString);
+        return createContainerParameters;
+    }
 
-        try {
-            ResourceItemDto dockerResourceDto = createPluginDockerInstance(pluginPackage, hostIp,
-                    createContainerParameters);
-            instance.setDockerInstanceResourceId(dockerResourceDto.getId());
-        } catch (Exception e) {
-            logger.error("Creating docker container instance meet error: ", e.getMessage());
-            throw new WecubeCoreException("3079","Creating docker container instance meet error: " + e.getMessage(), e);
-        }
-
-        instance.setContainerName(dockerInfo.getContainerName());
+    private PluginInstance saveRunningPluginInstance(PluginInstance instance,
+            PluginInstanceLaunchContext launchContext, String hostIp, Integer port) {
+        PluginPackage pluginPackage = launchContext.getPluginPackage();
+        instance.setContainerName(launchContext.getDockerInfo().getContainerName());
         instance.setInstanceName(pluginPackage.getName());
         instance.setHost(hostIp);
         instance.setPort(port);
 
         // 4. insert to DB
         instance.setContainerStatus(PluginInstance.CONTAINER_STATUS_RUNNING);
-        pluginInstanceRepository.save(instance);
+        PluginInstance savedInstance = pluginInstanceRepository.save(instance);
+        pluginInstanceRegistry.invalidate(pluginPackage.getName());
+        return savedInstance == null ? instance : savedInstance;
+    }
 
+    private void registerPluginInstanceRoute(PluginPackage pluginPackage, String hostIp, Integer port) {
         // 6. register route
         GatewayResponse response = registerRoute(pluginPackage.getName(), hostIp, String.valueOf(port));
         if (!response.getStatus().equals(GatewayResponse.getStatusCodeOk())) {
@@ -685,6 +900,7 @@ public class PluginInstanceService {
         mysqlInstance.setLatestUpgradeVersion(currentPluginVersion);
         mysqlInstance.setCreatedTime(new Date());
         pluginMysqlInstanceRepository.save(mysqlInstance);
+        pluginMysqlDataSourceCache.invalidatePackage(mysqlInfo.getPluginPackage().getName());
 
         logger.info("Mysql Database schema creation has done...");
         return mysqlInstance;
@@ -714,15 +930,26 @@ public class PluginInstanceService {
 
     private ResourceItemDto createPluginDockerInstance(PluginPackage pluginPackage, String hostIp,
             CreateInstanceDto createContainerParameters) throws Exception {
-        ResourceServer hostInfo = null;
+        ResourceServer hostInfo = getDockerResourceServer(hostIp);
+
+        String tmpFilePath = downloadPluginImage(pluginPackage);
+        transferPluginImage(hostInfo, tmpFilePath);
+        loadPluginImage(hostInfo);
+
+        return createPluginDockerContainer(pluginPackage, hostInfo, createContainerParameters);
+    }
+
+    private ResourceServer getDockerResourceServer(String hostIp) {
         List<ResourceServer> hostInfos = resourceServerRepository.findByHostAndType(hostIp,
                 ResourceServerType.DOCKER.getCode());
         if (hostInfos.size() == 0) {
             logger.info(String.format("Can not found docker resource server by IP[%s]", hostIp));
             throw new WecubeCoreException("3084",String.format("Can not found docker resource server by IP[%s]", hostIp), hostIp);
         }
-        hostInfo = hostInfos.get(0);
+        return hostInfos.get(0);
+    }
 
+    private String downloadPluginImage(PluginPackage pluginPackage) {
         // download package from MinIO
         String tmpFolderName = new SimpleDateFormat("yyyyMMddHHmmssSSS").format(new Date());
         String tmpFilePath = SystemUtils.getTempFolderPath() + tmpFolderName + "/" + pluginProperties.getImageFile();
@@ -732,7 +959,11 @@ public class PluginInstanceService {
         logger.info("Download plugin package from S3: {}", s3KeyName);
 
         s3Client.downFile(pluginProperties.getPluginPackageBucketName(), s3KeyName, tmpFilePath);
+        return tmpFilePath;
+    }
 
+    private void transferPluginImage(ResourceServer hostInfo, String tmpFilePath) {
+        String hostIp = hostInfo.getHost();
         logger.info("scp from local:{} to remote: {}", tmpFilePath, pluginProperties.getPluginDeployPath());
         try {
             scpService.put(hostIp, Integer.valueOf(hostInfo.getPort()), hostInfo.getLoginUsername(),
@@ -743,7 +974,10 @@ public class PluginInstanceService {
             logger.error("Put file to remote host meet error: {}", e.getMessage());
             throw new WecubeCoreException("3085",String.format("Put file to remote host meet error:%s " , e.getMessage()), e);
         }
+    }
 
+    private void loadPluginImage(ResourceServer hostInfo) {
+        String hostIp = hostInfo.getHost();
         // load image at remote host
         String loadCmd = "docker load -i " + pluginProperties.getPluginDeployPath().trim() + File.separator
                 + pluginProperties.getImageFile();
@@ -757,7 +991,10 @@ public class PluginInstanceService {
             logger.error("Run command [{}] meet error: {}", loadCmd, e.getMessage());
             throw new WecubeCoreException("3086",String.format("Run remote command meet error: %s", e.getMessage()), e);
         }
+    }
 
+    private ResourceItemDto createPluginDockerContainer(PluginPackage pluginPackage, ResourceServer hostInfo,
+            CreateInstanceDto createContainerParameters) {
         ResourceItemDto createDockerInstanceDto = new ResourceItemDto(createContainerParameters.getContainerName(),
                 ResourceItemType.DOCKER_CONTAINER.getCode(),
                 buildAdditionalPropertiesForDocker(createContainerParameters), hostInfo.getId(),
@@ -782,6 +1019,7 @@ public class PluginInstanceService {
         removeDockerInstanceDto.setId(instance.getDockerInstanceResourceId());
         resourceManagementService.deleteItems(Lists.newArrayList(removeDockerInstanceDto));
         pluginInstanceRepository.deleteById(instanceId);
+        pluginInstanceRegistry.invalidate(instance.getPluginPackage().getName());
     }
 
     private boolean isHostIpAvailable(String hostIp) {
@@ -857,6 +1095,114 @@ public class PluginInstanceService {
         }
     }
 
+    private class PluginInstanceLaunchContext {
+        private final PluginPackage pluginPackage;
+        private final PluginPackageRuntimeResourcesDocker dockerInfo;
+        private final DatabaseInfo dbInfo;
+        private final String s3BucketResourceId;
+
+        private PluginInstanceLaunchContext(PluginPackage pluginPackage, PluginPackageRuntimeResourcesDocker dockerInfo,
+                DatabaseInfo dbInfo, String s3BucketResourceId) {
+            this.pluginPackage = pluginPackage;
+            this.dockerInfo = dockerInfo;
+            this.dbInfo = dbInfo;
+            this.s3BucketResourceId = s3BucketResourceId;
+        }
+
+        public PluginPackage getPluginPackage() {
+            return pluginPackage;
+        }
+
+        public PluginPackageRuntimeResourcesDocker getDockerInfo() {
+            return dockerInfo;
+        }
+
+        public DatabaseInfo getDbInfo() {
+            return dbInfo;
+        }
+
+        public String getS3BucketResourceId() {
+            return s3BucketResourceId;
+        }
+    }
+
+    private static class PluginInstanceLaunch {
+        private final String launchId;
+        private final String packageId;
+        private final List<PluginInstanceHostDto> hosts;
+        private final List<PluginInstanceHostLaunchDto> hostLaunches = new ArrayList<>();
+        private boolean completed;
+
+        private PluginInstanceLaunch(String launchId, String packageId, List<PluginInstanceHostDto> hosts) {
+            this.launchId = launchId;
+            this.packageId = packageId;
+            this.hosts = new ArrayList<>(hosts);
+            for (PluginInstanceHostDto host : hosts) {
+                hostLaunches.add(new PluginInstanceHostLaunchDto(host.getHostIp(), host.getPort()));
+            }
+        }
+
+        public String getLaunchId() {
+            return launchId;
+        }
+
+        public PluginInstanceHostDto getHost(int hostIndex) {
+            return hosts.get(hostIndex);
+        }
+
+        public synchronized void updateStage(int hostIndex, String stage) {
+            hostLaunches.get(hostIndex).setStage(stage);
+        }
+
+        public synchronized void succeed(int hostIndex, String pluginInstanceId) {
+            PluginInstanceHostLaunchDto hostLaunch = hostLaunches.get(hostIndex);
+            hostLaunch.setStage(PluginInstanceHostLaunchDto.STAGE_RUNNING);
+            hostLaunch.setPluginInstanceId(pluginInstanceId);
+        }
+
+        public synchronized void fail(int hostIndex, String errorMessage, boolean rolledBack) {
+            PluginInstanceHostLaunchDto hostLaunch = hostLaunches.get(hostIndex);
+            if (hostLaunch.isFinished()) {
+                return;
+            }
+            hostLaunch.setStage(PluginInstanceHostLaunchDto.STAGE_FAILED);
+            hostLaunch.setErrorMessage(errorMessage);
+            hostLaunch.setRolledBack(rolledBack);
+        }
+
+        public synchronized void complete() {
+            this.completed = true;
+        }
+
+        public synchronized PluginInstanceLaunchProgressDto toDto() {
+            PluginInstanceLaunchProgressDto dto = new PluginInstanceLaunchProgressDto();
+            dto.setLaunchId(launchId);
+            dto.setPackageId(packageId);
+            dto.setTotalHosts(hostLaunches.size());
+            dto.setCompleted(completed);
+            int completedHosts = 0;
+            int failedHosts = 0;
+            for (PluginInstanceHostLaunchDto hostLaunch : hostLaunches) {
+                PluginInstanceHostLaunchDto copy = new PluginInstanceHostLaunchDto(hostLaunch.getHostIp(),
+                        hostLaunch.getPort());
+                copy.setStage(hostLaunch.getStage());
+                copy.setPluginInstanceId(hostLaunch.getPluginInstanceId());
+                copy.setErrorMessage(hostLaunch.getErrorMessage());
+                copy.setRolledBack(hostLaunch.isRolledBack());
+                dto.getHosts().add(copy);
+                if (hostLaunch.isFinished()) {
+                    completedHosts++;
+                }
+                if (PluginInstanceHostLaunchDto.STAGE_FAILED.equals(hostLaunch.getStage())) {
+                    failedHosts++;
+                }
+            }
+            dto.setCompletedHosts(completedHosts);
+            dto.setFailedHosts(failedHosts);
+            return dto;
+        }
+    }
+
     private GatewayResponse registerRoute(String name, String host, String port) {
         return gatewayServiceStub.registerRoute(
                 new RegisterRouteItemsDto(name, Lists.newArrayList(new RouteItem(name, "http", host, port))));
@@ -0,0 +1,25 @@
+package com.webank.wecube.platform.core.service.plugin;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry.PluginInstanceStats;
+
+public class RoundRobinPluginInstanceSelectionStrategy implements PluginInstanceSelectionStrategy {
+    public static final String NAME = "round-robin";
+
+    private final ConcurrentMap<String, AtomicInteger> positions = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public PluginInstanceStats select(String pluginName, List<PluginInstanceStats> candidates) {
+        int position = positions.computeIfAbsent(pluginName, k -> new AtomicInteger()).getAndIncrement();
+        return candidates.get(Math.floorMod(position, candidates.size()));
+    }
+}
@@ -0,0 +1,35 @@
+package com.webank.wecube.platform.core.service.plugin;
+
+import java.util.List;
+
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry.PluginInstanceStats;
+
+/**
+ * Smooth weighted round-robin, which spreads the requests of heavier
+ * instances evenly instead of sending them in bursts.
+ */
+public class WeightedPluginInstanceSelectionStrategy implements PluginInstanceSelectionStrategy {
+    public static final String NAME = "weighted";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public synchronized PluginInstanceStats select(String pluginName, List<PluginInstanceStats> candidates) {
+        PluginInstanceStats selected = null;
+        int totalWeight = 0;
+        for (PluginInstanceStats candidate : candidates) {
+            int weight = Math.max(candidate.getWeight(), 1);
+            candidate.currentWeight += weight;
+            totalWeight += weight;
+            if (selected == null || candidate.currentWeight > selected.currentWeight) {
+                selected = candidate;
+            }
+        }
+
+        selected.currentWeight -= totalWeight;
+        return selected;
+    }
+}
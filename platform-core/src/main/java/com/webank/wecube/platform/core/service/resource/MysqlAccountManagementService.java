@@ -22,6 +22,9 @@ public class MysqlAccountManagementService implements ResourceItemService {
     
     private static final Logger log = LoggerFactory.getLogger(MysqlAccountManagementService.class);
 
+    @Autowired
+    private PluginMysqlDataSourceCache pluginMysqlDataSourceCache;
+
     @Autowired
     private ResourceProperties resourceProperties;
 
@@ -69,6 +72,7 @@ public class MysqlAccountManagementService implements ResourceItemService {
 
     @Override
     public void deleteItem(ResourceItem item) {
+        pluginMysqlDataSourceCache.invalidateResourceItem(item.getId());
         DriverManagerDataSource dataSource = newDatasource(item);
         try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();) {
             statement.executeUpdate(String.format("DROP USER %s", item.getName()));
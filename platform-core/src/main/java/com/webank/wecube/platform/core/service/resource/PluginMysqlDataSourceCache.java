@@ -0,0 +1,183 @@
+package com.webank.wecube.platform.core.service.resource;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.ResourceProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Keeps a small connection pool per plugin package for the data queries on
+ * plugin MySQL instances. Pools idle for a while are closed, and pools of a
+ * plugin package are dropped whenever its MySQL instance changes.
+ * <p>
+ * A pool is borrowed for each query and released once the query finishes.
+ * An evicted pool is only closed after its last borrower releases it, as
+ * closing a Hikari pool aborts the connections in use, such as a long
+ * running export.
+ */
+@Service
+public class PluginMysqlDataSourceCache {
+    private static final Logger log = LoggerFactory.getLogger(PluginMysqlDataSourceCache.class);
+
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = 60000L;
+
+    @Autowired
+    private ResourceProperties resourceProperties;
+
+    private Cache<String, PluginMysqlDataSource> dataSources;
+
+    @PostConstruct
+    public void init() {
+        this.dataSources = CacheBuilder.newBuilder()
+                .expireAfterAccess(resourceProperties.getDataQueryPoolIdleSeconds(), TimeUnit.SECONDS)
+                .removalListener(this::onRemoval).build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dataSources.invalidateAll();
+    }
+
+    /**
+     * Borrows the pool of given plugin package, which must be released by
+     * {@link PluginMysqlDataSource#release()} after use.
+     */
+    public PluginMysqlDataSource borrowDataSource(String packageId, Callable<PluginMysqlDataSource> loader) {
+        while (true) {
+            PluginMysqlDataSource dataSource = loadDataSource(packageId, loader);
+            if (dataSource.tryBorrow()) {
+                return dataSource;
+            }
+        }
+    }
+
+    private PluginMysqlDataSource loadDataSource(String packageId, Callable<PluginMysqlDataSource> loader) {
+        try {
+            return dataSources.get(packageId, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof WecubeCoreException) {
+                throw (WecubeCoreException) e.getCause();
+            }
+            String errorMessage = String.format("Failed to create data source for plugin package %s.", packageId);
+            log.error(errorMessage, e.getCause());
+            throw new WecubeCoreException(errorMessage, e.getCause()).withErrorCode("3315", packageId);
+        }
+    }
+
+    public PluginMysqlDataSource newPluginMysqlDataSource(String packageName, String resourceItemId, String host,
+            String port, String username, String password, String database) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("PluginMysql-" + packageName);
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        if (Strings.isNullOrEmpty(database)) {
+            config.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "?characterEncoding=utf8&serverTimezone=UTC");
+        } else {
+            config.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "/" + database
+                    + "?characterEncoding=utf8&serverTimezone=UTC");
+        }
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMinimumIdle(0);
+        config.setMaximumPoolSize(Math.max(resourceProperties.getDataQueryPoolMaxSize(), 1));
+        config.setIdleTimeout(POOL_IDLE_TIMEOUT_MILLIS);
+        config.setInitializationFailTimeout(-1);
+        return new PluginMysqlDataSource(packageName, resourceItemId, new HikariDataSource(config));
+    }
+
+    public void invalidatePackage(String packageName) {
+        dataSources.asMap().values().removeIf(ds -> ds.getPackageName().equals(packageName));
+    }
+
+    public void invalidateResourceItem(String resourceItemId) {
+        dataSources.asMap().values().removeIf(ds -> resourceItemId.equals(ds.getResourceItemId()));
+    }
+
+    private void onRemoval(RemovalNotification<String, PluginMysqlDataSource> notification) {
+        PluginMysqlDataSource dataSource = notification.getValue();
+        if (dataSource == null) {
+            return;
+        }
+        log.info("evict data source of plugin package {} due to {}", dataSource.getPackageName(),
+                notification.getCause());
+        dataSource.evict();
+    }
+
+    public static class PluginMysqlDataSource {
+        private final String packageName;
+        private final String resourceItemId;
+        private final HikariDataSource dataSource;
+        private final AtomicInteger borrowers = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean evicted;
+
+        public PluginMysqlDataSource(String packageName, String resourceItemId, HikariDataSource dataSource) {
+            this.packageName = packageName;
+            this.resourceItemId = resourceItemId;
+            this.dataSource = dataSource;
+        }
+
+        public String getPackageName() {
+            return packageName;
+        }
+
+        public String getResourceItemId() {
+            return resourceItemId;
+        }
+
+        public HikariDataSource getDataSource() {
+            return dataSource;
+        }
+
+        /**
+         * Releases a borrowed pool, and closes it if it has been evicted and
+         * this is the last borrower.
+         */
+        public void release() {
+            if (borrowers.decrementAndGet() == 0 && evicted) {
+                close();
+            }
+        }
+
+        boolean tryBorrow() {
+            borrowers.incrementAndGet();
+            if (evicted) {
+                release();
+                return false;
+            }
+            return true;
+        }
+
+        void evict() {
+            evicted = true;
+            if (borrowers.get() == 0) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                log.info("close data source of plugin package {}", packageName);
+                dataSource.close();
+            }
+        }
+    }
+}
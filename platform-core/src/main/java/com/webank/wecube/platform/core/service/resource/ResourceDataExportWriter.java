@@ -0,0 +1,145 @@
+package com.webank.wecube.platform.core.service.resource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+
+/**
+ * Writes rows of data query incrementally, so that exporting does not hold
+ * the whole result in memory.
+ */
+public abstract class ResourceDataExportWriter implements AutoCloseable {
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+
+    protected final Writer writer;
+
+    protected ResourceDataExportWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    public static ResourceDataExportWriter newWriter(String format, OutputStream out) {
+        if (FORMAT_CSV.equalsIgnoreCase(format)) {
+            return new CsvExportWriter(out);
+        }
+        if (FORMAT_NDJSON.equalsIgnoreCase(format)) {
+            return new NdjsonExportWriter(out);
+        }
+        throw unsupportedFormat(format);
+    }
+
+    public static String getContentType(String format) {
+        if (FORMAT_CSV.equalsIgnoreCase(format)) {
+            return "text/csv";
+        }
+        if (FORMAT_NDJSON.equalsIgnoreCase(format)) {
+            return "application/x-ndjson";
+        }
+        throw unsupportedFormat(format);
+    }
+
+    private static WecubeCoreException unsupportedFormat(String format) {
+        return new WecubeCoreException("3316", String.format("Unsupported export format %s.", format), format);
+    }
+
+    public abstract void writeHeaders(List<String> headers) throws IOException;
+
+    public abstract void writeRow(List<String> rowValue) throws IOException;
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static class CsvExportWriter extends ResourceDataExportWriter {
+        CsvExportWriter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void writeHeaders(List<String> headers) throws IOException {
+            writeRow(headers);
+        }
+
+        @Override
+        public void writeRow(List<String> rowValue) throws IOException {
+            for (int i = 0; i < rowValue.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeField(rowValue.get(i));
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean needQuote = false;
+            for (int i = 0; i < value.length() && !needQuote; i++) {
+                char c = value.charAt(i);
+                needQuote = (c == ',' || c == '"' || c == '\r' || c == '\n');
+            }
+            if (!needQuote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static class NdjsonExportWriter extends ResourceDataExportWriter {
+        private final JsonGenerator generator;
+        private List<String> headers;
+
+        NdjsonExportWriter(OutputStream out) {
+            super(out);
+            try {
+                this.generator = JSON_FACTORY.createGenerator(writer);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to create json generator", e);
+            }
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void writeHeaders(List<String> headers) {
+            this.headers = headers;
+        }
+
+        @Override
+        public void writeRow(List<String> rowValue) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < rowValue.size(); i++) {
+                generator.writeStringField(headers.get(i), rowValue.get(i));
+            }
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+            super.close();
+        }
+    }
+}
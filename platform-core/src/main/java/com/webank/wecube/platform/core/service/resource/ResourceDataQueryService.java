@@ -1,5 +1,7 @@
 package com.webank.wecube.platform.core.service.resource;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.ResultSet;
@@ -9,6 +11,8 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -38,12 +42,17 @@ import com.webank.wecube.platform.core.jpa.PluginInstanceRepository;
 import com.webank.wecube.platform.core.jpa.PluginMysqlInstanceRepository;
 import com.webank.wecube.platform.core.jpa.PluginPackageRepository;
 import com.webank.wecube.platform.core.jpa.ResourceItemRepository;
+import com.webank.wecube.platform.core.service.resource.PluginMysqlDataSourceCache.PluginMysqlDataSource;
 import com.webank.wecube.platform.core.support.S3Client;
 import com.webank.wecube.platform.core.utils.EncryptionUtils;
 
 @Service
 public class ResourceDataQueryService {
     private Logger logger = LoggerFactory.getLogger(ResourceDataQueryService.class);
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ").withZone(ZoneId.systemDefault());
     
     @Autowired
     private PluginMysqlInstanceRepository pluginMysqlInstanceRepository;
@@ -52,7 +61,7 @@ public class ResourceDataQueryService {
     @Autowired
     private ResourceProperties resourceProperties;
     @Autowired
-    private MysqlAccountManagementService mysqlAcctMngService;
+    private PluginMysqlDataSourceCache pluginMysqlDataSourceCache;
     
     @Autowired
     private S3Client s3client;
@@ -63,50 +72,36 @@ public class ResourceDataQueryService {
     private ResourceItemRepository resourceItemRepository;
     
     public QueryResponse<List<String>> queryDB(String packageId, SqlQueryRequest sqlQueryRequest){
-        DataSource dataSource = getDataSource(packageId);
-        return queryDB(dataSource,sqlQueryRequest);
+        PluginMysqlDataSource dataSource = borrowDataSource(packageId);
+        try {
+            return queryDB(dataSource.getDataSource(), sqlQueryRequest);
+        } finally {
+            dataSource.release();
+        }
     }
     
     public QueryResponse<List<String>> queryDB(DataSource dataSource, SqlQueryRequest sqlQueryRequest){
         List<List<String>> results = new LinkedList<>(); 
         
+        boolean skipTotalCount = sqlQueryRequest.isSkipTotalCount() && sqlQueryRequest.getPageable() != null;
         try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();) {
-            int totalCount = queryTotalCount(statement,sqlQueryRequest.getSqlQuery());
+            int totalCount = skipTotalCount ? 0 : queryTotalCount(statement,sqlQueryRequest.getSqlQuery());
             
-            String limitedSql = getLimitedSql(sqlQueryRequest); 
+            String limitedSql = getLimitedSql(sqlQueryRequest, skipTotalCount); 
             ResultSet rs = statement.executeQuery(limitedSql);
             ResultSetMetaData resultSetMd = rs.getMetaData();
             int columnCount = resultSetMd.getColumnCount();
             
             List<String> headers = getHeaders(resultSetMd);
             
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-            SimpleDateFormat datetimeFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
             while(rs.next()) {
-                List<String> rowValue = new ArrayList<>(columnCount);
-                for(int col=1;col<=columnCount;col++) {
-                    int colType = resultSetMd.getColumnType(col);
-                    String literalVal = null;
-                    switch(colType) {
-                    case Types.DATE:
-                        Date date = rs.getDate(col);
-                        if(date != null) {
-                            literalVal = dateFormat.format(date);
-                        }
-                        break;
-                    case Types.TIMESTAMP:
-                        Timestamp timestamp = rs.getTimestamp(col);
-                        if(timestamp != null) {
-                            literalVal = datetimeFormat.format(timestamp);
-                        }
-                        break;
-                    default:
-                        literalVal = rs.getString(col);
-                        break;
-                    }
-                    rowValue.add(literalVal);
+                results.add(getRowValue(rs, resultSetMd, columnCount));
+            }
+            if(skipTotalCount) {
+                totalCount = sqlQueryRequest.getPageable().getStartIndex() + results.size();
+                if(results.size() > sqlQueryRequest.getPageable().getPageSize()) {
+                    results.remove(results.size() - 1);
                 }
-                results.add(rowValue);
             }
             QueryResponse<List<String>> response = null;
             if(sqlQueryRequest.getPageable() != null) {
@@ -124,6 +119,69 @@ public class ResourceDataQueryService {
         }    
     }
 
+    /**
+     * Streams all rows of the query to given output in csv or ndjson format,
+     * the rows are read with a forward-only streaming result set and written
+     * one by one.
+     */
+    public void exportDB(String packageId, SqlQueryRequest sqlQueryRequest, String format, OutputStream out) {
+        PluginMysqlDataSource dataSource = borrowDataSource(packageId);
+        int rowCount = 0;
+        try (ResourceDataExportWriter writer = ResourceDataExportWriter.newWriter(format, out);
+                Connection connection = dataSource.getDataSource().getConnection();
+                Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL driver streams rows one by one instead of reading the whole result
+            statement.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = statement.executeQuery(sqlQueryRequest.getSqlQuery())) {
+                ResultSetMetaData resultSetMd = rs.getMetaData();
+                int columnCount = resultSetMd.getColumnCount();
+                writer.writeHeaders(getHeaders(resultSetMd));
+                while (rs.next()) {
+                    writer.writeRow(getRowValue(rs, resultSetMd, columnCount));
+                    rowCount++;
+                }
+            }
+            writer.flush();
+        } catch (WecubeCoreException e) {
+            throw e;
+        } catch (SQLException | IOException e) {
+            String errorMessage = String.format("Fail to execute sql query:%s", sqlQueryRequest.toString());
+            logger.error(errorMessage, e);
+            throw new WecubeCoreException(errorMessage, e).withErrorCode("3010", sqlQueryRequest.toString());
+        } finally {
+            dataSource.release();
+        }
+        logger.info("exported {} rows of package {}", rowCount, packageId);
+    }
+
+    private List<String> getRowValue(ResultSet rs, ResultSetMetaData resultSetMd, int columnCount) throws SQLException {
+        List<String> rowValue = new ArrayList<>(columnCount);
+        for(int col=1;col<=columnCount;col++) {
+            int colType = resultSetMd.getColumnType(col);
+            String literalVal = null;
+            switch(colType) {
+            case Types.DATE:
+                Date date = rs.getDate(col);
+                if(date != null) {
+                    literalVal = DATE_FORMATTER.format(date.toLocalDate());
+                }
+                break;
+            case Types.TIMESTAMP:
+                Timestamp timestamp = rs.getTimestamp(col);
+                if(timestamp != null) {
+                    literalVal = DATETIME_FORMATTER.format(timestamp.toInstant());
+                }
+                break;
+            default:
+                literalVal = rs.getString(col);
+                break;
+            }
+            rowValue.add(literalVal);
+        }
+        return rowValue;
+    }
+
     private List<String> getHeaders(ResultSetMetaData resultSetMd) throws SQLException {
         List<String> headers = new ArrayList<>(resultSetMd.getColumnCount());
         for(int i=1;i<=resultSetMd.getColumnCount();i++) {
@@ -133,10 +191,12 @@ public class ResourceDataQueryService {
     }
 
 
-    private String getLimitedSql(SqlQueryRequest sqlQueryRequest) {
+    private String getLimitedSql(SqlQueryRequest sqlQueryRequest, boolean skipTotalCount) {
         if(sqlQueryRequest.getPageable() != null) {
             int startIndex = sqlQueryRequest.getPageable().getStartIndex();
-            int pageSize = sqlQueryRequest.getPageable().getPageSize();
+            // one more row tells whether there is a next page without counting
+            int pageSize = skipTotalCount ? sqlQueryRequest.getPageable().getPageSize() + 1
+                    : sqlQueryRequest.getPageable().getPageSize();
             StringBuilder limitedSqlBuilder = new StringBuilder();
             limitedSqlBuilder.append("select * from (")
                 .append(sqlQueryRequest.getSqlQuery())
@@ -170,7 +230,11 @@ public class ResourceDataQueryService {
     }
 
 
-    private DataSource getDataSource(String packageId) {
+    private PluginMysqlDataSource borrowDataSource(String packageId) {
+        return pluginMysqlDataSourceCache.borrowDataSource(packageId, () -> newPluginMysqlDataSource(packageId));
+    }
+
+    private PluginMysqlDataSource newPluginMysqlDataSource(String packageId) {
         Optional<PluginPackage> pluginPackageOpt = pluginPackageRepository.findById(packageId);
         if(!pluginPackageOpt.isPresent()) {
             throw new WecubeCoreException("3012",String.format("Can not find out PluginPackage for package id:%s",packageId));
@@ -196,7 +260,9 @@ public class ResourceDataQueryService {
         
         String mysqlHost = resourceServer.getHost();
         String mysqlPort = resourceServer.getPort();
-        return mysqlAcctMngService.newMysqlDatasource(mysqlHost, mysqlPort, dbUsername, password,pluginMysqlInstance.getSchemaName());
+        return pluginMysqlDataSourceCache.newPluginMysqlDataSource(pluginPackageOpt.get().getName(),
+                pluginMysqlInstance.getResourceItemId(), mysqlHost, mysqlPort, dbUsername, password,
+                pluginMysqlInstance.getSchemaName());
     }
 
     public List<List<String>> queryS3Files(String packageId) {
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import javax.transaction.Transactional;
@@ -45,6 +46,9 @@ public class ResourceManagementService {
     @Autowired
     private ResourceImplementationService resourceImplementationService;
 
+    @Autowired
+    private PluginMysqlDataSourceCache pluginMysqlDataSourceCache;
+
     public QueryResponse<ResourceServerDto> retrieveServers(QueryRequest queryRequest) {
         queryRequest = applyDefaultSortingAsDesc(queryRequest);
         QueryResponse<ResourceServer> queryResponse = entityRepository.query(ResourceServer.class, queryRequest);
@@ -71,11 +75,41 @@ public class ResourceManagementService {
 
     @Transactional
     public List<ResourceServerDto> updateServers(List<ResourceServerDto> resourceServers) {
+        Map<String, String> connectionsBeforeUpdate = new HashMap<>();
+        resourceServers.forEach(dto -> {
+            if (dto.getId() != null) {
+                resourceServerRepository.findById(dto.getId())
+                        .ifPresent(server -> connectionsBeforeUpdate.put(server.getId(), connectionOf(server)));
+            }
+        });
+
         Iterable<ResourceServer> savedDomains = resourceServerRepository
                 .saveAll(convertServerDtoToDomain(resourceServers));
+        savedDomains.forEach(server -> {
+            if (connectionsBeforeUpdate.containsKey(server.getId())
+                    && !Objects.equals(connectionsBeforeUpdate.get(server.getId()), connectionOf(server))) {
+                invalidatePluginMysqlDataSources(server);
+            }
+        });
         return convertServerDomainToDto(savedDomains);
     }
 
+    private String connectionOf(ResourceServer server) {
+        return String.join(":", String.valueOf(server.getHost()), String.valueOf(server.getPort()),
+                String.valueOf(server.getLoginUsername()), String.valueOf(server.getLoginPassword()));
+    }
+
+    private void invalidatePluginMysqlDataSources(ResourceServer server) {
+        if (ResourceServerType.fromCode(server.getType()) != ResourceServerType.MYSQL
+                || server.getResourceItems() == null) {
+            return;
+        }
+
+        for (ResourceItem item : server.getResourceItems()) {
+            pluginMysqlDataSourceCache.invalidateResourceItem(item.getId());
+        }
+    }
+
     @Transactional
     public void deleteServers(List<ResourceServerDto> resourceServers) {
         validateIfServersAreExists(resourceServers);
@@ -17,6 +17,7 @@ import com.webank.wecube.platform.core.dto.user.RoleDto;
 import com.webank.wecube.platform.core.dto.user.UserDto;
 import com.webank.wecube.platform.core.dto.user.UserPasswordDto;
 import com.webank.wecube.platform.core.service.SystemVariableService;
+import com.webank.wecube.platform.core.service.workflow.ProcessRoleAuthorizationCache;
 import com.webank.wecube.platform.core.support.RestClientException;
 import com.webank.wecube.platform.core.support.authserver.AsRoleDto;
 import com.webank.wecube.platform.core.support.authserver.AsUserDto;
@@ -38,6 +39,9 @@ public class UserManagementServiceImpl implements UserManagementService {
     @Autowired
     private SystemVariableService systemVariableService;
 
+    @Autowired
+    private ProcessRoleAuthorizationCache processRoleAuthorizationCache;
+
     public void changeUserPassword(UserPasswordDto userPassDto) {
         AsUserPassDto asUserPassDto = new AsUserPassDto();
         asUserPassDto.setUsername(AuthenticationContextHolder.getCurrentUsername());
@@ -196,6 +200,7 @@ public class UserManagementServiceImpl implements UserManagementService {
             log.error("failed to delete user account by user id", e);
             throw new WecubeCoreException("3032", "Failed to delete user account.");
         }
+        processRoleAuthorizationCache.invalidateUserRoles();
     }
 
     @Override
@@ -293,6 +298,7 @@ public class UserManagementServiceImpl implements UserManagementService {
             log.error("errors to unregister local role", e);
             throw new WecubeCoreException(e.getErrorMessage());
         }
+        processRoleAuthorizationCache.invalidateUserRoles();
 
     }
 
@@ -385,6 +391,7 @@ public class UserManagementServiceImpl implements UserManagementService {
             log.error("errors to grant role to users", e);
             throw new WecubeCoreException(e.getErrorMessage());
         }
+        processRoleAuthorizationCache.invalidateUserRoles();
 
     }
 
@@ -412,6 +419,7 @@ public class UserManagementServiceImpl implements UserManagementService {
             log.error("errors to revoke role from users", e);
             throw new WecubeCoreException(e.getErrorMessage());
         }
+        processRoleAuthorizationCache.invalidateUserRoles();
 
     }
 
@@ -68,6 +68,9 @@ public abstract class AbstractPluginInvocationService extends AbstractWorkflowSe
     @Autowired
     protected ApplicationProperties applicationProperties;
 
+    @Autowired
+    protected ProcInstStatusStreamService procInstStatusStreamService;
+
     protected TaskNodeInstInfoEntity findExactTaskNodeInstInfoEntityWithNodeId(
             List<TaskNodeInstInfoEntity> nodeInstEntities, String nodeId) {
         for (TaskNodeInstInfoEntity nodeInst : nodeInstEntities) {
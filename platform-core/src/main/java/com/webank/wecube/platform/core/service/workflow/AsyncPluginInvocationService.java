@@ -1,6 +1,8 @@
 package com.webank.wecube.platform.core.service.workflow;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -199,6 +201,7 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
 		nodeInstEntity.setStatus(TaskNodeInstInfoEntity.FAULTED_STATUS);
 
 		taskNodeInstInfoRepository.saveAndFlush(nodeInstEntity);
+		procInstStatusStreamService.publishTaskNodeStatus(nodeInstEntity);
 
 	}
 
@@ -216,6 +219,7 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
 		nodeInstEntity.setErrorMessage(EMPTY_ERROR_MSG);
 
 		taskNodeInstInfoRepository.saveAndFlush(nodeInstEntity);
+		procInstStatusStreamService.publishTaskNodeStatus(nodeInstEntity);
 	}
 
 	private void handleResultData(PluginInterfaceInvocationContext ctx, List<Object> resultData) {
@@ -296,16 +300,41 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
 
 	private void storeOutputParameterMaps(PluginInterfaceInvocationContext ctx,
 			List<Map<String, Object>> outputParameterMaps) {
+		Map<String, TaskNodeExecParamEntity> callbackParameterInputEntities = findCallbackParameterInputEntities(
+				ctx.getTaskNodeExecRequestEntity().getRequestId());
+		List<TaskNodeExecParamEntity> paramEntities = new ArrayList<>();
 		int count = 0;
 		for (Map<String, Object> outputParameterMap : outputParameterMaps) {
 			String objectId = String.valueOf(count);
-			storeSingleOutputParameterMap(ctx, outputParameterMap, objectId);
+			storeSingleOutputParameterMap(ctx, outputParameterMap, objectId, callbackParameterInputEntities,
+					paramEntities);
 			count++;
 		}
+
+		taskNodeExecParamRepository.batchInsert(paramEntities);
+	}
+
+	private Map<String, TaskNodeExecParamEntity> findCallbackParameterInputEntities(String requestId) {
+		Map<String, TaskNodeExecParamEntity> callbackParameterInputEntities = new HashMap<>();
+		List<TaskNodeExecParamEntity> paramEntities = taskNodeExecParamRepository
+				.findAllByRequestIdAndParamTypeAndParamName(requestId, TaskNodeExecParamEntity.PARAM_TYPE_REQUEST,
+						CALLBACK_PARAMETER_KEY);
+		if (paramEntities == null) {
+			return callbackParameterInputEntities;
+		}
+
+		for (TaskNodeExecParamEntity paramEntity : paramEntities) {
+			if (paramEntity.getParamDataValue() != null) {
+				callbackParameterInputEntities.putIfAbsent(paramEntity.getParamDataValue(), paramEntity);
+			}
+		}
+		return callbackParameterInputEntities;
 	}
 
 	private void storeSingleOutputParameterMap(PluginInterfaceInvocationContext ctx,
-			Map<String, Object> outputParameterMap, String objectId) {
+			Map<String, Object> outputParameterMap, String objectId,
+			Map<String, TaskNodeExecParamEntity> callbackParameterInputEntities,
+			List<TaskNodeExecParamEntity> paramEntities) {
 
 		String entityTypeId = null;
 		String entityDataId = null;
@@ -315,12 +344,7 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
 		String callbackParameter = (String) outputParameterMap.get(CALLBACK_PARAMETER_KEY);
 		TaskNodeExecParamEntity callbackParameterInputEntity = null;
 		if (StringUtils.isNotBlank(callbackParameter)) {
-			List<TaskNodeExecParamEntity> callbackParameterInputEntities = taskNodeExecParamRepository
-					.findOneByRequestIdAndParamTypeAndParamNameAndValue(requestId,
-							TaskNodeExecParamEntity.PARAM_TYPE_REQUEST, CALLBACK_PARAMETER_KEY, callbackParameter);
-			if (callbackParameterInputEntities != null && !callbackParameterInputEntities.isEmpty()) {
-				callbackParameterInputEntity = callbackParameterInputEntities.get(0);
-			}
+			callbackParameterInputEntity = callbackParameterInputEntities.get(callbackParameter);
 		}
 
 		if (callbackParameterInputEntity != null) {
@@ -354,7 +378,7 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
 					trimExceedParamValue(asString(entry.getValue(), paramDataType), MAX_PARAM_VAL_SIZE));
 			paramEntity.setRequestId(requestId);
 
-			taskNodeExecParamRepository.saveAndFlush(paramEntity);
+			paramEntities.add(paramEntity);
 		}
 	}
 
@@ -395,6 +419,7 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
 		nodeInstEntity.setErrorMessage(errorMsg);
 
 		taskNodeInstInfoRepository.saveAndFlush(nodeInstEntity);
+		procInstStatusStreamService.publishTaskNodeStatus(nodeInstEntity);
 
 	}
 
@@ -2,16 +2,17 @@ package com.webank.wecube.platform.core.service.workflow;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.BiConsumer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterface;
+import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
 import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingEntity;
 import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
@@ -34,18 +35,16 @@ public class PluginInvocationProcessor {
 	
 	private static final String DEF_DUE_DATE = "30";
 
-	private ExecutorService executorService = Executors.newCachedThreadPool();
+	@Autowired
+	private PluginInvocationScheduler pluginInvocationScheduler;
 
 	public void process(PluginInvocationOperation operation) {
-
-		executorService.execute(new Runnable() {
-
-			@Override
-			public void run() {
-				operation.operate();
-			}
-
-		});
+		try {
+			pluginInvocationScheduler.submit(operation.getPackageName(), operation::operate);
+		} catch (RejectedExecutionException e) {
+			log.warn("plugin invocation {} {} rejected", operation.getInstanceHost(), operation.getInterfacePath());
+			operation.fail(e);
+		}
 	}
 
 	public static class PluginInvocationOperation implements PluginOperation {
@@ -145,6 +144,27 @@ public class PluginInvocationProcessor {
 			return this;
 		}
 
+		public String getPackageName() {
+			if (pluginInterfaceInvocationContext == null
+					|| pluginInterfaceInvocationContext.getPluginConfigInterface() == null) {
+				return null;
+			}
+
+			return pluginInterfaceInvocationContext.getPluginConfigInterface().getPluginConfig().getPluginPackage()
+					.getName();
+		}
+
+		public void fail(Exception e) {
+			PluginInterfaceInvocationResult errResult = new PluginInterfaceInvocationResult();
+			errResult.setErrMsg(e.getMessage());
+			errResult.setError(e);
+			errResult.setSuccess(false);
+			errResult.setResultData(null);
+			errResult.setResultCode(PluginResponse.RESULT_CODE_FAIL);
+
+			handleResult(errResult);
+		}
+
 		@Override
 		public void operate() {
 			if (log.isDebugEnabled()) {
@@ -159,13 +179,7 @@ public class PluginInvocationProcessor {
 						getPluginParameters(), this.requestId, allowedOptions, getDueDate());
 			} catch (Exception e) {
 				log.warn("errors while operating {} {}", getInstanceHost(), getInterfacePath(), e);
-				PluginInterfaceInvocationResult errResult = new PluginInterfaceInvocationResult();
-				errResult.setErrMsg(e.getMessage());
-				errResult.setSuccess(false);
-				errResult.setResultData(null);
-				errResult.setResultCode(PluginResponse.RESULT_CODE_FAIL);
-
-				handleResult(errResult);
+				fail(e);
 
 				return;
 			}
@@ -274,6 +288,7 @@ public class PluginInvocationProcessor {
 		private List<Map<String, Object>> pluginParameters;
 		private String interfacePath;
 		private String instanceHost;
+		private PluginInstance pluginInstance;
 
 		private String requestId;
 
@@ -337,6 +352,14 @@ public class PluginInvocationProcessor {
 			this.instanceHost = instanceHost;
 		}
 
+		public PluginInstance getPluginInstance() {
+			return pluginInstance;
+		}
+
+		public void setPluginInstance(PluginInstance pluginInstance) {
+			this.pluginInstance = pluginInstance;
+		}
+
 		public String getRequestId() {
 			return requestId;
 		}
@@ -411,6 +434,11 @@ public class PluginInvocationProcessor {
 			return this;
 		}
 
+		public PluginInterfaceInvocationContext withPluginInstance(PluginInstance pluginInstance) {
+			this.pluginInstance = pluginInstance;
+			return this;
+		}
+
 	}
 
 	public static class PluginInterfaceInvocationResult {
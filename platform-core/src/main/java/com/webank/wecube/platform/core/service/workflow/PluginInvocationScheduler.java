@@ -0,0 +1,381 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder.AuthenticatedUser;
+import com.webank.wecube.platform.core.service.RuntimeMetricsProvider;
+
+/**
+ * Bounded scheduler of plugin invocations. Invocations run on a shared
+ * bounded thread pool, and each plugin package may only occupy a limited
+ * number of threads at a time, so that a slow plugin cannot starve the
+ * others. Invocations over the package limit wait in a bounded queue of the
+ * package and are run by the threads of the same package as they become
+ * free. The pool itself hands invocations directly to its threads, so it
+ * grows up to the max pool size instead of queueing behind busy packages.
+ */
+@Component
+public class PluginInvocationScheduler implements RuntimeMetricsProvider {
+    private static final Logger log = LoggerFactory.getLogger(PluginInvocationScheduler.class);
+
+    public static final String REJECTION_POLICY_CALLER_RUNS = "caller-runs";
+    public static final String REJECTION_POLICY_ABORT = "abort";
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    @Autowired(required = false)
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    private int maxConcurrencyPerPackage;
+    private int queueCapacity;
+    private boolean callerRunsOnRejection;
+    private ThreadPoolExecutor executor;
+
+    private final ConcurrentMap<String, PackageLane> packageLanes = new ConcurrentHashMap<>();
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong callerRunsCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        PluginInvocationProperties properties = pluginInvocationProperties;
+        if (properties == null) {
+            properties = new ApplicationProperties().new PluginInvocationProperties();
+        }
+
+        int corePoolSize = Math.max(properties.getInvocationCorePoolSize(), 1);
+        int maxPoolSize = Math.max(properties.getInvocationMaxPoolSize(), corePoolSize);
+        this.queueCapacity = Math.max(properties.getInvocationQueueCapacity(), 1);
+        this.maxConcurrencyPerPackage = Math.max(properties.getInvocationMaxConcurrencyPerPackage(), 1);
+        this.callerRunsOnRejection = !REJECTION_POLICY_ABORT.equalsIgnoreCase(properties.getInvocationRejectionPolicy());
+
+        this.executor = new ThreadPoolExecutor(corePoolSize, maxPoolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new PluginInvocationThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        log.info("plugin invocation scheduler initialized with pool size {}-{}, queue capacity {}, "
+                + "max concurrency per package {} and rejection policy {}", corePoolSize, maxPoolSize,
+                queueCapacity, maxConcurrencyPerPackage,
+                callerRunsOnRejection ? REJECTION_POLICY_CALLER_RUNS : REJECTION_POLICY_ABORT);
+        if (maxConcurrencyPerPackage >= maxPoolSize) {
+            log.warn("max concurrency per package {} is not less than max pool size {}, a slow plugin may occupy "
+                    + "all the invocation threads", maxConcurrencyPerPackage, maxPoolSize);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Schedules an invocation of given plugin package. When the queue of the
+     * package or the whole pool is full, the invocation runs on the calling
+     * thread or is rejected with {@link RejectedExecutionException},
+     * depending on the rejection policy. Only the rejected invocation itself
+     * runs on the calling thread, the pending ones of the package stay on the
+     * pool.
+     */
+    public void submit(String packageName, Runnable task) {
+        submit(packageName, maxConcurrencyPerPackage, task);
+    }
+
+    /**
+     * Schedules an invocation on a lane with its own concurrency limit, such
+     * as the lane of batch executions of a plugin package, so that they do
+     * not take the slots of the workflow invocations of the package.
+     */
+    public void submit(String packageName, int maxConcurrency, Runnable task) {
+        PackageLane lane = getLane(packageName, maxConcurrency);
+        Runnable authenticatedTask = new AuthenticatedRunnable(AuthenticationContextHolder.getCurrentUser(), task);
+        submittedCount.incrementAndGet();
+
+        boolean slotAcquired;
+        synchronized (lane) {
+            slotAcquired = lane.active < lane.maxConcurrency;
+            if (slotAcquired) {
+                lane.active++;
+            } else if (lane.pending.size() < queueCapacity) {
+                lane.pending.offer(authenticatedTask);
+                return;
+            }
+        }
+
+        if (!slotAcquired) {
+            reject(lane, packageName);
+            runTask(lane, authenticatedTask);
+            return;
+        }
+
+        try {
+            executor.execute(() -> runLane(lane, authenticatedTask));
+        } catch (RejectedExecutionException e) {
+            try {
+                reject(lane, packageName);
+                runTask(lane, authenticatedTask);
+            } finally {
+                releaseSlot(lane);
+            }
+        }
+    }
+
+    /**
+     * Schedules an invocation on a lane like
+     * {@link #submit(String, int, Runnable)}, but never runs it on the
+     * calling thread. Returns false when the queue of the lane or the whole
+     * pool is full, so that the caller can back off and submit it later.
+     */
+    public boolean trySubmit(String packageName, int maxConcurrency, Runnable task) {
+        PackageLane lane = getLane(packageName, maxConcurrency);
+        Runnable authenticatedTask = new AuthenticatedRunnable(AuthenticationContextHolder.getCurrentUser(), task);
+
+        synchronized (lane) {
+            if (lane.active < lane.maxConcurrency) {
+                lane.active++;
+            } else if (lane.pending.size() < queueCapacity) {
+                lane.pending.offer(authenticatedTask);
+                submittedCount.incrementAndGet();
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+        try {
+            executor.execute(() -> runLane(lane, authenticatedTask));
+            submittedCount.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            releaseSlot(lane);
+            return false;
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "plugin-invocation-scheduler";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        if (executor != null) {
+            metrics.put("poolSize", executor.getPoolSize());
+            metrics.put("activeThreads", executor.getActiveCount());
+            metrics.put("maxPoolSize", executor.getMaximumPoolSize());
+        }
+        metrics.put("submittedCount", submittedCount.get());
+        metrics.put("rejectedCount", rejectedCount.get());
+        metrics.put("callerRunsCount", callerRunsCount.get());
+
+        Map<String, Object> packageMetrics = new LinkedHashMap<>();
+        for (Map.Entry<String, PackageLane> entry : packageLanes.entrySet()) {
+            packageMetrics.put(entry.getKey(), entry.getValue().getMetrics());
+        }
+        metrics.put("packages", packageMetrics);
+        return metrics;
+    }
+
+    /**
+     * Runs given invocation and then the pending invocations of the same
+     * package while holding the slot of the package.
+     */
+    private void runLane(PackageLane lane, Runnable first) {
+        Runnable task = first;
+        while (task != null) {
+            runTask(lane, task);
+            task = lane.nextOrReleaseSlot();
+        }
+    }
+
+    private PackageLane getLane(String packageName, int maxConcurrency) {
+        return packageLanes.computeIfAbsent(packageName == null ? "" : packageName,
+                k -> new PackageLane(Math.max(maxConcurrency, 1)));
+    }
+
+    private void runTask(PackageLane lane, Runnable task) {
+        long startTime = System.nanoTime();
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.error("errors while running plugin invocation", e);
+        } finally {
+            lane.completedCount.incrementAndGet();
+            lane.latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        }
+    }
+
+    /**
+     * Gives back the slot taken by a rejected invocation. Invocations queued
+     * to the package in the meantime are handed to the pool, or put back to
+     * the queue to be run by the next thread of the package if the pool is
+     * still full.
+     */
+    private void releaseSlot(PackageLane lane) {
+        Runnable next = lane.nextOrReleaseSlot();
+        if (next == null) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> runLane(lane, next));
+        } catch (RejectedExecutionException e) {
+            lane.requeueAndReleaseSlot(next);
+        }
+    }
+
+    private void reject(PackageLane lane, String packageName) {
+        rejectedCount.incrementAndGet();
+        lane.rejectedCount.incrementAndGet();
+        if (!callerRunsOnRejection) {
+            throw new RejectedExecutionException(
+                    String.format("Too many pending invocations of plugin %s.", packageName));
+        }
+        callerRunsCount.incrementAndGet();
+        log.warn("too many pending invocations of plugin {}, run on caller thread", packageName);
+    }
+
+    private static class PackageLane {
+        private final int maxConcurrency;
+        private final Deque<Runnable> pending = new ArrayDeque<>();
+        private int active;
+        private final AtomicLong completedCount = new AtomicLong();
+        private final AtomicLong rejectedCount = new AtomicLong();
+        private final LatencyRecorder latencies = new LatencyRecorder();
+
+        PackageLane(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        synchronized Runnable nextOrReleaseSlot() {
+            Runnable next = pending.poll();
+            if (next == null) {
+                active--;
+            }
+            return next;
+        }
+
+        synchronized void requeueAndReleaseSlot(Runnable task) {
+            pending.offerFirst(task);
+            active--;
+        }
+
+        Map<String, Object> getMetrics() {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            synchronized (this) {
+                metrics.put("active", active);
+                metrics.put("pending", pending.size());
+            }
+            metrics.put("maxConcurrency", maxConcurrency);
+            metrics.put("completedCount", completedCount.get());
+            metrics.put("rejectedCount", rejectedCount.get());
+            metrics.put("latencyMillis", latencies.getPercentiles());
+            return metrics;
+        }
+    }
+
+    /**
+     * Keeps the latencies of the latest invocations to estimate percentiles.
+     */
+    static class LatencyRecorder {
+        private static final int SAMPLE_SIZE = 1024;
+
+        private final long[] samples = new long[SAMPLE_SIZE];
+        private int next;
+        private int size;
+
+        synchronized void record(long latency) {
+            samples[next] = latency;
+            next = (next + 1) % SAMPLE_SIZE;
+            if (size < SAMPLE_SIZE) {
+                size++;
+            }
+        }
+
+        Map<String, Object> getPercentiles() {
+            long[] sorted;
+            synchronized (this) {
+                sorted = Arrays.copyOf(samples, size);
+            }
+            Arrays.sort(sorted);
+
+            Map<String, Object> percentiles = new LinkedHashMap<>();
+            percentiles.put("p50", percentile(sorted, 50));
+            percentiles.put("p90", percentile(sorted, 90));
+            percentiles.put("p99", percentile(sorted, 99));
+            percentiles.put("max", sorted.length == 0 ? 0L : sorted[sorted.length - 1]);
+            return percentiles;
+        }
+
+        private static long percentile(long[] sorted, int percent) {
+            if (sorted.length == 0) {
+                return 0L;
+            }
+            int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(index, 0)];
+        }
+    }
+
+    private static class AuthenticatedRunnable implements Runnable {
+        private final AuthenticatedUser user;
+        private final Runnable delegate;
+
+        AuthenticatedRunnable(AuthenticatedUser user, Runnable delegate) {
+            this.user = user;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            AuthenticatedUser callerUser = AuthenticationContextHolder.getCurrentUser();
+            AuthenticationContextHolder.clearCurrentUser();
+            AuthenticationContextHolder.setAuthenticatedUser(user);
+            try {
+                delegate.run();
+            } finally {
+                AuthenticationContextHolder.clearCurrentUser();
+                if (callerUser != null) {
+                    AuthenticationContextHolder.setAuthenticatedUser(callerUser);
+                }
+            }
+        }
+    }
+
+    private static class PluginInvocationThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "plugin-invocation-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -15,18 +15,18 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.domain.SystemVariable;
-import com.webank.wecube.platform.core.domain.plugin.PluginConfig;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterface;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterfaceParameter;
 import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
-import com.webank.wecube.platform.core.domain.plugin.PluginPackage;
 import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingEntity;
 import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
@@ -45,6 +45,7 @@ import com.webank.wecube.platform.core.model.workflow.PluginInvocationResult;
 import com.webank.wecube.platform.core.model.workflow.WorkflowNotifyEvent;
 import com.webank.wecube.platform.core.service.SystemVariableService;
 import com.webank.wecube.platform.core.service.dme.EntityOperationRootCondition;
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry;
 import com.webank.wecube.platform.core.service.plugin.PluginInstanceService;
 import com.webank.wecube.platform.core.service.workflow.PluginInvocationProcessor.PluginInterfaceInvocationContext;
 import com.webank.wecube.platform.core.service.workflow.PluginInvocationProcessor.PluginInterfaceInvocationResult;
@@ -61,6 +62,9 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
 	private static final String IS_SENSITIVE_ATTR = "Y";
 
+	private static final long END_EVENT_CORRELATION_TIMEOUT_MILLIS = 6000L;
+	private static final long TASK_CORRELATION_TIMEOUT_MILLIS = 3000L;
+
 	@Autowired
 	private PluginInvocationRestClient pluginInvocationRestClient;
 
@@ -88,6 +92,15 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 	@Autowired
 	private WorkflowProcInstEndEventNotifier workflowProcInstEndEventNotifier;
 
+	@Autowired
+	private ProcInstInfoCorrelationRegistry procInstInfoCorrelationRegistry;
+
+	@Autowired
+	private PluginInstanceRegistry pluginInstanceRegistry;
+
+	@Autowired(required = false)
+	private PluginInvocationProperties pluginInvocationProperties;
+
 	public void handleProcessInstanceEndEvent(PluginInvocationCommand cmd) {
 		if (log.isInfoEnabled()) {
 			log.info("handle end event:{}", cmd);
@@ -95,23 +108,8 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
 		Date currTime = new Date();
 
-		ProcInstInfoEntity procInstEntity = null;
-		int times = 0;
-
-		while (times < 20) {
-			procInstEntity = procInstInfoRepository.findOneByProcInstKernelId(cmd.getProcInstId());
-			if (procInstEntity != null) {
-				break;
-			}
-
-			try {
-				Thread.sleep(300);
-			} catch (InterruptedException e) {
-				log.info("exceptions while handling end event.", e.getMessage());
-			}
-
-			times++;
-		}
+		ProcInstInfoEntity procInstEntity = procInstInfoCorrelationRegistry
+				.findProcInstInfoEntity(cmd.getProcInstId(), END_EVENT_CORRELATION_TIMEOUT_MILLIS);
 
 		if (procInstEntity == null) {
 			log.warn("Cannot find process instance entity currently for {}", cmd.getProcInstId());
@@ -121,6 +119,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 		procInstEntity.setUpdatedTime(currTime);
 		procInstEntity.setStatus(ProcInstInfoEntity.COMPLETED_STATUS);
 		procInstInfoRepository.save(procInstEntity);
+		procInstStatusStreamService.publishProcInstStatus(procInstEntity);
 
 		log.debug("updated process instance {} to {}", procInstEntity.getId(), ProcInstInfoEntity.COMPLETED_STATUS);
 
@@ -138,11 +137,14 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 				n.setStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS);
 
 				taskNodeInstInfoRepository.saveAndFlush(n);
+				procInstStatusStreamService.publishTaskNodeStatus(n);
 
 				log.debug("updated node {} to {}", n.getId(), TaskNodeInstInfoEntity.COMPLETED_STATUS);
 			}
 		}
 
+		entityOperationService.evictEntityDataCache(String.valueOf(procInstEntity.getId()));
+
 		workflowProcInstEndEventNotifier.notify(WorkflowNotifyEvent.PROCESS_INSTANCE_END, cmd, procInstEntity);
 
 	}
@@ -162,6 +164,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 					prevNodeInst.setStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS);
 
 					taskNodeInstInfoRepository.saveAndFlush(prevNodeInst);
+					procInstStatusStreamService.publishTaskNodeStatus(prevNodeInst);
 				}
 			}
 		}
@@ -206,6 +209,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 		toUpdateTaskNodeInstInfoEntity.setErrorMessage(trimWithMaxLength(e == null ? "errors" : e.getMessage()));
 
 		taskNodeInstInfoRepository.saveAndFlush(toUpdateTaskNodeInstInfoEntity);
+		procInstStatusStreamService.publishTaskNodeStatus(toUpdateTaskNodeInstInfoEntity);
 	}
 
 	protected void doInvokePluginInterface(ProcInstInfoEntity procInstEntity, TaskNodeInstInfoEntity taskNodeInstEntity,
@@ -233,9 +237,15 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
 		parsePluginInstance(ctx);
 
-		buildTaskNodeExecRequestEntity(ctx);
-		List<Map<String, Object>> pluginParameters = calculateInputParameters(ctx, inputParamObjs, ctx.getRequestId(),
-				procInstEntity.getOperator());
+		List<Map<String, Object>> pluginParameters;
+		try {
+			buildTaskNodeExecRequestEntity(ctx);
+			pluginParameters = calculateInputParameters(ctx, inputParamObjs, ctx.getRequestId(),
+					procInstEntity.getOperator());
+		} catch (RuntimeException e) {
+			pluginInstanceRegistry.release(ctx.getPluginInstance());
+			throw e;
+		}
 
 		PluginInvocationOperation operation = new PluginInvocationOperation() //
 				.withCallback(this::handlePluginInterfaceInvocationResult) //
@@ -360,14 +370,25 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
 	private void parsePluginInstance(PluginInterfaceInvocationContext ctx) {
 		PluginConfigInterface pluginConfigInterface = ctx.getPluginConfigInterface();
-		PluginInstance pluginInstance = retrieveAvailablePluginInstance(pluginConfigInterface);
+		String pluginName = pluginConfigInterface.getPluginConfig().getPluginPackage().getName();
 		String interfacePath = pluginConfigInterface.getPath();
-		if (pluginInstance == null) {
+
+		String instanceHostAndPort = applicationProperties.getGatewayUrl();
+		if (pluginInvocationProperties != null && pluginInvocationProperties.isDirectInstanceInvocationEnabled()) {
+			// only requests sent to the selected instance are tracked, the
+			// gateway routes the others by itself
+			PluginInstance pluginInstance = pluginInstanceRegistry.acquire(pluginName);
+			if (pluginInstance == null) {
+				log.warn("cannot find an available plugin instance for {}", pluginConfigInterface.getServiceName());
+				throw new WecubeCoreException("3169","Cannot find an available plugin instance.");
+			}
+			instanceHostAndPort = pluginInstance.getHost() + ":" + pluginInstance.getPort();
+			ctx.setPluginInstance(pluginInstance);
+		} else if (!pluginInstanceRegistry.hasRunningInstances(pluginName)) {
 			log.warn("cannot find an available plugin instance for {}", pluginConfigInterface.getServiceName());
 			throw new WecubeCoreException("3169","Cannot find an available plugin instance.");
 		}
 
-		String instanceHostAndPort = applicationProperties.getGatewayUrl();
 		ctx.setInstanceHost(instanceHostAndPort);
 		ctx.setInterfacePath(interfacePath);
 	}
@@ -387,6 +408,9 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 			inputObj.setEntityTypeId(entityTypeId);
 			inputObj.setEntityDataId(entityDataId);
 
+			Map<String, List<Object>> entityAttrValues = queryEntityMappingAttributeValues(configInterfaceInputParams,
+					entityDataId, String.valueOf(procInstEntity.getId()));
+
 			for (PluginConfigInterfaceParameter param : configInterfaceInputParams) {
 				String paramName = param.getName();
 				String paramType = param.getDataType();
@@ -403,7 +427,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 				String mappingType = param.getMappingType();
 				inputAttr.setMapType(mappingType);
 
-				handleEntityMapping(mappingType, param, entityDataId, objectVals);
+				handleEntityMapping(mappingType, param, entityAttrValues, objectVals);
 
 				handleContextMapping(mappingType, taskNodeDefEntity, paramName, procInstEntity, param, paramType,
 						objectVals);
@@ -424,8 +448,25 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 		return inputParamObjs;
 	}
 
-	private void handleEntityMapping(String mappingType, PluginConfigInterfaceParameter param, String entityDataId,
-			List<Object> objectVals) {
+	private Map<String, List<Object>> queryEntityMappingAttributeValues(
+			Set<PluginConfigInterfaceParameter> configInterfaceInputParams, String entityDataId, String procInstId) {
+		List<String> mappingEntityExpressions = new ArrayList<>();
+		for (PluginConfigInterfaceParameter param : configInterfaceInputParams) {
+			if (MAPPING_TYPE_ENTITY.equals(param.getMappingType())
+					&& !mappingEntityExpressions.contains(param.getMappingEntityExpression())) {
+				mappingEntityExpressions.add(param.getMappingEntityExpression());
+			}
+		}
+
+		if (mappingEntityExpressions.isEmpty()) {
+			return new HashMap<>();
+		}
+
+		return entityOperationService.queryAttributeValues(mappingEntityExpressions, entityDataId, procInstId);
+	}
+
+	private void handleEntityMapping(String mappingType, PluginConfigInterfaceParameter param,
+			Map<String, List<Object>> entityAttrValues, List<Object> objectVals) {
 		if (MAPPING_TYPE_ENTITY.equals(mappingType)) {
 			String mappingEntityExpression = param.getMappingEntityExpression();
 
@@ -433,10 +474,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 				log.debug("expression:{}", mappingEntityExpression);
 			}
 
-			EntityOperationRootCondition condition = new EntityOperationRootCondition(mappingEntityExpression,
-					entityDataId);
-
-			List<Object> attrValsPerExpr = entityOperationService.queryAttributeValues(condition);
+			List<Object> attrValsPerExpr = entityAttrValues.get(mappingEntityExpression);
 
 			if (attrValsPerExpr == null) {
 				log.info("returned null while fetch data with expression:{}", mappingEntityExpression);
@@ -663,6 +701,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 		taskNodeInstEntity.setUpdatedTime(currTime);
 		taskNodeInstEntity.setErrorMessage(EMPTY_ERROR_MSG);
 		taskNodeInstEntity = taskNodeInstInfoRepository.saveAndFlush(taskNodeInstEntity);
+		procInstStatusStreamService.publishTaskNodeStatus(taskNodeInstEntity);
 
 		List<TaskNodeExecRequestEntity> formerRequestEntities = taskNodeExecRequestRepository
 				.findCurrentEntityByNodeInstId(taskNodeInstEntity.getId());
@@ -698,22 +737,8 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 	private ProcInstInfoEntity doRetrieveProcInstInfoEntity(PluginInvocationCommand cmd) {
 		String procInstKernelId = cmd.getProcInstId();
 
-		ProcInstInfoEntity procInstEntity = null;
-		int round = 0;
-		while (round < 15) {
-			procInstEntity = procInstInfoRepository.findOneByProcInstKernelId(procInstKernelId);
-
-			if (procInstEntity != null) {
-				break;
-			}
-
-			try {
-				Thread.sleep(200);
-			} catch (InterruptedException e) {
-			}
-
-			round++;
-		}
+		ProcInstInfoEntity procInstEntity = procInstInfoCorrelationRegistry.findProcInstInfoEntity(procInstKernelId,
+				TASK_CORRELATION_TIMEOUT_MILLIS);
 
 		if (procInstEntity == null) {
 			log.error("Process instance info does not exist for id:{}", procInstKernelId);
@@ -732,6 +757,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 			}
 
 			procInstInfoRepository.saveAndFlush(procInstEntity);
+			procInstStatusStreamService.publishProcInstStatus(procInstEntity);
 		}
 
 		return procInstEntity;
@@ -740,6 +766,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 	private List<Map<String, Object>> calculateInputParameters(PluginInterfaceInvocationContext ctx,
 			List<InputParamObject> inputParamObjs, String requestId, String operator) {
 		List<Map<String, Object>> pluginParameters = new ArrayList<Map<String, Object>>();
+		List<TaskNodeExecParamEntity> paramEntities = new ArrayList<>();
 
 		int objectId = 0;
 
@@ -764,7 +791,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 			p.setEntityDataId(entityDataId);
 			p.setEntityTypeId(entityTypeId);
 
-			taskNodeExecParamRepository.saveAndFlush(p);
+			paramEntities.add(p);
 
 			inputMap.put(INPUT_PARAMETER_KEY_OPERATOR, operator);
 
@@ -781,7 +808,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
 				e.setSensitive(attr.isSensitive());
 
-				taskNodeExecParamRepository.saveAndFlush(e);
+				paramEntities.add(e);
 
 				inputMap.put(attr.getName(), attr.getExpectedValue());
 			}
@@ -791,18 +818,9 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 			objectId++;
 		}
 
-		return pluginParameters;
-	}
-
-	private PluginInstance retrieveAvailablePluginInstance(PluginConfigInterface itf) {
-		PluginConfig config = itf.getPluginConfig();
-		PluginPackage pkg = config.getPluginPackage();
-		String pluginName = pkg.getName();
-
-		List<PluginInstance> instances = pluginInstanceService.getRunningPluginInstances(pluginName);
-
-		return instances.get(0);
+		taskNodeExecParamRepository.batchInsert(paramEntities);
 
+		return pluginParameters;
 	}
 
 	public void handlePluginInterfaceInvocationResult(PluginInterfaceInvocationResult pluginInvocationResult,
@@ -811,6 +829,10 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 			log.debug("handle plugin interface invocation result");
 		}
 
+		boolean instanceFailed = pluginInvocationResult.hasErrors()
+				&& !(pluginInvocationResult.getError() instanceof RejectedExecutionException);
+		pluginInstanceRegistry.release(ctx.getPluginInstance(), !instanceFailed);
+
 		if (!pluginInvocationResult.isSuccess() || pluginInvocationResult.hasErrors()) {
 			handleErrorInvocationResult(pluginInvocationResult, ctx);
 
@@ -930,16 +952,41 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
 	private void storeOutputParameterMaps(PluginInterfaceInvocationContext ctx,
 			List<Map<String, Object>> outputParameterMaps) {
+		Map<String, TaskNodeExecParamEntity> callbackParameterInputEntities = findCallbackParameterInputEntities(
+				ctx.getTaskNodeExecRequestEntity().getRequestId());
+		List<TaskNodeExecParamEntity> paramEntities = new ArrayList<>();
 		int count = 0;
 		for (Map<String, Object> outputParameterMap : outputParameterMaps) {
 			String objectId = String.valueOf(count);
-			storeSingleOutputParameterMap(ctx, outputParameterMap, objectId);
+			storeSingleOutputParameterMap(ctx, outputParameterMap, objectId, callbackParameterInputEntities,
+					paramEntities);
 			count++;
 		}
+
+		taskNodeExecParamRepository.batchInsert(paramEntities);
+	}
+
+	private Map<String, TaskNodeExecParamEntity> findCallbackParameterInputEntities(String requestId) {
+		Map<String, TaskNodeExecParamEntity> callbackParameterInputEntities = new HashMap<>();
+		List<TaskNodeExecParamEntity> paramEntities = taskNodeExecParamRepository
+				.findAllByRequestIdAndParamTypeAndParamName(requestId, TaskNodeExecParamEntity.PARAM_TYPE_REQUEST,
+						CALLBACK_PARAMETER_KEY);
+		if (paramEntities == null) {
+			return callbackParameterInputEntities;
+		}
+
+		for (TaskNodeExecParamEntity paramEntity : paramEntities) {
+			if (paramEntity.getParamDataValue() != null) {
+				callbackParameterInputEntities.putIfAbsent(paramEntity.getParamDataValue(), paramEntity);
+			}
+		}
+		return callbackParameterInputEntities;
 	}
 
 	private void storeSingleOutputParameterMap(PluginInterfaceInvocationContext ctx,
-			Map<String, Object> outputParameterMap, String objectId) {
+			Map<String, Object> outputParameterMap, String objectId,
+			Map<String, TaskNodeExecParamEntity> callbackParameterInputEntities,
+			List<TaskNodeExecParamEntity> paramEntities) {
 
 		String entityTypeId = null;
 		String entityDataId = null;
@@ -950,12 +997,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
 		TaskNodeExecParamEntity callbackParameterInputEntity = null;
 		if (StringUtils.isNotBlank(callbackParameter)) {
-			List<TaskNodeExecParamEntity> callbackParameterInputEntities = taskNodeExecParamRepository
-					.findOneByRequestIdAndParamTypeAndParamNameAndValue(requestId,
-							TaskNodeExecParamEntity.PARAM_TYPE_REQUEST, CALLBACK_PARAMETER_KEY, callbackParameter);
-			if (callbackParameterInputEntities != null && !callbackParameterInputEntities.isEmpty()) {
-				callbackParameterInputEntity = callbackParameterInputEntities.get(0);
-			}
+			callbackParameterInputEntity = callbackParameterInputEntities.get(callbackParameter);
 		}
 
 		if (callbackParameterInputEntity != null) {
@@ -992,7 +1034,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 			paramEntity.setRequestId(requestId);
 			paramEntity.setSensitive(isSensitiveData);
 
-			taskNodeExecParamRepository.saveAndFlush(paramEntity);
+			paramEntities.add(paramEntity);
 		}
 	}
 
@@ -1070,6 +1112,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 		nodeInstEntity.setErrorMessage(EMPTY_ERROR_MSG);
 
 		taskNodeInstInfoRepository.saveAndFlush(nodeInstEntity);
+		procInstStatusStreamService.publishTaskNodeStatus(nodeInstEntity);
 	}
 
 	private void handlePluginInterfaceInvocationFailure(PluginInterfaceInvocationResult pluginInvocationResult,
@@ -1092,6 +1135,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 		nodeInstEntity.setErrorMessage(errorMsg);
 
 		taskNodeInstInfoRepository.saveAndFlush(nodeInstEntity);
+		procInstStatusStreamService.publishTaskNodeStatus(nodeInstEntity);
 
 	}
 
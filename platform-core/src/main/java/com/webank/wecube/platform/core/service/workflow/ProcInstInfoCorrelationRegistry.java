@@ -0,0 +1,97 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
+
+/**
+ * Correlates process engine instance ids with process instance entities.
+ * Events of a newly started process instance may arrive before its entity
+ * is bound to the kernel id, so the event handlers wait to be notified when
+ * the binding becomes visible instead of polling the database.
+ */
+@Component
+public class ProcInstInfoCorrelationRegistry {
+    private static final Logger log = LoggerFactory.getLogger(ProcInstInfoCorrelationRegistry.class);
+
+    private static final long CORRELATION_EXPIRE_SECONDS = 60L;
+
+    @Autowired
+    private ProcInstInfoRepository procInstInfoRepository;
+
+    private final Cache<String, CompletableFuture<Integer>> correlations = CacheBuilder.newBuilder()
+            .expireAfterWrite(CORRELATION_EXPIRE_SECONDS, TimeUnit.SECONDS).build();
+
+    /**
+     * Notifies the waiting event handlers that the process instance entity is
+     * bound to given kernel id, after the current transaction commits if any.
+     */
+    public void bind(String procInstKernelId, Integer procInstId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete(procInstKernelId, procInstId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    complete(procInstKernelId, procInstId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Finds the process instance entity bound to given kernel id, waiting at
+     * most given time for the binding to become visible.
+     */
+    public ProcInstInfoEntity findProcInstInfoEntity(String procInstKernelId, long timeoutMillis) {
+        ProcInstInfoEntity procInstEntity = procInstInfoRepository.findOneByProcInstKernelId(procInstKernelId);
+        if (procInstEntity != null) {
+            return procInstEntity;
+        }
+
+        CompletableFuture<Integer> correlation = getCorrelation(procInstKernelId);
+        try {
+            correlation.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.info("process instance {} is not bound after {} ms", procInstKernelId, timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("errors while waiting for process instance {}", procInstKernelId, e);
+        }
+
+        return procInstInfoRepository.findOneByProcInstKernelId(procInstKernelId);
+    }
+
+    private void complete(String procInstKernelId, Integer procInstId) {
+        if (log.isDebugEnabled()) {
+            log.debug("process instance {} bound to {}", procInstId, procInstKernelId);
+        }
+        getCorrelation(procInstKernelId).complete(procInstId);
+    }
+
+    private CompletableFuture<Integer> getCorrelation(String procInstKernelId) {
+        try {
+            return correlations.get(procInstKernelId, CompletableFuture::new);
+        } catch (ExecutionException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.StatusStreamProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstInfoDto;
+import com.webank.wecube.platform.core.dto.workflow.TaskNodeInstDto;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
+import com.webank.wecube.platform.core.service.RuntimeMetricsProvider;
+
+/**
+ * Pushes status transitions of process instances and their task nodes to
+ * server-sent event subscribers. Transitions are published after the
+ * updating transaction commits and coalesced within a short window, so a
+ * subscriber gets at most one event per process instance in each window,
+ * carrying the latest status of everything changed in it.
+ * <p>
+ * Events are queued per subscriber and written by a pool of sender threads,
+ * so a slow client does not hold up the others. A subscriber falling behind
+ * by more than the configured number of events is dropped and closed.
+ * <p>
+ * Transitions are only pushed to the subscribers of the node writing them,
+ * as there is no fan-out across platform nodes. With several nodes, a
+ * subscriber misses the transitions of process instances run by the other
+ * nodes, and should still reload the process instances periodically, such as
+ * on reconnection, rather than rely on the stream alone.
+ */
+@Service
+public class ProcInstStatusStreamService implements RuntimeMetricsProvider {
+    private static final Logger log = LoggerFactory.getLogger(ProcInstStatusStreamService.class);
+
+    public static final String EVENT_PROC_INST_STATUS = "process-instance-status";
+
+    @Autowired(required = false)
+    private StatusStreamProperties statusStreamProperties;
+
+    private final StatusStreamProperties defaultStatusStreamProperties = new ApplicationProperties().new StatusStreamProperties();
+
+    private final ConcurrentMap<Integer, Set<StatusSubscriber>> procInstSubscribers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<StatusSubscriber, Set<String>> procInstListSubscribers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final AtomicLong publishedTransitions = new AtomicLong();
+
+    private final AtomicLong sentEvents = new AtomicLong();
+
+    private final AtomicLong droppedSubscribers = new AtomicLong();
+
+    private Map<Integer, PendingStatusEvent> pendingEvents = new LinkedHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void init() {
+        long windowMillis = Math.max(getProperties().getCoalesceWindowMillis(), 10L);
+        AtomicInteger senderIndex = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(Math.max(getProperties().getSenderThreads(), 1), r -> {
+            Thread t = new Thread(r, "proc-inst-status-sender-" + senderIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "proc-inst-status-stream");
+            t.setDaemon(true);
+            return t;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        if (sender != null) {
+            sender.shutdownNow();
+        }
+        for (Set<StatusSubscriber> subscribers : procInstSubscribers.values()) {
+            for (StatusSubscriber subscriber : subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+        for (StatusSubscriber subscriber : procInstListSubscribers.keySet()) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    /**
+     * Subscribes to status transitions of a process instance and its task
+     * nodes.
+     */
+    public SseEmitter subscribeProcInst(Integer procInstId) {
+        StatusSubscriber subscriber = new StatusSubscriber(newSubscriberEmitter());
+        registerUnsubscriber(subscriber, () -> procInstSubscribers.computeIfPresent(procInstId, (k, subscribers) -> {
+            if (subscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return subscribers.isEmpty() ? null : subscribers;
+        }));
+        procInstSubscribers.compute(procInstId, (k, subscribers) -> {
+            Set<StatusSubscriber> s = subscribers == null ? new CopyOnWriteArraySet<>() : subscribers;
+            s.add(subscriber);
+            return s;
+        });
+        return subscriber.emitter;
+    }
+
+    /**
+     * Subscribes to status transitions of process instances, excluding
+     * their task nodes, of the given process definitions.
+     */
+    public SseEmitter subscribeProcInstList(Set<String> procDefIds) {
+        StatusSubscriber subscriber = new StatusSubscriber(newSubscriberEmitter());
+        registerUnsubscriber(subscriber, () -> {
+            if (procInstListSubscribers.remove(subscriber) != null) {
+                subscriberCount.decrementAndGet();
+            }
+        });
+        procInstListSubscribers.put(subscriber, procDefIds);
+        return subscriber.emitter;
+    }
+
+    public void publishProcInstStatus(ProcInstInfoEntity procInstEntity) {
+        if (procInstEntity == null || subscriberCount.get() <= 0) {
+            return;
+        }
+
+        ProcInstInfoDto procInst = new ProcInstInfoDto();
+        procInst.setId(procInstEntity.getId());
+        procInst.setProcInstKey(procInstEntity.getProcInstKey());
+        procInst.setProcInstName(procInstEntity.getProcDefName());
+        procInst.setProcDefId(procInstEntity.getProcDefId());
+        procInst.setOperator(procInstEntity.getOperator());
+        procInst.setStatus(procInstEntity.getStatus());
+        procInst.setTaskNodeInstances(null);
+        afterCommit(() -> addPendingProcInst(procInst));
+    }
+
+    public void publishTaskNodeStatus(TaskNodeInstInfoEntity nodeInstEntity) {
+        if (nodeInstEntity == null || !procInstSubscribers.containsKey(nodeInstEntity.getProcInstId())) {
+            return;
+        }
+
+        TaskNodeInstDto nodeInst = new TaskNodeInstDto();
+        nodeInst.setId(nodeInstEntity.getId());
+        nodeInst.setNodeId(nodeInstEntity.getNodeId());
+        nodeInst.setNodeName(nodeInstEntity.getNodeName());
+        nodeInst.setNodeType(nodeInstEntity.getNodeType());
+        nodeInst.setProcInstId(nodeInstEntity.getProcInstId());
+        nodeInst.setProcInstKey(nodeInstEntity.getProcInstKey());
+        nodeInst.setStatus(nodeInstEntity.getStatus());
+        afterCommit(() -> addPendingTaskNode(nodeInst));
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "proc-inst-status-stream";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("subscribers", subscriberCount.get());
+        metrics.put("subscribedProcInsts", procInstSubscribers.size());
+        metrics.put("publishedTransitions", publishedTransitions.get());
+        metrics.put("sentEvents", sentEvents.get());
+        metrics.put("droppedSubscribers", droppedSubscribers.get());
+        return metrics;
+    }
+
+    protected SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    void flush() {
+        Map<Integer, PendingStatusEvent> events;
+        synchronized (this) {
+            if (pendingEvents.isEmpty()) {
+                return;
+            }
+            events = pendingEvents;
+            pendingEvents = new LinkedHashMap<>();
+        }
+
+        for (Map.Entry<Integer, PendingStatusEvent> entry : events.entrySet()) {
+            try {
+                sendEvent(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                log.warn("errors while sending status event of process instance {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    private void sendEvent(Integer procInstId, PendingStatusEvent event) {
+        Set<StatusSubscriber> subscribers = procInstSubscribers.get(procInstId);
+        if (subscribers != null) {
+            ProcInstInfoDto procInst = event.toDto(procInstId);
+            for (StatusSubscriber subscriber : subscribers) {
+                enqueue(subscriber, procInst);
+            }
+        }
+
+        if (event.procInst == null || event.procInst.getProcDefId() == null) {
+            return;
+        }
+        for (Map.Entry<StatusSubscriber, Set<String>> entry : procInstListSubscribers.entrySet()) {
+            if (entry.getValue().contains(event.procInst.getProcDefId())) {
+                enqueue(entry.getKey(), event.procInst);
+            }
+        }
+    }
+
+    private void enqueue(StatusSubscriber subscriber, ProcInstInfoDto procInst) {
+        if (subscriber.closed) {
+            return;
+        }
+
+        if (subscriber.pendingCount.incrementAndGet() > getProperties().getMaxPendingEventsPerSubscriber()) {
+            log.info("status subscriber falls behind by more than {} events, drop it",
+                    getProperties().getMaxPendingEventsPerSubscriber());
+            droppedSubscribers.incrementAndGet();
+            subscriber.closed = true;
+            subscriber.unsubscriber.run();
+        } else {
+            subscriber.pending.offer(procInst);
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(StatusSubscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            sender.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+            log.debug("status sender is shut down, skip sending", e);
+        }
+    }
+
+    /**
+     * Writes the queued events of a subscriber in order. At most one sender
+     * thread drains a subscriber at a time, and the emitter of a dropped
+     * subscriber is completed on that thread too, as a call to the emitter
+     * waits for any write in progress.
+     */
+    private void drain(StatusSubscriber subscriber) {
+        try {
+            ProcInstInfoDto procInst;
+            while (!subscriber.closed && (procInst = subscriber.pending.poll()) != null) {
+                subscriber.pendingCount.decrementAndGet();
+                send(subscriber, procInst);
+            }
+            if (subscriber.closed && subscriber.completed.compareAndSet(false, true)) {
+                subscriber.pending.clear();
+                subscriber.emitter.complete();
+            }
+        } finally {
+            subscriber.draining.set(false);
+        }
+
+        if (subscriber.hasWork()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void send(StatusSubscriber subscriber, ProcInstInfoDto procInst) {
+        try {
+            subscriber.emitter
+                    .send(SseEmitter.event().name(EVENT_PROC_INST_STATUS).data(procInst, MediaType.APPLICATION_JSON));
+            sentEvents.incrementAndGet();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("failed to send status event, close the subscriber", e);
+            subscriber.closed = true;
+            subscriber.completed.set(true);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private synchronized void addPendingProcInst(ProcInstInfoDto procInst) {
+        publishedTransitions.incrementAndGet();
+        pendingEvents.computeIfAbsent(procInst.getId(), k -> new PendingStatusEvent()).procInst = procInst;
+    }
+
+    private synchronized void addPendingTaskNode(TaskNodeInstDto nodeInst) {
+        publishedTransitions.incrementAndGet();
+        pendingEvents.computeIfAbsent(nodeInst.getProcInstId(), k -> new PendingStatusEvent()).taskNodes
+                .put(nodeInst.getId(), nodeInst);
+    }
+
+    private SseEmitter newSubscriberEmitter() {
+        StatusStreamProperties properties = getProperties();
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            throw new WecubeCoreException("3319", "Too many subscribers of process instance status.");
+        }
+        return newEmitter(TimeUnit.SECONDS.toMillis(properties.getEmitterTimeoutSeconds()));
+    }
+
+    private void registerUnsubscriber(StatusSubscriber subscriber, Runnable unsubscriber) {
+        subscriber.unsubscriber = unsubscriber;
+        subscriber.emitter.onCompletion(unsubscriber);
+        subscriber.emitter.onTimeout(unsubscriber);
+        subscriber.emitter.onError(e -> unsubscriber.run());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private StatusStreamProperties getProperties() {
+        return statusStreamProperties == null ? defaultStatusStreamProperties : statusStreamProperties;
+    }
+
+    private static class StatusSubscriber {
+        private final SseEmitter emitter;
+        private final Queue<ProcInstInfoDto> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile Runnable unsubscriber;
+
+        StatusSubscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        boolean hasWork() {
+            return closed ? !completed.get() : !pending.isEmpty();
+        }
+    }
+
+    private static class PendingStatusEvent {
+        private ProcInstInfoDto procInst;
+        private final Map<Integer, TaskNodeInstDto> taskNodes = new LinkedHashMap<>();
+
+        ProcInstInfoDto toDto(Integer procInstId) {
+            ProcInstInfoDto dto = new ProcInstInfoDto();
+            if (procInst != null) {
+                dto.setProcInstKey(procInst.getProcInstKey());
+                dto.setProcInstName(procInst.getProcInstName());
+                dto.setProcDefId(procInst.getProcDefId());
+                dto.setOperator(procInst.getOperator());
+                dto.setStatus(procInst.getStatus());
+            }
+            dto.setId(procInstId);
+            dto.setTaskNodeInstances(new ArrayList<>(taskNodes.values()));
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.AuthorizationProperties;
+
+/**
+ * Caches the role ids granted to users and the process definitions the role
+ * sets could use, so that authorizing the frequent process instance queries
+ * does not go to the auth server and database every time. Entries expire
+ * shortly and are dropped whenever role grants or process role bindings
+ * change.
+ */
+@Service
+public class ProcessRoleAuthorizationCache {
+
+    @Autowired(required = false)
+    private AuthorizationProperties authorizationProperties;
+
+    private Cache<String, List<String>> userRoleIds;
+
+    private Cache<Set<String>, Set<String>> permittedProcDefIds;
+
+    @PostConstruct
+    public void init() {
+        AuthorizationProperties properties = authorizationProperties;
+        if (properties == null) {
+            properties = new ApplicationProperties().new AuthorizationProperties();
+        }
+        this.userRoleIds = CacheBuilder.newBuilder()
+                .expireAfterWrite(properties.getCacheTtlSeconds(), TimeUnit.SECONDS)
+                .maximumSize(properties.getCacheMaxSize()).build();
+        this.permittedProcDefIds = CacheBuilder.newBuilder()
+                .expireAfterWrite(properties.getCacheTtlSeconds(), TimeUnit.SECONDS)
+                .maximumSize(properties.getCacheMaxSize()).build();
+    }
+
+    public List<String> getRoleIds(String username, Supplier<List<String>> loader) {
+        if (username == null) {
+            return loader.get();
+        }
+        return get(userRoleIds, username, () -> Collections.unmodifiableList(new ArrayList<>(loader.get())));
+    }
+
+    public Set<String> getPermittedProcDefIds(List<String> roleIds, Supplier<List<String>> loader) {
+        return get(permittedProcDefIds, new HashSet<>(roleIds),
+                () -> Collections.unmodifiableSet(new HashSet<>(loader.get())));
+    }
+
+    /**
+     * Drops the cached role ids of all users, role grants are changed by user
+     * ids rather than usernames.
+     */
+    public void invalidateUserRoles() {
+        invalidateAfterCommit(userRoleIds);
+    }
+
+    public void invalidateProcRoleBindings() {
+        invalidateAfterCommit(permittedProcDefIds);
+    }
+
+    private <K, V> V get(Cache<K, V> cache, K key, Supplier<V> loader) {
+        try {
+            return cache.get(key, loader::get);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new UncheckedExecutionException(e.getCause());
+        }
+    }
+
+    private void invalidateAfterCommit(Cache<?, ?> cache) {
+        // also drop entries reloaded before the changes are committed
+        cache.invalidateAll();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                cache.invalidateAll();
+            }
+        });
+    }
+}
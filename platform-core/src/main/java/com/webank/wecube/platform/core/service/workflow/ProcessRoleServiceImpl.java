@@ -31,12 +31,15 @@ public class ProcessRoleServiceImpl implements ProcessRoleService {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private UserManagementServiceImpl userManagementService;
     private ProcRoleBindingRepository procRoleBindingRepository;
+    private ProcessRoleAuthorizationCache processRoleAuthorizationCache;
 
     @Autowired
     public ProcessRoleServiceImpl(UserManagementServiceImpl userManagementService,
-            ProcRoleBindingRepository procRoleBindingRepository) {
+            ProcRoleBindingRepository procRoleBindingRepository,
+            ProcessRoleAuthorizationCache processRoleAuthorizationCache) {
         this.userManagementService = userManagementService;
         this.procRoleBindingRepository = procRoleBindingRepository;
+        this.processRoleAuthorizationCache = processRoleAuthorizationCache;
     }
 
     public static ProcRoleBindingEntity.permissionEnum transferPermissionStrToEnum(String permissionStr)
@@ -154,6 +157,7 @@ public class ProcessRoleServiceImpl implements ProcessRoleService {
         for (String roleId : procRoleRequestDto.getRoleIdList()) {
             this.procRoleBindingRepository.deleteByProcIdAndRoleIdAndPermission(procId, roleId, permissionEnum);
         }
+        processRoleAuthorizationCache.invalidateProcRoleBindings();
     }
 
     public void checkPermission(String procId, ProcRoleBindingEntity.permissionEnum permissionEnum)
@@ -216,6 +220,7 @@ public class ProcessRoleServiceImpl implements ProcessRoleService {
             // get roleDto from auth server
             this.procRoleBindingRepository
                     .save(ProcRoleDto.toDomain(procId, roleId, permissionEnum, roleDto.getName()));
+            processRoleAuthorizationCache.invalidateProcRoleBindings();
         }
     }
 }
@@ -1,13 +1,16 @@
 package com.webank.wecube.platform.core.service.workflow;
 
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -324,6 +327,16 @@ public class WorkflowDataService {
 
     @Transactional
     public ProcessDataPreviewDto generateProcessDataPreview(String procDefId, String dataId) {
+        ProcDefOutlineDto procDefOutline = getProcessDataPreviewOutline(procDefId, dataId);
+
+        ProcessDataPreviewDto previewDto = doFetchProcessPreviewData(procDefOutline, dataId, true);
+        saveProcessDataPreview(previewDto);
+
+        return previewDto;
+
+    }
+
+    public ProcDefOutlineDto getProcessDataPreviewOutline(String procDefId, String dataId) {
         if (StringUtils.isBlank(procDefId) || StringUtils.isBlank(dataId)) {
             throw new WecubeCoreException("3189","Process definition ID or entity ID is not provided.");
         }
@@ -335,11 +348,65 @@ public class WorkflowDataService {
             throw new WecubeCoreException("3190",String.format("Such process definition {%s} does not exist.", procDefId), procDefId);
         }
 
-        ProcessDataPreviewDto previewDto = doFetchProcessPreviewData(procDefOutline, dataId, true);
-        saveProcessDataPreview(previewDto);
+        return procDefOutline;
+    }
 
-        return previewDto;
+    /**
+     * Streams the preview data of each sub process node level by level
+     * without keeping the whole graph in memory. Graph nodes only carry
+     * previous ids, and the same node may be emitted more than once when it
+     * is reached by several nodes or paths, in which case its previous ids
+     * should be merged. Nothing is saved as preview data is only browsed.
+     */
+    public void streamProcessDataPreview(ProcDefOutlineDto outline, String dataId,
+            Consumer<List<GraphNodeDto>> levelConsumer) {
+        for (FlowNodeDefDto f : outline.getFlowNodes()) {
+            if (!"subProcess".equals(f.getNodeType())) {
+                continue;
+            }
+
+            String routineExpr = calculateDataModelExpression(f);
+            if (StringUtils.isBlank(routineExpr)) {
+                log.info("the routine expression is blank for {} {}", f.getNodeDefId(), f.getNodeName());
+                continue;
+            }
+
+            EntityOperationRootCondition condition = new EntityOperationRootCondition(routineExpr, dataId);
+            try {
+                standardEntityOperationService.generatePreviewTree(condition, this.userJwtSsoTokenRestTemplate,
+                        treeNodes -> levelConsumer.accept(convertToGraphNodes(treeNodes)));
+            } catch (UncheckedIOException e) {
+                throw e;
+            } catch (Exception e) {
+                String errMsg = String.format("Errors while fetching data for node %s %s with expr %s and data id %s",
+                        f.getNodeDefId(), f.getNodeName(), routineExpr, dataId);
+                log.error(errMsg, e);
+                throw new WecubeCoreException("3191", errMsg, f.getNodeDefId(), f.getNodeName(), routineExpr, dataId);
+            }
+        }
+    }
+
+    private List<GraphNodeDto> convertToGraphNodes(List<TreeNode> treeNodes) {
+        Map<String, GraphNodeDto> graphNodes = new LinkedHashMap<>();
+        for (TreeNode tn : treeNodes) {
+            String treeNodeId = buildId(tn);
+            GraphNodeDto currNode = graphNodes.get(treeNodeId);
+            if (currNode == null) {
+                currNode = new GraphNodeDto();
+                currNode.setDataId(tn.getRootId().toString());
+                currNode.setPackageName(tn.getPackageName());
+                currNode.setEntityName(tn.getEntityName());
+                currNode.setDisplayName(tn.getDisplayName() == null ? null : tn.getDisplayName().toString());
+
+                graphNodes.put(treeNodeId, currNode);
+            }
+
+            if (tn.getParent() != null) {
+                currNode.addPreviousIds(buildId(tn.getParent()));
+            }
+        }
 
+        return new ArrayList<>(graphNodes.values());
     }
 
     private void saveProcessDataPreview(ProcessDataPreviewDto previewDto) {
@@ -9,6 +9,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.camunda.bpm.engine.HistoryService;
@@ -16,7 +17,6 @@ import org.camunda.bpm.engine.ManagementService;
 import org.camunda.bpm.engine.RepositoryService;
 import org.camunda.bpm.engine.RuntimeService;
 import org.camunda.bpm.engine.TaskService;
-import org.camunda.bpm.engine.history.HistoricActivityInstance;
 import org.camunda.bpm.engine.repository.DeploymentWithDefinitions;
 import org.camunda.bpm.engine.repository.ProcessDefinition;
 import org.camunda.bpm.engine.repository.ProcessDefinitionQuery;
@@ -34,6 +34,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.dto.workflow.ProcDefInfoDto;
 import com.webank.wecube.platform.core.dto.workflow.TaskNodeDefInfoDto;
@@ -73,6 +78,8 @@ public class WorkflowEngineService {
 
 	private static final String BPMN_SUFFIX = ".bpmn20.xml";
 
+	private static final int MAX_CACHED_PROC_DEF_OUTLINES = 500;
+
 	private String encoding = "UTF-8";
 
 	@Autowired
@@ -99,6 +106,13 @@ public class WorkflowEngineService {
 	private List<String> statelessNodeTypes = Arrays.asList("startEvent", "endEvent", "exclusiveGateway",
 			"parallelGateway");
 
+	/**
+	 * Deployed process definitions never change, so the flow graph of each
+	 * one is parsed only once.
+	 */
+	private final Cache<String, ProcDefOutline> procDefOutlines = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHED_PROC_DEF_OUTLINES).build();
+
 	public String getTaskNodeStatus(String procInstanceId, String nodeId) {
 		ServiceNodeStatusEntity nodeStatusEntity = serviceNodeStatusRepository
 				.findOneByProcInstanceIdAndNodeId(procInstanceId, nodeId);
@@ -267,49 +281,19 @@ public class WorkflowEngineService {
 			throw new WecubeCoreException("3194","Such process instance record does not exist.");
 		}
 
-		String processInstanceId = null;
-		String processDefinitionId = null;
-		if (TraceStatus.Completed.equals(procInstStatusEntity.getStatus())) {
-			processInstanceId = procInstStatusEntity.getProcInstanceId();
-			processDefinitionId = procInstStatusEntity.getProcDefinitionId();
-		} else {
-			ProcessInstance existProcInst = getProcessInstanceByProcInstId(procInstId);
-
-			if (existProcInst == null) {
-				log.warn("such process instance does not exist,procInstId={}", procInstId);
-				throw new WecubeCoreException("3195","Such process instance does not exist.");
-			}
-
-			processInstanceId = existProcInst.getId();
-			processDefinitionId = existProcInst.getProcessDefinitionId();
-		}
-
-		ProcessDefinition procDef = getProcessDefinitionByProcId(processDefinitionId);
-
-		if (procDef == null) {
-			log.warn("such process definition does not exist,procDefId={}", processDefinitionId);
-			throw new WecubeCoreException("3196","Such process definition does not exist.");
-		}
-
-		BpmnModelInstance bpmnModel = repositoryService.getBpmnModelInstance(procDef.getId());
-
-		Collection<org.camunda.bpm.model.bpmn.instance.Process> processes = bpmnModel
-				.getModelElementsByType(org.camunda.bpm.model.bpmn.instance.Process.class);
-
-		org.camunda.bpm.model.bpmn.instance.Process process = processes.iterator().next();
-
-		Collection<StartEvent> startEvents = process.getChildElementsByType(StartEvent.class);
-
-		StartEvent startEvent = startEvents.iterator().next();
+		ProcDefOutline procDefOutline = getCachedProcDefOutline(procInstStatusEntity.getProcDefinitionId());
 
 		ProcInstOutline result = new ProcInstOutline();
-		result.setId(processInstanceId);
+		result.setId(procInstStatusEntity.getProcInstanceId());
 		result.setProcInstKey(procInstStatusEntity.getProcInstanceBizKey());
-		result.setProcDefKernelId(procDef.getId());
-		result.setProcDefKey(procDef.getKey());
-		result.setProcDefName(procDef.getName());
+		result.setProcDefKernelId(procDefOutline.getId());
+		result.setProcDefKey(procDefOutline.getProcDefKey());
+		result.setProcDefName(procDefOutline.getProcDefName());
 
-		populateFlowNodeInsts(result, startEvent);
+		List<ServiceNodeStatusEntity> nodeStatusEntities = serviceNodeStatusRepository
+				.findAllByProcInstanceId(procInstStatusEntity.getProcInstanceId());
+
+		populateFlowNodeInsts(result, procDefOutline, nodeStatusEntities);
 		refreshFlowNodeStatus(result);
 
 		return result;
@@ -325,21 +309,6 @@ public class WorkflowEngineService {
 
 			String nodeStatus = tryCalculateStatelessNodeStatus(outline, n);
 
-			if (nodeStatus == null) {
-				Collection<HistoricActivityInstance> activities = historyService.createHistoricActivityInstanceQuery()
-						.processDefinitionId(outline.getProcDefKernelId()).processInstanceId(outline.getId())
-						.activityId(n.getId()).finished().list();
-				HistoricActivityInstance activity = null;
-
-				if (activities.size() > 0) {
-					activity = activities.iterator().next();
-				}
-
-				if (activity != null) {
-					nodeStatus = TraceStatus.Completed.name();
-				}
-			}
-
 			if (nodeStatus != null) {
 				n.setStatus(nodeStatus);
 			}
@@ -457,44 +426,57 @@ public class WorkflowEngineService {
 		return nodeStatus;
 	}
 
-	protected void populateFlowNodeInsts(ProcInstOutline outline, FlowNode flowNode) {
-		ProcFlowNodeInst pfn = outline.findProcFlowNodeInstByNodeId(flowNode.getId());
-		if (pfn == null) {
-			pfn = new ProcFlowNodeInst();
-			pfn.setId(flowNode.getId());
-			pfn.setNodeType(flowNode.getElementType().getTypeName());
-			pfn.setNodeName(flowNode.getName() == null ? "" : flowNode.getName());
-			outline.addNodeInsts(pfn);
+	/**
+	 * Copies the cached flow graph of the definition and applies the node
+	 * status kept up to date by the service node listeners.
+	 */
+	protected void populateFlowNodeInsts(ProcInstOutline outline, ProcDefOutline procDefOutline,
+			List<ServiceNodeStatusEntity> nodeStatusEntities) {
+		Map<String, ServiceNodeStatusEntity> nodeStatuses = new HashMap<>();
+		for (ServiceNodeStatusEntity nodeStatus : nodeStatusEntities) {
+			nodeStatuses.put(nodeStatus.getNodeId(), nodeStatus);
 		}
 
-		ServiceNodeStatusEntity nodeStatus = serviceNodeStatusRepository
-				.findOneByProcInstanceIdAndNodeId(outline.getId(), pfn.getId());
-
-		if (nodeStatus != null) {
-			pfn.setStartTime(nodeStatus.getStartTime());
-			pfn.setEndTime(nodeStatus.getEndTime());
-			pfn.setStatus(nodeStatus.getStatus().name());
-		}
+		Map<String, ProcFlowNodeInst> nodeInsts = new HashMap<>();
+		for (ProcFlowNode flowNode : procDefOutline.getFlowNodes()) {
+			ProcFlowNodeInst pfn = new ProcFlowNodeInst();
+			pfn.setId(flowNode.getId());
+			pfn.setNodeType(flowNode.getNodeType());
+			pfn.setNodeName(flowNode.getNodeName());
 
-		for (FlowNode fn : flowNode.getSucceedingNodes().list()) {
-			ProcFlowNodeInst childPfn = outline.findProcFlowNodeInstByNodeId(fn.getId());
-			boolean needPopulateChild = false;
-			if (childPfn == null) {
-				childPfn = new ProcFlowNodeInst();
-				childPfn.setId(fn.getId());
-				childPfn.setNodeType(fn.getElementType().getTypeName());
-				childPfn.setNodeName(fn.getName() == null ? "" : fn.getName());
-				outline.addNodeInsts(childPfn);
-				needPopulateChild = true;
+			ServiceNodeStatusEntity nodeStatus = nodeStatuses.get(flowNode.getId());
+			if (nodeStatus != null) {
+				pfn.setStartTime(nodeStatus.getStartTime());
+				pfn.setEndTime(nodeStatus.getEndTime());
+				pfn.setStatus(nodeStatus.getStatus() == null ? null : nodeStatus.getStatus().name());
 			}
 
-			pfn.addSucceedingFlowNodes(childPfn);
+			outline.getNodeInsts().add(pfn);
+			nodeInsts.put(pfn.getId(), pfn);
+		}
 
-			if (needPopulateChild) {
-				populateFlowNodeInsts(outline, fn);
+		for (ProcFlowNode flowNode : procDefOutline.getFlowNodes()) {
+			ProcFlowNodeInst pfn = nodeInsts.get(flowNode.getId());
+			for (ProcFlowNode child : flowNode.getSucceedingFlowNodes()) {
+				pfn.addSucceedingFlowNodes(nodeInsts.get(child.getId()));
 			}
 		}
+	}
 
+	protected ProcDefOutline getCachedProcDefOutline(String processDefinitionId) {
+		try {
+			return procDefOutlines.get(processDefinitionId, () -> {
+				ProcessDefinition procDef = getProcessDefinitionByProcId(processDefinitionId);
+				if (procDef == null) {
+					log.warn("such process definition does not exist,procDefId={}", processDefinitionId);
+					throw new WecubeCoreException("3196", "Such process definition does not exist.");
+				}
+				return getProcDefOutline(procDef);
+			});
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			Throwables.throwIfUnchecked(e.getCause());
+			throw new UncheckedExecutionException(e.getCause());
+		}
 	}
 
 	protected ProcessInstance getProcessInstanceByProcInstId(String processInstanceId) {
@@ -1,5 +1,7 @@
 package com.webank.wecube.platform.core.service.workflow;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.*;
 
 import javax.persistence.EntityManager;
@@ -13,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
@@ -35,6 +38,15 @@ import com.webank.wecube.platform.workflow.model.ProcInstOutline;
 public class WorkflowProcInstService extends AbstractWorkflowService {
     private static final Logger log = LoggerFactory.getLogger(WorkflowProcInstService.class);
 
+    private static final int DEF_PROC_INST_PAGE_SIZE = 20;
+    private static final int MAX_PROC_INST_PAGE_SIZE = 500;
+    private static final int MAX_COUNTED_PROC_INSTS = 10000;
+
+    private static final String PROC_INST_QUERY_FROM = " from core_ru_proc_inst_info t1 "
+            + " left join core_ru_proc_exec_binding t2 on t1.id = t2.proc_inst_id and t2.bind_type = 'process' "
+            + " where t1.proc_def_id in (select t3.proc_id from core_ru_proc_role_binding t3 "
+            + " where t3.role_name in (:roleNames) and t3.permission = 'USE') ";
+
     @Autowired
     private ProcDefInfoRepository processDefInfoRepository;
 
@@ -65,6 +77,9 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
     @Autowired
     private ProcRoleBindingRepository procRoleBindingRepository;
 
+    @Autowired
+    private ProcessRoleAuthorizationCache processRoleAuthorizationCache;
+
     @Autowired
     private ProcExecBindingTmpRepository procExecBindingTmpRepository;
 
@@ -74,6 +89,12 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private ProcInstInfoCorrelationRegistry procInstInfoCorrelationRegistry;
+
+    @Autowired
+    private ProcInstStatusStreamService procInstStatusStreamService;
+
     public List<TaskNodeDefObjectBindInfoDto> getProcessInstanceExecBindings(Integer procInstId) {
         Optional<ProcInstInfoEntity> procInstEntityOpt = procInstInfoRepository.findById(procInstId);
         if (!procInstEntityOpt.isPresent()) {
@@ -168,6 +189,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
                 nodeInst.setUpdatedTime(new Date());
                 nodeInst.setStatus(nodeStatus);
                 taskNodeInstInfoRepository.saveAndFlush(nodeInst);
+                procInstStatusStreamService.publishTaskNodeStatus(nodeInst);
             }
         }
     }
@@ -188,6 +210,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
                 nie.setStatus(nodeStatus);
                 nie.setUpdatedTime(currTime);
                 taskNodeInstInfoRepository.saveAndFlush(nie);
+                procInstStatusStreamService.publishTaskNodeStatus(nie);
             }
         }
     }
@@ -223,25 +246,143 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
         }
 
         for (Object obj : procInstInfoQueryEntities) {
-            ProcInstInfoQueryEntity e = (ProcInstInfoQueryEntity) obj;
-            ProcInstInfoDto d = new ProcInstInfoDto();
-            d.setCreatedTime(formatDate(e.getCreatedTime()));
-            d.setId(e.getId());
-            d.setOperator(e.getOperator());
-            d.setProcDefId(e.getProcDefId());
-            d.setProcInstKey(e.getProcInstKey());
-            d.setStatus(e.getStatus());
-            d.setProcInstName(e.getProcDefName());
-            d.setProcInstKey(e.getProcInstKey());
+            results.add(toProcInstInfoDto((ProcInstInfoQueryEntity) obj));
+        }
 
-            d.setEntityDataId(e.getEntityDataId());
-            d.setEntityTypeId(e.getEntityTypeId());
-            d.setEntityDisplayName(e.getEntityDataName() == null ? e.getEntityDataId() : e.getEntityDataName());
+        return results;
+    }
+
+    /**
+     * Lists process instances visible to the current user's roles page by
+     * page, newest first. The next page starts after the last id of the
+     * previous one, so the cost of a page does not grow with its depth.
+     * Total rows are only counted for the first page and up to
+     * MAX_COUNTED_PROC_INSTS.
+     */
+    public ProcInstInfoPageDto queryProcessInstances(ProcInstQueryRequestDto queryDto) {
+        ProcInstQueryRequestDto query = (queryDto == null ? new ProcInstQueryRequestDto() : queryDto);
+        ProcInstInfoPageDto result = new ProcInstInfoPageDto();
 
-            results.add(d);
+        Set<String> logUserRoleNames = AuthenticationContextHolder.getCurrentUserRoles();
+        if (logUserRoleNames == null || logUserRoleNames.isEmpty()) {
+            result.setTotalRows(0);
+            result.setTotalRowsExact(true);
+            return result;
         }
 
-        return results;
+        int pageSize = DEF_PROC_INST_PAGE_SIZE;
+        if (query.getPageSize() != null && query.getPageSize() > 0) {
+            pageSize = Math.min(query.getPageSize(), MAX_PROC_INST_PAGE_SIZE);
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("roleNames", new ArrayList<>(logUserRoleNames));
+        String conditions = buildProcInstQueryConditions(query, params);
+
+        StringBuilder sql = new StringBuilder();
+        sql.append("select t1.id,t1.created_time,t1.oper,t1.status,t1.proc_inst_key,t1.proc_def_name,t1.proc_def_id,")
+                .append("t2.entity_data_id,t2.entity_type_id,t2.entity_data_name ").append(PROC_INST_QUERY_FROM)
+                .append(conditions);
+        if (query.getLastId() != null) {
+            sql.append(" and t1.id < :lastId ");
+        }
+        sql.append(" order by t1.id desc");
+
+        Query pageQuery = entityManager.createNativeQuery(sql.toString(), ProcInstInfoQueryEntity.class)
+                .setMaxResults(pageSize + 1);
+        params.forEach(pageQuery::setParameter);
+        if (query.getLastId() != null) {
+            pageQuery.setParameter("lastId", query.getLastId());
+        }
+        List<?> procInstInfoQueryEntities = pageQuery.getResultList();
+
+        for (int i = 0; i < procInstInfoQueryEntities.size() && i < pageSize; i++) {
+            result.getContents().add(toProcInstInfoDto((ProcInstInfoQueryEntity) procInstInfoQueryEntities.get(i)));
+        }
+        result.setHasMore(procInstInfoQueryEntities.size() > pageSize);
+        if (!result.getContents().isEmpty()) {
+            result.setLastId(result.getContents().get(result.getContents().size() - 1).getId());
+        }
+
+        if (query.getLastId() != null) {
+            return result;
+        }
+
+        if (!result.isHasMore()) {
+            result.setTotalRows(result.getContents().size());
+            result.setTotalRowsExact(true);
+            return result;
+        }
+
+        String countSql = "select count(1) from (select t1.id " + PROC_INST_QUERY_FROM + conditions + " limit "
+                + (MAX_COUNTED_PROC_INSTS + 1) + ") c";
+        Query countQuery = entityManager.createNativeQuery(countSql);
+        params.forEach(countQuery::setParameter);
+        int totalRows = ((Number) countQuery.getSingleResult()).intValue();
+        result.setTotalRows(Math.min(totalRows, MAX_COUNTED_PROC_INSTS));
+        result.setTotalRowsExact(totalRows <= MAX_COUNTED_PROC_INSTS);
+
+        return result;
+    }
+
+    private String buildProcInstQueryConditions(ProcInstQueryRequestDto query, Map<String, Object> params) {
+        StringBuilder conditions = new StringBuilder();
+        if (StringUtils.isNotBlank(query.getStatus())) {
+            conditions.append(" and t1.status = :status ");
+            params.put("status", query.getStatus());
+        }
+        if (StringUtils.isNotBlank(query.getProcDefId())) {
+            conditions.append(" and t1.proc_def_id = :procDefId ");
+            params.put("procDefId", query.getProcDefId());
+        }
+        if (StringUtils.isNotBlank(query.getOperator())) {
+            conditions.append(" and t1.oper = :operator ");
+            params.put("operator", query.getOperator());
+        }
+        if (StringUtils.isNotBlank(query.getStartTime())) {
+            conditions.append(" and t1.created_time >= :startTime ");
+            params.put("startTime", parseProcInstQueryTime(query.getStartTime()));
+        }
+        if (StringUtils.isNotBlank(query.getEndTime())) {
+            conditions.append(" and t1.created_time <= :endTime ");
+            params.put("endTime", parseProcInstQueryTime(query.getEndTime()));
+        }
+        if (StringUtils.isNotBlank(query.getEntityTypeId())) {
+            conditions.append(" and t2.entity_type_id = :entityTypeId ");
+            params.put("entityTypeId", query.getEntityTypeId());
+        }
+        if (StringUtils.isNotBlank(query.getEntityDataId())) {
+            conditions.append(" and t2.entity_data_id = :entityDataId ");
+            params.put("entityDataId", query.getEntityDataId());
+        }
+        return conditions.toString();
+    }
+
+    private Date parseProcInstQueryTime(String time) {
+        try {
+            return new SimpleDateFormat(PROC_DATETIME_PATTERN).parse(time);
+        } catch (ParseException e) {
+            throw new WecubeCoreException("3320",
+                    String.format("Invalid datetime %s, expected pattern %s.", time, PROC_DATETIME_PATTERN), time,
+                    PROC_DATETIME_PATTERN);
+        }
+    }
+
+    private ProcInstInfoDto toProcInstInfoDto(ProcInstInfoQueryEntity e) {
+        ProcInstInfoDto d = new ProcInstInfoDto();
+        d.setCreatedTime(formatDate(e.getCreatedTime()));
+        d.setId(e.getId());
+        d.setOperator(e.getOperator());
+        d.setProcDefId(e.getProcDefId());
+        d.setProcInstKey(e.getProcInstKey());
+        d.setStatus(e.getStatus());
+        d.setProcInstName(e.getProcDefName());
+        d.setProcInstKey(e.getProcInstKey());
+
+        d.setEntityDataId(e.getEntityDataId());
+        d.setEntityTypeId(e.getEntityTypeId());
+        d.setEntityDisplayName(e.getEntityDataName() == null ? e.getEntityDataId() : e.getEntityDataName());
+        return d;
     }
 
     public ProcInstOutlineDto getProcessInstanceOutline(Integer id) {
@@ -274,12 +415,19 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
 
         List<TaskNodeInstInfoEntity> nodeInstEntities = taskNodeInstInfoRepository
                 .findAllByProcInstId(procInstEntity.getId());
+        List<TaskNodeInstInfoEntity> changedNodeInstEntities = new ArrayList<>();
         for (TaskNodeInstInfoEntity nodeInstEntity : nodeInstEntities) {
             ProcFlowNodeInst pfni = procInstOutline.findProcFlowNodeInstByNodeId(nodeInstEntity.getNodeId());
             if (pfni != null && (pfni.getStatus() != null) && (!pfni.getStatus().equals(nodeInstEntity.getStatus()))) {
                 nodeInstEntity.setStatus(pfni.getStatus());
                 nodeInstEntity.setUpdatedTime(new Date());
-                taskNodeInstInfoRepository.saveAndFlush(nodeInstEntity);
+                changedNodeInstEntities.add(nodeInstEntity);
+            }
+        }
+        if (!changedNodeInstEntities.isEmpty()) {
+            taskNodeInstInfoRepository.saveAll(changedNodeInstEntities);
+            for (TaskNodeInstInfoEntity nodeInstEntity : changedNodeInstEntities) {
+                procInstStatusStreamService.publishTaskNodeStatus(nodeInstEntity);
             }
         }
 
@@ -304,13 +452,10 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
         result.setStatus(procInstEntity.getStatus());
         result.setCreatedTime(formatDate(procInstEntity.getCreatedTime()));
 
-        List<TaskNodeInstInfoEntity> nodeEntities = taskNodeInstInfoRepository
-                .findAllByProcInstId(procInstEntity.getId());
-
         List<TaskNodeDefInfoEntity> nodeDefEntities = taskNodeDefInfoRepository
                 .findAllByProcDefId(procInstEntity.getProcDefId());
 
-        for (TaskNodeInstInfoEntity n : nodeEntities) {
+        for (TaskNodeInstInfoEntity n : nodeInstEntities) {
             TaskNodeDefInfoEntity nodeDef = findTaskNodeDefInfoEntityByNodeDefId(nodeDefEntities, n.getNodeDefId());
             TaskNodeInstDto nd = new TaskNodeInstDto();
             nd.setId(n.getId());
@@ -338,22 +483,44 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
         return result;
     }
 
+    public SseEmitter subscribeProcessInstanceStatus(Integer id) {
+        Optional<ProcInstInfoEntity> procInstEntityOpt = procInstInfoRepository.findById(id);
+        if (!procInstEntityOpt.isPresent()) {
+            throw new WecubeCoreException("3142", String.format("Such entity with id [%s] does not exist.", id), id);
+        }
+
+        this.checkCurrentUserRole(procInstEntityOpt.get().getProcDefId());
+
+        return procInstStatusStreamService.subscribeProcInst(id);
+    }
+
+    public SseEmitter subscribeProcessInstancesStatus() {
+        return procInstStatusStreamService.subscribeProcInstList(getPermittedProcDefIdsOfCurrentUser());
+    }
+
     public void checkCurrentUserRole(String procDefId) {
-        List<String> roleIdList = this.userManagementService
-                .getRoleIdsByUsername(AuthenticationContextHolder.getCurrentUsername());
+        Set<String> procDefIds = getPermittedProcDefIdsOfCurrentUser();
+        if (!procDefIds.contains(procDefId)) {
+            throw new WecubeCoreException("3146", "No access to this resource.");
+        }
+
+    }
+
+    private Set<String> getPermittedProcDefIdsOfCurrentUser() {
+        String currentUsername = AuthenticationContextHolder.getCurrentUsername();
+        List<String> roleIdList = processRoleAuthorizationCache.getRoleIds(currentUsername,
+                () -> this.userManagementService.getRoleIdsByUsername(currentUsername));
         if (roleIdList.size() == 0) {
             throw new WecubeCoreException("3144", "No access to this resource.");
         }
 
-        List<String> procDefIds = procRoleBindingRepository.findDistinctProcIdByRoleIdsAndPermissionIsUse(roleIdList);
+        Set<String> procDefIds = processRoleAuthorizationCache.getPermittedProcDefIds(roleIdList,
+                () -> procRoleBindingRepository.findDistinctProcIdByRoleIdsAndPermissionIsUse(roleIdList));
         if (procDefIds.size() == 0) {
             throw new WecubeCoreException("3145", "No access to this resource.");
         }
 
-        if (!procDefIds.contains(procDefId)) {
-            throw new WecubeCoreException("3146", "No access to this resource.");
-        }
-
+        return procDefIds;
     }
 
     private String reduceTaskNodeName(TaskNodeInstInfoEntity nodeInstEntity) {
@@ -441,6 +608,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
         procInstInfoEntity.setProcInstKey(procInstKey);
 
         procInstInfoRepository.saveAndFlush(procInstInfoEntity);
+        procInstStatusStreamService.publishProcInstStatus(procInstInfoEntity);
 
         ProcExecBindingEntity procInstBindEntity = new ProcExecBindingEntity();
         procInstBindEntity.setBindType(ProcExecBindingEntity.BIND_TYPE_PROC_INSTANCE);
@@ -579,6 +747,8 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
         procEntity.setStatus(ProcInstInfoEntity.IN_PROGRESS_STATUS);
 
         procInstInfoRepository.saveAndFlush(procEntity);
+        procInstInfoCorrelationRegistry.bind(processInstance.getId(), procEntity.getId());
+        procInstStatusStreamService.publishProcInstStatus(procEntity);
 
         String entityTypeId = null;
         String entityDataId = null;
@@ -609,6 +779,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
                 n.setUpdatedTime(now);
                 n.setStatus(TaskNodeInstInfoEntity.COMPLETED_STATUS);
                 taskNodeInstInfoRepository.saveAndFlush(n);
+                procInstStatusStreamService.publishTaskNodeStatus(n);
             }
         }
 
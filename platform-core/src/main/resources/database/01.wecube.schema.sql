@@ -272,7 +272,8 @@ CREATE TABLE `core_ru_proc_role_binding` (
     `proc_id`      VARCHAR(255) NOT NULL,
     `role_id` VARCHAR(512)       NOT NULL,
     `role_name` VARCHAR(255)     NOT NULL,
-    `permission` VARCHAR(255) NOT NULL
+    `permission` VARCHAR(255) NOT NULL,
+    KEY `proc_role_binding_role_name` (`role_name`, `permission`, `proc_id`)
 ) ENGINE=InnoDB  DEFAULT CHARSET=utf8;
 
 drop table if exists batch_execution_jobs;
@@ -281,7 +282,10 @@ CREATE TABLE `batch_execution_jobs` (
     `create_timestamp` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     `complete_timestamp` TIMESTAMP NULL DEFAULT NULL,
     `creator` VARCHAR(255) NULL DEFAULT NULL,
-    PRIMARY KEY (`id`)
+    `owner_node` VARCHAR(255) NULL DEFAULT NULL,
+    `lease_expire_timestamp` TIMESTAMP NULL DEFAULT NULL,
+    PRIMARY KEY (`id`),
+    KEY `batch_execution_jobs_lease` (`complete_timestamp`, `lease_expire_timestamp`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 ;
 
 drop table if exists execution_jobs;
@@ -1076,7 +1076,8 @@ CREATE TABLE IF NOT EXISTS `act_ru_procinst_status` (
   `proc_def_name` varchar(255) DEFAULT NULL,
   `proc_inst_key` varchar(255) DEFAULT NULL,
   `proc_inst_id` varchar(255) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `procinst_status_proc_inst` (`proc_inst_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 DROP TABLE IF EXISTS `act_ru_srvnode_status`;
@@ -1096,7 +1097,28 @@ CREATE TABLE IF NOT EXISTS `act_ru_srvnode_status` (
   `proc_inst_key` varchar(255) DEFAULT NULL,
   `proc_inst_id` varchar(255) DEFAULT NULL,
   `try_times` int(11) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `srvnode_status_proc_inst` (`proc_inst_id`, `node_id`),
+  KEY `srvnode_status_proc_inst_key` (`proc_inst_key`, `node_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+DROP TABLE IF EXISTS `act_ru_srv_event_outbox`;
+CREATE TABLE IF NOT EXISTS `act_ru_srv_event_outbox` (
+  `id` varchar(255) NOT NULL,
+  `event_type` varchar(64) DEFAULT NULL,
+  `proc_inst_id` varchar(255) DEFAULT NULL,
+  `proc_inst_key` varchar(255) DEFAULT NULL,
+  `event_source_id` varchar(255) DEFAULT NULL,
+  `event_data` text,
+  `status` varchar(32) DEFAULT NULL,
+  `retry_times` int(11) DEFAULT NULL,
+  `next_retry_time` datetime DEFAULT NULL,
+  `owner_node` varchar(255) DEFAULT NULL,
+  `lease_expire_time` datetime DEFAULT NULL,
+  `created_time` datetime DEFAULT NULL,
+  `updated_time` datetime DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `srv_event_outbox_status` (`status`, `lease_expire_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 DROP TABLE IF EXISTS `act_ru_task`;
@@ -1310,7 +1332,9 @@ CREATE TABLE IF NOT EXISTS `core_ru_proc_exec_binding` (
   `entity_data_id` varchar(255) DEFAULT NULL,
   `entity_type_id` varchar(255) DEFAULT NULL,
   `entity_data_name` varchar(255) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `proc_exec_binding_proc_inst` (`proc_inst_id`, `bind_type`),
+  KEY `proc_exec_binding_entity_data` (`entity_data_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 DROP TABLE IF EXISTS `core_ru_proc_exec_binding_tmp`;
@@ -1348,7 +1372,10 @@ CREATE TABLE IF NOT EXISTS `core_ru_proc_inst_info` (
   `proc_def_name` varchar(255) DEFAULT NULL,
   `proc_inst_kernel_id` varchar(255) DEFAULT NULL,
   `proc_inst_key` varchar(255) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `proc_inst_info_proc_def_status` (`proc_def_id`, `status`),
+  KEY `proc_inst_info_oper` (`oper`),
+  KEY `proc_inst_info_created_time` (`created_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 DROP TABLE IF EXISTS `core_ru_proc_role_binding`;
@@ -1358,7 +1385,8 @@ CREATE TABLE IF NOT EXISTS `core_ru_proc_role_binding` (
   `role_id` varchar(64) NOT NULL,
   `role_name` varchar(64) NOT NULL,
   `permission` varchar(255) NOT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `proc_role_binding_role_name` (`role_name`, `permission`, `proc_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 DROP TABLE IF EXISTS `core_ru_task_node_exec_param`;
@@ -272,7 +272,8 @@ CREATE TABLE `core_ru_proc_role_binding` (
     `proc_id`      VARCHAR(255) NOT NULL,
     `role_id` VARCHAR(512)       NOT NULL,
     `role_name` VARCHAR(255)     NOT NULL,
-    `permission` VARCHAR(255) NOT NULL
+    `permission` VARCHAR(255) NOT NULL,
+    KEY `proc_role_binding_role_name` (`role_name`, `permission`, `proc_id`)
 ) ENGINE=InnoDB  DEFAULT CHARSET=utf8;
 
 
@@ -281,7 +282,10 @@ CREATE TABLE `batch_execution_jobs` (
     `create_timestamp` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     `complete_timestamp` TIMESTAMP NULL DEFAULT NULL,
     `creator` VARCHAR(255) NULL DEFAULT NULL,
-    PRIMARY KEY (`id`)
+    `owner_node` VARCHAR(255) NULL DEFAULT NULL,
+    `lease_expire_timestamp` TIMESTAMP NULL DEFAULT NULL,
+    PRIMARY KEY (`id`),
+    KEY `batch_execution_jobs_lease` (`complete_timestamp`, `lease_expire_timestamp`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 ;
 
 
@@ -1431,7 +1435,8 @@ CREATE TABLE IF NOT EXISTS `act_ru_procinst_status` (
   `proc_def_name` varchar(255) DEFAULT NULL,
   `proc_inst_key` varchar(255) DEFAULT NULL,
   `proc_inst_id` varchar(255) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `procinst_status_proc_inst` (`proc_inst_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 
@@ -1451,7 +1456,27 @@ CREATE TABLE IF NOT EXISTS `act_ru_srvnode_status` (
   `proc_inst_key` varchar(255) DEFAULT NULL,
   `proc_inst_id` varchar(255) DEFAULT NULL,
   `try_times` int(11) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `srvnode_status_proc_inst` (`proc_inst_id`, `node_id`),
+  KEY `srvnode_status_proc_inst_key` (`proc_inst_key`, `node_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS `act_ru_srv_event_outbox` (
+  `id` varchar(255) NOT NULL,
+  `event_type` varchar(64) DEFAULT NULL,
+  `proc_inst_id` varchar(255) DEFAULT NULL,
+  `proc_inst_key` varchar(255) DEFAULT NULL,
+  `event_source_id` varchar(255) DEFAULT NULL,
+  `event_data` text,
+  `status` varchar(32) DEFAULT NULL,
+  `retry_times` int(11) DEFAULT NULL,
+  `next_retry_time` datetime DEFAULT NULL,
+  `owner_node` varchar(255) DEFAULT NULL,
+  `lease_expire_time` datetime DEFAULT NULL,
+  `created_time` datetime DEFAULT NULL,
+  `updated_time` datetime DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `srv_event_outbox_status` (`status`, `lease_expire_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 
@@ -1665,7 +1690,9 @@ CREATE TABLE IF NOT EXISTS `core_ru_proc_exec_binding` (
   `entity_data_id` varchar(255) DEFAULT NULL,
   `entity_type_id` varchar(255) DEFAULT NULL,
   `entity_data_name` varchar(255) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `proc_exec_binding_proc_inst` (`proc_inst_id`, `bind_type`),
+  KEY `proc_exec_binding_entity_data` (`entity_data_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 
@@ -1703,7 +1730,10 @@ CREATE TABLE IF NOT EXISTS `core_ru_proc_inst_info` (
   `proc_def_name` varchar(255) DEFAULT NULL,
   `proc_inst_kernel_id` varchar(255) DEFAULT NULL,
   `proc_inst_key` varchar(255) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `proc_inst_info_proc_def_status` (`proc_def_id`, `status`),
+  KEY `proc_inst_info_oper` (`oper`),
+  KEY `proc_inst_info_created_time` (`created_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 
@@ -1713,7 +1743,8 @@ CREATE TABLE IF NOT EXISTS `core_ru_proc_role_binding` (
   `role_id` varchar(64) NOT NULL,
   `role_name` varchar(64) NOT NULL,
   `permission` varchar(255) NOT NULL,
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `proc_role_binding_role_name` (`role_name`, `permission`, `proc_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
 
@@ -75,6 +75,7 @@ DROP TABLE IF EXISTS act_ru_jobdef;
 DROP TABLE IF EXISTS act_ru_meter_log;
 DROP TABLE IF EXISTS act_ru_procinst_status;
 DROP TABLE IF EXISTS act_ru_srvnode_status;
+DROP TABLE IF EXISTS act_ru_srv_event_outbox;
 DROP TABLE IF EXISTS act_ru_task;
 DROP TABLE IF EXISTS act_ru_variable;
 DROP TABLE IF EXISTS core_operation_event;
@@ -8,3 +8,36 @@ delete from system_variables where id = 'system__global__HTTPS_PROXY';
 
 INSERT INTO `system_variables` (`id`,`package_name`, `name`, `value`, `default_value`, `scope`, `source`, `status`) VALUES ('system__global__HTTP_PROXY', NULL, 'HTTP_PROXY', NULL, '', 'global', 'system', 'active');
 INSERT INTO `system_variables` (`id`,`package_name`, `name`, `value`, `default_value`, `scope`, `source`, `status`) VALUES ('system__global__HTTPS_PROXY', NULL, 'HTTPS_PROXY', NULL, '', 'global', 'system', 'active');
+
+CREATE TABLE IF NOT EXISTS `act_ru_srv_event_outbox` (
+  `id` varchar(255) NOT NULL,
+  `event_type` varchar(64) DEFAULT NULL,
+  `proc_inst_id` varchar(255) DEFAULT NULL,
+  `proc_inst_key` varchar(255) DEFAULT NULL,
+  `event_source_id` varchar(255) DEFAULT NULL,
+  `event_data` text,
+  `status` varchar(32) DEFAULT NULL,
+  `retry_times` int(11) DEFAULT NULL,
+  `next_retry_time` datetime DEFAULT NULL,
+  `owner_node` varchar(255) DEFAULT NULL,
+  `lease_expire_time` datetime DEFAULT NULL,
+  `created_time` datetime DEFAULT NULL,
+  `updated_time` datetime DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `srv_event_outbox_status` (`status`, `lease_expire_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+ALTER TABLE `act_ru_procinst_status` ADD INDEX `procinst_status_proc_inst` (`proc_inst_id`);
+ALTER TABLE `act_ru_srvnode_status` ADD INDEX `srvnode_status_proc_inst` (`proc_inst_id`, `node_id`);
+ALTER TABLE `act_ru_srvnode_status` ADD INDEX `srvnode_status_proc_inst_key` (`proc_inst_key`, `node_id`);
+
+ALTER TABLE `core_ru_proc_inst_info` ADD INDEX `proc_inst_info_proc_def_status` (`proc_def_id`, `status`);
+ALTER TABLE `core_ru_proc_inst_info` ADD INDEX `proc_inst_info_oper` (`oper`);
+ALTER TABLE `core_ru_proc_inst_info` ADD INDEX `proc_inst_info_created_time` (`created_time`);
+ALTER TABLE `core_ru_proc_exec_binding` ADD INDEX `proc_exec_binding_proc_inst` (`proc_inst_id`, `bind_type`);
+ALTER TABLE `core_ru_proc_exec_binding` ADD INDEX `proc_exec_binding_entity_data` (`entity_data_id`);
+ALTER TABLE `core_ru_proc_role_binding` ADD INDEX `proc_role_binding_role_name` (`role_name`, `permission`, `proc_id`);
+
+ALTER TABLE `batch_execution_jobs` ADD COLUMN `owner_node` VARCHAR(255) NULL DEFAULT NULL;
+ALTER TABLE `batch_execution_jobs` ADD COLUMN `lease_expire_timestamp` TIMESTAMP NULL DEFAULT NULL;
+ALTER TABLE `batch_execution_jobs` ADD INDEX `batch_execution_jobs_lease` (`complete_timestamp`, `lease_expire_timestamp`);
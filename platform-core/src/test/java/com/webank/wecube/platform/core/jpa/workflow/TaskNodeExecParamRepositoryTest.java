@@ -0,0 +1,45 @@
+package com.webank.wecube.platform.core.jpa.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
+
+public class TaskNodeExecParamRepositoryTest extends DatabaseBasedTest {
+
+    @Autowired
+    private TaskNodeExecParamRepository taskNodeExecParamRepository;
+
+    @Test
+    public void batchInsertShouldPersistAllParamsWithGeneratedIds() {
+        String requestId = "batch-insert-request";
+        List<TaskNodeExecParamEntity> paramEntities = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            TaskNodeExecParamEntity paramEntity = new TaskNodeExecParamEntity();
+            paramEntity.setRequestId(requestId);
+            paramEntity.setObjectId(String.valueOf(i));
+            paramEntity.setParamType(TaskNodeExecParamEntity.PARAM_TYPE_REQUEST);
+            paramEntity.setParamName("name");
+            paramEntity.setParamDataType(TaskNodeExecParamEntity.PARAM_DATA_TYPE_STRING);
+            paramEntity.setParamDataValue("value-" + i);
+            paramEntity.setSensitive(i == 0);
+            paramEntities.add(paramEntity);
+        }
+
+        taskNodeExecParamRepository.batchInsert(paramEntities);
+
+        assertThat(paramEntities).allMatch(p -> p.getId() != null);
+        List<TaskNodeExecParamEntity> savedEntities = taskNodeExecParamRepository
+                .findAllByRequestIdAndParamType(requestId, TaskNodeExecParamEntity.PARAM_TYPE_REQUEST);
+        assertThat(savedEntities).hasSize(3);
+        assertThat(savedEntities).extracting(TaskNodeExecParamEntity::getParamDataValue)
+                .containsExactlyInAnyOrder("value-0", "value-1", "value-2");
+        assertThat(savedEntities).filteredOn(TaskNodeExecParamEntity::getSensitive).hasSize(1);
+    }
+}
@@ -0,0 +1,136 @@
+package com.webank.wecube.platform.core.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.webank.wecube.platform.core.domain.BatchExecutionJob;
+import com.webank.wecube.platform.core.domain.ExecutionJob;
+import com.webank.wecube.platform.core.service.workflow.PluginInvocationScheduler;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchExecutionJobSchedulerMockTest {
+    private static final long VERIFY_TIMEOUT_MILLIS = 5000;
+
+    @Mock
+    private BatchExecutionService batchExecutionService;
+
+    @Mock
+    private PluginInvocationScheduler pluginInvocationScheduler;
+
+    @InjectMocks
+    private BatchExecutionJobScheduler batchExecutionJobScheduler;
+
+    @After
+    public void tearDown() {
+        batchExecutionJobScheduler.shutdown();
+    }
+
+    @Test
+    public void givenBatchExecutionJobWhenScheduleThenShouldRunAllChunksAndCompleteOnce() {
+        doAnswer(invocation -> {
+            Runnable task = invocation.getArgument(2);
+            task.run();
+            return true;
+        }).when(pluginInvocationScheduler).trySubmit(eq("batch:wecmdb"), eq(4), any(Runnable.class));
+        doThrow(new IllegalStateException("broken chunk")).when(batchExecutionService)
+                .runExecutionJobs(Arrays.asList(1, 2));
+
+        batchExecutionJobScheduler.schedule(mockBatchExecutionJob("batch-1", 2, 1, 2, 3), "wecmdb");
+
+        verify(batchExecutionService, timeout(VERIFY_TIMEOUT_MILLIS)).completeBatchExecutionJob("batch-1");
+        verify(batchExecutionService).runExecutionJobs(Arrays.asList(3));
+        verify(batchExecutionService).failExecutionJob(1, "broken chunk");
+        verify(batchExecutionService).failExecutionJob(2, "broken chunk");
+        verify(batchExecutionService, never()).failExecutionJob(eq(3), anyString());
+        verify(batchExecutionService, times(1)).completeBatchExecutionJob(anyString());
+    }
+
+    @Test
+    public void givenFullBatchLaneWhenScheduleThenShouldBackOffAndDispatchRemainingChunksLater() {
+        doReturn(false).doAnswer(invocation -> {
+            Runnable task = invocation.getArgument(2);
+            task.run();
+            return true;
+        }).when(pluginInvocationScheduler).trySubmit(eq("batch:wecmdb"), eq(4), any(Runnable.class));
+
+        batchExecutionJobScheduler.schedule(mockBatchExecutionJob("batch-2", 1, 7, 8), "wecmdb");
+
+        verify(batchExecutionService, timeout(VERIFY_TIMEOUT_MILLIS)).completeBatchExecutionJob("batch-2");
+        verify(pluginInvocationScheduler, times(3)).trySubmit(eq("batch:wecmdb"), eq(4), any(Runnable.class));
+        verify(batchExecutionService).runExecutionJobs(Arrays.asList(7));
+        verify(batchExecutionService).runExecutionJobs(Arrays.asList(8));
+        verify(batchExecutionService, never()).failExecutionJob(any(), anyString());
+    }
+
+    @Test
+    public void givenRunningBatchWhenKeepLeasesThenShouldRenewItsLeaseAndFailOnlyExpiredBatches() {
+        batchExecutionJobScheduler.schedule(mockBatchExecutionJob("batch-3", 1, 8), "wecmdb");
+        verify(pluginInvocationScheduler, timeout(VERIFY_TIMEOUT_MILLIS)).trySubmit(eq("batch:wecmdb"), eq(4),
+                any(Runnable.class));
+        String nodeId = batchExecutionJobScheduler.getNodeId();
+
+        batchExecutionJobScheduler.keepLeases();
+
+        ArgumentCaptor<Timestamp> captor = ArgumentCaptor.forClass(Timestamp.class);
+        verify(batchExecutionService).renewBatchExecutionJobLeases(eq(Arrays.asList("batch-3")), eq(nodeId),
+                captor.capture());
+        Assert.assertTrue(captor.getValue().after(new Timestamp(System.currentTimeMillis())));
+        verify(batchExecutionService).failExpiredBatchExecutionJobs(eq(nodeId), any(Timestamp.class), anyInt());
+    }
+
+    @Test
+    public void givenCompletedBatchWhenKeepLeasesThenShouldNotRenewItsLease() {
+        batchExecutionJobScheduler.schedule(mockBatchExecutionJob("batch-4", 1), "wecmdb");
+        verify(batchExecutionService, timeout(VERIFY_TIMEOUT_MILLIS)).completeBatchExecutionJob("batch-4");
+
+        batchExecutionJobScheduler.keepLeases();
+
+        verify(batchExecutionService, never()).renewBatchExecutionJobLeases(anyList(), anyString(),
+                any(Timestamp.class));
+        verify(batchExecutionService).failExpiredBatchExecutionJobs(anyString(), any(Timestamp.class), anyInt());
+    }
+
+    private BatchExecutionJob mockBatchExecutionJob(String id, int chunkSize, Integer... exeJobIds) {
+        BatchExecutionJob batchExeJob = new BatchExecutionJob();
+        batchExeJob.setId(id);
+        List<ExecutionJob> exeJobs = new ArrayList<>();
+        List<List<ExecutionJob>> chunks = new ArrayList<>();
+        for (Integer exeJobId : exeJobIds) {
+            ExecutionJob exeJob = new ExecutionJob();
+            exeJob.setId(exeJobId);
+            exeJobs.add(exeJob);
+            if (chunks.isEmpty() || chunks.get(chunks.size() - 1).size() >= chunkSize) {
+                chunks.add(new ArrayList<>());
+            }
+            chunks.get(chunks.size() - 1).add(exeJob);
+        }
+        batchExeJob.setJobs(exeJobs);
+        when(batchExecutionService.partitionExecutionJobs(exeJobs)).thenReturn(chunks);
+        return batchExeJob;
+    }
+}
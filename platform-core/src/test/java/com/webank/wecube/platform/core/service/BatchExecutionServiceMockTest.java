@@ -0,0 +1,259 @@
+package com.webank.wecube.platform.core.service;
+
+import static com.webank.wecube.platform.core.utils.Constants.CALLBACK_PARAMETER_KEY;
+import static com.webank.wecube.platform.core.utils.Constants.RESULT_CODE_ERROR;
+import static com.webank.wecube.platform.core.utils.Constants.RESULT_CODE_OK;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Lists;
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.domain.BatchExecutionJob;
+import com.webank.wecube.platform.core.domain.ExecutionJob;
+import com.webank.wecube.platform.core.domain.plugin.PluginConfig;
+import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterface;
+import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
+import com.webank.wecube.platform.core.domain.plugin.PluginPackage;
+import com.webank.wecube.platform.core.dto.BatchExecutionRequestDto;
+import com.webank.wecube.platform.core.dto.ExecutionJobResponseDto;
+import com.webank.wecube.platform.core.dto.ResourceDataDto;
+import com.webank.wecube.platform.core.jpa.BatchExecutionJobRepository;
+import com.webank.wecube.platform.core.jpa.ExecutionJobRepository;
+import com.webank.wecube.platform.core.jpa.PluginConfigInterfaceRepository;
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceService;
+import com.webank.wecube.platform.core.support.plugin.PluginServiceStub;
+import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse.ResultData;
+import com.webank.wecube.platform.core.support.plugin.dto.PluginResponseStationaryOutput;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchExecutionServiceMockTest {
+    private static final String INTERFACE_ID = "wecmdb__confirm__ci";
+
+    @Mock
+    private PluginServiceStub pluginServiceStub;
+
+    @Mock
+    private PluginInstanceService pluginInstanceService;
+
+    @Mock
+    private BatchExecutionJobRepository batchExecutionJobRepository;
+
+    @Mock
+    private PluginConfigInterfaceRepository pluginConfigInterfaceRepository;
+
+    @Mock
+    private ExecutionJobRepository executionJobRepository;
+
+    @Mock
+    private BatchExecutionJobScheduler batchExecutionJobScheduler;
+
+    @InjectMocks
+    private BatchExecutionService batchExecutionService;
+
+    private PluginInvocationProperties pluginInvocationProperties =
+            new ApplicationProperties().new PluginInvocationProperties();
+
+    @Before
+    public void setup() {
+        pluginInvocationProperties.setBatchExecutionChunkSize(3);
+        ReflectionTestUtils.setField(batchExecutionService, "pluginInvocationProperties", pluginInvocationProperties);
+    }
+
+    @Test
+    public void givenDuplicatedRootEntitiesWhenPartitionThenShouldSplitChunks() {
+        List<ExecutionJob> exeJobs = Lists.newArrayList(mockExecutionJob("e1"), mockExecutionJob("e2"),
+                mockExecutionJob("e1"), mockExecutionJob("e3"), mockExecutionJob("e4"), mockExecutionJob("e5"));
+
+        List<List<ExecutionJob>> chunks = batchExecutionService.partitionExecutionJobs(exeJobs);
+
+        Assert.assertEquals(3, chunks.size());
+        Assert.assertEquals(2, chunks.get(0).size());
+        Assert.assertEquals(3, chunks.get(1).size());
+        Assert.assertEquals(1, chunks.get(2).size());
+    }
+
+    @Test
+    public void givenChunkSizeWhenHandleBatchExecutionJobThenShouldSendOneRequestPerChunk() throws Exception {
+        when(batchExecutionJobRepository.save(any(BatchExecutionJob.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(pluginConfigInterfaceRepository.findById(INTERFACE_ID)).thenReturn(Optional.of(mockInterface()));
+        PluginInstance pluginInstance = new PluginInstance();
+        pluginInstance.setHost("127.0.0.1");
+        pluginInstance.setPort(20000);
+        when(pluginInstanceService.getRunningPluginInstance("wecmdb")).thenReturn(pluginInstance);
+        when(pluginServiceStub.callPluginInterface(anyString(), anyString(), anyList(), anyString()))
+                .thenReturn(new ResultData<Object>(Lists.newArrayList(mockOutput("e3", "0"), mockOutput("e1", "0"))),
+                        new ResultData<Object>(Lists.newArrayList(mockOutput("e4", "0"))));
+
+        Map<String, ExecutionJobResponseDto> results = batchExecutionService
+                .handleBatchExecutionJob(mockRequest("e1", "e2", "e3", "e4"));
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        ArgumentCaptor<List<Map<String, Object>>> inputsCaptor = (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+        verify(pluginServiceStub, times(2)).callPluginInterface(eq("127.0.0.1:20000"), eq("/confirm"),
+                inputsCaptor.capture(), anyString());
+        Assert.assertEquals(3, inputsCaptor.getAllValues().get(0).size());
+        Assert.assertEquals(1, inputsCaptor.getAllValues().get(1).size());
+
+        Assert.assertEquals(4, results.size());
+        Assert.assertEquals(RESULT_CODE_OK, results.get("bk-e1").getErrorCode());
+        Assert.assertEquals(RESULT_CODE_ERROR, results.get("bk-e2").getErrorCode());
+        Assert.assertEquals(RESULT_CODE_OK, results.get("bk-e3").getErrorCode());
+        Assert.assertEquals(RESULT_CODE_OK, results.get("bk-e4").getErrorCode());
+        Assert.assertEquals("e3", ((Map<?, ?>) results.get("bk-e3").getResult()).get(CALLBACK_PARAMETER_KEY));
+    }
+
+    @Test
+    public void givenAuditDisabledWhenPerformExecutionJobThenShouldStillKeepOutputForProgress() {
+        when(pluginConfigInterfaceRepository.findById(INTERFACE_ID)).thenReturn(Optional.of(mockInterface()));
+        PluginInstance pluginInstance = new PluginInstance();
+        pluginInstance.setHost("127.0.0.1");
+        pluginInstance.setPort(20000);
+        when(pluginInstanceService.getRunningPluginInstance("wecmdb")).thenReturn(pluginInstance);
+        when(pluginServiceStub.callPluginInterface(anyString(), anyString(), anyList(), anyString()))
+                .thenReturn(new ResultData<Object>(Lists.newArrayList(mockOutput("e1", "0"))));
+
+        ExecutionJob exeJob = mockExecutionJob("e1");
+        exeJob.setBusinessKey("bk-e1");
+        batchExecutionService.performExecutionJob(exeJob);
+        Assert.assertEquals(RESULT_CODE_OK, exeJob.getErrorCode());
+        Assert.assertTrue(exeJob.getReturnJson().contains("\"callbackParameter\":\"e1\""));
+
+        BatchExecutionJob batchExeJob = new BatchExecutionJob();
+        batchExeJob.setId("batch-1");
+        batchExeJob.setJobs(Lists.newArrayList(exeJob));
+        when(batchExecutionJobRepository.findById("batch-1")).thenReturn(Optional.of(batchExeJob));
+        ExecutionJobResponseDto result = batchExecutionService.getBatchExecutionProgress("batch-1").getResults()
+                .get("bk-e1");
+        Assert.assertEquals(RESULT_CODE_OK, result.getErrorCode());
+        Assert.assertEquals("0", ((Map<?, ?>) result.getResult()).get("errorCode"));
+        Assert.assertEquals("e1", ((Map<?, ?>) result.getResult()).get(CALLBACK_PARAMETER_KEY));
+    }
+
+    @Test
+    public void givenFailedJobWhenGetProgressThenShouldBuildErrorResultFromJob() {
+        ExecutionJob exeJob = mockExecutionJob("e1");
+        exeJob.setBusinessKey("bk-e1");
+        exeJob.setErrorWithMessage("plugin instance not found");
+
+        BatchExecutionJob batchExeJob = new BatchExecutionJob();
+        batchExeJob.setId("batch-1");
+        batchExeJob.setJobs(Lists.newArrayList(exeJob));
+        when(batchExecutionJobRepository.findById("batch-1")).thenReturn(Optional.of(batchExeJob));
+
+        ExecutionJobResponseDto result = batchExecutionService.getBatchExecutionProgress("batch-1").getResults()
+                .get("bk-e1");
+        Assert.assertEquals(ExecutionJob.ERROR_CODE_FAILED, result.getErrorCode());
+        PluginResponseStationaryOutput output = (PluginResponseStationaryOutput) result.getResult();
+        Assert.assertEquals("plugin instance not found", output.getErrorMessage());
+        Assert.assertEquals("e1", output.getCallbackParameter());
+    }
+
+    private BatchExecutionRequestDto mockRequest(String... rootEntityIds) {
+        PluginConfigInterface pluginConfigInterface = new PluginConfigInterface();
+        pluginConfigInterface.setId(INTERFACE_ID);
+
+        List<ResourceDataDto> resourceDatas = new ArrayList<>();
+        for (String rootEntityId : rootEntityIds) {
+            resourceDatas.add(new ResourceDataDto("bk-" + rootEntityId, rootEntityId));
+        }
+
+        BatchExecutionRequestDto request = new BatchExecutionRequestDto();
+        request.setPluginConfigInterface(pluginConfigInterface);
+        request.setPackageName("wecmdb");
+        request.setEntityName("ci");
+        request.setInputParameterDefinitions(new ArrayList<>());
+        request.setResourceDatas(resourceDatas);
+        return request;
+    }
+
+    private PluginConfigInterface mockInterface() {
+        PluginPackage pluginPackage = new PluginPackage();
+        pluginPackage.setName("wecmdb");
+        PluginConfig pluginConfig = new PluginConfig();
+        pluginConfig.setPluginPackage(pluginPackage);
+        PluginConfigInterface pluginConfigInterface = new PluginConfigInterface();
+        pluginConfigInterface.setId(INTERFACE_ID);
+        pluginConfigInterface.setPluginConfig(pluginConfig);
+        pluginConfigInterface.setPath("/confirm");
+        return pluginConfigInterface;
+    }
+
+    @Test
+    public void givenExpiredBatchWhenFailExpiredThenShouldFailUnfinishedJobsOfClaimedBatchOnly() {
+        ExecutionJob finishedJob = mockExecutionJob("e1");
+        finishedJob.setErrorCode(RESULT_CODE_OK);
+        ExecutionJob unfinishedJob = mockExecutionJob("e2");
+        BatchExecutionJob batchExeJob = new BatchExecutionJob();
+        batchExeJob.setId("batch-1");
+        batchExeJob.setJobs(Lists.newArrayList(finishedJob, unfinishedJob));
+        Timestamp lastLease = new Timestamp(System.currentTimeMillis() - 1000);
+        batchExeJob.setLeaseExpireTimestamp(lastLease);
+
+        ExecutionJob jobOfOtherNode = mockExecutionJob("e3");
+        BatchExecutionJob claimedByOtherNode = new BatchExecutionJob();
+        claimedByOtherNode.setId("batch-2");
+        claimedByOtherNode.setJobs(Lists.newArrayList(jobOfOtherNode));
+
+        Timestamp newLease = new Timestamp(System.currentTimeMillis() + 60000);
+        when(batchExecutionJobRepository.findExpiredBatchExecutionJobs(any(Timestamp.class), any(Pageable.class)))
+                .thenReturn(Lists.newArrayList(batchExeJob, claimedByOtherNode));
+        when(batchExecutionJobRepository.claimBatchExecutionJob("batch-1", lastLease, "node-1", newLease))
+                .thenReturn(1);
+        when(batchExecutionJobRepository.claimUnleasedBatchExecutionJob("batch-2", "node-1", newLease))
+                .thenReturn(0);
+
+        Assert.assertEquals(1, batchExecutionService.failExpiredBatchExecutionJobs("node-1", newLease, 100));
+
+        Assert.assertEquals(RESULT_CODE_OK, finishedJob.getErrorCode());
+        Assert.assertEquals(ExecutionJob.ERROR_CODE_FAILED, unfinishedJob.getErrorCode());
+        verify(executionJobRepository).saveAll(Lists.newArrayList(unfinishedJob));
+        Assert.assertNotNull(batchExeJob.getCompleteTimestamp());
+        Assert.assertEquals("node-1", batchExeJob.getOwnerNode());
+        verify(batchExecutionJobRepository).save(batchExeJob);
+
+        Assert.assertNull(jobOfOtherNode.getErrorCode());
+        Assert.assertNull(claimedByOtherNode.getCompleteTimestamp());
+        verify(batchExecutionJobRepository, never()).save(claimedByOtherNode);
+    }
+
+    private ExecutionJob mockExecutionJob(String rootEntityId) {
+        ExecutionJob exeJob = new ExecutionJob();
+        exeJob.setRootEntityId(rootEntityId);
+        exeJob.setPluginConfigInterfaceId(INTERFACE_ID);
+        exeJob.setParameters(new ArrayList<>());
+        return exeJob;
+    }
+
+    private Map<String, Object> mockOutput(String callbackParameter, String errorCode) {
+        Map<String, Object> output = new HashMap<>();
+        output.put(CALLBACK_PARAMETER_KEY, callbackParameter);
+        output.put("errorCode", errorCode);
+        return output;
+    }
+}
@@ -0,0 +1,146 @@
+package com.webank.wecube.platform.core.service.cmder.ssh2;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.SshProperties;
+
+import ch.ethz.ssh2.Connection;
+import ch.ethz.ssh2.ConnectionMonitor;
+import ch.ethz.ssh2.Session;
+
+public class SshConnectionPoolTest {
+    private SshProperties sshProperties = new ApplicationProperties().new SshProperties();
+
+    private List<Connection> openedConnections = new ArrayList<>();
+
+    private List<ConnectionMonitor> monitors = new ArrayList<>();
+
+    private SshConnectionPool pool = new SshConnectionPool() {
+        @Override
+        protected Connection openConnection(SshCredential credential) throws IOException {
+            if ("wrong".equals(credential.getPassword())) {
+                throw new SshAuthenticationException("authentication failed for " + credential);
+            }
+            Connection connection = mock(Connection.class);
+            doAnswer(invocation -> monitors.add(invocation.getArgument(0))).when(connection)
+                    .addConnectionMonitor(any());
+            when(connection.openSession()).thenReturn(mock(Session.class));
+            openedConnections.add(connection);
+            return connection;
+        }
+    };
+
+    private SshCredential credential = SshCredential.withPassword("10.0.0.1", 22, "root", "password");
+
+    @Before
+    public void setup() {
+        ReflectionTestUtils.setField(pool, "sshProperties", sshProperties);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void givenSameCredentialWhenExecuteThenShouldReuseConnection() throws IOException {
+        Connection first = pool.execute(credential, conn -> conn);
+        Connection second = pool.execute(SshCredential.withPassword("10.0.0.1", 22, "root", "password"),
+                conn -> conn);
+        Connection other = pool.execute(SshCredential.withPassword("10.0.0.2", 22, "root", "password"),
+                conn -> conn);
+
+        Assert.assertSame(first, second);
+        Assert.assertNotSame(first, other);
+        Assert.assertEquals(2, openedConnections.size());
+    }
+
+    @Test
+    public void givenSessionLimitWhenExecuteConcurrentlyThenShouldNotExceedLimit() throws Exception {
+        sshProperties.setMaxSessionsPerConnection(2);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return pool.execute(credential, conn -> {
+                        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        active.decrementAndGet();
+                        return null;
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Object> f : futures) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertTrue(maxActive.get() <= 2);
+        Assert.assertEquals(1, openedConnections.size());
+    }
+
+    @Test
+    public void givenIdleConnectionWhenMaintainThenShouldCloseIt() throws IOException {
+        pool.execute(credential, conn -> conn);
+        pool.maintain();
+        Assert.assertEquals(1, pool.getMetrics().get("connections"));
+        verify(openedConnections.get(0)).openSession();
+
+        sshProperties.setIdleSeconds(0);
+        pool.maintain();
+        verify(openedConnections.get(0)).close();
+        Assert.assertEquals(0, pool.getMetrics().get("connections"));
+
+        pool.execute(credential, conn -> conn);
+        Assert.assertEquals(2, openedConnections.size());
+    }
+
+    @Test
+    public void givenLostConnectionWhenExecuteThenShouldReconnect() throws IOException {
+        Connection first = pool.execute(credential, conn -> conn);
+        monitors.get(0).connectionLost(new IOException("connection reset"));
+
+        Connection second = pool.execute(credential, conn -> conn);
+        Assert.assertNotSame(first, second);
+        verify(first, times(1)).close();
+    }
+
+    @Test(expected = SshAuthenticationException.class)
+    public void givenWrongPasswordWhenExecuteThenShouldThrowAuthenticationException() throws IOException {
+        pool.execute(SshCredential.withPassword("10.0.0.1", 22, "root", "wrong"), conn -> conn);
+    }
+}
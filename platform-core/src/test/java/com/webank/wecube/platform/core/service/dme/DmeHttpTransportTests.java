@@ -0,0 +1,104 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.DmeProperties;
+import com.webank.wecube.platform.core.http.UserJwtSsoTokenRestTemplate;
+
+public class DmeHttpTransportTests {
+    private static final String QUERY_URL = "http://localhost:9999/wecmdb/entities/subsys/query";
+
+    private DmeHttpTransport transport;
+
+    @Before
+    public void setup() {
+        DmeProperties dmeProperties = new ApplicationProperties().new DmeProperties();
+        dmeProperties.setHttpPoolEnabled(true);
+        dmeProperties.setHttpMaxConcurrentRequestsPerPackage(1);
+        dmeProperties.setHttpConnectionRequestTimeout(10);
+
+        transport = new DmeHttpTransport();
+        ReflectionTestUtils.setField(transport, "dmeProperties", dmeProperties);
+        transport.init();
+    }
+
+    @After
+    public void tearDown() {
+        transport.destroy();
+    }
+
+    @Test
+    public void givenUserTokenRestTemplateWhenResolveThenShouldReturnPooledRestTemplate() {
+        RestTemplate userTokenRestTemplate = new UserJwtSsoTokenRestTemplate();
+        RestTemplate plainRestTemplate = new RestTemplate();
+
+        RestTemplate pooledRestTemplate = transport.resolveRestTemplate(userTokenRestTemplate);
+
+        Assert.assertNotSame(userTokenRestTemplate, pooledRestTemplate);
+        Assert.assertTrue(pooledRestTemplate instanceof UserJwtSsoTokenRestTemplate);
+        Assert.assertSame(pooledRestTemplate, transport.resolveRestTemplate(new UserJwtSsoTokenRestTemplate()));
+        Assert.assertSame(plainRestTemplate, transport.resolveRestTemplate(plainRestTemplate));
+    }
+
+    @Test
+    public void givenPackageRequestsExhaustedWhenQueryThenShouldRejectUntilReleased() {
+        RestTemplate restTemplate = transport.resolveRestTemplate(new UserJwtSsoTokenRestTemplate());
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(ExpectedCount.once(), requestTo(QUERY_URL))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[]}", MediaType.APPLICATION_JSON));
+
+        transport.acquire("wecmdb");
+        try {
+            restTemplate.postForObject(QUERY_URL, "{}", StandardEntityOperationResponseDto.class);
+            Assert.fail();
+        } catch (EntityOperationException e) {
+            Assert.assertEquals("3313", e.getErrorCode());
+        } finally {
+            transport.release("wecmdb");
+        }
+
+        StandardEntityOperationResponseDto result = restTemplate.postForObject(QUERY_URL, "{}",
+                StandardEntityOperationResponseDto.class);
+        Assert.assertEquals("OK", result.getStatus());
+        server.verify();
+
+        Map<String, Object> metrics = transport.getMetrics();
+        Assert.assertEquals(1L, metrics.get("rejectedCount"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> packageMetrics = (Map<String, Object>) ((Map<String, Object>) metrics.get("packages"))
+                .get("wecmdb");
+        Assert.assertEquals(0, packageMetrics.get("inFlight"));
+    }
+
+    @Test
+    public void givenSameEntityWhenDeduceRouteThenShouldReuseUntilGatewayChanged() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setGatewayUrl("localhost:9999");
+        EntityDataRouteFactory entityDataRouteFactory = new EntityDataRouteFactory();
+        ReflectionTestUtils.setField(entityDataRouteFactory, "applicationProperties", applicationProperties);
+
+        EntityRouteDescription route = entityDataRouteFactory.deduceEntityDescription("subsys", "wecmdb");
+        Assert.assertSame(route, entityDataRouteFactory.deduceEntityDescription("subsys", "wecmdb"));
+        Assert.assertEquals("wecmdb", route.getPackageName());
+        Assert.assertEquals("subsys", route.getEntityName());
+
+        applicationProperties.setGatewayUrl("gateway:8080");
+        EntityRouteDescription refreshedRoute = entityDataRouteFactory.deduceEntityDescription("subsys", "wecmdb");
+        Assert.assertEquals("gateway", refreshedRoute.getHttpHost());
+        Assert.assertEquals("8080", refreshedRoute.getHttpPort());
+    }
+}
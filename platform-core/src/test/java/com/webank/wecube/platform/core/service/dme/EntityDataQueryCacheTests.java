@@ -0,0 +1,147 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.DmeProperties;
+
+public class EntityDataQueryCacheTests {
+    private static final String GATEWAY_URL = "localhost:9999";
+    private static final String EXPR = "wecmdb:subsys.subsys_design>wecmdb:subsys_design.key_name";
+
+    private StandardEntityQueryExecutor executor;
+    private EntityDataRouteFactory entityDataRouteFactory;
+    private EntityDataQueryCache entityDataQueryCache;
+    private EntityQueryExpressionParser parser = new EntityQueryExpressionParser();
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+
+    @Before
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setGatewayUrl(GATEWAY_URL);
+
+        DmeProperties dmeProperties = applicationProperties.new DmeProperties();
+        dmeProperties.setDataCacheEnabled(true);
+
+        entityDataQueryCache = new EntityDataQueryCache();
+        ReflectionTestUtils.setField(entityDataQueryCache, "dmeProperties", dmeProperties);
+        entityDataQueryCache.init();
+
+        executor = new StandardEntityQueryExecutor();
+
+        entityDataRouteFactory = new EntityDataRouteFactory();
+        ReflectionTestUtils.setField(entityDataRouteFactory, "applicationProperties", applicationProperties);
+
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    @Test
+    public void givenSameProcInstWhenQueryTwiceThenShouldQueryPluginOnce() {
+        expectQueries(ExpectedCount.once());
+
+        List<Object> first = executor.executeQueryLeafAttributes(buildContext(EXPR, "s1", "1"));
+        List<Object> second = executor.executeQueryLeafAttributes(buildContext(EXPR, "s1", "1"));
+
+        Assert.assertEquals(Arrays.asList("K1"), first);
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(2L, entityDataQueryCache.getMetrics().get("hitCount"));
+        server.verify();
+    }
+
+    @Test
+    public void givenDifferentProcInstWhenQueryThenShouldNotShareData() {
+        expectQueries(ExpectedCount.twice());
+
+        executor.executeQueryLeafAttributes(buildContext(EXPR, "s1", "1"));
+        executor.executeQueryLeafAttributes(buildContext(EXPR, "s1", "2"));
+
+        server.verify();
+    }
+
+    @Test
+    public void givenEntityUpdatedWhenQueryAgainThenShouldRefetchUpdatedEntity() {
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"s1\",\"subsys_design\":\"d1\"}]}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys_design")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"d1\",\"key_name\":\"K1\"}]}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(updateUrl("subsys_design")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[]}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys_design")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"d1\",\"key_name\":\"K2\"}]}",
+                        MediaType.APPLICATION_JSON));
+
+        Assert.assertEquals(Arrays.asList("K1"), executor.executeQueryLeafAttributes(buildContext(EXPR, "s1", "1")));
+
+        EntityOperationContext updateCtx = buildContext(EXPR, "s1", "1");
+        updateCtx.setEntityOperationType(EntityOperationType.UPDATE);
+        executor.executeUpdate(updateCtx, "K2");
+
+        Assert.assertEquals(Arrays.asList("K2"), executor.executeQueryLeafAttributes(buildContext(EXPR, "s1", "1")));
+        server.verify();
+    }
+
+    @Test
+    public void givenErrorStatusWhenQueryThenShouldNotCacheResult() {
+        server.expect(ExpectedCount.twice(), requestTo(queryUrl("subsys")))
+                .andRespond(withSuccess("{\"status\":\"ERROR\",\"message\":\"failed\"}", MediaType.APPLICATION_JSON));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                executor.executeQueryLeafAttributes(buildContext(EXPR, "s1", "1"));
+                Assert.fail();
+            } catch (EntityOperationException e) {
+                Assert.assertEquals("3309", e.getErrorCode());
+            }
+        }
+        server.verify();
+    }
+
+    private void expectQueries(ExpectedCount count) {
+        server.expect(count, requestTo(queryUrl("subsys")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"s1\",\"subsys_design\":\"d1\"}]}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(count, requestTo(queryUrl("subsys_design")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"d1\",\"key_name\":\"K1\"}]}",
+                        MediaType.APPLICATION_JSON));
+    }
+
+    private EntityOperationContext buildContext(String expr, String rootId, String procInstId) {
+        List<EntityQueryExprNodeInfo> exprNodeInfos = parser.parse(expr);
+
+        EntityOperationContext ctx = new EntityOperationContext();
+        ctx.setEntityQueryExprNodeInfos(exprNodeInfos);
+        ctx.setOriginalEntityLinkExpression(expr);
+        ctx.setOriginalEntityData(rootId);
+        ctx.setStandardEntityOperationRestClient(
+                new CachingEntityOperationRestClient(restTemplate, entityDataQueryCache, procInstId));
+        ctx.setHeadEntityQueryLinkNode(executor.buildEntityQueryLinkNode(exprNodeInfos));
+        ctx.setEntityDataRouteFactory(entityDataRouteFactory);
+        ctx.setEntityOperationType(EntityOperationType.QUERY);
+        return ctx;
+    }
+
+    private String queryUrl(String entityName) {
+        return String.format("http://%s/wecmdb/entities/%s/query", GATEWAY_URL, entityName);
+    }
+
+    private String updateUrl(String entityName) {
+        return String.format("http://%s/wecmdb/entities/%s/update", GATEWAY_URL, entityName);
+    }
+}
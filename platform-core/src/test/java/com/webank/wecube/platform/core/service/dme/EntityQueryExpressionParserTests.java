@@ -188,4 +188,33 @@ public class EntityQueryExpressionParserTests {
 		Assert.assertEquals(0, nodeInfo.getAdditionalFilters().size());
 		Assert.assertEquals(null, nodeInfo.getQueryAttrName());
 	}
+
+	@Test
+	public void testParseSameExprTwiceShouldHitCacheAndReturnIndependentCopies() {
+		EntityQueryExpressionParser cachedParser = new EntityQueryExpressionParser();
+		String inputExpr = "wecmdb:subsys{attr1 in ['A','B']}.subsys_design>wecmdb:subsys_design.key_name";
+
+		List<EntityQueryExprNodeInfo> first = cachedParser.parse(inputExpr);
+		first.get(0).setEntityName("changed");
+		first.get(0).getAdditionalFilters().clear();
+
+		List<EntityQueryExprNodeInfo> second = cachedParser.parse(inputExpr);
+		Assert.assertEquals(2, second.size());
+		Assert.assertEquals("subsys", second.get(0).getEntityName());
+		Assert.assertEquals(1, second.get(0).getAdditionalFilters().size());
+		Assert.assertEquals(EntityQueryFilter.OP_IN, second.get(0).getAdditionalFilters().get(0).getOp());
+
+		Assert.assertEquals(1, cachedParser.getExpressionCacheStats().missCount());
+		Assert.assertEquals(1, cachedParser.getExpressionCacheStats().hitCount());
+
+		CompiledEntityQueryExpression compiledExpr = cachedParser.compile(inputExpr);
+		Assert.assertEquals("key_name", compiledExpr.getQueryAttrName());
+		Assert.assertEquals(2, compiledExpr.getNodeSize());
+		Assert.assertEquals(2, cachedParser.getExpressionCacheStats().hitCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseBlankExprShouldFail() {
+		parser.parse(" ");
+	}
 }
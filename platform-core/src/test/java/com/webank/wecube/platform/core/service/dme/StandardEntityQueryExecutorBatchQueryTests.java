@@ -0,0 +1,130 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.DmeProperties;
+
+public class StandardEntityQueryExecutorBatchQueryTests {
+    private static final String GATEWAY_URL = "localhost:9999";
+
+    private StandardEntityQueryExecutor executor;
+    private EntityDataRouteFactory entityDataRouteFactory;
+    private EntityQueryExpressionParser parser = new EntityQueryExpressionParser();
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+
+    @Before
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setGatewayUrl(GATEWAY_URL);
+
+        DmeProperties dmeProperties = applicationProperties.new DmeProperties();
+        dmeProperties.setBatchQueryEnabled(true);
+        dmeProperties.setBatchQuerySize(2);
+
+        executor = new StandardEntityQueryExecutor();
+        ReflectionTestUtils.setField(executor, "dmeProperties", dmeProperties);
+
+        entityDataRouteFactory = new EntityDataRouteFactory();
+        ReflectionTestUtils.setField(entityDataRouteFactory, "applicationProperties", applicationProperties);
+
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    @Test
+    public void givenMultiRefToWhenBatchQueryThenShouldChunkAndKeepReferenceOrder() {
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys")))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"s1\",\"displayName\":\"s1\","
+                        + "\"subsys_design\":\"d1,d2,d3\"}]}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys_design")))
+                .andExpect(jsonPath("$.additionalFilters[0].attrName").value("id"))
+                .andExpect(jsonPath("$.additionalFilters[0].op").value("in"))
+                .andExpect(jsonPath("$.additionalFilters[0].condition", Matchers.contains("d1", "d2")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"d2\",\"key_name\":\"K2\"},"
+                        + "{\"id\":\"d1\",\"key_name\":\"K1\"}]}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys_design")))
+                .andExpect(jsonPath("$.additionalFilters[0].condition", Matchers.contains("d3")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"d3\",\"key_name\":\"K3\"}]}",
+                        MediaType.APPLICATION_JSON));
+
+        List<Object> result = executor.executeQueryLeafAttributes(
+                buildContext("wecmdb:subsys.subsys_design>wecmdb:subsys_design.key_name", "s1"));
+
+        Assert.assertEquals(Arrays.asList("K1", "K2", "K3"), result);
+        server.verify();
+    }
+
+    @Test
+    public void givenRefByWhenBatchQueryThenShouldJoinRecordsToParents() {
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("system_design")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"sd1\"},{\"id\":\"sd2\"}]}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys")))
+                .andExpect(jsonPath("$.additionalFilters[0].attrName").value("system_design"))
+                .andExpect(jsonPath("$.additionalFilters[0].condition", Matchers.contains("sd1", "sd2")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":["
+                        + "{\"id\":\"a\",\"system_design\":\"sd2\",\"key_name\":\"A\"},"
+                        + "{\"id\":\"b\",\"system_design\":\"sd1\",\"key_name\":\"B\"},"
+                        + "{\"id\":\"c\",\"system_design\":\"sd1\",\"key_name\":\"C\"}]}",
+                        MediaType.APPLICATION_JSON));
+
+        EntityOperationContext ctx = buildContext("wecmdb:system_design~(system_design)wecmdb:subsys.key_name", null);
+        List<Object> result = executor.executeQueryLeafAttributes(ctx);
+
+        Assert.assertEquals(Arrays.asList("B", "C", "A"), result);
+        for (EntityDataDelegate delegate : ctx.getTailEntityQueryLinkNode().getEntityDataDelegates()) {
+            Assert.assertEquals(delegate.getEntityData().get("system_design"), delegate.getPreviousEntity().getId());
+        }
+        server.verify();
+    }
+
+    @Test(expected = EntityOperationException.class)
+    public void givenErrorStatusWhenBatchQueryThenShouldThrowException() {
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"s1\",\"subsys_design\":\"d1\"}]}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys_design")))
+                .andRespond(withSuccess("{\"status\":\"ERROR\",\"message\":\"failed\"}", MediaType.APPLICATION_JSON));
+
+        executor.executeQueryLeafAttributes(
+                buildContext("wecmdb:subsys.subsys_design>wecmdb:subsys_design.key_name", "s1"));
+    }
+
+    private EntityOperationContext buildContext(String expr, String rootId) {
+        List<EntityQueryExprNodeInfo> exprNodeInfos = parser.parse(expr);
+
+        EntityOperationContext ctx = new EntityOperationContext();
+        ctx.setEntityQueryExprNodeInfos(exprNodeInfos);
+        ctx.setOriginalEntityLinkExpression(expr);
+        ctx.setOriginalEntityData(rootId);
+        ctx.setStandardEntityOperationRestClient(new StandardEntityOperationRestClient(restTemplate));
+        ctx.setHeadEntityQueryLinkNode(executor.buildEntityQueryLinkNode(exprNodeInfos));
+        ctx.setEntityDataRouteFactory(entityDataRouteFactory);
+        ctx.setEntityOperationType(EntityOperationType.QUERY);
+        return ctx;
+    }
+
+    private String queryUrl(String entityName) {
+        return String.format("http://%s/wecmdb/entities/%s/query", GATEWAY_URL, entityName);
+    }
+}
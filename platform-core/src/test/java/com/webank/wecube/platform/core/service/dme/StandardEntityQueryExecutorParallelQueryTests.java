@@ -0,0 +1,142 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.RestTemplate;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.DmeProperties;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder.AuthenticatedUser;
+
+public class StandardEntityQueryExecutorParallelQueryTests {
+    private static final String GATEWAY_URL = "localhost:9999";
+
+    private StandardEntityQueryExecutor executor;
+    private EntityQueryTaskExecutor entityQueryTaskExecutor;
+    private EntityDataRouteFactory entityDataRouteFactory;
+    private EntityQueryExpressionParser parser = new EntityQueryExpressionParser();
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+
+    private Set<String> requestUsernames = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setGatewayUrl(GATEWAY_URL);
+
+        DmeProperties dmeProperties = applicationProperties.new DmeProperties();
+        dmeProperties.setParallelQueryEnabled(true);
+        dmeProperties.setParallelQueryPoolSize(3);
+
+        entityQueryTaskExecutor = new EntityQueryTaskExecutor();
+        ReflectionTestUtils.setField(entityQueryTaskExecutor, "dmeProperties", dmeProperties);
+
+        executor = new StandardEntityQueryExecutor();
+        ReflectionTestUtils.setField(executor, "dmeProperties", dmeProperties);
+        ReflectionTestUtils.setField(executor, "entityQueryTaskExecutor", entityQueryTaskExecutor);
+
+        entityDataRouteFactory = new EntityDataRouteFactory();
+        ReflectionTestUtils.setField(entityDataRouteFactory, "applicationProperties", applicationProperties);
+
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+
+        AuthenticationContextHolder.clearCurrentUser();
+        AuthenticationContextHolder.setAuthenticatedUser(new AuthenticatedUser("umadmin"));
+    }
+
+    @After
+    public void cleanUp() {
+        AuthenticationContextHolder.clearCurrentUser();
+        entityQueryTaskExecutor.shutdown();
+    }
+
+    @Test
+    public void givenMultiRefToWhenParallelQueryThenShouldKeepDelegateOrder() {
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"s1\",\"subsys_design\":\"d1,d2,d3\"}]}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys_design")))
+                .andExpect(jsonPath("$.criteria.condition").value("d1"))
+                .andRespond(delayedSuccess(200, "{\"status\":\"OK\",\"data\":[{\"id\":\"d1\",\"key_name\":\"K1\"}]}"));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys_design")))
+                .andExpect(jsonPath("$.criteria.condition").value("d2"))
+                .andRespond(delayedSuccess(0, "{\"status\":\"OK\",\"data\":[{\"id\":\"d2\",\"key_name\":\"K2\"}]}"));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys_design")))
+                .andExpect(jsonPath("$.criteria.condition").value("d3"))
+                .andRespond(delayedSuccess(0, "{\"status\":\"OK\",\"data\":[{\"id\":\"d3\",\"key_name\":\"K3\"}]}"));
+
+        List<Object> result = executor.executeQueryLeafAttributes(
+                buildContext("wecmdb:subsys.subsys_design>wecmdb:subsys_design.key_name", "s1"));
+
+        Assert.assertEquals(Arrays.asList("K1", "K2", "K3"), result);
+        Assert.assertEquals(1, requestUsernames.size());
+        Assert.assertTrue(requestUsernames.contains("umadmin"));
+        server.verify();
+    }
+
+    @Test(expected = EntityOperationException.class)
+    public void givenOneQueryFailedWhenParallelQueryThenShouldThrowException() {
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"s1\",\"subsys_design\":\"d1,d2\"}]}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys_design")))
+                .andExpect(jsonPath("$.criteria.condition").value("d1"))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"d1\",\"key_name\":\"K1\"}]}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys_design")))
+                .andExpect(jsonPath("$.criteria.condition").value("d2"))
+                .andRespond(withSuccess("{\"status\":\"ERROR\",\"message\":\"failed\"}", MediaType.APPLICATION_JSON));
+
+        executor.executeQueryLeafAttributes(
+                buildContext("wecmdb:subsys.subsys_design>wecmdb:subsys_design.key_name", "s1"));
+    }
+
+    private ResponseCreator delayedSuccess(long delayMillis, String body) {
+        return request -> {
+            requestUsernames.add(AuthenticationContextHolder.getCurrentUsername());
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return withSuccess(body, MediaType.APPLICATION_JSON).createResponse(request);
+        };
+    }
+
+    private EntityOperationContext buildContext(String expr, String rootId) {
+        List<EntityQueryExprNodeInfo> exprNodeInfos = parser.parse(expr);
+
+        EntityOperationContext ctx = new EntityOperationContext();
+        ctx.setEntityQueryExprNodeInfos(exprNodeInfos);
+        ctx.setOriginalEntityLinkExpression(expr);
+        ctx.setOriginalEntityData(rootId);
+        ctx.setStandardEntityOperationRestClient(new StandardEntityOperationRestClient(restTemplate));
+        ctx.setHeadEntityQueryLinkNode(executor.buildEntityQueryLinkNode(exprNodeInfos));
+        ctx.setEntityDataRouteFactory(entityDataRouteFactory);
+        ctx.setEntityOperationType(EntityOperationType.QUERY);
+        return ctx;
+    }
+
+    private String queryUrl(String entityName) {
+        return String.format("http://%s/wecmdb/entities/%s/query", GATEWAY_URL, entityName);
+    }
+}
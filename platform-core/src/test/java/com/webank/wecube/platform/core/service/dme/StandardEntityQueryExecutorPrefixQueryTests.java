@@ -0,0 +1,127 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+
+public class StandardEntityQueryExecutorPrefixQueryTests {
+    private static final String GATEWAY_URL = "localhost:9999";
+
+    private StandardEntityQueryExecutor executor;
+    private EntityDataRouteFactory entityDataRouteFactory;
+    private EntityQueryExpressionParser parser = new EntityQueryExpressionParser();
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+
+    @Before
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setGatewayUrl(GATEWAY_URL);
+
+        executor = new StandardEntityQueryExecutor();
+
+        entityDataRouteFactory = new EntityDataRouteFactory();
+        ReflectionTestUtils.setField(entityDataRouteFactory, "applicationProperties", applicationProperties);
+
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    @Test
+    public void givenExpressionsWithSharedPrefixWhenQueryThenShouldQuerySharedNodesOnce() {
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys")))
+                .andExpect(jsonPath("$.criteria.condition").value("s1"))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"s1\",\"key_name\":\"S1\","
+                        + "\"subsys_design\":\"d1,d2\"}]}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys_design")))
+                .andExpect(jsonPath("$.criteria.condition").value("d1"))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"d1\",\"key_name\":\"K1\","
+                        + "\"name\":\"N1\"}]}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys_design")))
+                .andExpect(jsonPath("$.criteria.condition").value("d2"))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"d2\",\"key_name\":\"K2\","
+                        + "\"name\":\"N2\"}]}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("unit")))
+                .andExpect(jsonPath("$.criteria.attrName").value("subsys"))
+                .andExpect(jsonPath("$.criteria.condition").value("s1"))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"u1\",\"subsys\":\"s1\","
+                        + "\"key_name\":\"U1\"},{\"id\":\"u2\",\"subsys\":\"s1\",\"key_name\":\"U2\"}]}",
+                        MediaType.APPLICATION_JSON));
+
+        String designKeyExpr = "wecmdb:subsys.subsys_design>wecmdb:subsys_design.key_name";
+        String designNameExpr = "wecmdb:subsys.subsys_design>wecmdb:subsys_design.name";
+        String subsysKeyExpr = "wecmdb:subsys.key_name";
+        String unitKeyExpr = "wecmdb:subsys~(subsys)wecmdb:unit.key_name";
+
+        Map<String, List<Object>> result = executor.executeQueryLeafAttributes(buildContext("s1"),
+                parse(designKeyExpr, designNameExpr, subsysKeyExpr, unitKeyExpr));
+
+        Assert.assertEquals(Arrays.asList("K1", "K2"), result.get(designKeyExpr));
+        Assert.assertEquals(Arrays.asList("N1", "N2"), result.get(designNameExpr));
+        Assert.assertEquals(Arrays.asList("S1"), result.get(subsysKeyExpr));
+        Assert.assertEquals(Arrays.asList("U1", "U2"), result.get(unitKeyExpr));
+        server.verify();
+    }
+
+    @Test
+    public void givenDifferentReferenceAttributesWhenQueryThenShouldFollowEachReference() {
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("subsys")))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"s1\",\"owner\":\"p1\","
+                        + "\"maintainer\":\"p2\"}]}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("person")))
+                .andExpect(jsonPath("$.criteria.condition").value("p1"))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"p1\",\"name\":\"Alice\"}]}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(queryUrl("person")))
+                .andExpect(jsonPath("$.criteria.condition").value("p2"))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"p2\",\"name\":\"Bob\"}]}",
+                        MediaType.APPLICATION_JSON));
+
+        String ownerExpr = "wecmdb:subsys.owner>wecmdb:person.name";
+        String maintainerExpr = "wecmdb:subsys.maintainer>wecmdb:person.name";
+
+        Map<String, List<Object>> result = executor.executeQueryLeafAttributes(buildContext("s1"),
+                parse(ownerExpr, maintainerExpr));
+
+        Assert.assertEquals(Arrays.asList("Alice"), result.get(ownerExpr));
+        Assert.assertEquals(Arrays.asList("Bob"), result.get(maintainerExpr));
+        server.verify();
+    }
+
+    private Map<String, List<EntityQueryExprNodeInfo>> parse(String... exprs) {
+        Map<String, List<EntityQueryExprNodeInfo>> exprNodeInfosByExpr = new LinkedHashMap<>();
+        for (String expr : exprs) {
+            exprNodeInfosByExpr.put(expr, parser.parse(expr));
+        }
+        return exprNodeInfosByExpr;
+    }
+
+    private EntityOperationContext buildContext(String rootId) {
+        EntityOperationContext ctx = new EntityOperationContext();
+        ctx.setOriginalEntityData(rootId);
+        ctx.setStandardEntityOperationRestClient(new StandardEntityOperationRestClient(restTemplate));
+        ctx.setEntityDataRouteFactory(entityDataRouteFactory);
+        ctx.setEntityOperationType(EntityOperationType.QUERY);
+        return ctx;
+    }
+
+    private String queryUrl(String entityName) {
+        return String.format("http://%s/wecmdb/entities/%s/query", GATEWAY_URL, entityName);
+    }
+}
@@ -0,0 +1,132 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+
+public class StandardEntityQueryExecutorTreeNodeTests {
+    private StandardEntityQueryExecutor executor = new StandardEntityQueryExecutor();
+    private EntityQueryExpressionParser parser = new EntityQueryExpressionParser();
+
+    @Test
+    public void givenSharedReferencesWhenGenerateTreeThenShouldMergeDuplicatedNodes() {
+        EntityOperationContext ctx = buildContext("wecmdb:subsys.subsys_design>wecmdb:subsys_design");
+        EntityQueryLinkNode headLinkNode = ctx.getHeadEntityQueryLinkNode();
+        EntityQueryLinkNode tailLinkNode = headLinkNode.getSucceedingNode();
+
+        EntityDataDelegate s1 = delegate("subsys", "s1", null);
+        EntityDataDelegate s2 = delegate("subsys", "s2", null);
+        headLinkNode.addEntityDataDelegates(s1, s2);
+        tailLinkNode.addEntityDataDelegates(delegate("subsys_design", "d1", s1), delegate("subsys_design", "d1", s2),
+                delegate("subsys_design", "d2", s2));
+
+        List<TreeNode> treeNodes = executor.generateHierarchicalEntityTreeNodes(ctx);
+
+        Assert.assertEquals(4, treeNodes.size());
+        Assert.assertEquals(Arrays.asList("s1", "d1", "s2", "d2"),
+                Arrays.asList(treeNodes.get(0).getRootId(), treeNodes.get(1).getRootId(),
+                        treeNodes.get(2).getRootId(), treeNodes.get(3).getRootId()));
+        Assert.assertEquals(1, treeNodes.get(0).getChildren().size());
+        Assert.assertEquals(2, treeNodes.get(2).getChildren().size());
+        Assert.assertSame(treeNodes.get(1), treeNodes.get(2).getChildren().get(0));
+        Assert.assertSame(treeNodes.get(2), treeNodes.get(1).getParent());
+    }
+
+    @Test
+    public void givenLargeLinkNodesWhenGenerateTreeThenShouldIndexAllNodes() {
+        int rootSize = 100;
+        int childSize = 500;
+        EntityOperationContext ctx = buildContext("wecmdb:subsys~(subsys)wecmdb:unit");
+        EntityQueryLinkNode headLinkNode = ctx.getHeadEntityQueryLinkNode();
+        EntityQueryLinkNode tailLinkNode = headLinkNode.getSucceedingNode();
+
+        for (int i = 0; i < rootSize; i++) {
+            EntityDataDelegate root = delegate("subsys", "s" + i, null);
+            headLinkNode.addEntityDataDelegates(root);
+            for (int j = 0; j < childSize; j++) {
+                tailLinkNode.addEntityDataDelegates(delegate("unit", "u" + i + "-" + j, root));
+            }
+        }
+
+        List<TreeNode> treeNodes = executor.generateHierarchicalEntityTreeNodes(ctx);
+
+        Assert.assertEquals(rootSize * (childSize + 1), treeNodes.size());
+        for (TreeNode treeNode : treeNodes) {
+            if ("subsys".equals(treeNode.getEntityName())) {
+                Assert.assertEquals(childSize, treeNode.getChildren().size());
+            } else {
+                Assert.assertEquals("subsys", treeNode.getParent().getEntityName());
+            }
+        }
+    }
+
+    @Test
+    public void givenMultiLevelExpressionWhenStreamPreviewTreeThenShouldEmitEachLevelAndReleaseFormerLevel() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setGatewayUrl("localhost:9999");
+        EntityDataRouteFactory entityDataRouteFactory = new EntityDataRouteFactory();
+        ReflectionTestUtils.setField(entityDataRouteFactory, "applicationProperties", applicationProperties);
+
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(ExpectedCount.once(), requestTo("http://localhost:9999/wecmdb/entities/subsys/query"))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"s1\",\"displayName\":\"S1\"}]}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo("http://localhost:9999/wecmdb/entities/unit/query"))
+                .andRespond(withSuccess("{\"status\":\"OK\",\"data\":[{\"id\":\"u1\",\"subsys\":\"s1\"},"
+                        + "{\"id\":\"u2\",\"subsys\":\"s1\"}]}", MediaType.APPLICATION_JSON));
+
+        EntityOperationContext ctx = buildContext("wecmdb:subsys~(subsys)wecmdb:unit");
+        ctx.setOriginalEntityData("s1");
+        ctx.setEntityDataRouteFactory(entityDataRouteFactory);
+        ctx.setStandardEntityOperationRestClient(new StandardEntityOperationRestClient(restTemplate));
+
+        List<List<TreeNode>> levels = new ArrayList<>();
+        executor.generatePreviewTree(ctx, levels::add);
+
+        Assert.assertEquals(2, levels.size());
+        Assert.assertEquals(1, levels.get(0).size());
+        Assert.assertEquals("S1", levels.get(0).get(0).getDisplayName());
+        Assert.assertNull(levels.get(0).get(0).getParent());
+        Assert.assertEquals(2, levels.get(1).size());
+        for (TreeNode treeNode : levels.get(1)) {
+            Assert.assertEquals("s1", treeNode.getParent().getRootId());
+        }
+        Assert.assertTrue(ctx.getHeadEntityQueryLinkNode().getEntityDataDelegates().isEmpty());
+        server.verify();
+    }
+
+    private EntityDataDelegate delegate(String entityName, String id, EntityDataDelegate previousEntity) {
+        EntityDataDelegate delegate = new EntityDataDelegate();
+        delegate.setPackageName("wecmdb");
+        delegate.setEntityName(entityName);
+        delegate.setId(id);
+        delegate.setDisplayName(id);
+        delegate.setPreviousEntity(previousEntity);
+        return delegate;
+    }
+
+    private EntityOperationContext buildContext(String expr) {
+        List<EntityQueryExprNodeInfo> exprNodeInfos = parser.parse(expr);
+
+        EntityOperationContext ctx = new EntityOperationContext();
+        ctx.setEntityQueryExprNodeInfos(exprNodeInfos);
+        ctx.setOriginalEntityLinkExpression(expr);
+        ctx.setHeadEntityQueryLinkNode(executor.buildEntityQueryLinkNode(exprNodeInfos));
+        ctx.setEntityOperationType(EntityOperationType.QUERY);
+        return ctx;
+    }
+}
@@ -0,0 +1,155 @@
+package com.webank.wecube.platform.core.service.plugin;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PluginInstanceRegistryMockTest {
+    private static final String PLUGIN_NAME = "wecmdb";
+
+    @Mock
+    private PluginInstanceService pluginInstanceService;
+    @InjectMocks
+    private PluginInstanceRegistry registry = new PluginInstanceRegistry();
+
+    private PluginInstance instance1 = instance("1", "10.0.0.1");
+    private PluginInstance instance2 = instance("2", "10.0.0.2");
+
+    @Test
+    public void givenRoundRobinWhenAcquireThenShouldSpreadRequestsAndCacheInstances() {
+        init("round-robin");
+        when(pluginInstanceService.getRunningPluginInstances(PLUGIN_NAME))
+                .thenReturn(Arrays.asList(instance1, instance2));
+
+        Map<String, Integer> counts = acquireAndRelease(100);
+
+        Assert.assertEquals(Integer.valueOf(50), counts.get("1"));
+        Assert.assertEquals(Integer.valueOf(50), counts.get("2"));
+        verify(pluginInstanceService, times(1)).getRunningPluginInstances(PLUGIN_NAME);
+    }
+
+    @Test
+    public void givenLeastOutstandingWhenAcquireThenShouldPreferIdleInstance() {
+        init("least-outstanding");
+        when(pluginInstanceService.getRunningPluginInstances(PLUGIN_NAME))
+                .thenReturn(Arrays.asList(instance1, instance2));
+
+        PluginInstance busyInstance = registry.acquire(PLUGIN_NAME);
+        for (int i = 0; i < 10; i++) {
+            PluginInstance instance = registry.acquire(PLUGIN_NAME);
+            Assert.assertNotEquals(busyInstance.getId(), instance.getId());
+            registry.release(instance, true);
+        }
+    }
+
+    @Test
+    public void givenWeightedWhenAcquireThenShouldFollowWeights() {
+        PluginInvocationProperties properties = init("weighted");
+        properties.getInstanceWeights().put("10.0.0.1:20000", 3);
+        when(pluginInstanceService.getRunningPluginInstances(PLUGIN_NAME))
+                .thenReturn(Arrays.asList(instance1, instance2));
+
+        Map<String, Integer> counts = acquireAndRelease(100);
+
+        Assert.assertEquals(Integer.valueOf(75), counts.get("1"));
+        Assert.assertEquals(Integer.valueOf(25), counts.get("2"));
+    }
+
+    @Test
+    public void givenConsecutiveFailuresWhenAcquireThenShouldEjectFailingInstance() {
+        init("round-robin");
+        when(pluginInstanceService.getRunningPluginInstances(PLUGIN_NAME))
+                .thenReturn(Arrays.asList(instance1, instance2));
+
+        int failures = 0;
+        while (failures < 3) {
+            PluginInstance instance = registry.acquire(PLUGIN_NAME);
+            boolean success = !instance1.getId().equals(instance.getId());
+            if (!success) {
+                failures++;
+            }
+            registry.release(instance, success);
+        }
+
+        Map<String, Integer> counts = acquireAndRelease(10);
+        Assert.assertNull(counts.get("1"));
+        Assert.assertEquals(Integer.valueOf(10), counts.get("2"));
+    }
+
+    @Test
+    public void givenUnsentRequestsWhenReleaseThenShouldNotResetConsecutiveFailures() {
+        init("least-outstanding");
+        when(pluginInstanceService.getRunningPluginInstances(PLUGIN_NAME)).thenReturn(Arrays.asList(instance1));
+
+        for (int i = 0; i < 3; i++) {
+            registry.release(registry.acquire(PLUGIN_NAME), false);
+            registry.release(registry.acquire(PLUGIN_NAME));
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> instanceMetrics = (Map<String, Map<String, Object>>) registry.getMetrics()
+                .get("instances");
+        Assert.assertEquals(true, instanceMetrics.get("1").get("ejected"));
+        Assert.assertEquals(0, instanceMetrics.get("1").get("inFlight"));
+        Assert.assertEquals(3L, instanceMetrics.get("1").get("failureCount"));
+    }
+
+    @Test
+    public void givenInvalidatedWhenAcquireThenShouldReloadInstances() {
+        init("round-robin");
+        when(pluginInstanceService.getRunningPluginInstances(PLUGIN_NAME)).thenReturn(Arrays.asList(instance1),
+                Arrays.asList(instance2));
+
+        Assert.assertEquals("1", registry.acquire(PLUGIN_NAME).getId());
+        registry.invalidate(PLUGIN_NAME);
+        Assert.assertEquals("2", registry.acquire(PLUGIN_NAME).getId());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> instanceMetrics = (Map<String, Object>) registry.getMetrics().get("instances");
+        Assert.assertEquals(1, instanceMetrics.size());
+        Assert.assertTrue(instanceMetrics.containsKey("2"));
+    }
+
+    private PluginInvocationProperties init(String strategy) {
+        PluginInvocationProperties properties = new ApplicationProperties().new PluginInvocationProperties();
+        properties.setInstanceSelectionStrategy(strategy);
+        ReflectionTestUtils.setField(registry, "pluginInvocationProperties", properties);
+        registry.init();
+        return properties;
+    }
+
+    private Map<String, Integer> acquireAndRelease(int times) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            PluginInstance instance = registry.acquire(PLUGIN_NAME);
+            counts.merge(instance.getId(), 1, Integer::sum);
+            registry.release(instance, true);
+        }
+        return counts;
+    }
+
+    private PluginInstance instance(String id, String host) {
+        PluginInstance instance = new PluginInstance();
+        instance.setId(id);
+        instance.setHost(host);
+        instance.setPort(20000);
+        return instance;
+    }
+}
@@ -0,0 +1,212 @@
+package com.webank.wecube.platform.core.service.plugin;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Sets;
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.ResourceProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.domain.ResourceServer;
+import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
+import com.webank.wecube.platform.core.domain.plugin.PluginPackage;
+import com.webank.wecube.platform.core.domain.plugin.PluginPackageRuntimeResourcesDocker;
+import com.webank.wecube.platform.core.dto.PluginInstanceHostDto;
+import com.webank.wecube.platform.core.dto.PluginInstanceHostLaunchDto;
+import com.webank.wecube.platform.core.dto.PluginInstanceLaunchProgressDto;
+import com.webank.wecube.platform.core.dto.QueryRequest;
+import com.webank.wecube.platform.core.dto.QueryResponse;
+import com.webank.wecube.platform.core.dto.ResourceItemDto;
+import com.webank.wecube.platform.core.dto.ResourceServerDto;
+import com.webank.wecube.platform.core.jpa.PluginInstanceRepository;
+import com.webank.wecube.platform.core.jpa.PluginPackageRepository;
+import com.webank.wecube.platform.core.jpa.ResourceServerRepository;
+import com.webank.wecube.platform.core.service.CommandService;
+import com.webank.wecube.platform.core.service.ScpService;
+import com.webank.wecube.platform.core.service.SystemVariableService;
+import com.webank.wecube.platform.core.service.resource.ResourceManagementService;
+import com.webank.wecube.platform.core.support.S3Client;
+import com.webank.wecube.platform.core.support.gateway.GatewayResponse;
+import com.webank.wecube.platform.core.support.gateway.GatewayServiceStub;
+import com.webank.wecube.platform.core.utils.EncryptionUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PluginInstanceServiceMockTest {
+    private static final String PACKAGE_ID = "wecmdb__v1.0";
+    private static final String PASSWORD_SEED = "seed";
+
+    @Mock
+    private PluginPackageRepository pluginPackageRepository;
+    @Mock
+    private PluginInstanceRepository pluginInstanceRepository;
+    @Mock
+    private ResourceServerRepository resourceServerRepository;
+    @Mock
+    private ResourceManagementService resourceManagementService;
+    @Mock
+    private SystemVariableService systemVariableService;
+    @Mock
+    private S3Client s3Client;
+    @Mock
+    private ScpService scpService;
+    @Mock
+    private CommandService commandService;
+    @Mock
+    private GatewayServiceStub gatewayServiceStub;
+    @Mock
+    private PluginInstanceRegistry pluginInstanceRegistry;
+    @InjectMocks
+    private PluginInstanceService pluginInstanceService = new PluginInstanceService();
+
+    private List<String> hostIps = Arrays.asList("10.0.0.1", "10.0.0.2", "10.0.0.3");
+
+    @Before
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        PluginProperties pluginProperties = applicationProperties.new PluginProperties();
+        ResourceProperties resourceProperties = applicationProperties.new ResourceProperties();
+        resourceProperties.setPasswordEncryptionSeed(PASSWORD_SEED);
+        ReflectionTestUtils.setField(pluginInstanceService, "pluginProperties", pluginProperties);
+        ReflectionTestUtils.setField(pluginInstanceService, "resourceProperties", resourceProperties);
+        pluginInstanceService.init();
+    }
+
+    @After
+    public void tearDown() {
+        pluginInstanceService.shutdown();
+    }
+
+    @Test
+    public void givenSeveralHostsWhenLaunchThenShouldLaunchEachHostAndRollBackFailedOnes() throws Exception {
+        PluginPackage pluginPackage = new PluginPackage(PACKAGE_ID, "wecmdb", "v1.0", PluginPackage.Status.REGISTERED,
+                new Timestamp(System.currentTimeMillis()), false);
+        pluginPackage.setPluginPackageRuntimeResourcesDocker(Sets.newHashSet(new PluginPackageRuntimeResourcesDocker(
+                "docker-1", pluginPackage, "wecmdb:v1.0", "wecmdb", "{{ALLOCATE_PORT}}:8080", "", "")));
+        when(pluginPackageRepository.findById(PACKAGE_ID)).thenReturn(java.util.Optional.of(pluginPackage));
+        when(resourceManagementService.retrieveServers(any(QueryRequest.class))).thenAnswer(invocation -> {
+            List<ResourceServerDto> servers = new ArrayList<>();
+            for (String hostIp : hostIps) {
+                ResourceServerDto server = new ResourceServerDto();
+                server.setHost(hostIp);
+                servers.add(server);
+            }
+            return new QueryResponse<>(null, servers);
+        });
+        when(systemVariableService.variableReplacement(any(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        for (String hostIp : hostIps) {
+            when(resourceServerRepository.findByHostAndType(eq(hostIp), anyString()))
+                    .thenReturn(Arrays.asList(dockerServer(hostIp)));
+        }
+        doThrow(new WecubeCoreException("3223", "Run 'scp' command meet error")).when(scpService).put(eq("10.0.0.2"),
+                any(), any(), any(), any(), any());
+        when(resourceManagementService.createItems(any())).thenAnswer(invocation -> {
+            List<ResourceItemDto> items = invocation.getArgument(0);
+            items.get(0).setId("container-" + items.get(0).getResourceServerId());
+            return items;
+        });
+        when(pluginInstanceRepository.save(any(PluginInstance.class))).thenAnswer(invocation -> {
+            PluginInstance instance = invocation.getArgument(0);
+            if ("10.0.0.3".equals(instance.getHost())) {
+                throw new IllegalStateException("Duplicated plugin instance");
+            }
+            return instance;
+        });
+        GatewayResponse okResponse = new GatewayResponse();
+        okResponse.setStatus(GatewayResponse.STATUS_CODE_OK);
+        when(gatewayServiceStub.registerRoute(any())).thenReturn(okResponse);
+
+        List<PluginInstanceHostDto> hosts = new ArrayList<>();
+        for (String hostIp : hostIps) {
+            hosts.add(new PluginInstanceHostDto(hostIp, 20000));
+        }
+        PluginInstanceLaunchProgressDto progress = pluginInstanceService.launchPluginInstances(PACKAGE_ID, hosts);
+        Assert.assertEquals(3, progress.getTotalHosts());
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!progress.isCompleted() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            progress = pluginInstanceService.getPluginInstanceLaunchProgress(progress.getLaunchId());
+        }
+
+        Assert.assertTrue(progress.isCompleted());
+        Assert.assertEquals(3, progress.getCompletedHosts());
+        Assert.assertEquals(2, progress.getFailedHosts());
+
+        PluginInstanceHostLaunchDto launched = progress.getHosts().get(0);
+        Assert.assertEquals(PluginInstanceHostLaunchDto.STAGE_RUNNING, launched.getStage());
+
+        PluginInstanceHostLaunchDto transferFailed = progress.getHosts().get(1);
+        Assert.assertEquals(PluginInstanceHostLaunchDto.STAGE_FAILED, transferFailed.getStage());
+        Assert.assertFalse(transferFailed.isRolledBack());
+
+        PluginInstanceHostLaunchDto registerFailed = progress.getHosts().get(2);
+        Assert.assertEquals(PluginInstanceHostLaunchDto.STAGE_FAILED, registerFailed.getStage());
+        Assert.assertTrue(registerFailed.isRolledBack());
+
+        verify(s3Client, times(1)).downFile(anyString(), anyString(), anyString());
+        verify(commandService, never()).runAtRemote(eq("10.0.0.2"), any(), any(), any(), any());
+        verify(resourceManagementService, times(2)).createItems(any());
+        verify(resourceManagementService, times(1)).deleteItems(argThat(
+                items -> items.size() == 1 && "container-server-10.0.0.3".equals(items.get(0).getId())));
+        verify(gatewayServiceStub, times(1)).registerRoute(any());
+    }
+
+    @Test(expected = WecubeCoreException.class)
+    public void givenNoHostWhenLaunchThenShouldThrowException() throws Exception {
+        pluginInstanceService.launchPluginInstances(PACKAGE_ID, new ArrayList<>());
+    }
+
+    @Test
+    public void givenDuplicateHostWhenLaunchThenShouldThrowException() throws Exception {
+        List<PluginInstanceHostDto> hosts = Arrays.asList(new PluginInstanceHostDto("10.0.0.1", 20000),
+                new PluginInstanceHostDto("10.0.0.1", 20001));
+        try {
+            pluginInstanceService.launchPluginInstances(PACKAGE_ID, hosts);
+            Assert.fail("duplicate container host should be rejected");
+        } catch (WecubeCoreException e) {
+            Assert.assertEquals("3321", e.getErrorCode());
+        }
+        verify(pluginPackageRepository, never()).findById(anyString());
+    }
+
+    @Test(expected = WecubeCoreException.class)
+    public void givenUnknownLaunchIdWhenGetProgressThenShouldThrowException() {
+        pluginInstanceService.getPluginInstanceLaunchProgress("unknown");
+    }
+
+    private ResourceServer dockerServer(String hostIp) {
+        String name = "docker-" + hostIp;
+        ResourceServer server = new ResourceServer();
+        server.setId("server-" + hostIp);
+        server.setName(name);
+        server.setHost(hostIp);
+        server.setPort("22");
+        server.setLoginUsername("root");
+        server.setLoginPassword(EncryptionUtils.encryptWithAes("password", PASSWORD_SEED, name));
+        return server;
+    }
+}
@@ -0,0 +1,115 @@
+package com.webank.wecube.platform.core.service.resource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.ResourceProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.service.resource.PluginMysqlDataSourceCache.PluginMysqlDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+public class PluginMysqlDataSourceCacheTest {
+    private PluginMysqlDataSourceCache cache = new PluginMysqlDataSourceCache();
+
+    private AtomicInteger loadTimes = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        ResourceProperties resourceProperties = new ApplicationProperties().new ResourceProperties();
+        ReflectionTestUtils.setField(cache, "resourceProperties", resourceProperties);
+        cache.init();
+    }
+
+    @After
+    public void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    public void givenCachedDataSourceWhenBorrowThenShouldReuseUntilPackageInvalidated() {
+        PluginMysqlDataSource first = borrowAndRelease("wecmdb__v1", "wecmdb", "item-1");
+        PluginMysqlDataSource second = borrowAndRelease("wecmdb__v1", "wecmdb", "item-1");
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, loadTimes.get());
+
+        cache.invalidatePackage("wecmdb");
+        Assert.assertTrue(first.getDataSource().isClosed());
+
+        PluginMysqlDataSource third = borrowAndRelease("wecmdb__v1", "wecmdb", "item-1");
+        Assert.assertNotSame(first, third);
+        Assert.assertEquals(2, loadTimes.get());
+    }
+
+    @Test
+    public void givenDeletedResourceItemWhenInvalidateThenShouldOnlyCloseItsDataSource() {
+        PluginMysqlDataSource cmdb = borrowAndRelease("wecmdb__v1", "wecmdb", "item-1");
+        PluginMysqlDataSource monitor = borrowAndRelease("monitor__v1", "monitor", "item-2");
+
+        cache.invalidateResourceItem("item-2");
+
+        Assert.assertFalse(cmdb.getDataSource().isClosed());
+        Assert.assertTrue(monitor.getDataSource().isClosed());
+    }
+
+    @Test
+    public void givenConnectionCheckedOutWhenEvictedThenShouldCloseAfterLastBorrowerReleases() throws Exception {
+        PluginMysqlDataSource dataSource = cache.borrowDataSource("wecmdb__v1", () -> loadH2("wecmdb", "item-1"));
+        PluginMysqlDataSource secondBorrow = cache.borrowDataSource("wecmdb__v1", () -> loadH2("wecmdb", "item-1"));
+        Assert.assertSame(dataSource, secondBorrow);
+
+        try (Connection connection = dataSource.getDataSource().getConnection()) {
+            cache.invalidatePackage("wecmdb");
+            Assert.assertFalse(dataSource.getDataSource().isClosed());
+
+            try (Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery("select 1")) {
+                Assert.assertTrue(rs.next());
+            }
+
+            secondBorrow.release();
+            Assert.assertFalse(dataSource.getDataSource().isClosed());
+        }
+        dataSource.release();
+        Assert.assertTrue(dataSource.getDataSource().isClosed());
+
+        PluginMysqlDataSource reloaded = cache.borrowDataSource("wecmdb__v1", () -> loadH2("wecmdb", "item-1"));
+        Assert.assertNotSame(dataSource, reloaded);
+        reloaded.release();
+    }
+
+    @Test(expected = WecubeCoreException.class)
+    public void givenLoaderFailedWhenBorrowThenShouldThrowWecubeCoreException() {
+        cache.borrowDataSource("wecmdb__v1", () -> {
+            throw new IllegalStateException("no mysql instance");
+        });
+    }
+
+    private PluginMysqlDataSource borrowAndRelease(String packageId, String packageName, String resourceItemId) {
+        PluginMysqlDataSource dataSource = cache.borrowDataSource(packageId, () -> load(packageName, resourceItemId));
+        dataSource.release();
+        return dataSource;
+    }
+
+    private PluginMysqlDataSource loadH2(String packageName, String resourceItemId) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + packageName + ";DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(2);
+        return new PluginMysqlDataSource(packageName, resourceItemId, new HikariDataSource(config));
+    }
+
+    private PluginMysqlDataSource load(String packageName, String resourceItemId) {
+        loadTimes.incrementAndGet();
+        return cache.newPluginMysqlDataSource(packageName, resourceItemId, "127.0.0.1", "3306", "user", "password",
+                packageName);
+    }
+}
@@ -0,0 +1,44 @@
+package com.webank.wecube.platform.core.service.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+
+public class ResourceDataExportWriterTest {
+
+    @Test
+    public void givenSpecialCharactersWhenWriteCsvThenShouldQuoteFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResourceDataExportWriter writer = ResourceDataExportWriter.newWriter("csv", out)) {
+            writer.writeHeaders(Arrays.asList("guid", "description"));
+            writer.writeRow(Arrays.asList("0001", "say \"hi\", world"));
+            writer.writeRow(Arrays.asList("0002", null));
+        }
+
+        Assert.assertEquals("guid,description\r\n0001,\"say \"\"hi\"\", world\"\r\n0002,\r\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void givenRowsWhenWriteNdjsonThenShouldWriteOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResourceDataExportWriter writer = ResourceDataExportWriter.newWriter("ndjson", out)) {
+            writer.writeHeaders(Arrays.asList("guid", "description"));
+            writer.writeRow(Arrays.asList("0001", "line1\nline2"));
+            writer.writeRow(Arrays.asList("0002", null));
+        }
+
+        Assert.assertEquals("{\"guid\":\"0001\",\"description\":\"line1\\nline2\"}\n"
+                + "{\"guid\":\"0002\",\"description\":null}\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = WecubeCoreException.class)
+    public void givenUnsupportedFormatWhenGetContentTypeThenShouldThrowException() {
+        ResourceDataExportWriter.getContentType("xlsx");
+    }
+}
@@ -0,0 +1,84 @@
+package com.webank.wecube.platform.core.service.resource;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.webank.wecube.platform.core.domain.ResourceItem;
+import com.webank.wecube.platform.core.domain.ResourceServer;
+import com.webank.wecube.platform.core.dto.ResourceServerDto;
+import com.webank.wecube.platform.core.jpa.ResourceServerRepository;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ResourceManagementServiceMockTest {
+    @Mock
+    private ResourceServerRepository resourceServerRepository;
+    @Mock
+    private PluginMysqlDataSourceCache pluginMysqlDataSourceCache;
+    @InjectMocks
+    private ResourceManagementService resourceManagementService;
+
+    private ResourceServer mysqlServer = new ResourceServer();
+
+    @Before
+    public void setUp() {
+        ResourceItem item1 = new ResourceItem();
+        item1.setId("item-1");
+        ResourceItem item2 = new ResourceItem();
+        item2.setId("item-2");
+
+        mysqlServer.setId("server-1");
+        mysqlServer.setName("mysql-1");
+        mysqlServer.setHost("10.0.0.1");
+        mysqlServer.setPort("3306");
+        mysqlServer.setType(ResourceServerType.MYSQL.getCode());
+        mysqlServer.setResourceItems(Arrays.asList(item1, item2));
+
+        when(resourceServerRepository.findById("server-1")).thenReturn(Optional.of(mysqlServer));
+        when(resourceServerRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    public void givenMysqlServerHostChangedWhenUpdateThenShouldInvalidateDataSourcesOfItsItems() {
+        ResourceServerDto dto = newServerDto();
+        dto.setHost("10.0.0.2");
+
+        resourceManagementService.updateServers(Collections.singletonList(dto));
+
+        verify(pluginMysqlDataSourceCache).invalidateResourceItem("item-1");
+        verify(pluginMysqlDataSourceCache).invalidateResourceItem("item-2");
+    }
+
+    @Test
+    public void givenMysqlServerConnectionUnchangedWhenUpdateThenShouldKeepDataSources() {
+        ResourceServerDto dto = newServerDto();
+        dto.setName("mysql-renamed");
+        dto.setPort("3306");
+
+        List<ResourceServerDto> updated = resourceManagementService.updateServers(Collections.singletonList(dto));
+
+        verify(pluginMysqlDataSourceCache, never()).invalidateResourceItem(anyString());
+        Assert.assertEquals("mysql-renamed", updated.get(0).getName());
+    }
+
+    private ResourceServerDto newServerDto() {
+        ResourceServerDto dto = new ResourceServerDto();
+        dto.setId("server-1");
+        return dto;
+    }
+}
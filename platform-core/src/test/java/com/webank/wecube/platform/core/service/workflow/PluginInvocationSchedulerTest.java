@@ -0,0 +1,217 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+
+public class PluginInvocationSchedulerTest {
+    private PluginInvocationScheduler scheduler = new PluginInvocationScheduler();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void givenSlowPackageWhenSubmitThenShouldLimitConcurrencyOfPackageOnly() throws Exception {
+        init(2, 10, "abort");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch finished = new CountDownLatch(6);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.submit("slow", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                await(release);
+                running.decrementAndGet();
+                finished.countDown();
+            });
+        }
+
+        CountDownLatch fastFinished = new CountDownLatch(1);
+        scheduler.submit("fast", () -> {
+            fastFinished.countDown();
+            finished.countDown();
+        });
+        Assert.assertTrue(fastFinished.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Map<String, Object> slowMetrics = getPackageMetrics("slow");
+        Assert.assertEquals(2, slowMetrics.get("active"));
+        Assert.assertEquals(3, slowMetrics.get("pending"));
+
+        release.countDown();
+        Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void givenPackageQueueFullWhenSubmitThenShouldRejectWithAbortPolicy() throws Exception {
+        init(1, 1, "abort");
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit("slow", () -> await(release));
+        scheduler.submit("slow", () -> await(release));
+
+        try {
+            scheduler.submit("slow", () -> {
+            });
+            Assert.fail("should be rejected");
+        } catch (RejectedExecutionException e) {
+            Assert.assertEquals(1L, getPackageMetrics("slow").get("rejectedCount"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void givenPackageQueueFullWhenSubmitThenShouldRunOnCallerWithCallerRunsPolicy() throws Exception {
+        init(1, 1, "caller-runs");
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit("slow", () -> await(release));
+        scheduler.submit("slow", () -> await(release));
+
+        Thread caller = Thread.currentThread();
+        AtomicInteger ranOnCaller = new AtomicInteger();
+        scheduler.submit("slow", () -> {
+            if (Thread.currentThread() == caller) {
+                ranOnCaller.incrementAndGet();
+            }
+        });
+        release.countDown();
+
+        Assert.assertEquals(1, ranOnCaller.get());
+        Assert.assertEquals(1L, scheduler.getMetrics().get("callerRunsCount"));
+    }
+
+    @Test
+    public void givenPackageQueueFullWhenCallerRunsTaskFailsThenShouldRecordItLikePoolTasks() throws Exception {
+        init(1, 1, "caller-runs");
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit("slow", () -> await(release));
+        scheduler.submit("slow", () -> await(release));
+
+        try {
+            scheduler.submit("slow", () -> {
+                throw new IllegalStateException("broken invocation");
+            });
+            Assert.assertEquals(1L, getPackageMetrics("slow").get("completedCount"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void givenPoolFullWhenSubmitThenShouldRunOnlyRejectedTaskOnCaller() throws Exception {
+        PluginInvocationProperties properties = newProperties(2, 10, "caller-runs");
+        properties.setInvocationCorePoolSize(1);
+        properties.setInvocationMaxPoolSize(1);
+        init(properties);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit("slow", () -> {
+            started.countDown();
+            await(release);
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Thread caller = Thread.currentThread();
+        AtomicInteger ranOnCaller = new AtomicInteger();
+        scheduler.submit("fast", () -> {
+            if (Thread.currentThread() == caller) {
+                ranOnCaller.incrementAndGet();
+            }
+        });
+        release.countDown();
+
+        Assert.assertEquals(1, ranOnCaller.get());
+        Assert.assertEquals(0, getPackageMetrics("fast").get("active"));
+        Assert.assertEquals(1L, getPackageMetrics("fast").get("rejectedCount"));
+    }
+
+    @Test
+    public void givenPoolFullWhenSubmitThenShouldRejectAndReleaseSlotWithAbortPolicy() throws Exception {
+        PluginInvocationProperties properties = newProperties(1, 10, "abort");
+        properties.setInvocationCorePoolSize(1);
+        properties.setInvocationMaxPoolSize(1);
+        init(properties);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit("slow", () -> {
+            started.countDown();
+            await(release);
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        try {
+            scheduler.submit("fast", () -> {
+            });
+            Assert.fail("should be rejected");
+        } catch (RejectedExecutionException e) {
+            Assert.assertEquals(0, getPackageMetrics("fast").get("active"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void givenPackageQueueFullWhenTrySubmitThenShouldReturnFalseWithoutRunningOnCaller() throws Exception {
+        init(1, 1, "caller-runs");
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit("slow", () -> await(release));
+        scheduler.submit("slow", () -> await(release));
+
+        AtomicInteger ran = new AtomicInteger();
+        try {
+            Assert.assertFalse(scheduler.trySubmit("slow", 1, ran::incrementAndGet));
+            Assert.assertEquals(0, ran.get());
+            Assert.assertEquals(0L, scheduler.getMetrics().get("callerRunsCount"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private void init(int maxConcurrencyPerPackage, int queueCapacity, String rejectionPolicy) {
+        init(newProperties(maxConcurrencyPerPackage, queueCapacity, rejectionPolicy));
+    }
+
+    private void init(PluginInvocationProperties properties) {
+        ReflectionTestUtils.setField(scheduler, "pluginInvocationProperties", properties);
+        scheduler.init();
+    }
+
+    private PluginInvocationProperties newProperties(int maxConcurrencyPerPackage, int queueCapacity,
+            String rejectionPolicy) {
+        PluginInvocationProperties properties = new ApplicationProperties().new PluginInvocationProperties();
+        properties.setInvocationMaxConcurrencyPerPackage(maxConcurrencyPerPackage);
+        properties.setInvocationQueueCapacity(queueCapacity);
+        properties.setInvocationRejectionPolicy(rejectionPolicy);
+        return properties;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getPackageMetrics(String packageName) {
+        Map<String, Object> packageMetrics = (Map<String, Object>) scheduler.getMetrics().get("packages");
+        return (Map<String, Object>) packageMetrics.get(packageName);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProcInstInfoCorrelationRegistryMockTest {
+    private static final String KERNEL_ID = "kernel-1";
+
+    @Mock
+    private ProcInstInfoRepository procInstInfoRepository;
+    @InjectMocks
+    private ProcInstInfoCorrelationRegistry registry = new ProcInstInfoCorrelationRegistry();
+
+    @Test
+    public void givenEntityVisibleWhenFindThenShouldNotWait() {
+        ProcInstInfoEntity procInstEntity = new ProcInstInfoEntity();
+        when(procInstInfoRepository.findOneByProcInstKernelId(KERNEL_ID)).thenReturn(procInstEntity);
+
+        long startTime = System.currentTimeMillis();
+        Assert.assertSame(procInstEntity, registry.findProcInstInfoEntity(KERNEL_ID, 5000L));
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 5000L);
+        verify(procInstInfoRepository, times(1)).findOneByProcInstKernelId(KERNEL_ID);
+    }
+
+    @Test
+    public void givenEntityBoundLaterWhenFindThenShouldWakeUpOnBinding() throws Exception {
+        ProcInstInfoEntity procInstEntity = new ProcInstInfoEntity();
+        when(procInstInfoRepository.findOneByProcInstKernelId(KERNEL_ID)).thenReturn(null, procInstEntity);
+
+        CompletableFuture<ProcInstInfoEntity> result = CompletableFuture
+                .supplyAsync(() -> registry.findProcInstInfoEntity(KERNEL_ID, 60000L));
+        Thread.sleep(100L);
+        registry.bind(KERNEL_ID, 1);
+
+        Assert.assertSame(procInstEntity, result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void givenActiveTransactionWhenBindThenShouldNotifyAfterCommit() {
+        when(procInstInfoRepository.findOneByProcInstKernelId(KERNEL_ID)).thenReturn(null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registry.bind(KERNEL_ID, 1);
+            Assert.assertNull(registry.findProcInstInfoEntity(KERNEL_ID, 10L));
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager
+                    .getSynchronizations();
+            Assert.assertEquals(1, synchronizations.size());
+            synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        long startTime = System.currentTimeMillis();
+        registry.findProcInstInfoEntity(KERNEL_ID, 5000L);
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 5000L);
+    }
+}
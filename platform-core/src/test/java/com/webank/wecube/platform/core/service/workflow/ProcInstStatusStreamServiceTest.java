@@ -0,0 +1,172 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.StatusStreamProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstInfoDto;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
+
+public class ProcInstStatusStreamServiceTest {
+    private ProcInstStatusStreamService streamService = new ProcInstStatusStreamService() {
+        @Override
+        protected SseEmitter newEmitter(long timeoutMillis) {
+            return new CapturingSseEmitter();
+        }
+    };
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(streamService, "sender", MoreExecutors.newDirectExecutorService());
+    }
+
+    @Test
+    public void givenSeveralTransitionsInWindowWhenFlushThenShouldSendOneCoalescedEvent() {
+        CapturingSseEmitter emitter = (CapturingSseEmitter) streamService.subscribeProcInst(1);
+
+        streamService.publishTaskNodeStatus(nodeInst(11, 1, TaskNodeInstInfoEntity.IN_PROGRESS_STATUS));
+        streamService.publishTaskNodeStatus(nodeInst(11, 1, TaskNodeInstInfoEntity.COMPLETED_STATUS));
+        streamService.publishTaskNodeStatus(nodeInst(12, 1, TaskNodeInstInfoEntity.IN_PROGRESS_STATUS));
+        streamService.publishTaskNodeStatus(nodeInst(21, 2, TaskNodeInstInfoEntity.IN_PROGRESS_STATUS));
+        streamService.publishProcInstStatus(procInst(1, "proc-def-1", ProcInstInfoEntity.IN_PROGRESS_STATUS));
+        streamService.flush();
+
+        Assert.assertEquals(1, emitter.events.size());
+        ProcInstInfoDto event = emitter.events.get(0);
+        Assert.assertEquals(Integer.valueOf(1), event.getId());
+        Assert.assertEquals(ProcInstInfoEntity.IN_PROGRESS_STATUS, event.getStatus());
+        Assert.assertEquals(2, event.getTaskNodeInstances().size());
+        Assert.assertEquals(TaskNodeInstInfoEntity.COMPLETED_STATUS, event.getTaskNodeInstances().get(0).getStatus());
+
+        streamService.flush();
+        Assert.assertEquals(1, emitter.events.size());
+    }
+
+    @Test
+    public void givenListSubscriberWhenFlushThenShouldOnlySendPermittedProcessInstances() {
+        CapturingSseEmitter emitter = (CapturingSseEmitter) streamService
+                .subscribeProcInstList(new HashSet<>(Arrays.asList("proc-def-1")));
+
+        streamService.publishProcInstStatus(procInst(1, "proc-def-1", ProcInstInfoEntity.COMPLETED_STATUS));
+        streamService.publishProcInstStatus(procInst(2, "proc-def-2", ProcInstInfoEntity.COMPLETED_STATUS));
+        streamService.publishTaskNodeStatus(nodeInst(11, 1, TaskNodeInstInfoEntity.COMPLETED_STATUS));
+        streamService.flush();
+
+        Assert.assertEquals(1, emitter.events.size());
+        Assert.assertEquals(Integer.valueOf(1), emitter.events.get(0).getId());
+        Assert.assertNull(emitter.events.get(0).getTaskNodeInstances());
+    }
+
+    @Test(expected = WecubeCoreException.class)
+    public void givenSubscribersOverLimitWhenSubscribeThenShouldReject() {
+        StatusStreamProperties properties = new ApplicationProperties().new StatusStreamProperties();
+        properties.setMaxSubscribers(1);
+        ReflectionTestUtils.setField(streamService, "statusStreamProperties", properties);
+
+        streamService.subscribeProcInst(1);
+        streamService.subscribeProcInst(2);
+    }
+
+    @Test
+    public void givenSlowSubscriberWhenFlushThenShouldDropItWithoutDelayingOthers() throws Exception {
+        StatusStreamProperties properties = new ApplicationProperties().new StatusStreamProperties();
+        properties.setMaxPendingEventsPerSubscriber(2);
+        ReflectionTestUtils.setField(streamService, "statusStreamProperties", properties);
+        ExecutorService sender = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(streamService, "sender", sender);
+
+        try {
+            CapturingSseEmitter slowEmitter = (CapturingSseEmitter) streamService.subscribeProcInst(1);
+            CountDownLatch slowClient = new CountDownLatch(1);
+            slowEmitter.blocker = slowClient;
+            CapturingSseEmitter emitter = (CapturingSseEmitter) streamService.subscribeProcInst(1);
+
+            for (int i = 1; i <= 4; i++) {
+                int sent = i;
+                streamService.publishTaskNodeStatus(nodeInst(10 + i, 1, TaskNodeInstInfoEntity.COMPLETED_STATUS));
+                streamService.flush();
+                awaitTrue(() -> emitter.events.size() == sent);
+            }
+
+            Assert.assertEquals(1, streamService.getMetrics().get("subscribers"));
+            Assert.assertEquals(1L, streamService.getMetrics().get("droppedSubscribers"));
+            Assert.assertFalse(slowEmitter.completed);
+
+            slowClient.countDown();
+            awaitTrue(() -> slowEmitter.completed);
+            Assert.assertFalse(emitter.completed);
+        } finally {
+            sender.shutdownNow();
+        }
+    }
+
+    private void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        Assert.assertTrue(condition.getAsBoolean());
+    }
+
+    private ProcInstInfoEntity procInst(Integer id, String procDefId, String status) {
+        ProcInstInfoEntity procInst = new ProcInstInfoEntity();
+        procInst.setId(id);
+        procInst.setProcDefId(procDefId);
+        procInst.setStatus(status);
+        return procInst;
+    }
+
+    private TaskNodeInstInfoEntity nodeInst(Integer id, Integer procInstId, String status) {
+        TaskNodeInstInfoEntity nodeInst = new TaskNodeInstInfoEntity();
+        nodeInst.setId(id);
+        nodeInst.setProcInstId(procInstId);
+        nodeInst.setStatus(status);
+        return nodeInst;
+    }
+
+    private static class CapturingSseEmitter extends SseEmitter {
+        private final List<ProcInstInfoDto> events = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch blocker;
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (blocker != null) {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof ProcInstInfoDto) {
+                    events.add((ProcInstInfoDto) data.getData());
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            super.complete();
+        }
+    }
+}
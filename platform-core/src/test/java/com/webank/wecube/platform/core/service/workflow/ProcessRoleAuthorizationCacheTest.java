@@ -0,0 +1,64 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProcessRoleAuthorizationCacheTest {
+    private ProcessRoleAuthorizationCache cache = new ProcessRoleAuthorizationCache();
+
+    private AtomicInteger roleLoadTimes = new AtomicInteger();
+
+    private AtomicInteger procDefLoadTimes = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        cache.init();
+    }
+
+    @Test
+    public void givenCachedUserRolesWhenGetThenShouldNotLoadAgainUntilInvalidated() {
+        Assert.assertEquals(Arrays.asList("r1", "r2"), cache.getRoleIds("umadmin", this::loadRoleIds));
+        Assert.assertEquals(Arrays.asList("r1", "r2"), cache.getRoleIds("umadmin", this::loadRoleIds));
+        Assert.assertEquals(1, roleLoadTimes.get());
+
+        cache.invalidateUserRoles();
+        cache.getRoleIds("umadmin", this::loadRoleIds);
+        Assert.assertEquals(2, roleLoadTimes.get());
+    }
+
+    @Test
+    public void givenSameRoleSetInDifferentOrderWhenGetPermittedProcDefIdsThenShouldShareEntry() {
+        Set<String> procDefIds = cache.getPermittedProcDefIds(Arrays.asList("r1", "r2"), this::loadProcDefIds);
+        cache.getPermittedProcDefIds(Arrays.asList("r2", "r1"), this::loadProcDefIds);
+
+        Assert.assertTrue(procDefIds.contains("proc-1"));
+        Assert.assertEquals(1, procDefLoadTimes.get());
+
+        cache.invalidateProcRoleBindings();
+        cache.getPermittedProcDefIds(Arrays.asList("r1", "r2"), this::loadProcDefIds);
+        Assert.assertEquals(2, procDefLoadTimes.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void givenLoaderFailedWhenGetThenShouldRethrowTheCause() {
+        cache.getRoleIds("umadmin", () -> {
+            throw new IllegalStateException("auth server unavailable");
+        });
+    }
+
+    private List<String> loadRoleIds() {
+        roleLoadTimes.incrementAndGet();
+        return Arrays.asList("r1", "r2");
+    }
+
+    private List<String> loadProcDefIds() {
+        procDefLoadTimes.incrementAndGet();
+        return Arrays.asList("proc-1", "proc-2");
+    }
+}
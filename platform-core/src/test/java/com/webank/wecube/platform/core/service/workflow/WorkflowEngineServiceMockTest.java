@@ -0,0 +1,130 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.webank.wecube.platform.workflow.entity.ProcessInstanceStatusEntity;
+import com.webank.wecube.platform.workflow.entity.ServiceNodeStatusEntity;
+import com.webank.wecube.platform.workflow.model.ProcDefOutline;
+import com.webank.wecube.platform.workflow.model.ProcFlowNode;
+import com.webank.wecube.platform.workflow.model.ProcInstOutline;
+import com.webank.wecube.platform.workflow.model.TraceStatus;
+import com.webank.wecube.platform.workflow.repository.ProcessInstanceStatusRepository;
+import com.webank.wecube.platform.workflow.repository.ServiceNodeStatusRepository;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WorkflowEngineServiceMockTest {
+    private static final String PROC_DEF_ID = "proc-def-1";
+
+    @Mock
+    private ProcessInstanceStatusRepository processInstanceStatusRepository;
+    @Mock
+    private ServiceNodeStatusRepository serviceNodeStatusRepository;
+    @Mock
+    private RuntimeService runtimeService;
+
+    private AtomicInteger parseTimes = new AtomicInteger();
+
+    @InjectMocks
+    private WorkflowEngineService workflowEngineService = new WorkflowEngineService() {
+        @Override
+        protected ProcessDefinition getProcessDefinitionByProcId(String processDefinitionId) {
+            return PROC_DEF_ID.equals(processDefinitionId) ? mock(ProcessDefinition.class) : null;
+        }
+
+        @Override
+        public ProcDefOutline getProcDefOutline(ProcessDefinition procDef) {
+            parseTimes.incrementAndGet();
+            return buildProcDefOutline();
+        }
+    };
+
+    @Test
+    public void givenRunningInstanceWhenGetOutlineThenShouldApplyProjectedNodeStatus() {
+        mockProcInstStatus("inst-1");
+        when(serviceNodeStatusRepository.findAllByProcInstanceId("inst-1"))
+                .thenReturn(Arrays.asList(nodeStatus("task-1", TraceStatus.Completed),
+                        nodeStatus("task-2", TraceStatus.InProgress)));
+
+        ProcInstOutline outline = workflowEngineService.getProcInstOutline("inst-1");
+
+        Assert.assertEquals("inst-1", outline.getId());
+        Assert.assertEquals(PROC_DEF_ID, outline.getProcDefKernelId());
+        Assert.assertEquals(TraceStatus.Completed.name(), outline.findProcFlowNodeInstByNodeId("start").getStatus());
+        Assert.assertEquals(TraceStatus.Completed.name(), outline.findProcFlowNodeInstByNodeId("task-1").getStatus());
+        Assert.assertEquals(TraceStatus.InProgress.name(),
+                outline.findProcFlowNodeInstByNodeId("task-2").getStatus());
+        Assert.assertEquals(TraceStatus.NotStarted.name(), outline.findProcFlowNodeInstByNodeId("end").getStatus());
+        Assert.assertEquals("task-2",
+                outline.findProcFlowNodeInstByNodeId("task-1").getSucceedingFlowNodes().get(0).getId());
+        verify(runtimeService, never()).createProcessInstanceQuery();
+    }
+
+    @Test
+    public void givenSameDefinitionWhenGetOutlinesThenShouldParseDefinitionOnce() {
+        mockProcInstStatus("inst-1");
+        mockProcInstStatus("inst-2");
+        when(serviceNodeStatusRepository.findAllByProcInstanceId(anyString()))
+                .thenReturn(Arrays.asList(nodeStatus("task-1", TraceStatus.InProgress)));
+
+        ProcInstOutline first = workflowEngineService.getProcInstOutline("inst-1");
+        ProcInstOutline second = workflowEngineService.getProcInstOutline("inst-2");
+
+        Assert.assertEquals(1, parseTimes.get());
+        Assert.assertNotSame(first.findProcFlowNodeInstByNodeId("task-1"),
+                second.findProcFlowNodeInstByNodeId("task-1"));
+        Assert.assertNull(second.findProcFlowNodeInstByNodeId("task-2").getStatus());
+    }
+
+    private void mockProcInstStatus(String procInstId) {
+        ProcessInstanceStatusEntity procInstStatus = new ProcessInstanceStatusEntity();
+        procInstStatus.setProcInstanceId(procInstId);
+        procInstStatus.setProcDefinitionId(PROC_DEF_ID);
+        procInstStatus.setStatus(TraceStatus.InProgress);
+        when(processInstanceStatusRepository.findOneByprocInstanceId(procInstId)).thenReturn(procInstStatus);
+    }
+
+    private ServiceNodeStatusEntity nodeStatus(String nodeId, TraceStatus status) {
+        ServiceNodeStatusEntity nodeStatus = new ServiceNodeStatusEntity();
+        nodeStatus.setNodeId(nodeId);
+        nodeStatus.setStatus(status);
+        return nodeStatus;
+    }
+
+    private ProcDefOutline buildProcDefOutline() {
+        ProcFlowNode start = flowNode("start", "startEvent");
+        ProcFlowNode task1 = flowNode("task-1", "subProcess");
+        ProcFlowNode task2 = flowNode("task-2", "subProcess");
+        ProcFlowNode end = flowNode("end", "endEvent");
+        start.addSucceedingFlowNodes(task1);
+        task1.addSucceedingFlowNodes(task2);
+        task2.addSucceedingFlowNodes(end);
+
+        ProcDefOutline procDefOutline = new ProcDefOutline();
+        procDefOutline.setId(PROC_DEF_ID);
+        procDefOutline.addFlowNodes(start, task1, task2, end);
+        return procDefOutline;
+    }
+
+    private ProcFlowNode flowNode(String id, String nodeType) {
+        ProcFlowNode flowNode = new ProcFlowNode();
+        flowNode.setId(id);
+        flowNode.setNodeType(nodeType);
+        return flowNode;
+    }
+}
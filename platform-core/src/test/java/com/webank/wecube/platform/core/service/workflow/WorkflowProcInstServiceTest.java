@@ -0,0 +1,132 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder.AuthenticatedUser;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstInfoPageDto;
+import com.webank.wecube.platform.core.dto.workflow.ProcInstQueryRequestDto;
+import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcRoleBindingEntity;
+import com.webank.wecube.platform.core.entity.workflow.ProcRoleBindingEntity.permissionEnum;
+import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.ProcRoleBindingRepository;
+
+public class WorkflowProcInstServiceTest extends DatabaseBasedTest {
+    @Autowired
+    private WorkflowProcInstService workflowProcInstService;
+    @Autowired
+    private ProcInstInfoRepository procInstInfoRepository;
+    @Autowired
+    private ProcExecBindingRepository procExecBindingRepository;
+    @Autowired
+    private ProcRoleBindingRepository procRoleBindingRepository;
+
+    @Before
+    public void setupUser() {
+        AuthenticationContextHolder
+                .setAuthenticatedUser(new AuthenticatedUser("admin", "token", Arrays.asList("SUPER_ADMIN")));
+        bindRole("proc-def-1", "SUPER_ADMIN");
+        bindRole("proc-def-2", "OTHER");
+    }
+
+    @After
+    public void clearUser() {
+        AuthenticationContextHolder.clearCurrentUser();
+    }
+
+    @Test
+    public void givenPermittedInstancesWhenQueryByPagesThenShouldReturnNewestFirstWithoutOverlapping() {
+        for (int i = 0; i < 5; i++) {
+            saveProcInst("proc-def-1", "InProgress", "host-" + i);
+        }
+        saveProcInst("proc-def-2", "InProgress", "host-x");
+
+        ProcInstQueryRequestDto query = new ProcInstQueryRequestDto();
+        query.setPageSize(2);
+        ProcInstInfoPageDto firstPage = workflowProcInstService.queryProcessInstances(query);
+
+        Assert.assertEquals(2, firstPage.getContents().size());
+        Assert.assertTrue(firstPage.isHasMore());
+        Assert.assertEquals(Integer.valueOf(5), firstPage.getTotalRows());
+        Assert.assertTrue(firstPage.getTotalRowsExact());
+        Assert.assertTrue(firstPage.getContents().get(0).getId() > firstPage.getContents().get(1).getId());
+
+        query.setLastId(firstPage.getLastId());
+        ProcInstInfoPageDto secondPage = workflowProcInstService.queryProcessInstances(query);
+        Assert.assertEquals(2, secondPage.getContents().size());
+        Assert.assertTrue(secondPage.getContents().get(0).getId() < firstPage.getLastId());
+        Assert.assertNull(secondPage.getTotalRows());
+
+        query.setLastId(secondPage.getLastId());
+        ProcInstInfoPageDto lastPage = workflowProcInstService.queryProcessInstances(query);
+        Assert.assertEquals(1, lastPage.getContents().size());
+        Assert.assertFalse(lastPage.isHasMore());
+    }
+
+    @Test
+    public void givenFiltersWhenQueryThenShouldOnlyReturnMatchedInstances() {
+        saveProcInst("proc-def-1", "Completed", "host-1");
+        ProcInstInfoEntity matched = saveProcInst("proc-def-1", "InProgress", "host-2");
+        saveProcInst("proc-def-1", "InProgress", "host-3");
+
+        ProcInstQueryRequestDto query = new ProcInstQueryRequestDto();
+        query.setStatus("InProgress");
+        query.setEntityDataId("host-2");
+        query.setStartTime("2000-01-01 00:00:00");
+        ProcInstInfoPageDto page = workflowProcInstService.queryProcessInstances(query);
+
+        Assert.assertEquals(1, page.getContents().size());
+        Assert.assertEquals(matched.getId(), page.getContents().get(0).getId());
+        Assert.assertEquals("host-2", page.getContents().get(0).getEntityDataId());
+        Assert.assertEquals(Integer.valueOf(1), page.getTotalRows());
+    }
+
+    @Test(expected = WecubeCoreException.class)
+    public void givenInvalidTimeWhenQueryThenShouldThrowException() {
+        ProcInstQueryRequestDto query = new ProcInstQueryRequestDto();
+        query.setEndTime("2020/01/01");
+        workflowProcInstService.queryProcessInstances(query);
+    }
+
+    private void bindRole(String procDefId, String roleName) {
+        ProcRoleBindingEntity roleBinding = new ProcRoleBindingEntity();
+        roleBinding.setId(UUID.randomUUID().toString());
+        roleBinding.setProcId(procDefId);
+        roleBinding.setRoleId(roleName);
+        roleBinding.setRoleName(roleName);
+        roleBinding.setPermission(permissionEnum.USE);
+        procRoleBindingRepository.save(roleBinding);
+    }
+
+    private ProcInstInfoEntity saveProcInst(String procDefId, String status, String entityDataId) {
+        ProcInstInfoEntity procInst = new ProcInstInfoEntity();
+        procInst.setProcDefId(procDefId);
+        procInst.setProcDefName(procDefId);
+        procInst.setStatus(status);
+        procInst.setOperator("admin");
+        procInst.setCreatedTime(new Date());
+        procInstInfoRepository.save(procInst);
+
+        ProcExecBindingEntity binding = new ProcExecBindingEntity();
+        binding.setBindType(ProcExecBindingEntity.BIND_TYPE_PROC_INSTANCE);
+        binding.setProcDefId(procDefId);
+        binding.setProcInstId(procInst.getId());
+        binding.setEntityTypeId("wecmdb:host");
+        binding.setEntityDataId(entityDataId);
+        procExecBindingRepository.save(binding);
+        return procInst;
+    }
+}
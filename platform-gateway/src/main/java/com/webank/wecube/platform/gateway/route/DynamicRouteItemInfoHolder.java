@@ -3,17 +3,23 @@ package com.webank.wecube.platform.gateway.route;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.http.HttpMethod;
 
 import com.github.jknack.handlebars.internal.lang3.StringUtils;
 
+/**
+ * Holds the route table of the gateway. Each refresh builds a new read-only
+ * route table and publishes it by swapping a volatile reference, so the
+ * request threads look up routes without locking and never see a partially
+ * refreshed table.
+ */
 public class DynamicRouteItemInfoHolder {
 
-    private Map<String, MvcContextRouteConfig> mvcContextRouteConfigs = new ConcurrentHashMap<String, MvcContextRouteConfig>();
+    private volatile Map<String, MvcContextRouteConfig> mvcContextRouteConfigs = Collections.emptyMap();
 
     private static final DynamicRouteItemInfoHolder INSTANCE = new DynamicRouteItemInfoHolder();
 
@@ -22,7 +28,7 @@ public class DynamicRouteItemInfoHolder {
 
     private List<HttpDestination> unreachableHttpDestinations = new ArrayList<>();
 
-    private List<MvcContextRouteConfig> outdatedMvcContextRouteConfigs = new ArrayList<>();
+    private volatile List<MvcContextRouteConfig> outdatedMvcContextRouteConfigs = Collections.emptyList();
 
     public static DynamicRouteItemInfoHolder instance() {
         return INSTANCE;
@@ -52,13 +58,15 @@ public class DynamicRouteItemInfoHolder {
     	return INSTANCE.getOutdatedMvcContextRouteConfigs();
     }
 
-    public void refreshRoutes(List<DynamicRouteItemInfo> fullyDynamicRouteItemInfos) {
+    public synchronized void refreshRoutes(List<DynamicRouteItemInfo> fullyDynamicRouteItemInfos) {
         if (fullyDynamicRouteItemInfos == null) {
             return;
         }
 
         increaseVersion();
 
+        Map<String, MvcContextRouteConfig> previousConfigs = this.mvcContextRouteConfigs;
+        Map<String, MvcContextRouteConfig> newConfigs = new HashMap<>();
         for (DynamicRouteItemInfo item : fullyDynamicRouteItemInfos) {
             if (item == null) {
                 continue;
@@ -68,18 +76,34 @@ public class DynamicRouteItemInfoHolder {
                 continue;
             }
 
-            tryAddDynamicRouteItemInfo(item);
+            tryAddDynamicRouteItemInfo(newConfigs, previousConfigs, item);
         }
 
-        cleanOutdated();
+        List<MvcContextRouteConfig> outdatedConfigs = new ArrayList<>();
+        for (MvcContextRouteConfig config : previousConfigs.values()) {
+            if (!newConfigs.containsKey(config.getContext())) {
+                outdatedConfigs.add(config);
+            }
+        }
+
+        for (MvcContextRouteConfig config : newConfigs.values()) {
+            config.freeze();
+        }
+
+        clearUnreachableHttpDestinations();
+        this.mvcContextRouteConfigs = Collections.unmodifiableMap(newConfigs);
+        this.outdatedMvcContextRouteConfigs = Collections.unmodifiableList(outdatedConfigs);
     }
 
-    private void tryAddDynamicRouteItemInfo(DynamicRouteItemInfo item) {
-        
-        MvcContextRouteConfig existConfig = mvcContextRouteConfigs.get(item.getContext());
+    private void tryAddDynamicRouteItemInfo(Map<String, MvcContextRouteConfig> newConfigs,
+            Map<String, MvcContextRouteConfig> previousConfigs, DynamicRouteItemInfo item) {
+
+        MvcContextRouteConfig existConfig = newConfigs.get(item.getContext());
         if (existConfig == null) {
-            existConfig = new MvcContextRouteConfig(item.getContext());
-            mvcContextRouteConfigs.put(item.getContext(), existConfig);
+            MvcContextRouteConfig previousConfig = previousConfigs.get(item.getContext());
+            long createdTime = previousConfig == null ? System.currentTimeMillis() : previousConfig.getCreatedTime();
+            existConfig = new MvcContextRouteConfig(item.getContext(), createdTime);
+            newConfigs.put(item.getContext(), existConfig);
         }
 
         existConfig.version(currentVersion);
@@ -120,30 +144,6 @@ public class DynamicRouteItemInfoHolder {
         return HttpMethod.resolve(sHttpMethod.toUpperCase());
     }
 
-    private void cleanOutdated() {
-        clearUnreachableHttpDestinations();
-        cleanOutdatedMvcContextRouteConfigs();
-        cleanMvcContextRouteConfigs();
-    }
-
-    private void cleanMvcContextRouteConfigs() {
-        for (MvcContextRouteConfig config : mvcContextRouteConfigs.values()) {
-            config.cleanOutdated();
-
-            if (config.getVersion() < currentVersion) {
-                this.outdatedMvcContextRouteConfigs.add(config);
-            }
-        }
-
-        for (MvcContextRouteConfig config : this.outdatedMvcContextRouteConfigs) {
-            mvcContextRouteConfigs.remove(config.getContext());
-        }
-    }
-
-    private void cleanOutdatedMvcContextRouteConfigs() {
-        outdatedMvcContextRouteConfigs.clear();
-    }
-
     private void increaseVersion() {
         this.lastVersion = currentVersion;
         this.currentVersion = currentVersion + 1;
@@ -218,7 +218,7 @@ public class DynamicRouteItemInfoHolder {
     }
 
     public Map<String, MvcContextRouteConfig> getMvcContextRouteConfigs() {
-        return Collections.unmodifiableMap(this.mvcContextRouteConfigs);
+        return this.mvcContextRouteConfigs;
     }
 
     public MvcContextRouteConfig getMvcContextRouteConfig(String context) {
@@ -229,7 +229,7 @@ public class DynamicRouteItemInfoHolder {
     }
 
     public List<MvcContextRouteConfig> getOutdatedMvcContextRouteConfigs() {
-        return Collections.unmodifiableList(outdatedMvcContextRouteConfigs);
+        return this.outdatedMvcContextRouteConfigs;
     }
 
     public long getLastVersion() {
@@ -33,12 +33,6 @@ public class HttpDestination {
 		this.weight = weight;
 	}
 
-	HttpDestination disabled(boolean disabledFlag) {
-		this.disabled = disabledFlag;
-		lastModifiedTime();
-		return this;
-	}
-
 	HttpDestination version(long version) {
 		this.version = version;
 		lastModifiedTime();
@@ -2,10 +2,9 @@ package com.webank.wecube.platform.gateway.route;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpMethod;
@@ -13,7 +12,7 @@ import org.springframework.http.HttpMethod;
 public final class MvcContextRouteConfig {
 
     private String context;
-    private Map<MvcHttpMethodAndPath, MvcHttpMethodAndPathConfig> mvcPathRouteConfigs = new ConcurrentHashMap<>();
+    private Map<MvcHttpMethodAndPath, MvcHttpMethodAndPathConfig> mvcPathRouteConfigs = new HashMap<>();
     private List<HttpDestination> defaultHttpDestinations = new ArrayList<>();
 
     private long createdTime;
@@ -24,9 +23,13 @@ public final class MvcContextRouteConfig {
     private long version = 0L;
 
     public MvcContextRouteConfig(String context) {
+        this(context, System.currentTimeMillis());
+    }
+
+    MvcContextRouteConfig(String context, long createdTime) {
         super();
         this.context = context;
-        this.createdTime = System.currentTimeMillis();
+        this.createdTime = createdTime;
         this.lastModifiedTime = System.currentTimeMillis();
     }
 
@@ -87,30 +90,16 @@ public final class MvcContextRouteConfig {
         lastModifiedTime();
     }
 
-    MvcContextRouteConfig cleanOutdated() {
+    /**
+     * Makes the route config read-only, it must not be changed any more once
+     * it is published to the request threads.
+     */
+    MvcContextRouteConfig freeze() {
         for (MvcHttpMethodAndPathConfig config : mvcPathRouteConfigs.values()) {
-            config.cleanOutdatedHttpDestination();
-        }
-        cleanOutdatedMvcPathRouteConfigs();
-
-        cleanOutdatedHttpDestinations();
-
-        return this;
-    }
-
-    private MvcContextRouteConfig cleanOutdatedMvcPathRouteConfigs() {
-
-        List<MvcHttpMethodAndPathConfig> outDatedConfigs = mvcPathRouteConfigs //
-        		.values() //
-        		.stream() //
-        		.filter(c -> c.getVersion() < version ) //
-        		.collect(Collectors.toList()); //
-
-        for (MvcHttpMethodAndPathConfig config : outDatedConfigs) {
-            mvcPathRouteConfigs.remove(config.getMvcHttpMethodAndPath());
+            config.freeze();
         }
-
-        lastModifiedTime();
+        this.mvcPathRouteConfigs = Collections.unmodifiableMap(new HashMap<>(mvcPathRouteConfigs));
+        this.defaultHttpDestinations = Collections.unmodifiableList(new ArrayList<>(defaultHttpDestinations));
         return this;
     }
 
@@ -120,42 +109,6 @@ public final class MvcContextRouteConfig {
         return this;
     }
 
-    MvcContextRouteConfig clearDefaultHttpDestinations() {
-        this.defaultHttpDestinations.clear();
-        lastModifiedTime();
-        return this;
-    }
-
-    MvcContextRouteConfig removeDefaultHttpDestination(HttpDestination httpDestination) {
-        if (httpDestination == null) {
-            return this;
-        }
-
-        List<HttpDestination> toRemoves = new ArrayList<>();
-        for (HttpDestination d : defaultHttpDestinations) {
-            if (d.equals(httpDestination)) {
-                toRemoves.add(d);
-            }
-        }
-
-        this.defaultHttpDestinations.removeAll(toRemoves);
-
-        lastModifiedTime();
-        return this;
-    }
-
-    MvcContextRouteConfig cleanOutdatedHttpDestinations() {
-        List<HttpDestination> toRemoves = this.defaultHttpDestinations //
-        		.stream() //
-        		.filter(c -> c.getVersion() < version ) //
-        		.collect(Collectors.toList()); //
-
-        this.defaultHttpDestinations.removeAll(toRemoves);
-
-        lastModifiedTime();
-        return this;
-    }
-
     boolean tryAddDefaultHttpDestination(HttpDestination httpDestination) {
         if (httpDestination == null) {
             return false;
@@ -190,50 +143,6 @@ public final class MvcContextRouteConfig {
         return null;
     }
 
-    MvcContextRouteConfig disable() {
-        this.disabled = true;
-        lastModifiedTime();
-        return this;
-    }
-
-    MvcContextRouteConfig enable() {
-        this.disabled = false;
-        lastModifiedTime();
-        return this;
-    }
-
-    MvcContextRouteConfig enableDefaultHttpDestination(HttpDestination criteria) {
-        if (criteria == null) {
-            return this;
-        }
-        
-        HttpDestination existDest = this.findDefaultHttpDestination(criteria);
-        if(existDest == null) {
-        	return this;
-        }
-        
-        existDest.disabled(false);
-
-        lastModifiedTime();
-        return this;
-    }
-    
-    MvcContextRouteConfig disableDefaultHttpDestination(HttpDestination criteria) {
-        if (criteria == null) {
-            return this;
-        }
-        
-        HttpDestination existDest = this.findDefaultHttpDestination(criteria);
-        if(existDest == null) {
-        	return this;
-        }
-        
-        existDest.disabled(true);
-
-        lastModifiedTime();
-        return this;
-    }
-
     public String getContext() {
         return context;
     }
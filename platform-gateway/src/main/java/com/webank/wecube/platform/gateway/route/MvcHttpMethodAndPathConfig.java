@@ -3,7 +3,6 @@ package com.webank.wecube.platform.gateway.route;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class MvcHttpMethodAndPathConfig {
 
@@ -59,19 +58,8 @@ public class MvcHttpMethodAndPathConfig {
 		return null;
 	}
 
-	MvcHttpMethodAndPathConfig clearHttpDestinations() {
-		this.httpDestinations.clear();
-		return this;
-	}
-
-	MvcHttpMethodAndPathConfig cleanOutdatedHttpDestination() {
-		List<HttpDestination> toRemoves = this.httpDestinations //
-				.stream() //
-				.filter(c -> c.getVersion() < version) //
-				.collect(Collectors.toList()); //
-
-		this.httpDestinations.removeAll(toRemoves);
-
+	MvcHttpMethodAndPathConfig freeze() {
+		this.httpDestinations = Collections.unmodifiableList(new ArrayList<>(httpDestinations));
 		return this;
 	}
 
@@ -81,18 +69,6 @@ public class MvcHttpMethodAndPathConfig {
 		return this;
 	}
 
-	MvcHttpMethodAndPathConfig disable() {
-		this.disabled = true;
-		lastModifiedTime();
-		return this;
-	}
-
-	MvcHttpMethodAndPathConfig enable() {
-		this.disabled = false;
-		lastModifiedTime();
-		return this;
-	}
-
 	public MvcHttpMethodAndPath getMvcHttpMethodAndPath() {
 		return mvcHttpMethodAndPath;
 	}
@@ -47,7 +47,8 @@ public abstract class AbstractServiceTaskHandleDelegate implements JavaDelegate
         }
 
         try {
-            QueueHolder.putServiceInvocationEvent(serviceInvocationEvent(execution, procDef));
+            SpringApplicationContextUtil.getBean(ServiceInvocationEventPublisher.class)
+                    .publish(serviceInvocationEvent(execution, procDef));
         } catch (Throwable e) {
             getLogger().warn("plugin invocation errors", e);
             throw e;
@@ -84,7 +85,7 @@ public abstract class AbstractServiceTaskHandleDelegate implements JavaDelegate
 
     }
 
-    private ServiceInvocationEvent serviceInvocationEvent(DelegateExecution execution, ProcessDefinition procDef) {
+    private ServiceInvocationEventImpl serviceInvocationEvent(DelegateExecution execution, ProcessDefinition procDef) {
         ServiceInvocationEventImpl event = new ServiceInvocationEventImpl();
 
         event.setDefinitionId(execution.getProcessDefinitionId());
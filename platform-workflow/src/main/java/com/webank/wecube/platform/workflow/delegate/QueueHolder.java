@@ -7,28 +7,50 @@ import java.util.concurrent.TimeUnit;
 import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
 
 /**
- * 
+ * Holds the bounded queue of service invocation events. Producers wait for a
+ * limited time when the queue is full and defer the events they cannot
+ * queue, instead of letting the queue grow without limit.
+ *
  * @author gavin
  *
  */
 public final class QueueHolder {
-    private static BlockingQueue<ServiceInvocationEvent> serviceInvocationEventQueue = new LinkedBlockingQueue<ServiceInvocationEvent>();
-    private static BlockingQueue<ServiceInvocationEvent> deferredServiceInvocationEventQueue = new LinkedBlockingQueue<ServiceInvocationEvent>();
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    private static volatile BlockingQueue<ServiceInvocationEvent> serviceInvocationEventQueue;
 
-    public static void putServiceInvocationEvent(ServiceInvocationEvent event) throws InterruptedException {
-        serviceInvocationEventQueue.put(event);
+    /**
+     * Creates the queue with given capacity, unless events have been queued
+     * already.
+     */
+    public static synchronized boolean initialize(int capacity) {
+        if (serviceInvocationEventQueue != null) {
+            return false;
+        }
+        serviceInvocationEventQueue = new LinkedBlockingQueue<ServiceInvocationEvent>(capacity);
+        return true;
     }
 
-    public static void putDeferredServiceInvocationEvent(ServiceInvocationEvent event) throws InterruptedException {
-        deferredServiceInvocationEventQueue.put(event);
+    public static boolean offerServiceInvocationEvent(ServiceInvocationEvent event, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return getServiceInvocationEventQueue().offer(event, timeout, unit);
     }
 
     public static ServiceInvocationEvent pollServiceInvocationEvent(long timeout, TimeUnit unit)
             throws InterruptedException {
-        return serviceInvocationEventQueue.poll(timeout, unit);
+        return getServiceInvocationEventQueue().poll(timeout, unit);
+    }
+
+    public static int getServiceInvocationEventQueueSize() {
+        return getServiceInvocationEventQueue().size();
     }
 
-    public static ServiceInvocationEvent pollDeferredServiceInvocationEvent() {
-        return deferredServiceInvocationEventQueue.poll();
+    private static BlockingQueue<ServiceInvocationEvent> getServiceInvocationEventQueue() {
+        BlockingQueue<ServiceInvocationEvent> queue = serviceInvocationEventQueue;
+        if (queue == null) {
+            initialize(DEFAULT_QUEUE_CAPACITY);
+            queue = serviceInvocationEventQueue;
+        }
+        return queue;
     }
 }
@@ -1,9 +1,12 @@
 package com.webank.wecube.platform.workflow.delegate;
 
-import java.util.concurrent.Callable;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -11,50 +14,94 @@ import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
 
 /**
- * 
+ * Dispatches service invocation events with a configurable number of workers
+ * polling the bounded queue of {@link QueueHolder}. Failed events are retried
+ * with exponential backoff on a separate scheduler. The leases of the outbox
+ * events held by this node are renewed periodically, and the outbox events
+ * whose leases have expired are recovered.
+ *
  * @author gavin
  *
  */
 @Component
-public class ServiceInvocationEventProcessor implements Runnable {
+public class ServiceInvocationEventProcessor {
     private static final Logger log = LoggerFactory.getLogger(ServiceInvocationEventProcessor.class);
 
-    private ExecutorService masterExecutor = Executors.newFixedThreadPool(1);
+    private static final int RECOVERY_BATCH_SIZE = 100;
+
+    @Value("${wecube.workflow.event-processor.worker-count:3}")
+    private int workerCount;
+
+    @Value("${wecube.workflow.event-processor.queue-capacity:" + QueueHolder.DEFAULT_QUEUE_CAPACITY + "}")
+    private int queueCapacity;
+
+    @Value("${wecube.workflow.event-processor.max-retry-times:0}")
+    private int maxRetryTimes;
+
+    @Value("${wecube.workflow.event-processor.retry-initial-delay-millis:1000}")
+    private long retryInitialDelayMillis;
+
+    @Value("${wecube.workflow.event-processor.retry-max-delay-millis:60000}")
+    private long retryMaxDelayMillis;
 
-    private ExecutorService slaveExecutor = Executors.newFixedThreadPool(3);
+    @Value("${wecube.workflow.event-processor.outbox-recovery-interval-seconds:60}")
+    private long outboxRecoveryIntervalSeconds;
 
-    private int maxRetryTimes = 1;
+    private ExecutorService workerExecutor;
 
-    private boolean needStop;
+    private ScheduledExecutorService retryScheduler;
+
+    private volatile boolean needStop;
 
     @Autowired
     private ServiceInvocationEventResolver serviceInvocationEventResolver;
 
+    @Autowired
+    private ServiceInvocationEventPublisher serviceInvocationEventPublisher;
+
     @PostConstruct
     public void afterPropertiesSet() {
-        log.info("{} is ready", ServiceInvocationEventProcessor.class.getSimpleName());
-        start();
+        if (!QueueHolder.initialize(queueCapacity)) {
+            log.warn("event queue has been initialized before, queue capacity {} is ignored", queueCapacity);
+        }
+
+        int workers = Math.max(workerCount, 1);
+        workerExecutor = Executors.newFixedThreadPool(workers, new NamedThreadFactory("srv-event-worker-"));
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("srv-event-retry-"));
+        serviceInvocationEventPublisher.setDeferredEventHandler(this::deferEvent);
+
+        log.info("{} is ready with {} workers", ServiceInvocationEventProcessor.class.getSimpleName(), workers);
+        start(workers);
     }
 
     @PreDestroy
     public void preDestroy() {
         log.info("try to destroy {} ", ServiceInvocationEventProcessor.class.getSimpleName());
-        if (masterExecutor != null) {
-            masterExecutor.shutdown();
+        setNeedStop(true);
+        if (workerExecutor != null) {
+            workerExecutor.shutdown();
         }
 
-        if (slaveExecutor != null) {
-            slaveExecutor.shutdown();
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
         }
     }
 
-    private void start() {
-        masterExecutor.execute(this);
+    private void start(int workers) {
+        for (int i = 0; i < workers; i++) {
+            workerExecutor.execute(this::pollEvents);
+        }
+
+        if (serviceInvocationEventPublisher.isOutboxEnabled()) {
+            retryScheduler.scheduleWithFixedDelay(this::recoverOutboxEvents, outboxRecoveryIntervalSeconds,
+                    outboxRecoveryIntervalSeconds, TimeUnit.SECONDS);
+        }
     }
 
     public boolean isNeedStop() {
@@ -65,11 +112,9 @@ public class ServiceInvocationEventProcessor implements Runnable {
         this.needStop = needStop;
     }
 
-    @Override
-    public void run() {
-        log.info("{} start to work", ServiceInvocationEventProcessor.class.getSimpleName());
+    private void pollEvents() {
+        log.info("{} start to work", Thread.currentThread().getName());
 
-        long startTime = System.currentTimeMillis();
         while (!isNeedStop()) {
             try {
                 ServiceInvocationEvent event = QueueHolder.pollServiceInvocationEvent(1000, TimeUnit.MILLISECONDS);
@@ -77,69 +122,100 @@ public class ServiceInvocationEventProcessor implements Runnable {
                 if (event != null) {
                     processServiceInvocationEvent(event);
                 }
-
-                if ((System.currentTimeMillis() - startTime) > (1000 * 6)) {
-                    startTime = System.currentTimeMillis();
-                    ServiceInvocationEvent deferredEvent = QueueHolder.pollDeferredServiceInvocationEvent();
-                    if (deferredEvent != null) {
-                        log.info("process deferred event {}", deferredEvent);
-                        processServiceInvocationEvent(deferredEvent);
-                    }
-                }
-
             } catch (InterruptedException e) {
                 log.error("errors while running processor", e);
                 Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("errors while processing event", e);
             }
         }
     }
 
-    private void processServiceInvocationEvent(ServiceInvocationEvent event) throws InterruptedException {
+    void processServiceInvocationEvent(ServiceInvocationEvent event) {
+        log.debug("{} processing {}", Thread.currentThread().getName(), event);
+
         try {
-            slaveExecutor
-                    .submit(new ServiceInvocationEventWorker(event, this.serviceInvocationEventResolver));
+            serviceInvocationEventResolver.resolveServiceInvocationEvent(event);
         } catch (Exception e) {
-            log.error("errors while processing event", e);
-            event.increaseRetryTimes();
-
-            if (event.getRetryTimes() < maxRetryTimes) {
-                log.info("retry and put back to deffered queue,{}", event);
-                QueueHolder.putDeferredServiceInvocationEvent(event);
-            } else {
-                log.error("event was abandoned due to resolvation errors, details:{}", event);
-            }
+            log.error("resolvation errors", e);
+            handleFailedEvent(event);
+            return;
         }
-    }
 
-    private static class ServiceInvocationEventWorker implements Callable<Integer> {
+        serviceInvocationEventPublisher.complete(event);
+    }
 
-        public static final int EXECUTION_SUCC = 1;
+    private void handleFailedEvent(ServiceInvocationEvent event) {
+        event.increaseRetryTimes();
 
-        private ServiceInvocationEvent event;
+        if (event.getRetryTimes() > maxRetryTimes) {
+            log.error("event was abandoned due to resolvation errors, details:{}", event);
+            serviceInvocationEventPublisher.fail(event);
+            return;
+        }
 
-        private ServiceInvocationEventResolver resolver;
+        long delayMillis = calculateRetryDelayMillis(event.getRetryTimes());
+        log.info("retry event after {} ms,{}", delayMillis, event);
+        serviceInvocationEventPublisher.retryLater(event, delayMillis);
+        retryScheduler.schedule(() -> requeue(event, delayMillis), delayMillis, TimeUnit.MILLISECONDS);
+    }
 
-        public ServiceInvocationEventWorker(ServiceInvocationEvent event, ServiceInvocationEventResolver resolver) {
-            super();
-            this.event = event;
-            this.resolver = resolver;
+    long calculateRetryDelayMillis(int retryTimes) {
+        long delayMillis = retryInitialDelayMillis << Math.min(retryTimes - 1, 30);
+        if (delayMillis <= 0 || delayMillis > retryMaxDelayMillis) {
+            return retryMaxDelayMillis;
         }
+        return delayMillis;
+    }
 
-        @Override
-        public Integer call() throws Exception {
+    /**
+     * Queues an event which cannot be queued now after a while, without
+     * counting a retry.
+     */
+    void deferEvent(ServiceInvocationEvent event) {
+        retryScheduler.schedule(() -> requeue(event, retryInitialDelayMillis), retryInitialDelayMillis,
+                TimeUnit.MILLISECONDS);
+    }
 
-            log.debug("{} processing {}", Thread.currentThread().getName(), event);
+    private void requeue(ServiceInvocationEvent event, long delayMillis) {
+        try {
+            if (!QueueHolder.offerServiceInvocationEvent(event, 0, TimeUnit.MILLISECONDS)) {
+                log.info("event queue is full, retry event later,{}", event);
+                retryScheduler.schedule(() -> requeue(event, delayMillis), delayMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            try {
-                resolver.resolveServiceInvocationEvent(event);
-            } catch (Exception e) {
-                log.error("resolvation errors", e);
-//                throw e;
+    void recoverOutboxEvents() {
+        try {
+            serviceInvocationEventPublisher.renewLeases();
+            List<ServiceInvocationEvent> events = serviceInvocationEventPublisher
+                    .claimExpiredEvents(RECOVERY_BATCH_SIZE);
+            for (ServiceInvocationEvent event : events) {
+                log.info("recover outbox event {}", event);
+                requeue(event, retryInitialDelayMillis);
             }
+        } catch (Exception e) {
+            log.error("errors while recovering outbox events", e);
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
 
-            return EXECUTION_SUCC;
+        NamedThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
         }
 
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, namePrefix + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
     }
-
 }
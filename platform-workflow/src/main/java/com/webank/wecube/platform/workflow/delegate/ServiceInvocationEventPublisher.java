@@ -0,0 +1,255 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webank.wecube.platform.workflow.commons.LocalIdGenerator;
+import com.webank.wecube.platform.workflow.entity.ServiceInvocationEventOutboxEntity;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEventImpl;
+import com.webank.wecube.platform.workflow.repository.ServiceInvocationEventOutboxRepository;
+
+/**
+ * Publishes service invocation events to {@link QueueHolder} once the
+ * process engine transaction producing them commits. When the outbox is
+ * enabled, events are also stored in the same transaction and deleted after
+ * being resolved, so that the events in flight survive a crash and are
+ * dispatched again by {@link ServiceInvocationEventProcessor}. Each outbox
+ * event is leased to the node dispatching it, which renews the lease while
+ * holding the event, and only the events with expired leases are recovered
+ * by other nodes. Events never block the publishing thread for longer than
+ * the enqueue timeout: when the queue stays full, outbox events are left to
+ * the recovery and the others are deferred to the processor's retry
+ * scheduler, as publishers may well be the workers draining the queue.
+ */
+@Component
+public class ServiceInvocationEventPublisher {
+    private static final Logger log = LoggerFactory.getLogger(ServiceInvocationEventPublisher.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final int RENEW_BATCH_SIZE = 500;
+
+    @Value("${wecube.workflow.event-processor.outbox-enabled:false}")
+    private boolean outboxEnabled;
+
+    @Value("${wecube.workflow.event-processor.enqueue-timeout-millis:30000}")
+    private long enqueueTimeoutMillis;
+
+    @Value("${wecube.workflow.event-processor.outbox-lease-seconds:600}")
+    private long outboxLeaseSeconds;
+
+    @Autowired
+    private ServiceInvocationEventOutboxRepository serviceInvocationEventOutboxRepository;
+
+    private final Set<String> localOutboxEventIds = ConcurrentHashMap.newKeySet();
+
+    private final String nodeId = LocalIdGenerator.generateId("node");
+
+    private volatile Consumer<ServiceInvocationEvent> deferredEventHandler;
+
+    public boolean isOutboxEnabled() {
+        return outboxEnabled;
+    }
+
+    /**
+     * Sets the handler re-queueing the events later when the queue is full.
+     */
+    public void setDeferredEventHandler(Consumer<ServiceInvocationEvent> deferredEventHandler) {
+        this.deferredEventHandler = deferredEventHandler;
+    }
+
+    public void publish(ServiceInvocationEventImpl event) throws InterruptedException {
+        if (outboxEnabled) {
+            saveOutboxEvent(event);
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(event);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                try {
+                    enqueue(event);
+                } catch (InterruptedException e) {
+                    log.warn("interrupted while publishing event {}", event);
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED && event.getEventId() != null) {
+                    localOutboxEventIds.remove(event.getEventId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Event has been resolved and needs no more dispatching.
+     */
+    public void complete(ServiceInvocationEvent event) {
+        if (!isOutboxEvent(event)) {
+            return;
+        }
+        serviceInvocationEventOutboxRepository.deleteEvent(event.getEventId());
+        localOutboxEventIds.remove(event.getEventId());
+    }
+
+    public void retryLater(ServiceInvocationEvent event, long delayMillis) {
+        if (!isOutboxEvent(event)) {
+            return;
+        }
+        Date now = new Date();
+        serviceInvocationEventOutboxRepository.updateEventStatus(event.getEventId(),
+                ServiceInvocationEventOutboxEntity.STATUS_PENDING, event.getRetryTimes(),
+                new Date(now.getTime() + delayMillis), now);
+    }
+
+    /**
+     * Event has been abandoned, and is kept in outbox for diagnosis.
+     */
+    public void fail(ServiceInvocationEvent event) {
+        if (!isOutboxEvent(event)) {
+            return;
+        }
+        serviceInvocationEventOutboxRepository.updateEventStatus(event.getEventId(),
+                ServiceInvocationEventOutboxEntity.STATUS_FAILED, event.getRetryTimes(), null, new Date());
+        localOutboxEventIds.remove(event.getEventId());
+    }
+
+    /**
+     * Renews the leases of the outbox events held by this node.
+     */
+    public void renewLeases() {
+        if (!outboxEnabled || localOutboxEventIds.isEmpty()) {
+            return;
+        }
+
+        Date leaseExpireTime = newLeaseExpireTime();
+        List<String> eventIds = new ArrayList<>(localOutboxEventIds);
+        for (int i = 0; i < eventIds.size(); i += RENEW_BATCH_SIZE) {
+            List<String> batch = eventIds.subList(i, Math.min(i + RENEW_BATCH_SIZE, eventIds.size()));
+            serviceInvocationEventOutboxRepository.renewLeases(batch, nodeId, leaseExpireTime);
+        }
+    }
+
+    /**
+     * Claims the pending outbox events whose leases have expired and which
+     * are due to retry, which are presumably lost by a crashed node.
+     */
+    public List<ServiceInvocationEvent> claimExpiredEvents(int limit) {
+        List<ServiceInvocationEvent> events = new ArrayList<>();
+        if (!outboxEnabled) {
+            return events;
+        }
+
+        List<ServiceInvocationEventOutboxEntity> entities = serviceInvocationEventOutboxRepository.findExpiredEvents(
+                ServiceInvocationEventOutboxEntity.STATUS_PENDING, new Date(), PageRequest.of(0, limit));
+        for (ServiceInvocationEventOutboxEntity entity : entities) {
+            if (localOutboxEventIds.contains(entity.getId())) {
+                continue;
+            }
+
+            if (serviceInvocationEventOutboxRepository.claimEvent(entity.getId(), entity.getLeaseExpireTime(),
+                    nodeId, newLeaseExpireTime(), new Date()) == 0) {
+                continue;
+            }
+
+            try {
+                ServiceInvocationEventImpl event = objectMapper.readValue(entity.getEventData(),
+                        ServiceInvocationEventImpl.class);
+                event.setEventId(entity.getId());
+                event.setRetryTimes(entity.getRetryTimes());
+                localOutboxEventIds.add(entity.getId());
+                events.add(event);
+            } catch (IOException e) {
+                log.error("cannot read outbox event {}", entity.getId(), e);
+                serviceInvocationEventOutboxRepository.updateEventStatus(entity.getId(),
+                        ServiceInvocationEventOutboxEntity.STATUS_FAILED, entity.getRetryTimes(), null, new Date());
+            }
+        }
+        return events;
+    }
+
+    private void enqueue(ServiceInvocationEvent event) throws InterruptedException {
+        if (QueueHolder.offerServiceInvocationEvent(event, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            return;
+        }
+
+        if (!outboxEnabled) {
+            Consumer<ServiceInvocationEvent> handler = deferredEventHandler;
+            if (handler == null) {
+                throw new IllegalStateException("Event queue is full and no handler to defer event " + event);
+            }
+            log.warn("event queue is full, defer event {}", event);
+            handler.accept(event);
+            return;
+        }
+
+        log.warn("event queue is full, event {} is left in outbox to recover", event);
+        localOutboxEventIds.remove(event.getEventId());
+        serviceInvocationEventOutboxRepository.renewLeases(Collections.singletonList(event.getEventId()), nodeId,
+                new Date());
+    }
+
+    private void saveOutboxEvent(ServiceInvocationEventImpl event) {
+        if (event.getEventId() == null) {
+            event.setEventId(LocalIdGenerator.generateId("evt"));
+        }
+
+        Date now = new Date();
+        ServiceInvocationEventOutboxEntity entity = new ServiceInvocationEventOutboxEntity();
+        entity.setId(event.getEventId());
+        entity.setEventType(event.getEventType() == null ? null : event.getEventType().name());
+        entity.setProcInstanceId(event.getInstanceId());
+        entity.setProcInstanceBizKey(event.getBusinessKey());
+        entity.setEventSourceId(event.getEventSourceId());
+        entity.setStatus(ServiceInvocationEventOutboxEntity.STATUS_PENDING);
+        entity.setRetryTimes(event.getRetryTimes());
+        entity.setOwnerNode(nodeId);
+        entity.setLeaseExpireTime(newLeaseExpireTime());
+        entity.setCreatedTime(now);
+        entity.setUpdatedTime(now);
+        try {
+            entity.setEventData(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to write event " + event.getEventId(), e);
+        }
+
+        serviceInvocationEventOutboxRepository.save(entity);
+        localOutboxEventIds.add(entity.getId());
+    }
+
+    private Date newLeaseExpireTime() {
+        return new Date(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(outboxLeaseSeconds));
+    }
+
+    private boolean isOutboxEvent(ServiceInvocationEvent event) {
+        return outboxEnabled && event.getEventId() != null && localOutboxEventIds.contains(event.getEventId());
+    }
+}
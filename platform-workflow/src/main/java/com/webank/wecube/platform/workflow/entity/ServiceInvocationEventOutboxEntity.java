@@ -0,0 +1,159 @@
+package com.webank.wecube.platform.workflow.entity;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "ACT_RU_SRV_EVENT_OUTBOX")
+public class ServiceInvocationEventOutboxEntity {
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @Column(name = "ID")
+    private String id;
+
+    @Column(name = "EVENT_TYPE")
+    private String eventType;
+
+    @Column(name = "PROC_INST_ID")
+    private String procInstanceId;
+
+    @Column(name = "PROC_INST_KEY")
+    private String procInstanceBizKey;
+
+    @Column(name = "EVENT_SOURCE_ID")
+    private String eventSourceId;
+
+    @Column(name = "EVENT_DATA")
+    private String eventData;
+
+    @Column(name = "STATUS")
+    private String status;
+
+    @Column(name = "RETRY_TIMES")
+    private int retryTimes;
+
+    @Column(name = "NEXT_RETRY_TIME")
+    private Date nextRetryTime;
+
+    @Column(name = "OWNER_NODE")
+    private String ownerNode;
+
+    @Column(name = "LEASE_EXPIRE_TIME")
+    private Date leaseExpireTime;
+
+    @Column(name = "CREATED_TIME")
+    private Date createdTime;
+
+    @Column(name = "UPDATED_TIME")
+    private Date updatedTime;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getProcInstanceId() {
+        return procInstanceId;
+    }
+
+    public void setProcInstanceId(String procInstanceId) {
+        this.procInstanceId = procInstanceId;
+    }
+
+    public String getProcInstanceBizKey() {
+        return procInstanceBizKey;
+    }
+
+    public void setProcInstanceBizKey(String procInstanceBizKey) {
+        this.procInstanceBizKey = procInstanceBizKey;
+    }
+
+    public String getEventSourceId() {
+        return eventSourceId;
+    }
+
+    public void setEventSourceId(String eventSourceId) {
+        this.eventSourceId = eventSourceId;
+    }
+
+    public String getEventData() {
+        return eventData;
+    }
+
+    public void setEventData(String eventData) {
+        this.eventData = eventData;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getRetryTimes() {
+        return retryTimes;
+    }
+
+    public void setRetryTimes(int retryTimes) {
+        this.retryTimes = retryTimes;
+    }
+
+    public Date getNextRetryTime() {
+        return nextRetryTime;
+    }
+
+    public void setNextRetryTime(Date nextRetryTime) {
+        this.nextRetryTime = nextRetryTime;
+    }
+
+    public String getOwnerNode() {
+        return ownerNode;
+    }
+
+    public void setOwnerNode(String ownerNode) {
+        this.ownerNode = ownerNode;
+    }
+
+    public Date getLeaseExpireTime() {
+        return leaseExpireTime;
+    }
+
+    public void setLeaseExpireTime(Date leaseExpireTime) {
+        this.leaseExpireTime = leaseExpireTime;
+    }
+
+    public Date getCreatedTime() {
+        return createdTime;
+    }
+
+    public void setCreatedTime(Date createdTime) {
+        this.createdTime = createdTime;
+    }
+
+    public Date getUpdatedTime() {
+        return updatedTime;
+    }
+
+    public void setUpdatedTime(Date updatedTime) {
+        this.updatedTime = updatedTime;
+    }
+}
@@ -0,0 +1,47 @@
+package com.webank.wecube.platform.workflow.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.workflow.entity.ServiceInvocationEventOutboxEntity;
+
+public interface ServiceInvocationEventOutboxRepository
+        extends JpaRepository<ServiceInvocationEventOutboxEntity, String> {
+
+    @Query("select e from ServiceInvocationEventOutboxEntity e where e.status = :status and e.leaseExpireTime < :now and (e.nextRetryTime is null or e.nextRetryTime <= :now) order by e.createdTime")
+    List<ServiceInvocationEventOutboxEntity> findExpiredEvents(@Param("status") String status,
+            @Param("now") Date now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update ServiceInvocationEventOutboxEntity e set e.ownerNode = :ownerNode, e.leaseExpireTime = :leaseExpireTime, e.updatedTime = :updatedTime where e.id = :id and e.leaseExpireTime = :lastLeaseExpireTime")
+    int claimEvent(@Param("id") String id, @Param("lastLeaseExpireTime") Date lastLeaseExpireTime,
+            @Param("ownerNode") String ownerNode, @Param("leaseExpireTime") Date leaseExpireTime,
+            @Param("updatedTime") Date updatedTime);
+
+    @Transactional
+    @Modifying
+    @Query("update ServiceInvocationEventOutboxEntity e set e.leaseExpireTime = :leaseExpireTime where e.id in :ids and e.ownerNode = :ownerNode")
+    int renewLeases(@Param("ids") Collection<String> ids, @Param("ownerNode") String ownerNode,
+            @Param("leaseExpireTime") Date leaseExpireTime);
+
+    @Transactional
+    @Modifying
+    @Query("update ServiceInvocationEventOutboxEntity e set e.status = :status, e.retryTimes = :retryTimes, e.nextRetryTime = :nextRetryTime, e.updatedTime = :updatedTime where e.id = :id")
+    int updateEventStatus(@Param("id") String id, @Param("status") String status,
+            @Param("retryTimes") int retryTimes, @Param("nextRetryTime") Date nextRetryTime,
+            @Param("updatedTime") Date updatedTime);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ServiceInvocationEventOutboxEntity e where e.id = :id")
+    int deleteEvent(@Param("id") String id);
+}
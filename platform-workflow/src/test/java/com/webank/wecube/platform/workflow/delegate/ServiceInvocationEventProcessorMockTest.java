@@ -0,0 +1,125 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEventImpl;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServiceInvocationEventProcessorMockTest {
+    @Mock
+    private ServiceInvocationEventResolver serviceInvocationEventResolver;
+    @Mock
+    private ServiceInvocationEventPublisher serviceInvocationEventPublisher;
+
+    private ScheduledExecutorService retryScheduler = mock(ScheduledExecutorService.class);
+
+    @InjectMocks
+    private ServiceInvocationEventProcessor processor;
+
+    private ServiceInvocationEventImpl event = new ServiceInvocationEventImpl();
+
+    @Before
+    public void setUp() throws Exception {
+        ReflectionTestUtils.setField(processor, "maxRetryTimes", 3);
+        ReflectionTestUtils.setField(processor, "retryInitialDelayMillis", 1000L);
+        ReflectionTestUtils.setField(processor, "retryMaxDelayMillis", 60000L);
+        ReflectionTestUtils.setField(processor, "retryScheduler", retryScheduler);
+        drainQueue();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        drainQueue();
+    }
+
+    @Test
+    public void givenRetryTimesWhenCalculateDelayThenShouldBackOffExponentiallyUpToMaxDelay() {
+        Assert.assertEquals(1000L, processor.calculateRetryDelayMillis(1));
+        Assert.assertEquals(2000L, processor.calculateRetryDelayMillis(2));
+        Assert.assertEquals(4000L, processor.calculateRetryDelayMillis(3));
+        Assert.assertEquals(32000L, processor.calculateRetryDelayMillis(6));
+        Assert.assertEquals(60000L, processor.calculateRetryDelayMillis(7));
+        Assert.assertEquals(60000L, processor.calculateRetryDelayMillis(100));
+    }
+
+    @Test
+    public void givenFailedEventWhenProcessThenShouldScheduleRetriesWithBackoff() {
+        doThrow(new IllegalStateException("plugin unavailable")).when(serviceInvocationEventResolver)
+                .resolveServiceInvocationEvent(event);
+
+        processor.processServiceInvocationEvent(event);
+        processor.processServiceInvocationEvent(event);
+
+        verify(serviceInvocationEventPublisher).retryLater(event, 1000L);
+        verify(serviceInvocationEventPublisher).retryLater(event, 2000L);
+        verify(retryScheduler).schedule(any(Runnable.class), eq(1000L), eq(TimeUnit.MILLISECONDS));
+        verify(retryScheduler).schedule(any(Runnable.class), eq(2000L), eq(TimeUnit.MILLISECONDS));
+        verify(serviceInvocationEventPublisher, never()).fail(event);
+        verify(serviceInvocationEventPublisher, never()).complete(event);
+    }
+
+    @Test
+    public void givenRetriesExhaustedWhenProcessThenShouldFailEvent() {
+        event.setRetryTimes(3);
+        doThrow(new IllegalStateException("plugin unavailable")).when(serviceInvocationEventResolver)
+                .resolveServiceInvocationEvent(event);
+
+        processor.processServiceInvocationEvent(event);
+
+        verify(serviceInvocationEventPublisher).fail(event);
+        verify(retryScheduler, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void givenEventDeferredWhenQueueFullThenShouldRequeueLaterWithoutCountingRetry() {
+        processor.deferEvent(event);
+
+        verify(retryScheduler).schedule(any(Runnable.class), eq(1000L), eq(TimeUnit.MILLISECONDS));
+        Assert.assertEquals(0, event.getRetryTimes());
+        verify(serviceInvocationEventPublisher, never()).retryLater(event, 1000L);
+    }
+
+    @Test
+    public void givenResolvedEventWhenProcessThenShouldCompleteEvent() {
+        processor.processServiceInvocationEvent(event);
+
+        verify(serviceInvocationEventPublisher).complete(event);
+    }
+
+    @Test
+    public void givenExpiredOutboxEventsWhenRecoverThenShouldRenewLeasesAndRequeueClaimedEvents() throws Exception {
+        when(serviceInvocationEventPublisher.claimExpiredEvents(100)).thenReturn(Arrays.asList(event));
+
+        processor.recoverOutboxEvents();
+
+        verify(serviceInvocationEventPublisher).renewLeases();
+        Assert.assertSame(event, QueueHolder.pollServiceInvocationEvent(0, TimeUnit.MILLISECONDS));
+    }
+
+    private static void drainQueue() throws InterruptedException {
+        while (QueueHolder.pollServiceInvocationEvent(0, TimeUnit.MILLISECONDS) != null) {
+            // drop the events left by other tests
+        }
+    }
+}
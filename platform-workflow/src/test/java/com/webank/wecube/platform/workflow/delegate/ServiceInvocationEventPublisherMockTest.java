@@ -0,0 +1,200 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webank.wecube.platform.workflow.entity.ServiceInvocationEventOutboxEntity;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEventImpl;
+import com.webank.wecube.platform.workflow.repository.ServiceInvocationEventOutboxRepository;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServiceInvocationEventPublisherMockTest {
+    @Mock
+    private ServiceInvocationEventOutboxRepository serviceInvocationEventOutboxRepository;
+
+    @InjectMocks
+    private ServiceInvocationEventPublisher publisher;
+
+    @Before
+    public void setUp() throws Exception {
+        ReflectionTestUtils.setField(publisher, "outboxEnabled", true);
+        ReflectionTestUtils.setField(publisher, "enqueueTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(publisher, "outboxLeaseSeconds", 600L);
+        drainQueue();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        drainQueue();
+    }
+
+    @Test
+    public void givenTransactionWhenPublishThenShouldStoreLeasedEventAndEnqueueAfterCommit() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        ServiceInvocationEventImpl event = newEvent("inst-1");
+        publisher.publish(event);
+
+        ArgumentCaptor<ServiceInvocationEventOutboxEntity> captor = ArgumentCaptor
+                .forClass(ServiceInvocationEventOutboxEntity.class);
+        verify(serviceInvocationEventOutboxRepository).save(captor.capture());
+        ServiceInvocationEventOutboxEntity entity = captor.getValue();
+        Assert.assertEquals(event.getEventId(), entity.getId());
+        Assert.assertEquals(ServiceInvocationEventOutboxEntity.STATUS_PENDING, entity.getStatus());
+        Assert.assertNotNull(entity.getOwnerNode());
+        Assert.assertTrue(entity.getLeaseExpireTime().after(new Date()));
+        Assert.assertEquals(0, QueueHolder.getServiceInvocationEventQueueSize());
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        Assert.assertSame(event, QueueHolder.pollServiceInvocationEvent(0, TimeUnit.MILLISECONDS));
+        publisher.complete(event);
+        verify(serviceInvocationEventOutboxRepository).deleteEvent(event.getEventId());
+    }
+
+    @Test
+    public void givenRolledBackTransactionWhenPublishThenShouldNotEnqueueNorRenewLease() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        ServiceInvocationEventImpl event = newEvent("inst-1");
+        publisher.publish(event);
+
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        publisher.renewLeases();
+
+        Assert.assertEquals(0, QueueHolder.getServiceInvocationEventQueueSize());
+        verify(serviceInvocationEventOutboxRepository, never()).renewLeases(anyCollection(), anyString(),
+                any(Date.class));
+    }
+
+    @Test
+    public void givenQueueFullWithoutOutboxWhenPublishThenShouldDeferEventInsteadOfBlocking() throws Exception {
+        ReflectionTestUtils.setField(publisher, "outboxEnabled", false);
+        ReflectionTestUtils.setField(publisher, "enqueueTimeoutMillis", 10L);
+        List<ServiceInvocationEvent> deferredEvents = new ArrayList<>();
+        publisher.setDeferredEventHandler(deferredEvents::add);
+        fillQueue();
+
+        TransactionSynchronizationManager.initSynchronization();
+        ServiceInvocationEventImpl event = newEvent("inst-1");
+        publisher.publish(event);
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        Assert.assertEquals(Collections.singletonList(event), deferredEvents);
+        verify(serviceInvocationEventOutboxRepository, never()).save(any(ServiceInvocationEventOutboxEntity.class));
+    }
+
+    @Test
+    public void givenQueueFullWithOutboxWhenPublishThenShouldLeaveEventToRecovery() throws Exception {
+        ReflectionTestUtils.setField(publisher, "enqueueTimeoutMillis", 10L);
+        fillQueue();
+
+        ServiceInvocationEventImpl event = newEvent("inst-1");
+        publisher.publish(event);
+
+        ArgumentCaptor<Date> leaseCaptor = ArgumentCaptor.forClass(Date.class);
+        verify(serviceInvocationEventOutboxRepository).renewLeases(eq(Collections.singletonList(event.getEventId())),
+                anyString(), leaseCaptor.capture());
+        Assert.assertFalse(leaseCaptor.getValue().after(new Date()));
+
+        publisher.renewLeases();
+        verify(serviceInvocationEventOutboxRepository).renewLeases(anyCollection(), anyString(), any(Date.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenExpiredLeasesWhenClaimThenShouldRecoverOnlyClaimedEventsAndRenewTheirLeases() throws Exception {
+        ServiceInvocationEventOutboxEntity claimed = newOutboxEntity("evt-1", 2);
+        ServiceInvocationEventOutboxEntity lost = newOutboxEntity("evt-2", 0);
+        when(serviceInvocationEventOutboxRepository.findExpiredEvents(
+                eq(ServiceInvocationEventOutboxEntity.STATUS_PENDING), any(Date.class), any(Pageable.class)))
+                        .thenReturn(Arrays.asList(claimed, lost));
+        when(serviceInvocationEventOutboxRepository.claimEvent(eq("evt-1"), eq(claimed.getLeaseExpireTime()),
+                anyString(), any(Date.class), any(Date.class))).thenReturn(1);
+        when(serviceInvocationEventOutboxRepository.claimEvent(eq("evt-2"), eq(lost.getLeaseExpireTime()),
+                anyString(), any(Date.class), any(Date.class))).thenReturn(0);
+
+        List<ServiceInvocationEvent> events = publisher.claimExpiredEvents(10);
+
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals("evt-1", events.get(0).getEventId());
+        Assert.assertEquals("inst-evt-1", events.get(0).getInstanceId());
+        Assert.assertEquals(2, events.get(0).getRetryTimes());
+
+        publisher.renewLeases();
+        ArgumentCaptor<Collection<String>> idsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(serviceInvocationEventOutboxRepository).renewLeases(idsCaptor.capture(), anyString(),
+                any(Date.class));
+        Assert.assertEquals(Arrays.asList("evt-1"), idsCaptor.getValue());
+    }
+
+    private void completeTransaction(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private ServiceInvocationEventOutboxEntity newOutboxEntity(String eventId, int retryTimes) throws Exception {
+        ServiceInvocationEventOutboxEntity entity = new ServiceInvocationEventOutboxEntity();
+        entity.setId(eventId);
+        entity.setStatus(ServiceInvocationEventOutboxEntity.STATUS_PENDING);
+        entity.setRetryTimes(retryTimes);
+        entity.setOwnerNode("crashed-node");
+        entity.setLeaseExpireTime(new Date(System.currentTimeMillis() - 1000L));
+        entity.setEventData(new ObjectMapper().writeValueAsString(newEvent("inst-" + eventId)));
+        return entity;
+    }
+
+    private ServiceInvocationEventImpl newEvent(String instanceId) {
+        ServiceInvocationEventImpl event = new ServiceInvocationEventImpl();
+        event.setInstanceId(instanceId);
+        event.setEventSourceId("task-1");
+        return event;
+    }
+
+    private static void fillQueue() throws InterruptedException {
+        while (QueueHolder.offerServiceInvocationEvent(new ServiceInvocationEventImpl(), 0, TimeUnit.MILLISECONDS)) {
+            // occupy the whole queue
+        }
+    }
+
+    private static void drainQueue() throws InterruptedException {
+        while (QueueHolder.pollServiceInvocationEvent(0, TimeUnit.MILLISECONDS) != null) {
+            // drop the events left by other tests
+        }
+    }
+}